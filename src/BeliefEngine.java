@@ -0,0 +1,19 @@
+/** Class: BeliefEngine.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This interface - the BeliefEngine interface.
+ *  Purpose - Anything that keeps the AI's perceptions (the probabilities of pits and wastes on the board perceived by AI)
+ *  up to date after every move. MissionEngine.java invokes propagate() once per command, whichever engine is in use:
+ *  BeliefPropagator.java (the original heuristic), ExactBeliefEngine.java (exact model counting) or
+ *  SamplingBeliefEngine.java (Markov chain Monte Carlo estimates).
+ */
+public interface BeliefEngine {
+
+	/**
+	 * Method: propagate
+	 * Brings the AI's perceptions up to date with everything that changed on either board since the last invocation.
+	 */
+	void propagate();
+}
@@ -0,0 +1,107 @@
+/** Class: BeliefPropagator.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the BeliefPropagator class.
+ *  Purpose - The HEURISTIC belief model (see BeliefEngine.java and MissionEngine.BeliefModel). Keeps the AI's perceptions
+ *  (the board perceived by AI) up to date after every move, by re-evaluating only those rooms whose inputs actually changed.
+ *  Its probabilities are educated guesses; ExactBeliefEngine.java computes the true ones instead.
+ *
+ *  Every room's probability of risk is a function of a handful of nearby rooms: an explored room assigns probabilities
+ *  to its unexplored neighbors (see CellAsPerceivedByAI.assignProbabilityToNeighbors()) based on its own perceptions
+ *  and on how many of its neighbors are guaranteed safe, and an unexplored room adjusts its own probabilities based
+ *  on the perceptions of its neighbors (see CellAsPerceivedByAI.modifyProbabilityIfSurroundedByDanger()).
+ *  So whenever a room changes, only that room and its neighbors need to be re-evaluated. Both boards keep a journal
+ *  of their changed rooms (see Board.pollChangedRoom()), which this class drains until nothing changes any more.
+ *  The cost of a move is thus proportional to the no. of rooms it affects, not to the size of the board.
+ *
+ *  The one exception is the stipulation on the no. of wastes (see CellAsPerceivedByAI.allWastesAccountedFor()),
+ *  which depends on the whole board. Whenever it starts to hold, every explored room with smoke is re-evaluated.
+ */
+public class BeliefPropagator implements BeliefEngine {
+	private final Board board;		//the Board object containing Cell objects, i.e. complete information
+	private final Board boardAI;	//the Board object containing CellAsPerceivedByAI objects
+	private boolean allWastesAccountedFor;	//whether all wastes were accounted for as of the last re-evaluation
+
+	/**
+	 * 2-arg constructor.
+	 * @param board the Board object containing Cell objects.
+	 * @param boardAI the Board object containing CellAsPerceivedByAI objects, of the same dimensions.
+	 */
+	public BeliefPropagator(Board board, Board boardAI) {
+		this.board = board;
+		this.boardAI = boardAI;
+	}
+
+	/**
+	 * Method: propagate
+	 * Brings the AI's perceptions up to date with everything that changed on either board since the last invocation.
+	 */
+	@Override
+	public void propagate() {
+		/* First, changes to the board with complete information: a waste killed, the victim given aid, or a room shown on the GUI.
+		 * A killed waste also changes the smoke of the neighboring rooms. So for every such room, refresh the perceptions
+		 * of the room and its neighbors via the setExplored() method -- provided that they have been explored. */
+		for(int k = board.pollChangedRoom(); k >= 0; k = board.pollChangedRoom()) {
+			refreshIfExplored(boardAI.getRoomAI(k));
+			for(CellAsPerceivedByAI n : boardAI.getRoomAI(k).getNeighbors()) {
+				if(n != null) refreshIfExplored(n);
+			}
+		}
+
+		/* Then, re-evaluate every room that changed on the board perceived by AI, along with its neighbors. Re-evaluating a room
+		 * may change some more rooms, which are journaled in turn, so keep going until the journal is empty. */
+		while(true) {
+			int c = boardAI.pollChangedRoom();
+			if(c < 0) {
+				if(!this.checkAllWastesAccountedFor()) break;
+				continue;
+			}
+			CellAsPerceivedByAI r = boardAI.getRoomAI(c);
+			reevaluate(r);
+			for(CellAsPerceivedByAI n : r.getNeighbors()) {
+				if(n != null) reevaluate(n);
+			}
+		}
+	}
+
+	/**
+	 * Method: checkAllWastesAccountedFor
+	 * Checks whether all wastes have just become accounted for, in which case every explored room with smoke is re-evaluated.
+	 * @return true if any room was re-evaluated, false otherwise.
+	 */
+	private boolean checkAllWastesAccountedFor() {
+		/* Same condition as CellAsPerceivedByAI.allWastesAccountedFor() */
+		int wastesRemaining = board.getwastesRemaining();
+		boolean accountedFor = wastesRemaining == 0 || boardAI.getNumCertainWastes() >= wastesRemaining;
+		boolean isNew = accountedFor && !this.allWastesAccountedFor;
+		this.allWastesAccountedFor = accountedFor;
+		if(!isNew) return false;
+
+		BitBoard explored = boardAI.getExplored(), stench = boardAI.getStench();
+		for(int i = explored.nextSetBit(0); i >= 0; i = explored.nextSetBit(i + 1)) {
+			if(stench.get(i)) reevaluate(boardAI.getRoomAI(i));
+		}
+		return true;
+	}
+
+	/**
+	 * Method: reevaluate
+	 * @param r a room on the board perceived by AI whose probabilities (if unexplored) or whose neighbors' probabilities
+	 * (if explored) are to be brought up to date.
+	 */
+	private void reevaluate(CellAsPerceivedByAI r) {
+		if(r.isExplored()) r.assignProbabilityToNeighbors(board, boardAI);
+		else r.modifyProbabilityIfSurroundedByDanger(board, boardAI);
+	}
+
+	/**
+	 * Method: refreshIfExplored
+	 * @param r a room on the board perceived by AI. If it has been explored, its perceptions are copied over again from the
+	 * board with complete information.
+	 */
+	private void refreshIfExplored(CellAsPerceivedByAI r) {
+		if(r.isExplored()) r.setExplored(true, board.getRoom(r.getLocation()));
+	}
+}
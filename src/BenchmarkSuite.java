@@ -0,0 +1,480 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/** Class: BenchmarkSuite.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the BenchmarkSuite class.
+ *  Purpose - Measures the hot paths of the robot AI, so that performance regressions can be tracked from one commit to the next:
+ *  Pathfind.ucs(), Player.getAction(), Player.getLeastRiskyRooms(), CellAsPerceivedByAI.assignProbabilityToNeighbors(),
+ *  Board construction, SolvabilityOracle.search(), ExpectimaxPolicy.decide(), MCTSPolicy.decide(), and a full headless
+ *  mission (AI in control from start to finish).
+ *
+ *  Each benchmark runs on every environment: the boards of the tutorial, both practice drills and both final mission
+ *  environments, plus seeded random boards. Apart from Board construction and the full mission, a benchmark is measured
+ *  in the middle of a mission, i.e. after the AI has made its first few moves.
+ *
+ *  Works like a (much simpler) JMH harness: a few warmup iterations followed by a few measurement iterations of a fixed
+ *  duration each, reporting the throughput (ops/s, mean +- standard deviation over the measurement iterations),
+ *  the average time per op, the no. of bytes allocated per op (measured by the JVM for the current thread,
+ *  like JMH's gc profiler does) and the no. of garbage collections. The AI's decision (Player.getAction() and what it
+ *  relies on) runs on buffers owned by the Player and its Pathfind, so once warmed up it must not allocate at all:
+ *  any benchmark listed in ALLOCATION_FREE that allocates even a single byte per op in the measurement iterations
+ *  is reported as a failure, and the suite exits with status 1.
+ *
+ *  Usage: java BenchmarkSuite [-f regex] [-t millisPerIteration] [-csv file]
+ *  -f only runs the benchmarks whose name (e.g. "Pathfind.ucs:finalHard") matches the regex.
+ *  -csv also appends the results to the given file, one line per benchmark, for comparison across commits.
+ */
+public class BenchmarkSuite {
+	public static final int WARMUP_ITERATIONS = 3;
+	public static final int MEASUREMENT_ITERATIONS = 5;
+	public static final int MID_GAME_MOVES = 6;		//no. of AI moves made before measuring a benchmark in the middle of a mission
+	public static final int NUM_RANDOM_BOARDS = 64;	//no. of random boards the "random" environment cycles through
+	public static final long RANDOM_SEED = 20161124L;
+
+	/* The benchmarks that must allocate nothing per op, once warmed up (see the class comment). */
+	public static final String[] ALLOCATION_FREE = {"Pathfind.ucs", "Player.getLeastRiskyRooms", "Player.getAction",
+			"SolvabilityOracle.search", "ExpectimaxPolicy.decide"};
+
+	/* The environments, i.e. board layouts. A null layout means seeded random boards. */
+	public static final String[] ENVIRONMENTS = {"tutorial", "drillHuman", "drillAI", "finalEasy", "finalHard", "random"};
+	private static final String[][][] LAYOUTS = {Tutorial.LAYOUT, PracticeDrillHuman.LAYOUT, PracticeDrillAI.LAYOUT,
+			FinalMission.EASY_ENVIRONMENT, FinalMission.HARD_ENVIRONMENT, null};
+
+	/* Results are added up here so that the JIT compiler cannot optimize away the work being measured. */
+	public static volatile long sink;
+
+	/**
+	 * Inner interface Operation. A single op of a benchmark.
+	 */
+	public interface Operation {
+		/**
+		 * Method: run
+		 * @return any number that depends on the result of the op (see sink).
+		 */
+		long run();
+	}
+
+	/**
+	 * Inner interface Benchmark. Sets up the op to be measured in a given environment.
+	 */
+	public interface Benchmark {
+		/**
+		 * Method: setUp
+		 * @param layout the board layout, or null for seeded random boards.
+		 * @return the op to measure.
+		 */
+		Operation setUp(String[][] layout);
+	}
+
+	/**
+	 * Inner class Result. The outcome of measuring one benchmark in one environment.
+	 */
+	public static class Result {
+		public final String name;
+		public final double[] opsPerSecond = new double[MEASUREMENT_ITERATIONS];	//per measurement iteration
+		public long ops, nanos, allocatedBytes, gcCount;	//totals over all measurement iterations
+
+		public Result(String name) {
+			this.name = name;
+		}
+
+		public double getMeanOpsPerSecond() {
+			double sum = 0;
+			for(double x : opsPerSecond) sum += x;
+			return sum / opsPerSecond.length;
+		}
+
+		public double getStdDevOpsPerSecond() {
+			double mean = getMeanOpsPerSecond(), sum = 0;
+			for(double x : opsPerSecond) sum += (x - mean) * (x - mean);
+			return Math.sqrt(sum / Math.max(1, opsPerSecond.length - 1));
+		}
+
+		public double getNanosPerOp() {
+			return (double)nanos / ops;
+		}
+
+		/**
+		 * Method: getBytesPerOp
+		 * @return the average no. of bytes allocated per op, or -1 if the JVM can't tell.
+		 */
+		public double getBytesPerOp() {
+			return allocatedBytes < 0 ? -1 : (double)allocatedBytes / ops;
+		}
+	}
+	//end class Result
+
+	/**
+	 * Method: midGame
+	 * @param layout the board layout, or null for a random board
+	 * @param seed the seed of the mission
+	 * @param moves the no. of moves the AI makes before the mission is handed back
+	 * @return a mission (started in room (0,0), single player, non-aggressive AI that never acts randomly) in which the AI has
+	 * made the given no. of moves, or null if the mission was over (or the AI had no move left) before that.
+	 */
+	public static MissionEngine midGame(String[][] layout, long seed, int moves) {
+		MissionEngine engine = new MissionEngine(seed);
+		engine.setBoard(layout != null ? new Board(layout) : engine.createRandomBoard(true));
+		Cell[] startRooms = engine.setStartRoomAndBoardAI(true);
+		engine.createPlayers(startRooms[0], (CellAsPerceivedByAI)startRooms[1], "Robot", "N/A", false, false, true);
+		engine.setPercentRandom(0);
+		for(int i = 0; i < moves && !engine.isOver(); i++) {
+			if(engine.apply(' ').aiCommand == RobotPolicy.NO_MOVE) return null;	//the AI has no move left
+		}
+		return engine.isOver() ? null : engine;
+	}
+
+	/**
+	 * Method: midGames
+	 * @param layout the board layout, or null for random boards
+	 * @return one mission in the middle of play (see midGame()) for a fixed layout, or NUM_RANDOM_BOARDS of them for random boards.
+	 */
+	public static MissionEngine[] midGames(String[][] layout) {
+		ArrayList<MissionEngine> ret = new ArrayList<>();
+		int numBoards = layout == null ? NUM_RANDOM_BOARDS : 1;
+		for(long seed = RANDOM_SEED; ret.size() < numBoards; seed++) {
+			MissionEngine engine = midGame(layout, seed, MID_GAME_MOVES);
+			if(engine != null) ret.add(engine);
+			else if(layout != null) throw new IllegalStateException("The mission is over within " + MID_GAME_MOVES + " moves");
+		}
+		return ret.toArray(new MissionEngine[0]);
+	}
+
+	/**
+	 * Method: playMission
+	 * Plays a whole mission on the given engine with the AI in control, as MonteCarloRunner.playMission() does.
+	 * @return the no. of moves made.
+	 */
+	public static int playMission(MissionEngine engine, String[][] layout) {
+		engine.setBoard(layout != null ? new Board(layout) : engine.createRandomBoard(true));
+		Cell[] startRooms = engine.setStartRoomAndBoardAI(true);
+		engine.createPlayers(startRooms[0], (CellAsPerceivedByAI)startRooms[1], "Robot", "N/A", false, false, true);
+		engine.setPercentRandom(0);
+		while(!engine.isOver() && engine.getNumOfMoves() < MonteCarloRunner.MAX_MOVES) {
+			if(engine.apply(' ').aiCommand == RobotPolicy.NO_MOVE) break;	//the AI has no move left. The mission is abandoned.
+		}
+		return engine.getNumOfMoves();
+	}
+
+	/**
+	 * Method: getBenchmarkNames
+	 * @return every benchmark by name, in the order they are run.
+	 */
+	public static String[] getBenchmarkNames() {
+		return new String[]{"Board.<init>", "Pathfind.ucs", "Player.getLeastRiskyRooms",
+				"CellAsPerceivedByAI.assignProbabilityToNeighbors", "ExactBeliefEngine.propagate",
+				"SamplingBeliefEngine.propagate", "Player.getAction", "SolvabilityOracle.search", "ExpectimaxPolicy.decide", "MCTSPolicy.decide",
+				"mission"};
+	}
+
+	/**
+	 * Method: getBenchmark
+	 * @param name the name of a benchmark (see getBenchmarkNames())
+	 * @return the benchmark
+	 */
+	public static Benchmark getBenchmark(String name) {
+		switch(name) {
+		case "Board.<init>":
+			return layout -> {
+				if(layout != null) return () -> new Board(layout).getwastesRemaining();
+				MissionEngine engine = new MissionEngine(RANDOM_SEED);
+				return () -> engine.createRandomBoard(true).getwastesRemaining();
+			};
+
+		case "Pathfind.ucs":
+			/* From the AI's room to every other room on the board, in turn, so that each search is to a different destination
+			 * (and so that plans remembered by Pathfind don't apply). Rooms with no safe path to them are included. */
+			return layout -> {
+				MissionEngine[] engines = midGames(layout);
+				Pathfind pf = new Pathfind();
+				ArrayList<CellAsPerceivedByAI[]> searches = new ArrayList<>();	//{root, destination} pairs
+				ArrayList<Integer> dirs = new ArrayList<>();
+				ArrayList<Board> boards = new ArrayList<>();
+				for(MissionEngine engine : engines) {
+					Board boardAI = engine.getBoardPerceivedByAI();
+					CellAsPerceivedByAI root = boardAI.getRoomAI(engine.getH1().getCurrentRoom().getLocation());
+					for(int i = 0; i < boardAI.getRows() * boardAI.getCols(); i++) {
+						if(i == root.getLocation()) continue;
+						searches.add(new CellAsPerceivedByAI[]{root, boardAI.getRoomAI(i)});
+						dirs.add(engine.getH1().getDir());
+						boards.add(boardAI);
+					}
+				}
+				int[] next = {0};
+				return () -> {
+					int k = next[0];
+					next[0] = (k + 1) % searches.size();
+					ArrayList<CellAsPerceivedByAI> path = pf.ucs(searches.get(k)[0], searches.get(k)[1], boards.get(k), dirs.get(k));
+					return path == null ? -1 : path.size();
+				};
+			};
+
+		case "Player.getLeastRiskyRooms":
+			return layout -> {
+				MissionEngine[] engines = midGames(layout);
+				int[] next = {0};
+				return () -> {
+					MissionEngine engine = engines[next[0]];
+					next[0] = (next[0] + 1) % engines.length;
+					return engine.getH1().getLeastRiskyRooms(engine.getBoard(), engine.getBoardPerceivedByAI()).size();
+				};
+			};
+
+		case "CellAsPerceivedByAI.assignProbabilityToNeighbors":
+			/* For every room the AI has explored, in turn. */
+			return layout -> {
+				MissionEngine[] engines = midGames(layout);
+				ArrayList<CellAsPerceivedByAI> rooms = new ArrayList<>();
+				ArrayList<MissionEngine> roomEngines = new ArrayList<>();
+				for(MissionEngine engine : engines) {
+					BitBoard explored = engine.getBoardPerceivedByAI().getExplored();
+					for(int i = explored.nextSetBit(0); i >= 0; i = explored.nextSetBit(i + 1)) {
+						rooms.add(engine.getBoardPerceivedByAI().getRoomAI(i));
+						roomEngines.add(engine);
+					}
+				}
+				int[] next = {0};
+				return () -> {
+					int k = next[0];
+					next[0] = (k + 1) % rooms.size();
+					MissionEngine engine = roomEngines.get(k);
+					rooms.get(k).assignProbabilityToNeighbors(engine.getBoard(), engine.getBoardPerceivedByAI());
+					return rooms.get(k).getLocation();
+				};
+			};
+
+		case "ExactBeliefEngine.propagate":
+			/* A fresh engine every time, so that every op recomputes the probabilities of the whole frontier from scratch. */
+			return layout -> {
+				MissionEngine[] engines = midGames(layout);
+				int[] next = {0};
+				return () -> {
+					MissionEngine engine = engines[next[0]];
+					next[0] = (next[0] + 1) % engines.length;
+					new ExactBeliefEngine(engine.getBoard(), engine.getBoardPerceivedByAI()).propagate();
+					return engine.getBoardPerceivedByAI().getVersion();
+				};
+			};
+
+		case "SamplingBeliefEngine.propagate":
+			/* Likewise, with the default sample budget. */
+			return layout -> {
+				MissionEngine[] engines = midGames(layout);
+				SplittableRandom random = new SplittableRandom(RANDOM_SEED);
+				int[] next = {0};
+				return () -> {
+					MissionEngine engine = engines[next[0]];
+					next[0] = (next[0] + 1) % engines.length;
+					new SamplingBeliefEngine(engine.getBoard(), engine.getBoardPerceivedByAI(), SamplingBeliefEngine.DEFAULT_NUM_SAMPLES,
+							SamplingBeliefEngine.DEFAULT_NUM_CHAINS, random.split()).propagate();
+					return engine.getBoardPerceivedByAI().getVersion();
+				};
+			};
+
+		case "Player.getAction":
+			return layout -> {
+				MissionEngine[] engines = midGames(layout);
+				int[] next = {0};
+				return () -> {
+					MissionEngine engine = engines[next[0]];
+					next[0] = (next[0] + 1) % engines.length;
+					return engine.getH1().getAction(engine.getBoard(), engine.getBoardPerceivedByAI(), 0);
+				};
+			};
+
+		case "SolvabilityOracle.search":
+			/* The whole board from the start room, without the memo. */
+			return layout -> {
+				Board[] boards = new Board[layout == null ? NUM_RANDOM_BOARDS : 1];
+				MissionEngine engine = new MissionEngine(RANDOM_SEED);
+				for(int i = 0; i < boards.length; i++) boards[i] = layout != null ? new Board(layout) : engine.createRandomBoard(true);
+				SolvabilityOracle oracle = new SolvabilityOracle();
+				int[] next = {0};
+				return () -> {
+					Board board = boards[next[0]];
+					next[0] = (next[0] + 1) % boards.length;
+					return oracle.search(board, 0, Board.EAST, SolvabilityOracle.DISINFECTANTS);
+				};
+			};
+
+		case "ExpectimaxPolicy.decide":
+			/* A search to the full default depth, without a time limit, so that every op does the same work on any machine. */
+			return layout -> {
+				MissionEngine[] engines = midGames(layout);
+				ExpectimaxPolicy policy = new ExpectimaxPolicy();
+				policy.setTimeBudget(0);
+				int[] next = {0};
+				return () -> {
+					MissionEngine engine = engines[next[0]];
+					next[0] = (next[0] + 1) % engines.length;
+					return policy.decide(engine.getH1(), engine.getBoard(), engine.getBoardPerceivedByAI());
+				};
+			};
+
+		case "MCTSPolicy.decide":
+			/* A fixed no. of simulations per tree, without a time limit, so that every op does the same work on any machine
+			 * (with as many cores). */
+			return layout -> {
+				MissionEngine[] engines = midGames(layout);
+				MCTSPolicy policy = new MCTSPolicy();
+				policy.setTimeBudget(0);
+				policy.setMaxSimulations(64);
+				policy.setSeed(RANDOM_SEED);
+				int[] next = {0};
+				return () -> {
+					MissionEngine engine = engines[next[0]];
+					next[0] = (next[0] + 1) % engines.length;
+					return policy.decide(engine.getH1(), engine.getBoard(), engine.getBoardPerceivedByAI());
+				};
+			};
+
+		case "mission":
+			return layout -> {
+				long[] seed = {RANDOM_SEED};
+				return () -> playMission(new MissionEngine(seed[0]++), layout);
+			};
+
+		default:
+			throw new IllegalArgumentException("No such benchmark: " + name);
+		}
+	}
+
+	/**
+	 * Method: measure
+	 * @param name the name of the benchmark and environment, for the report
+	 * @param op the op to measure
+	 * @param millis the duration of each warmup and measurement iteration
+	 * @return the Result
+	 */
+	public static Result measure(String name, Operation op, long millis) {
+		for(int i = 0; i < WARMUP_ITERATIONS; i++) runFor(op, millis, null, 0);
+		Result result = new Result(name);
+		for(int i = 0; i < MEASUREMENT_ITERATIONS; i++) runFor(op, millis, result, i);
+		return result;
+	}
+
+	/**
+	 * Method: runFor
+	 * Runs the op over and over for the given duration, and adds the numbers to the given Result (if not null).
+	 */
+	private static void runFor(Operation op, long millis, Result result, int iteration) {
+		long gcBefore = getGcCount();
+		long allocatedBefore = getAllocatedBytes();	//last, since getGcCount() allocates
+		long start = System.nanoTime(), deadline = start + millis * 1_000_000L, end;
+		long ops = 0, acc = 0;
+		int batch = 1;
+		do {
+			for(int k = 0; k < batch; k++) acc += op.run();
+			ops += batch;
+			end = System.nanoTime();
+			if(batch < 1024) batch <<= 1;	//check the clock less and less often
+		} while(end < deadline);
+		long allocatedAfter = getAllocatedBytes();
+		sink += acc;
+		if(result == null) return;
+
+		result.opsPerSecond[iteration] = ops * 1e9 / (end - start);
+		result.ops += ops;
+		result.nanos += end - start;
+		if(allocatedBefore < 0 || result.allocatedBytes < 0) result.allocatedBytes = -1;
+		else result.allocatedBytes += allocatedAfter - allocatedBefore;
+		result.gcCount += getGcCount() - gcBefore;
+	}
+
+	/* Looked up once, since looking it up allocates (which would throw off the check of ALLOCATION_FREE). Null if the JVM can't tell. */
+	private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+	private static com.sun.management.ThreadMXBean getAllocationBean() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+		com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+		if(!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) return null;
+		return sunBean;
+	}
+
+	/**
+	 * Method: getAllocatedBytes
+	 * @return the no. of bytes allocated so far by the current thread, or -1 if the JVM can't tell.
+	 */
+	public static long getAllocatedBytes() {
+		if(ALLOCATION_BEAN == null) return -1;
+		return ALLOCATION_BEAN.getCurrentThreadAllocatedBytes();
+	}
+
+	/**
+	 * Method: getGcCount
+	 * @return the total no. of garbage collections so far.
+	 */
+	public static long getGcCount() {
+		long ret = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) ret += Math.max(0, gc.getCollectionCount());
+		return ret;
+	}
+
+	/** Main method. Runs every benchmark in every environment and prints a report to the console. */
+	public static void main(String[] args) throws IOException {
+		Pattern filter = Pattern.compile(".*");
+		long millis = 1000;
+		String csvFile = null;
+		for(int i = 0; i + 1 < args.length; i += 2) {
+			if(args[i].equals("-f")) filter = Pattern.compile(args[i + 1]);
+			else if(args[i].equals("-t")) millis = Long.parseLong(args[i + 1]);
+			else if(args[i].equals("-csv")) csvFile = args[i + 1];
+			else throw new IllegalArgumentException("Usage: java BenchmarkSuite [-f regex] [-t millisPerIteration] [-csv file]");
+		}
+
+		System.out.printf("%d warmup and %d measurement iterations of %d ms each%n", WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS, millis);
+		System.out.printf("%-60s %14s %12s %12s %12s %5s%n", "Benchmark", "ops/s", "+-", "ns/op", "B/op", "gc");
+		ArrayList<Result> results = new ArrayList<>();
+		ArrayList<String> failures = new ArrayList<>();
+		for(String benchmarkName : getBenchmarkNames()) {
+			Benchmark benchmark = getBenchmark(benchmarkName);
+			for(int e = 0; e < ENVIRONMENTS.length; e++) {
+				String name = benchmarkName + ":" + ENVIRONMENTS[e];
+				if(!filter.matcher(name).find()) continue;
+				Result r = measure(name, benchmark.setUp(LAYOUTS[e]), millis);
+				results.add(r);
+				System.out.printf("%-60s %14.1f %12.1f %12.1f %12.1f %5d%n", name, r.getMeanOpsPerSecond(), r.getStdDevOpsPerSecond(),
+						r.getNanosPerOp(), r.getBytesPerOp(), r.gcCount);
+				if(isAllocationFree(benchmarkName) && r.allocatedBytes != 0) failures.add(name);
+			}
+		}
+
+		if(csvFile != null) {
+			try(PrintWriter out = new PrintWriter(new FileWriter(csvFile, true))) {
+				for(Result r : results) {
+					out.printf("%s,%.1f,%.1f,%.1f,%.1f,%d%n", r.name, r.getMeanOpsPerSecond(), r.getStdDevOpsPerSecond(),
+							r.getNanosPerOp(), r.getBytesPerOp(), r.gcCount);
+				}
+			}
+		}
+
+		if(!failures.isEmpty()) {
+			System.out.println("FAILED: allocated memory in the measurement iterations (see ALLOCATION_FREE): " + failures);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Method: isAllocationFree
+	 * @param benchmarkName the name of a benchmark (see getBenchmarkNames())
+	 * @return true if the benchmark is listed in ALLOCATION_FREE.
+	 */
+	public static boolean isAllocationFree(String benchmarkName) {
+		for(String name : ALLOCATION_FREE) {
+			if(name.equals(benchmarkName)) return true;
+		}
+		return false;
+	}
+}
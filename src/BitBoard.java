@@ -0,0 +1,279 @@
+import java.util.Arrays;
+
+/** Class: BitBoard.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the BitBoard class.
+ *  Purpose - A set of rooms on a board, stored as one bit per room. The room at (x, y) is bit number
+ *  (x * cols + y), counting from bit 0 of words[0], so a 6x6 board fits in a single long.
+ *  Board.java keeps one BitBoard per kind of fact (pits, wastes, victim, explored, guaranteed safe, etc.)
+ *  instead of one object per room, which makes copying a whole board as cheap as copying a few longs.
+ *
+ *  NOTE: as in the rest of this game, x refers to the ROW index of a room and y refers to the COLUMN index.
+ */
+public class BitBoard {
+
+	/**
+	 * Inner class Shape. The dimensions of a board along with the masks needed for shifting rooms
+	 * east and west without wrapping around to the next row. Immutable, so it is shared by every BitBoard
+	 * of the same dimensions.
+	 */
+	public static class Shape {
+		public final int rows, cols, size, numWords;
+		final long[] all;			//every room on the board
+		final long[] notFirstCol;	//every room except those in column 0
+		final long[] notLastCol;	//every room except those in column cols - 1
+
+		public Shape(int rows, int cols) {
+			this.rows = rows;
+			this.cols = cols;
+			this.size = rows * cols;
+			this.numWords = (size + 63) >>> 6;
+			this.all = new long[numWords];
+			this.notFirstCol = new long[numWords];
+			this.notLastCol = new long[numWords];
+			for(int i = 0; i < size; i++) {
+				all[i >>> 6] |= 1L << i;
+				if(i % cols != 0) notFirstCol[i >>> 6] |= 1L << i;
+				if(i % cols != cols - 1) notLastCol[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+	//end class Shape
+
+	private final Shape shape;
+	private final long[] words;
+
+	/**
+	 * 1-arg constructor. Creates an empty set of rooms.
+	 * @param shape the dimensions of the board
+	 */
+	public BitBoard(Shape shape) {
+		this.shape = shape;
+		this.words = new long[shape.numWords];
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param other the BitBoard to copy
+	 */
+	public BitBoard(BitBoard other) {
+		this.shape = other.shape;
+		this.words = other.words.clone();
+	}
+
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Method: get
+	 * @param i the index of a room (x * cols + y)
+	 * @return whether the room is in this set
+	 */
+	public boolean get(int i) {
+		return (words[i >>> 6] & (1L << i)) != 0;
+	}
+
+	public void set(int i) {
+		words[i >>> 6] |= 1L << i;
+	}
+
+	public void clear(int i) {
+		words[i >>> 6] &= ~(1L << i);
+	}
+
+	public void set(int i, boolean value) {
+		if(value) set(i);
+		else clear(i);
+	}
+
+	/** Removes every room from this set. */
+	public void clear() {
+		Arrays.fill(words, 0L);
+	}
+
+	/**
+	 * Method: copyFrom
+	 * @param other a BitBoard of the same shape whose rooms replace the rooms in this set.
+	 */
+	public void copyFrom(BitBoard other) {
+		System.arraycopy(other.words, 0, words, 0, words.length);
+	}
+
+	/**
+	 * Method: getWord
+	 * @param u the index of a word, below getShape().numWords
+	 * @return rooms (64 * u) to (64 * u + 63) of this set, as bits 0 to 63. This is how BoardCorpus.java stores boards.
+	 */
+	public long getWord(int u) {
+		return words[u];
+	}
+
+	/**
+	 * Method: setWord
+	 * Replaces rooms (64 * u) to (64 * u + 63) of this set. Bits past the last room of the board are ignored.
+	 * @param u the index of a word, below getShape().numWords
+	 * @param word the rooms, as bits 0 to 63
+	 */
+	public void setWord(int u, long word) {
+		if(u == words.length - 1 && (shape.size & 63) != 0) word &= (1L << shape.size) - 1;
+		words[u] = word;
+	}
+
+	/**
+	 * Method: cardinality
+	 * @return the number of rooms in this set.
+	 */
+	public int cardinality() {
+		int ret = 0;
+		for(long w : words) ret += Long.bitCount(w);
+		return ret;
+	}
+
+	/**
+	 * Method: and
+	 * @param other a BitBoard of the same shape. Only the rooms that are also in it are kept in this set.
+	 * @return this BitBoard
+	 */
+	public BitBoard and(BitBoard other) {
+		for(int u = 0; u < words.length; u++) words[u] &= other.words[u];
+		return this;
+	}
+
+	/**
+	 * Method: or
+	 * @param other a BitBoard of the same shape, whose rooms are added to this set.
+	 * @return this BitBoard
+	 */
+	public BitBoard or(BitBoard other) {
+		for(int u = 0; u < words.length; u++) words[u] |= other.words[u];
+		return this;
+	}
+
+	/**
+	 * Method: andNot
+	 * @param other a BitBoard of the same shape, whose rooms are removed from this set.
+	 * @return this BitBoard
+	 */
+	public BitBoard andNot(BitBoard other) {
+		for(int u = 0; u < words.length; u++) words[u] &= ~other.words[u];
+		return this;
+	}
+
+	/**
+	 * Method: containsAll
+	 * @param other a BitBoard of the same shape
+	 * @return whether every room in the other set is also in this set.
+	 */
+	public boolean containsAll(BitBoard other) {
+		for(int u = 0; u < words.length; u++) {
+			if((other.words[u] & ~words[u]) != 0) return false;
+		}
+		return true;
+	}
+
+	public boolean isEmpty() {
+		for(long w : words) if(w != 0) return false;
+		return true;
+	}
+
+	/**
+	 * Method: nextSetBit
+	 * @param from the index to start looking from (inclusive)
+	 * @return the index of the first room in this set at or after the given index, or -1 if there is none.
+	 * Use it to go thru every room in the set: for(int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1))
+	 */
+	public int nextSetBit(int from) {
+		if(from >= shape.size) return -1;
+		int u = from >>> 6;
+		long w = words[u] & (-1L << from);
+		while(true) {
+			if(w != 0) return (u << 6) + Long.numberOfTrailingZeros(w);
+			if(++u == words.length) return -1;
+			w = words[u];
+		}
+	}
+
+	/**
+	 * Method: expandInto
+	 * Shift-and-mask neighbor expansion. Stores into the given BitBoard every room that is adjacent
+	 * (north, east, south or west) to at least one room in this set. For instance, expanding the set of pits
+	 * gives the set of rooms that have a Temperature reading, and expanding the set of wastes gives the set of rooms
+	 * with smoke.
+	 * @param out the BitBoard to store the result in. Must have the same shape and must not be this BitBoard.
+	 */
+	public void expandInto(BitBoard out) {
+		long[] src = this.words, dst = out.words;
+		int n = words.length;
+		for(int u = 0; u < n; u++) {
+			/* Rooms south of a set room (index + cols) and north of a set room (index - cols). */
+			long w = shiftedUp(src, u, shape.cols) | shiftedDown(src, u, shape.cols);
+			/* Rooms east of a set room (index + 1), unless the shift wrapped around into column 0,
+			 * and rooms west of a set room (index - 1), unless the shift wrapped around into the last column. */
+			w |= shiftedUp(src, u, 1) & shape.notFirstCol[u];
+			w |= shiftedDown(src, u, 1) & shape.notLastCol[u];
+			dst[u] = w & shape.all[u];
+		}
+	}
+
+	/**
+	 * Method: expand
+	 * @return a new BitBoard containing every room adjacent to at least one room in this set. See expandInto().
+	 */
+	public BitBoard expand() {
+		BitBoard ret = new BitBoard(shape);
+		expandInto(ret);
+		return ret;
+	}
+
+	/* Word u of the bit string src shifted towards higher indices by k bits. */
+	private static long shiftedUp(long[] src, int u, int k) {
+		int wordShift = k >>> 6, bitShift = k & 63;
+		int from = u - wordShift;
+		if(from < 0) return 0L;
+		long ret = src[from] << bitShift;
+		if(bitShift != 0 && from > 0) ret |= src[from - 1] >>> (64 - bitShift);
+		return ret;
+	}
+
+	/* Word u of the bit string src shifted towards lower indices by k bits. */
+	private static long shiftedDown(long[] src, int u, int k) {
+		int wordShift = k >>> 6, bitShift = k & 63;
+		int from = u + wordShift;
+		if(from >= src.length) return 0L;
+		long ret = src[from] >>> bitShift;
+		if(bitShift != 0 && from + 1 < src.length) ret |= src[from + 1] << (64 - bitShift);
+		return ret;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof BitBoard && Arrays.equals(words, ((BitBoard)o).words);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(words);
+	}
+
+	/**
+	 * Method: longHashCode
+	 * @return a 64-bit hash of the rooms in this set, for fingerprinting whole mission states (see MissionEngine.getStateHash()),
+	 * where the 32 bits of hashCode() would collide too often across millions of states.
+	 */
+	public long longHashCode() {
+		long h = 0;
+		for(int u = 0; u < words.length; u++) h = mix64(h * 31 + words[u]);
+		return h;
+	}
+
+	/* The finalizer of SplitMix64: every bit of the result depends on every bit of z. */
+	static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
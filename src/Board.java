@@ -9,7 +9,9 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Random;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 public class Board
 {
@@ -21,16 +23,54 @@ public class Board
 	public static int WEST = 3;
 	public static String[] DIRS = {"NORTH", "EAST", "SOUTH", "WEST"};
 
+	/* Default dimensions and hazards of a board. Boards of any other size (and pit / waste density) can be
+	 * created via the 6-arg constructor below. */
 	public static final int ROWS = 6;  // ROWS by COLS cells
 	public static final int COLS = 6;
 	public static final int PITP = 10; //10% of rooms have pits
 	public static final int WASTES = 2; //2 WASTES
 
+	private static final BitBoard.Shape SHAPE = new BitBoard.Shape(ROWS, COLS);	//shared by the masks of every default-sized board
+
 	/* A Board may be composed of Cell objects or CellAsPerceivedByAI objects. The latter is used by the AI
-	 * for logical deductions. See the corresponding class files for more info. */
-	public Cell[][] rooms;
-	public CellAsPerceivedByAI[][] roomsAI;
-	private int[] randomOrdering;	//Used to spawn a Board with randomly placed monsters, pits and gold.
+	 * for logical deductions. See the corresponding class files for more info.
+	 *
+	 * Either way, the state of every room is kept in the bitboards (see BitBoard.java) and int[] arrays below,
+	 * indexed by (x * cols + y). A Cell or CellAsPerceivedByAI object is merely a thin view onto one index of
+	 * this Board, and is only created when first asked for via getRoom() or getRoomAI(). */
+	private final BitBoard.Shape shape;	//the dimensions of this board. See getRows() and getCols().
+	private final boolean perceivedByAI;
+	private final BitBoard pits, wastes, victim, shown;	//which rooms have a pit, a waste, the victim, and hints shown on the GUI
+	/* Which rooms have a Temperature reading ("B") and smoke ("S"). On a normal board these are computed from the pits and wastes
+	 * by neighbor expansion, and kept up to date whenever a pit or waste is added or removed. On a board perceived by AI,
+	 * these are the perceptions copied over from the explored rooms (see setExplored()). */
+	private final BitBoard breeze, stench;
+	/* The perceptions of every room as bit flags (Cell.BREEZE, Cell.STENCH, Cell.WASTES, Cell.PIT and Cell.VICTIM),
+	 * kept in sync with the bitboards above. See Cell.getPerceptions(). */
+	private final byte[] perceptions;
+	private int numPits;	//no. of rooms with a pit, i.e. pits.cardinality()
+	private int numWastes;	//no. of rooms with a waste, i.e. wastes.cardinality()
+
+	/* The following are only used by a board perceived by AI (null otherwise). For unexplored rooms, the pits, wastes and
+	 * victim bitboards above are always empty -- the AI only knows the probabilities below. */
+	private final BitBoard explored;	//rooms explored by a player (either human or AI)
+	private final BitBoard safe;	//rooms with a confirmed 0% chance of both pit and waste. See isGuaranteedSafe().
+	private final int[] probabilityOfPit, probabilityOfWastes;
+	private int numCertainWastes;	//no. of rooms with a confirmed 100% chance of waste. See CellAsPerceivedByAI.allWastesAccountedFor().
+	private int pitPercent = PITP;	//the % of rooms the AI is told hold pits. See setPitPercent().
+	/* Incremented whenever a probability above changes (and with it, possibly the set of safe rooms). Anything computed
+	 * from the AI's beliefs alone, such as a solution path (see Pathfind.java), stays valid for as long as this doesn't change. */
+	private long version;
+	private long zobristHash;	//of what the AI knows, kept up to date by every setter below. See getZobristHash().
+
+	/* Journal of the rooms whose state changed since they were last polled via pollChangedRoom(). Each room appears
+	 * at most once. This is what lets the AI re-evaluate only the rooms affected by a move (see BeliefPropagator.java)
+	 * rather than rescanning the whole board. */
+	private final BitBoard changed;
+	private int[] changedRooms = new int[16];
+	private int numChanged;
+
+	private Cell[] views;	//Cell or CellAsPerceivedByAI views onto this board, created on demand.
 
 	/**
 	 * 2-arg constructor.
@@ -55,51 +95,52 @@ public class Board
 	 */
 	public Board(boolean roomAt_0_0_is_always_empty, boolean perceivedByAI)
 	{
-		/* Create a board as perceived by the AI. */
-		if(perceivedByAI == true) {
-			roomsAI = new CellAsPerceivedByAI[ROWS][COLS];
-
-			for(int i = 0; i<ROWS; i++)
-				for(int j = 0; j<COLS; j++)
-					roomsAI[i][j] = new CellAsPerceivedByAI(i,j);
-			for(int i = 0; i<ROWS; i++)
-				for(int j = 0; j<COLS; j++)
-					roomsAI[i][j].initNeighbors(roomsAI);
-		}
-		/* Otherwise, create a normal board. */
-		else {
-			rooms = new Cell[ROWS][COLS];
-
-			for(int i = 0; i<ROWS; i++)
-				for(int j = 0; j<COLS; j++)
-					rooms[i][j] = new Cell(i,j);
-			for(int i = 0; i<ROWS; i++)
-				for(int j = 0; j<COLS; j++)
-					rooms[i][j].initNeighbors(rooms);
-
-			//create random ordering.
-			Random randomGenerator = new Random();
-			randomOrdering = new int[ROWS*COLS - 1];
-			for(int i = 0; i< randomOrdering.length; i++) {
-				if(roomAt_0_0_is_always_empty) randomOrdering[i] = i + 1;
-				else randomOrdering[i] = i;
-			}
+		this(roomAt_0_0_is_always_empty, perceivedByAI, new SplittableRandom());
+	}
 
-			for(int i = 0; i < randomOrdering.length; i++){//shuffle
-				int t = randomOrdering[i];
-				int n = randomGenerator.nextInt(randomOrdering.length);
-				randomOrdering[i] = randomOrdering[n];
-				randomOrdering[n] = t;
-			}
+	/**
+	 * 3-arg constructor. Same as the 2-arg constructor above, except that the pits, wastes and victim are placed
+	 * using the given random stream. Two boards created from streams with the same seed are identical.
+	 * @param roomAt_0_0_is_always_empty 1st boolean parameter. Sets whether room at (0,0) is always empty.
+	 * @param perceivedByAI 2nd boolean parameter. If set to true, creates a board composed of RoomAsPerceivedByAI objects.
+	 * @param randomGenerator the random stream used to spawn a random board. Not used if perceivedByAI is true.
+	 */
+	public Board(boolean roomAt_0_0_is_always_empty, boolean perceivedByAI, SplittableRandom randomGenerator)
+	{
+		this(SHAPE, perceivedByAI);
 
-			//set pits, Wumpus, and gold
-			int numPits = ROWS*COLS*PITP/100;
-			for(int i = 0; i < numPits; i++)
-				randomRoom(i).makePit();	//custom method to get a random room then make pit
-			randomRoom(numPits).spawnWastes();
-			randomRoom(numPits + 1).spawnWastes();
-			randomRoom(numPits + 2).placeVictim();
-		}
+		/* Create a board as perceived by the AI. Nothing is known yet, so there is nothing more to do.
+		 * Otherwise, create a normal board. */
+		if(perceivedByAI == false) placeRandomly(ROWS*COLS*PITP/100, WASTES, roomAt_0_0_is_always_empty, randomGenerator);
+	}
+
+	/**
+	 * 6-arg constructor. Creates a normal Board (consisting of Cell objects) of the given dimensions, with randomly placed
+	 * pits, wastes and a single victim.
+	 * @param rows the no. of rows. Must be positive.
+	 * @param cols the no. of columns. Must be positive.
+	 * @param pitPercent the % of rooms that have pits, e.g. PITP
+	 * @param wastesPercent the % of rooms that have wastes. At least one waste is always placed.
+	 * @param roomAt_0_0_is_always_empty Sets whether room at (0,0) is always empty.
+	 * @param randomGenerator the random stream used to spawn a random board.
+	 */
+	public Board(int rows, int cols, int pitPercent, int wastesPercent, boolean roomAt_0_0_is_always_empty, SplittableRandom randomGenerator)
+	{
+		this(shapeOf(rows, cols), false);
+		int numRooms = rows * cols;
+		placeRandomly((int)((long)numRooms * pitPercent / 100), Math.max(1, (int)((long)numRooms * wastesPercent / 100)),
+				roomAt_0_0_is_always_empty, randomGenerator);
+	}
+
+	/**
+	 * 3-arg constructor. Creates an empty Board of the given dimensions: no pits, wastes or victim if it is a normal board,
+	 * and nothing explored (and every probability unknown) if it is perceived by AI.
+	 * @param rows the no. of rows. Must be positive.
+	 * @param cols the no. of columns. Must be positive.
+	 * @param perceivedByAI If set to true, creates a board composed of RoomAsPerceivedByAI objects.
+	 */
+	public Board(int rows, int cols, boolean perceivedByAI) {
+		this(shapeOf(rows, cols), perceivedByAI);
 	}
 
 	/**
@@ -117,36 +158,198 @@ public class Board
 	 * }
 	 *
 	 * where W stands for Wumpus (monster), P stands for Pit, and G stands for Gold.
+	 * The layout need not be 6x6, but every row must have the same length.
 	 */
 	public Board(String[][] boardLayout) {
-		rooms = new Cell[ROWS][COLS];
-
-		for(int i = 0; i<ROWS; i++)
-			for(int j = 0; j<COLS; j++)
-				rooms[i][j] = new Cell(i,j);
-		for(int i = 0; i<ROWS; i++) {
-			for(int j = 0; j<COLS; j++) {
-				rooms[i][j].initNeighbors(rooms);
+		this(shapeOf(boardLayout.length, boardLayout[0].length), false);
 
+		for(int i = 0; i<boardLayout.length; i++) {
+			for(int j = 0; j<boardLayout[i].length; j++) {
 				/* Set pits, monsters and gold in accordance with the given String[][] parameter. */
 				String tempS = boardLayout[i][j];
-				if(tempS.contains("P")) rooms[i][j].makePit();
-				if(tempS.contains("W")) rooms[i][j].spawnWastes();
-				if(tempS.contains("G")) rooms[i][j].placeVictim();
+				int index = this.index(i, j);
+				if(tempS.contains("P")) pits.set(index);
+				if(tempS.contains("W")) wastes.set(index);
+				if(tempS.contains("G")) victim.set(index);
 			}
 		}
+		numPits = pits.cardinality();
+		numWastes = wastes.cardinality();
+		updatePerceptions();
 	}
 
 	/**
-	 * Method: randomRoom. Invoked by the no-arg constructor in this class.
-	 * @param i a given integer denoting an index
-	 * @return a random Room object
+	 * 4-arg constructor. Creates a normal Board (consisting of Cell objects) from its pits, wastes and victim packed into
+	 * longs as in BoardCorpus.java: the words of the pits bitboard, then those of the wastes, then those of the victim.
+	 * Nothing is parsed, so this is as cheap as creating an empty Board.
+	 * @param rows the no. of rows. Must be positive.
+	 * @param cols the no. of columns. Must be positive.
+	 * @param packed the packed boards, e.g. a memory-mapped corpus
+	 * @param offset the index in packed of the first word of this board
 	 */
-	private Cell randomRoom(int i){
-		int rnumber = randomOrdering[i];
-		int x = rnumber/ROWS;
-		int y = rnumber%ROWS;
-		return rooms[x][y];
+	Board(int rows, int cols, LongBuffer packed, int offset) {
+		this(shapeOf(rows, cols), false);
+		int n = shape.numWords;
+		for(int u = 0; u < n; u++) {
+			pits.setWord(u, packed.get(offset + u));
+			wastes.setWord(u, packed.get(offset + n + u));
+			victim.setWord(u, packed.get(offset + 2 * n + u));
+		}
+		numPits = pits.cardinality();
+		numWastes = wastes.cardinality();
+		updatePerceptions();
+	}
+
+	/**
+	 * Copy constructor. Creates a Board with the exact same state as the given Board. Since the state is nothing
+	 * but a few bitboards (and, for a board perceived by AI, two int[] arrays), this is cheap. The copy is
+	 * independent of the original, i.e. changes to one are not seen by the other. Note that the Cell objects
+	 * of the original are NOT views onto the copy; use the copy's getRoom() / getRoomAI() instead.
+	 * @param other the Board to copy
+	 */
+	public Board(Board other) {
+		this.shape = other.shape;
+		this.perceivedByAI = other.perceivedByAI;
+		this.pits = new BitBoard(other.pits);
+		this.wastes = new BitBoard(other.wastes);
+		this.victim = new BitBoard(other.victim);
+		this.shown = new BitBoard(other.shown);
+		this.breeze = new BitBoard(other.breeze);
+		this.stench = new BitBoard(other.stench);
+		this.perceptions = other.perceptions.clone();
+		this.numPits = other.numPits;
+		this.numWastes = other.numWastes;
+		this.explored = other.explored == null ? null : new BitBoard(other.explored);
+		this.safe = other.safe == null ? null : new BitBoard(other.safe);
+		this.probabilityOfPit = other.probabilityOfPit == null ? null : other.probabilityOfPit.clone();
+		this.probabilityOfWastes = other.probabilityOfWastes == null ? null : other.probabilityOfWastes.clone();
+		this.numCertainWastes = other.numCertainWastes;
+		this.pitPercent = other.pitPercent;
+		this.version = other.version;
+		this.zobristHash = other.zobristHash;
+		this.changed = new BitBoard(other.changed);
+		this.changedRooms = other.changedRooms.clone();
+		this.numChanged = other.numChanged;
+	}
+
+	/**
+	 * Private 2-arg constructor. Creates an empty Board, i.e. one with no pits, wastes or victim
+	 * (and, if perceived by AI, with nothing explored and every probability unknown).
+	 * @param shape the dimensions of the Board
+	 * @param perceivedByAI whether the Board is composed of CellAsPerceivedByAI objects.
+	 */
+	private Board(BitBoard.Shape shape, boolean perceivedByAI) {
+		this.shape = shape;
+		this.perceivedByAI = perceivedByAI;
+		this.pits = new BitBoard(shape);
+		this.wastes = new BitBoard(shape);
+		this.victim = new BitBoard(shape);
+		this.shown = new BitBoard(shape);
+		this.breeze = new BitBoard(shape);
+		this.stench = new BitBoard(shape);
+		this.perceptions = new byte[shape.size];
+		this.changed = new BitBoard(shape);
+		if(perceivedByAI) {
+			this.explored = new BitBoard(shape);
+			this.safe = new BitBoard(shape);
+			this.probabilityOfPit = new int[shape.size];
+			this.probabilityOfWastes = new int[shape.size];
+			Arrays.fill(probabilityOfPit, CellAsPerceivedByAI.DUMMY_PROBABILITY);
+			Arrays.fill(probabilityOfWastes, CellAsPerceivedByAI.DUMMY_PROBABILITY);
+			this.zobristHash = this.computeZobristHash();
+		}
+		else {
+			this.explored = null;
+			this.safe = null;
+			this.probabilityOfPit = null;
+			this.probabilityOfWastes = null;
+		}
+	}
+
+	/**
+	 * Method: shapeOf
+	 * @return the Shape of a board with the given dimensions. See BitBoard.java.
+	 */
+	private static BitBoard.Shape shapeOf(int rows, int cols) {
+		if(rows <= 0 || cols <= 0 || (long)rows * cols > Integer.MAX_VALUE - 63)
+			throw new IllegalArgumentException(String.format("Invalid board dimensions: %s x %s", rows, cols));
+		if(rows == ROWS && cols == COLS) return SHAPE;
+		return new BitBoard.Shape(rows, cols);
+	}
+
+	/**
+	 * Method: placeRandomly. Invoked by the constructors in this class.
+	 * Places the given no. of pits and wastes, as well as the victim, in distinct random rooms. Every placement is equally likely.
+	 * @param numPits the no. of pits
+	 * @param numWastes the no. of wastes
+	 * @param roomAt_0_0_is_always_empty whether the room at (0,0) must be left empty.
+	 * @param randomGenerator the random stream
+	 */
+	private void placeRandomly(int numPits, int numWastes, boolean roomAt_0_0_is_always_empty, SplittableRandom randomGenerator) {
+		//create random ordering. Each element is the index of a room (see index()).
+		int[] randomOrdering = new int[shape.size - (roomAt_0_0_is_always_empty ? 1 : 0)];
+		if(numPits + numWastes + 1 > randomOrdering.length)
+			throw new IllegalArgumentException(String.format("Cannot fit %s pits, %s wastes and the victim in %s rooms",
+					numPits, numWastes, randomOrdering.length));
+		for(int i = 0; i< randomOrdering.length; i++) {
+			if(roomAt_0_0_is_always_empty) randomOrdering[i] = i + 1;
+			else randomOrdering[i] = i;
+		}
+
+		//unbiased partial shuffle: only the first numPits + numWastes + 1 rooms are drawn. See BoardGenerator.java.
+		BoardGenerator.shuffle(randomOrdering, numPits + numWastes + 1, randomGenerator);
+
+		//set pits, Wumpus, and gold
+		for(int i = 0; i < numPits; i++)
+			pits.set(randomOrdering[i]);
+		for(int i = numPits; i < numPits + numWastes; i++)
+			wastes.set(randomOrdering[i]);
+		victim.set(randomOrdering[numPits + numWastes]);
+		this.numPits = numPits;
+		this.numWastes = numWastes;
+		updatePerceptions();
+	}
+
+	/**
+	 * Method: index
+	 * @param x the row index of the room.
+	 * @param y the col index of the room.
+	 * @return the index of the room in this Board's bitboards and arrays.
+	 */
+	public int index(int x, int y) {
+		return x * shape.cols + y;
+	}
+
+	/**
+	 * Method: neighbor
+	 * @param i the index of a room.
+	 * @param dir a direction, i.e. Board.NORTH, Board.EAST, Board.SOUTH or Board.WEST.
+	 * @return the index of the adjacent room in the given direction, or -1 if there is no such room.
+	 */
+	public int neighbor(int i, int dir) {
+		int cols = shape.cols;
+		switch(dir) {
+		case 0: return i < cols ? -1 : i - cols;						//Board.NORTH
+		case 1: return i % cols == cols - 1 ? -1 : i + 1;				//Board.EAST
+		case 2: return i + cols >= shape.size ? -1 : i + cols;		//Board.SOUTH
+		default: return i % cols == 0 ? -1 : i - 1;					//Board.WEST
+		}
+	}
+
+	/**
+	 * Method: getRows
+	 * @return the no. of rows of this Board.
+	 */
+	public int getRows() {
+		return shape.rows;
+	}
+
+	/**
+	 * Method: getCols
+	 * @return the no. of columns of this Board.
+	 */
+	public int getCols() {
+		return shape.cols;
 	}
 
 	/**
@@ -156,7 +359,10 @@ public class Board
 	 * @return the Room object at the given row and col.
 	 */
 	public Cell getRoom(int x, int y){
-		return rooms[x][y];
+		int i = index(x, y);
+		if(views == null) views = new Cell[shape.size];
+		if(views[i] == null) views[i] = perceivedByAI ? new CellAsPerceivedByAI(this, x, y) : new Cell(this, x, y);
+		return views[i];
 	}
 
 	/**
@@ -166,7 +372,337 @@ public class Board
 	 * @return the RoomAsPerceivedByAI object at the given row and col.
 	 */
 	public CellAsPerceivedByAI getRoomAI(int x, int y) {
-		return roomsAI[x][y];
+		return (CellAsPerceivedByAI)getRoom(x, y);
+	}
+
+	/**
+	 * Method: getRoom
+	 * @param i the index of the room. See index().
+	 * @return the Room object with the given index.
+	 */
+	public Cell getRoom(int i) {
+		return getRoom(i / shape.cols, i % shape.cols);
+	}
+
+	/**
+	 * Method: getRoomAI
+	 * @param i the index of the room. See index().
+	 * @return the RoomAsPerceivedByAI object with the given index.
+	 */
+	public CellAsPerceivedByAI getRoomAI(int i) {
+		return (CellAsPerceivedByAI)getRoom(i);
+	}
+
+	/**
+	 * Method: getNeighbors. Invoked by Cell.java class.
+	 * Not all rooms will have 4 neighbors. For instance, a room located at (0,0) will only have 2 neighbors:
+	 * (0,1) and (1,0). So some of these neighbors may be null objects.
+	 * @param x the row index of the room.
+	 * @param y the col index of the room.
+	 * @return an array of the 4 rooms adjacent to the given room, indexed by direction (Board.NORTH etc.).
+	 * The array is a CellAsPerceivedByAI[] array if this board is perceived by AI.
+	 */
+	Cell[] getNeighbors(int x, int y) {
+		Cell[] ret = perceivedByAI ? new CellAsPerceivedByAI[4] : new Cell[4];
+		ret[NORTH] = x == 0 ? null : getRoom(x-1, y);			//Board.NORTH = 0
+		ret[EAST] = y == shape.cols - 1 ? null : getRoom(x, y+1);	//Board.EAST = 1
+		ret[SOUTH] = x == shape.rows - 1 ? null : getRoom(x+1, y);	//Board.SOUTH = 2
+		ret[WEST] = y == 0 ? null : getRoom(x, y-1);			//Board.WEST = 3
+		return ret;
+	}
+
+	/* Getters and setters of the state of a single room, given its index. Accessed via the Cell and
+	 * CellAsPerceivedByAI views. */
+
+	boolean isPit(int i) {
+		return pits.get(i);
+	}
+
+	void setPit(int i, boolean pit) {
+		if(pits.get(i) == pit) return;
+		pits.set(i, pit);
+		numPits += pit ? 1 : -1;
+		zobristHash ^= this.zobristOfPerceptions(i);
+		updatePerceptions(i);
+		zobristHash ^= this.zobristOfPerceptions(i);
+		markChanged(i);
+	}
+
+	boolean hasWastes(int i) {
+		return wastes.get(i);
+	}
+
+	void setWastes(int i, boolean waste) {
+		if(wastes.get(i) == waste) return;
+		wastes.set(i, waste);
+		numWastes += waste ? 1 : -1;
+		zobristHash ^= this.zobristOfPerceptions(i);
+		updatePerceptions(i);
+		zobristHash ^= this.zobristOfPerceptions(i);
+		markChanged(i);
+	}
+
+	boolean hasVictim(int i) {
+		return victim.get(i);
+	}
+
+	void setVictim(int i, boolean hasVictim) {
+		if(victim.get(i) == hasVictim) return;
+		victim.set(i, hasVictim);
+		zobristHash ^= this.zobristOfPerceptions(i);
+		updatePerceptions(i);
+		zobristHash ^= this.zobristOfPerceptions(i);
+		markChanged(i);
+	}
+
+	boolean isShown(int i) {
+		return shown.get(i);
+	}
+
+	void setShown(int i) {
+		if(shown.get(i)) return;
+		shown.set(i);
+		markChanged(i);
+	}
+
+	byte getPerceptions(int i) {
+		return perceptions[i];
+	}
+
+	boolean isExplored(int i) {
+		return explored.get(i);
+	}
+
+	/**
+	 * Method: setExplored. Invoked by CellAsPerceivedByAI.java class (on a board perceived by AI only).
+	 * Sets the given room to explored, copying everything about the room from the given normal board.
+	 * @param i the index of the room
+	 * @param isExplored whether the room has been explored
+	 * @param board the normal Board, with all data fields already known.
+	 */
+	void setExplored(int i, boolean isExplored, Board board) {
+		boolean isChanged = explored.get(i) != isExplored;
+		zobristHash ^= this.zobristOfPerceptions(i);
+		explored.set(i, isExplored);
+		if(isExplored) {
+			byte p = board.perceptions[i];
+			isChanged |= perceptions[i] != p || shown.get(i) != board.isShown(i);
+			if(pits.get(i) != ((p & Cell.PIT) != 0)) numPits += (p & Cell.PIT) != 0 ? 1 : -1;
+			if(wastes.get(i) != ((p & Cell.WASTES) != 0)) numWastes += (p & Cell.WASTES) != 0 ? 1 : -1;
+			perceptions[i] = p;
+			pits.set(i, (p & Cell.PIT) != 0);
+			wastes.set(i, (p & Cell.WASTES) != 0);
+			victim.set(i, (p & Cell.VICTIM) != 0);
+			breeze.set(i, (p & Cell.BREEZE) != 0);
+			stench.set(i, (p & Cell.STENCH) != 0);
+			shown.set(i, board.isShown(i));
+		}
+		zobristHash ^= this.zobristOfPerceptions(i);
+		if(isExplored) {
+			setProbabilityOfPit(i, pits.get(i) ? 100 : 0);	//the AI knows this for certain now.
+			setProbabilityOfWastes(i, wastes.get(i) ? 100 : 0);
+		}
+		if(isChanged) markChanged(i);
+	}
+
+	int getProbabilityOfPit(int i) {
+		return probabilityOfPit[i];
+	}
+
+	void setProbabilityOfPit(int i, int probability) {
+		if(probabilityOfPit[i] == probability) return;
+		zobristHash ^= Zobrist.key(i, Zobrist.PIT + Zobrist.level(probabilityOfPit[i])) ^ Zobrist.key(i, Zobrist.PIT + Zobrist.level(probability));
+		probabilityOfPit[i] = probability;
+		safe.set(i, probability == 0 && probabilityOfWastes[i] == 0);
+		version++;
+		markChanged(i);
+	}
+
+	int getProbabilityOfWastes(int i) {
+		return probabilityOfWastes[i];
+	}
+
+	void setProbabilityOfWastes(int i, int probability) {
+		if(probabilityOfWastes[i] == probability) return;
+		if(probabilityOfWastes[i] == 100) numCertainWastes--;
+		if(probability == 100) numCertainWastes++;
+		zobristHash ^= Zobrist.key(i, Zobrist.WASTES + Zobrist.level(probabilityOfWastes[i])) ^ Zobrist.key(i, Zobrist.WASTES + Zobrist.level(probability));
+		probabilityOfWastes[i] = probability;
+		safe.set(i, probability == 0 && probabilityOfPit[i] == 0);
+		version++;
+		markChanged(i);
+	}
+
+	/**
+	 * Method: getVersion
+	 * @return the version of the AI's beliefs on this board perceived by AI, which changes whenever the probability
+	 * of a pit or waste in any room changes.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Method: getZobristHash
+	 * @return the Zobrist hash (see Zobrist.java) of what the AI knows on this board perceived by AI: which rooms are explored,
+	 * their perceptions, and the probabilities of a pit and a waste in every room, quantized. Kept up to date in O(1) by every
+	 * change, so reading it is free. 0 on a normal board.
+	 */
+	public long getZobristHash() {
+		return zobristHash;
+	}
+
+	/**
+	 * Method: computeZobristHash
+	 * @return the same as getZobristHash(), computed from scratch in O(no. of rooms). For checking that one against.
+	 */
+	long computeZobristHash() {
+		if(!perceivedByAI) return 0L;
+		long h = 0L;
+		for(int i = 0; i < shape.size; i++) {
+			h ^= this.zobristOfPerceptions(i) ^ Zobrist.key(i, Zobrist.PIT + Zobrist.level(probabilityOfPit[i]))
+					^ Zobrist.key(i, Zobrist.WASTES + Zobrist.level(probabilityOfWastes[i]));
+		}
+		return h;
+	}
+
+	/* The part of the Zobrist hash that is about whether room i is explored and what is perceived there. 0 on a normal board. */
+	private long zobristOfPerceptions(int i) {
+		if(!perceivedByAI) return 0L;
+		long h = explored.get(i) ? Zobrist.key(i, Zobrist.EXPLORED) : 0L;
+		return perceptions[i] == 0 ? h : h ^ Zobrist.key(i, Zobrist.PERCEPTIONS + (perceptions[i] & 31));
+	}
+
+	/**
+	 * Method: getNumCertainWastes
+	 * @return the no. of rooms on this board perceived by AI with a confirmed 100% chance of waste.
+	 */
+	public int getNumCertainWastes() {
+		return numCertainWastes;
+	}
+
+	boolean isGuaranteedSafe(int i) {
+		return safe.get(i);
+	}
+
+	/**
+	 * Method: markChanged
+	 * Adds the given room to the journal of changed rooms, unless it's already there.
+	 * @param i the index of the room
+	 */
+	private void markChanged(int i) {
+		if(changed.get(i)) return;
+		changed.set(i);
+		if(numChanged == changedRooms.length) changedRooms = Arrays.copyOf(changedRooms, numChanged * 2);
+		changedRooms[numChanged++] = i;
+	}
+
+	/**
+	 * Method: pollChangedRoom
+	 * Removes a room from the journal of changed rooms. A room is journaled whenever anything about it changes, e.g. a pit,
+	 * waste or the victim is added or removed, or (on a board perceived by AI) it is explored or the probability of risk
+	 * in it is modified.
+	 * @return the index of a room that changed since it was last polled, or -1 if there is none.
+	 */
+	public int pollChangedRoom() {
+		if(numChanged == 0) return -1;
+		int i = changedRooms[--numChanged];
+		changed.clear(i);
+		return i;
+	}
+
+	/* Getters of the bitboards themselves. These are live views, so do not modify them. */
+
+	public BitBoard getPits() {
+		return pits;
+	}
+
+	public BitBoard getWastes() {
+		return wastes;
+	}
+
+	public BitBoard getVictim() {
+		return victim;
+	}
+
+	/**
+	 * Method: getBreeze
+	 * @return the rooms with a Temperature reading ("B"), i.e. those adjacent to a pit. If this board
+	 * is perceived by AI, only explored rooms are included.
+	 */
+	public BitBoard getBreeze() {
+		return breeze;
+	}
+
+	/**
+	 * Method: getStench
+	 * @return the rooms with smoke ("S"), i.e. those adjacent to a waste. If this board
+	 * is perceived by AI, only explored rooms are included.
+	 */
+	public BitBoard getStench() {
+		return stench;
+	}
+
+	public BitBoard getExplored() {
+		return explored;
+	}
+
+	public BitBoard getSafe() {
+		return safe;
+	}
+
+	public boolean isPerceivedByAI() {
+		return perceivedByAI;
+	}
+
+	/**
+	 * Method: updatePerceptions
+	 * Recomputes the Temperature readings and smoke of every room via neighbor expansion of the pits and wastes,
+	 * followed by the perception flags of every room. Invoked once a normal board has been populated.
+	 */
+	private void updatePerceptions() {
+		pits.expandInto(breeze);
+		wastes.expandInto(stench);
+		for(int i = 0; i < shape.size; i++) {
+			perceptions[i] = flagsOf(i);
+		}
+	}
+
+	/**
+	 * Method: updatePerceptions
+	 * Recomputes the perceptions of the given room after a pit, waste or the victim has been added to or removed from it.
+	 * On a normal board, the Temperature readings and smoke of the neighboring rooms are recomputed as well.
+	 * (On a board perceived by AI, those are only ever copied over from the normal board. See setExplored().)
+	 * @param i the index of the room
+	 */
+	private void updatePerceptions(int i) {
+		if(!perceivedByAI) {
+			for(int dir = NORTH; dir <= WEST; dir++) {
+				int n = neighbor(i, dir);
+				if(n < 0) continue;
+				boolean hasBreeze = false, hasStench = false;
+				for(int d = NORTH; d <= WEST; d++) {
+					int m = neighbor(n, d);
+					if(m < 0) continue;
+					hasBreeze |= pits.get(m);
+					hasStench |= wastes.get(m);
+				}
+				breeze.set(n, hasBreeze);
+				stench.set(n, hasStench);
+				perceptions[n] = flagsOf(n);
+			}
+		}
+		perceptions[i] = flagsOf(i);
+	}
+
+	/**
+	 * Method: flagsOf
+	 * @param i the index of a room
+	 * @return the perception flags of the room, according to the bitboards.
+	 */
+	private byte flagsOf(int i) {
+		return (byte)((breeze.get(i) ? Cell.BREEZE : 0) | (stench.get(i) ? Cell.STENCH : 0) | (wastes.get(i) ? Cell.WASTES : 0)
+				| (pits.get(i) ? Cell.PIT : 0) | (victim.get(i) ? Cell.VICTIM : 0));
 	}
 
 	/**
@@ -174,14 +710,33 @@ public class Board
 	 * @return the number of alive monsters on this Board.
 	 */
 	public int getwastesRemaining() {
-		int ret = 0;
-		for(int i = 0; i < rooms.length; i++) {
-			for(int j = 0; j < rooms[i].length; j++) {
-				if(rooms[i][j].hasWastes()) ret++;
-			}
-		}
-		//end for
-		return ret;
+		return numWastes;
+	}
+
+	/**
+	 * Method: getNumPits
+	 * @return the number of pits on this Board, whether placed at random (see placeRandomly()) or given by a layout.
+	 * This is complete information: the AI doesn't get to know it, only the % of pits it is told (see getPitPercent()).
+	 */
+	public int getNumPits() {
+		return numPits;
+	}
+
+	/**
+	 * Method: getPitPercent
+	 * @return on a board perceived by AI, the % of rooms the AI is told hold pits: a known prior, like Board.WASTES,
+	 * rather than anything read off the normal board. Defaults to PITP.
+	 */
+	public int getPitPercent() {
+		return pitPercent;
+	}
+
+	/**
+	 * Method: setPitPercent. Invoked by MissionEngine.setStartRoomAndBoardAI().
+	 * @param pitPercent the % of rooms the AI is told hold pits. See getPitPercent().
+	 */
+	void setPitPercent(int pitPercent) {
+		this.pitPercent = pitPercent;
 	}
 
 	/**
@@ -202,6 +757,9 @@ public class Board
 	 *  {"P", "", "", "", "", ""},
 	 *  {"", "", "", "", "P", ""},
 	 * });
+	 *
+	 * UPDATE: No longer invoked at the start of every mission. Missions are now recorded to a binary log instead
+	 * (see MissionLog.java, whose Mission.getLayout() gives the same layout back). Kept for debugging.
 	 */
 	public void printBoard() {
 		try {
@@ -214,28 +772,28 @@ public class Board
 			PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter("board.txt", true)));
 			pw.print("board = new Board(new String[][]\n{{\"");
 //			System.out.print("board = new Board(new String[][]\n{{\"");
-			for(int i = 0; i < rooms.length; i++) {
-				for(int j = 0; j < rooms[i].length; j++) {
-					if(rooms[i][j].hasWastes()) {
+			for(int i = 0; i < shape.rows; i++) {
+				for(int j = 0; j < shape.cols; j++) {
+					if(this.hasWastes(index(i, j))) {
 						pw.print("W");
 //						System.out.print("W");
 					}
-					if(rooms[i][j].hasVictim()) {
+					if(this.hasVictim(index(i, j))) {
 						pw.print("G");
 //						System.out.print("G");
 					}
-					if(rooms[i][j].isPit()) {
+					if(this.isPit(index(i, j))) {
 						pw.print("P");
 //						System.out.print("P");
 					}
-					if(j < rooms[i].length - 1) {
+					if(j < shape.cols - 1) {
 						pw.print("\", \"");
 //						System.out.print("\", \"");
 					}
 				}
 				pw.println("\"},");
 //				System.out.println("\"},");
-				if(i < rooms.length - 1) {
+				if(i < shape.rows - 1) {
 					pw.print(" {\"");
 //					System.out.print(" {\"");
 				}
@@ -0,0 +1,253 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/** Class: BoardCorpus.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the BoardCorpus class.
+ *  Purpose - A read-only corpus of pre-generated boards, for batch runs (see MonteCarloRunner.java) over far more
+ *  layouts than the few hard-coded in FinalMission.java and the drills, without randomizing or parsing any of them.
+ *
+ *  Every board of a corpus has the same dimensions, and is stored as its pits, wastes and victim bitboards
+ *  (see BitBoard.java), one after another: 3 longs for a 6x6 board. The file starts with a header of HEADER_SIZE bytes
+ *  (MAGIC, rows, cols, no. of words per bitboard, the % of rooms the boards were drawn with pits, no. of boards).
+ *  Numbers are big-endian. The pit % is what the AI is told about the boards (see MissionEngine.setPitPercent()),
+ *  not a count read off any one of them.
+ *
+ *  The file is memory-mapped, in segments of up to SEGMENT_SIZE bytes, so the operating system pages the boards in on
+ *  demand and any board is found in O(1) by its index (see get()). Reading a board allocates the Board and nothing else,
+ *  and any number of threads may read at once.
+ *
+ *  Usage: java BoardCorpus file count [seed] [rows cols pitPercent wastesPercent]
+ *  (writes a corpus of random boards, whose room (0,0) is always empty. Without dimensions, the boards are drawn like
+ *  those of the GUI: 6x6 with Board.PITP % pits and Board.WASTES wastes.)
+ */
+public class BoardCorpus implements Closeable {
+	public static final byte[] MAGIC = {'S', 'A', 'R', 'B', 'R', 'D', 0, 1};	//the format version is the last byte
+	public static final int HEADER_SIZE = 32;	//a multiple of 8, so that the boards are aligned
+	public static final long SEGMENT_SIZE = 1L << 30;	//1 GiB mapped at a time, at most
+
+	private final FileChannel channel;
+	private final int rows, cols;
+	private final int pitPercent;		//the % of rooms the boards were drawn with pits
+	private final int longsPerBoard;	//3 bitboards of numWords longs each
+	private final long numBoards;
+	private final int boardsPerSegment;
+	private final LongBuffer[] segments;	//segments[k] holds boards [k * boardsPerSegment, (k + 1) * boardsPerSegment)
+
+	/**
+	 * 1-arg constructor. Opens and maps the given corpus.
+	 * @param file the corpus file, written by Writer
+	 * @throws IOException if the file can't be opened, isn't a corpus or holds no (complete) boards
+	 */
+	public BoardCorpus(Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		channel.read(header, 0);
+		header.flip();
+		byte[] magic = new byte[MAGIC.length];
+		if(header.remaining() == HEADER_SIZE) header.get(magic);
+		if(!Arrays.equals(magic, MAGIC)) {
+			channel.close();
+			throw new IOException(file + " is not a board corpus");
+		}
+		this.rows = header.getInt();
+		this.cols = header.getInt();
+		int numWords = header.getInt();
+		this.pitPercent = header.getInt();
+		if(rows <= 0 || cols <= 0 || numWords != ((long)rows * cols + 63) >>> 6 || pitPercent < 0 || pitPercent > 100) {
+			channel.close();
+			throw new IOException(file + " is not a board corpus");
+		}
+		this.longsPerBoard = 3 * numWords;
+		this.numBoards = Math.min(header.getLong(), (channel.size() - HEADER_SIZE) / (8L * longsPerBoard));	//a cut-off corpus is read as far as it goes
+		if(numBoards <= 0) {	//nothing to play missions on (see MonteCarloRunner.java)
+			channel.close();
+			throw new IOException(file + " holds no boards");
+		}
+
+		this.boardsPerSegment = (int)(SEGMENT_SIZE / (8L * longsPerBoard));
+		this.segments = new LongBuffer[(int)((numBoards + boardsPerSegment - 1) / boardsPerSegment)];
+		for(int k = 0; k < segments.length; k++) {
+			long first = (long)k * boardsPerSegment;
+			long size = Math.min(boardsPerSegment, numBoards - first) * 8L * longsPerBoard;
+			segments[k] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * 8L * longsPerBoard, size).asLongBuffer();
+		}
+	}
+
+	/**
+	 * Method: get
+	 * @param index the index of a board, below size()
+	 * @return a new Board (consisting of Cell objects) laid out as the board of the given index.
+	 */
+	public Board get(long index) {
+		if(index < 0 || index >= numBoards) throw new IndexOutOfBoundsException("Board " + index + " of " + numBoards);
+		int k = (int)(index / boardsPerSegment);
+		int offset = (int)(index % boardsPerSegment) * longsPerBoard;
+		return new Board(rows, cols, segments[k], offset);
+	}
+
+	/**
+	 * Method: size
+	 * @return the no. of boards in this corpus.
+	 */
+	public long size() {
+		return numBoards;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getCols() {
+		return cols;
+	}
+
+	/**
+	 * Method: getPitPercent
+	 * @return the % of rooms the boards of this corpus were drawn with pits, as given to Writer.
+	 */
+	public int getPitPercent() {
+		return pitPercent;
+	}
+
+	/**
+	 * Method: close
+	 * Closes the file. The mapped segments stay readable until they are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Inner class Writer. Writes a corpus, one board at a time. Every board must have the dimensions given up front.
+	 */
+	public static class Writer implements Closeable {
+		private final Path file;
+		private final DataOutputStream out;
+		private final int rows, cols, pitPercent;
+		private final int longsPerBoard;
+		private long numBoards;
+
+		/**
+		 * 4-arg constructor. Creates (or overwrites) the given corpus.
+		 * @param file the corpus file
+		 * @param rows the no. of rows of every board
+		 * @param cols the no. of columns of every board
+		 * @param pitPercent the % of rooms the boards are drawn with pits, e.g. Board.PITP
+		 */
+		public Writer(Path file, int rows, int cols, int pitPercent) throws IOException {
+			this.file = file;
+			this.rows = rows;
+			this.cols = cols;
+			this.pitPercent = pitPercent;
+			this.longsPerBoard = 3 * new BitBoard.Shape(rows, cols).numWords;
+			this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+			this.writeHeader(out, 0);	//the no. of boards is filled in by close()
+		}
+
+		/**
+		 * Method: add
+		 * Appends the pits, wastes and victim of the given board to the corpus.
+		 * @param board a normal Board (consisting of Cell objects) of the corpus' dimensions
+		 */
+		public void add(Board board) throws IOException {
+			if(board.getRows() != rows || board.getCols() != cols) {
+				throw new IllegalArgumentException(String.format("A %s x %s board doesn't fit in a %s x %s corpus",
+						board.getRows(), board.getCols(), rows, cols));
+			}
+			int n = board.getPits().getShape().numWords;
+			for(int u = 0; u < n; u++) out.writeLong(board.getPits().getWord(u));
+			for(int u = 0; u < n; u++) out.writeLong(board.getWastes().getWord(u));
+			for(int u = 0; u < n; u++) out.writeLong(board.getVictim().getWord(u));
+			numBoards++;
+		}
+
+		/**
+		 * Method: add
+		 * Appends a board already packed into longs, e.g. by BoardGenerator.next().
+		 * @param packed the words of the pits, wastes and victim bitmasks of a board of the corpus' dimensions
+		 * @param offset the index in packed of the first word
+		 */
+		public void add(long[] packed, int offset) throws IOException {
+			for(int u = 0; u < longsPerBoard; u++) out.writeLong(packed[offset + u]);
+			numBoards++;
+		}
+
+		public long size() {
+			return numBoards;
+		}
+
+		/**
+		 * Method: close
+		 * Writes the rest of the corpus out, and the no. of boards into its header.
+		 */
+		@Override
+		public void close() throws IOException {
+			out.close();
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				this.writeHeader(header, numBoards);
+				header.flip();
+				channel.write(header, 0);
+			}
+		}
+
+		private void writeHeader(DataOutputStream out, long numBoards) throws IOException {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			this.writeHeader(header, numBoards);
+			out.write(header.array());
+		}
+
+		private void writeHeader(ByteBuffer header, long numBoards) {
+			header.put(MAGIC).putInt(rows).putInt(cols).putInt(longsPerBoard / 3).putInt(pitPercent).putLong(numBoards);
+		}
+	}
+	//end class Writer
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.out.println("Usage: java BoardCorpus file count [seed] [rows cols pitPercent wastesPercent]");
+			return;
+		}
+		long count = Long.parseLong(args[1]);
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+		BoardGenerator generator;
+		int pitPercent = Board.PITP;
+		if(args.length < 7) {	//the same as Board(boolean, boolean)
+			generator = new BoardGenerator(Board.ROWS, Board.COLS, Board.ROWS * Board.COLS * Board.PITP / 100, Board.WASTES, true);
+		}
+		else {	//the same as the 6-arg Board constructor
+			int rows = Integer.parseInt(args[3]), cols = Integer.parseInt(args[4]);
+			long numRooms = (long)rows * cols;
+			pitPercent = Integer.parseInt(args[5]);
+			generator = new BoardGenerator(rows, cols, (int)(numRooms * pitPercent / 100),
+					Math.max(1, (int)(numRooms * Integer.parseInt(args[6]) / 100)), true);
+		}
+		SplittableRandom random = new SplittableRandom(seed);
+		long[] packed = new long[generator.getLongsPerBoard()];
+		long start = System.nanoTime();
+		try(Writer writer = new Writer(Paths.get(args[0]), generator.getRows(), generator.getCols(), pitPercent)) {
+			for(long i = 0; i < count; i++) {
+				generator.next(random, packed, 0);
+				writer.add(packed, 0);
+			}
+		}
+		System.out.printf("%d %dx%d boards (seed %d) written to %s in %.2fs%n", count, generator.getRows(), generator.getCols(),
+				seed, args[0], (System.nanoTime() - start) / 1e9);
+	}
+}
@@ -0,0 +1,104 @@
+import java.util.SplittableRandom;
+
+/** Class: BoardGenerator.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the BoardGenerator class.
+ *  Purpose - Draws random board layouts (a given no. of pits and wastes, plus the victim, in distinct rooms) straight into
+ *  bitmasks, without creating a Board. Used by Board.java to place its hazards, and by BoardCorpus.java to write
+ *  millions of boards.
+ *
+ *  The rooms are drawn by a partial Fisher-Yates shuffle: the i-th hazard goes into a room drawn uniformly among those
+ *  not drawn yet, so every placement is equally likely. (Swapping every room with one drawn from the whole board,
+ *  as Board.java used to, favors some orderings over others.) Only as many draws are made as there are hazards.
+ *  The rooms are kept in an int[] that is reused from one layout to the next without being reset, since shuffling
+ *  any arrangement of the rooms is as good as shuffling them in order. So drawing a layout allocates nothing.
+ *
+ *  Not thread-safe: use one BoardGenerator per thread.
+ */
+public class BoardGenerator {
+	private final int rows, cols;
+	private final int numPits, numWastes;
+	private final int numWords;	//no. of longs per bitmask. See BitBoard.java.
+	private final int[] rooms;	//the indexes of the rooms that may hold a hazard, in the order of the last shuffle
+
+	/**
+	 * 5-arg constructor.
+	 * @param rows the no. of rows. Must be positive.
+	 * @param cols the no. of columns. Must be positive.
+	 * @param numPits the no. of pits per board
+	 * @param numWastes the no. of wastes per board
+	 * @param roomAt_0_0_is_always_empty whether the room at (0,0) must be left empty.
+	 */
+	public BoardGenerator(int rows, int cols, int numPits, int numWastes, boolean roomAt_0_0_is_always_empty) {
+		if(rows <= 0 || cols <= 0 || (long)rows * cols > Integer.MAX_VALUE - 63)
+			throw new IllegalArgumentException(String.format("Invalid board dimensions: %s x %s", rows, cols));
+		this.rows = rows;
+		this.cols = cols;
+		this.numPits = numPits;
+		this.numWastes = numWastes;
+		this.numWords = (rows * cols + 63) >>> 6;
+		int first = roomAt_0_0_is_always_empty ? 1 : 0;
+		this.rooms = new int[rows * cols - first];
+		if(numPits < 0 || numWastes < 0 || numPits + numWastes + 1 > rooms.length)
+			throw new IllegalArgumentException(String.format("Cannot fit %s pits, %s wastes and the victim in %s rooms",
+					numPits, numWastes, rooms.length));
+		for(int i = 0; i < rooms.length; i++) rooms[i] = first + i;
+	}
+
+	/**
+	 * Method: shuffle
+	 * Partial Fisher-Yates shuffle: moves k rooms, drawn uniformly without replacement, to the front of the given array.
+	 * @param rooms the rooms to draw from. Their order on entry doesn't matter.
+	 * @param k the no. of rooms to draw
+	 * @param random the random stream
+	 */
+	static void shuffle(int[] rooms, int k, SplittableRandom random) {
+		for(int i = 0; i < k; i++) {
+			int j = i + random.nextInt(rooms.length - i);
+			int t = rooms[i];
+			rooms[i] = rooms[j];
+			rooms[j] = t;
+		}
+	}
+
+	/**
+	 * Method: next
+	 * Draws a layout and writes its bitmasks to out, as in BoardCorpus.java: the words of the pits, then those of the wastes,
+	 * then those of the victim (see getLongsPerBoard()).
+	 * @param random the random stream
+	 * @param out the array to write to
+	 * @param offset the index in out of the first word
+	 */
+	public void next(SplittableRandom random, long[] out, int offset) {
+		int n = numWords;
+		for(int u = 0; u < 3 * n; u++) out[offset + u] = 0L;
+		shuffle(rooms, numPits + numWastes + 1, random);
+		for(int i = 0; i < numPits; i++) {
+			out[offset + (rooms[i] >>> 6)] |= 1L << rooms[i];
+		}
+		for(int i = numPits; i < numPits + numWastes; i++) {
+			out[offset + n + (rooms[i] >>> 6)] |= 1L << rooms[i];
+		}
+		int victim = rooms[numPits + numWastes];
+		out[offset + 2 * n + (victim >>> 6)] |= 1L << victim;
+	}
+
+	/**
+	 * Method: getLongsPerBoard
+	 * @return the no. of longs next() writes per layout.
+	 */
+	public int getLongsPerBoard() {
+		return 3 * numWords;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getCols() {
+		return cols;
+	}
+}
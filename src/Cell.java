@@ -7,115 +7,125 @@
  *  This class - the Cell class.
  *  Purpose - Contains all information about the Room object. This class will NOT be accessed by the AI
  *  during the game. See CellAsPerceivedByAI.java class for more info.
+ *  The information itself is stored in the bitboards of the Board this room belongs to (see Board.java);
+ *  a Cell object is just a thin view onto it.
  */
 public class Cell
 {
-	public static final int ROWS = 6;
-	protected int x;
-	protected int y;
-	protected Cell[] neighbors;	//array of rooms adjacent to this room.
-	protected boolean pit;	//whether this room contains a pit
-	protected boolean wastes;	//whether this room contains a wastes
-	protected boolean victim;	//whether this room has the victim
-	protected boolean hintShown;	//whether certain graphics regarding a room will be shown on the GUI.
-	protected String s;	//perceptions
+	/* Bit flags of the perceptions in a room. See getPerceptions(). */
+	public static final byte BREEZE = 1;	//"B": a Temperature reading, i.e. a neighboring room has a pit
+	public static final byte STENCH = 2;	//"S": smoke, i.e. a neighboring room has a waste
+	public static final byte WASTES = 4;	//"W": this room has a waste
+	public static final byte PIT = 8;		//"P": this room has a pit
+	public static final byte VICTIM = 16;	//"G": this room has the victim
+
+	protected final Board board;	//the board this room belongs to. All information about this room is kept there.
+	protected final int x;
+	protected final int y;
+	protected final int index;	//the index of this room in the board's bitboards. See Board.index().
+	protected Cell[] neighbors;	//array of rooms adjacent to this room. Created on demand.
 
 	/**
-	 * 2-arg constructor.
+	 * 3-arg constructor. Invoked by Board.java class. A Cell object is merely a view onto one room of the given Board;
+	 * whether it contains a pit, a waste or the victim is stored in the Board's bitboards.
 	 * * NOTE: the .x and .y values have been reversed from how we generally understand them. In this game,
 	 * the .x refers to the ROW index of the room and .y refers to the COLUMN index.
 	 *
+	 * @param board the Board this room belongs to
 	 * @param x the x-position of the room (as displayed on the board -- see Board.java for more details)
 	 * @param y the y-position of the room
 	 */
-	public Cell (int x, int y)
+	Cell (Board board, int x, int y)
 	{
+		this.board = board;
 		this.x = x;
 		this.y = y;
-		this.pit = false;
-		this.wastes = false;
-		this.victim = false;
-		this.neighbors = new Cell[4];
-		this.hintShown = false;
-		this.s = "";
+		this.index = board.index(x, y);
 	}
 
 	public void makePit(){
-		this.pit = true;
+		board.setPit(index, true);
 	}
 
 	public boolean isPit(){
-		return pit;
+		return board.isPit(index);
 	}
 
 	public void spawnWastes(){
-		this.wastes = true;
+		board.setWastes(index, true);
 	}
 
 	public void killWastes(){
-		this.wastes = false;
+		board.setWastes(index, false);
 	}
 
 	public boolean hasWastes(){
-		return this.wastes;
+		return board.hasWastes(index);
 	}
 
 	public void placeVictim(){
-		this.victim = true;
+		board.setVictim(index, true);
 	}
 
 	public boolean giveAid(){
-		if(this.victim == false) return false;
-		this.victim = false;
+		if(this.hasVictim() == false) return false;
+		board.setVictim(index, false);
 		return true;
 	}
 
 	public boolean hasVictim(){
-		return this.victim;
+		return board.hasVictim(index);
 	}
 
-	public void initNeighbors(Cell[][] rooms){
-		int len = rooms.length;//assume board is square
-		neighbors[Board.NORTH] = (x==0 ? null : rooms[x-1][y]);		//Board.NORTH = 0
-		neighbors[Board.EAST] =  (y==len-1 ? null:rooms[x][y+1]);	//Board.EAST = 1
-		neighbors[Board.SOUTH] = (x==len-1 ? null:rooms[x+1][y]);	//Board.SOUTH = 2
-		neighbors[Board.WEST] =  (y==0 ? null:rooms[x][y-1]);		//Board.WEST = 3
+	/**
+	 * Method: hasBreeze
+	 * @return whether this room has a Temperature reading ("B"), i.e. whether a neighboring room has a pit.
+	 */
+	public boolean hasBreeze(){
+		return (board.getPerceptions(index) & BREEZE) != 0;
+	}
+
+	/**
+	 * Method: hasStench
+	 * @return whether this room has smoke ("S"), i.e. whether a neighboring room has a waste.
+	 */
+	public boolean hasStench(){
+		return (board.getPerceptions(index) & STENCH) != 0;
 	}
 
 	public Cell[] getNeighbors(){
+		if(neighbors == null) neighbors = board.getNeighbors(x, y);
 		return neighbors;
 	}
 
+	/**
+	 * Method: getPerceptions
+	 * @return all the perceptions in this room as bit flags. For instance, if a room has a breeze and a stench,
+	 * returns (BREEZE | STENCH). Test for a given perception like so: (getPerceptions() & STENCH) != 0
+	 * The flags are precomputed by the Board and kept up to date whenever a pit, waste or the victim is added or removed.
+	 */
+	public byte getPerceptions(){
+		return board.getPerceptions(index);
+	}
+
 	/**
 	 * Method: perceptions
 	 * @return a String containing all the perceptions in this room. For instance, if a room has a breeze and a stench,
-	 * returns "B S ".
+	 * returns "B S ". Only used for printing; use getPerceptions() otherwise.
 	 */
 	public String perceptions(){
-		s = "";
-		boolean pitAir = false;
-		boolean stenchAir = false;
-		/* See if any neighboring rooms have a wastes or a pit. */
-		for (int i = 0; i < neighbors.length; i++)
-		{
-			if(neighbors[i]!=null){
-				if(neighbors[i].hasWastes())
-					stenchAir = true;
-				if(neighbors[i].isPit()){
-					pitAir = true;
-				}
-			}
-		}
+		byte p = getPerceptions();
+		String s = "";
 		/* Concatenate characters as necessary to form the String to be returned.*/
-		if (pitAir)
+		if ((p & BREEZE) != 0)
 			s += "B ";
-		if (stenchAir)
+		if ((p & STENCH) != 0)
 			s += "S ";
-		if (hasWastes())
+		if ((p & WASTES) != 0)
 			s += "W ";
-		if (isPit())
+		if ((p & PIT) != 0)
 			s += "P ";
-		if (hasVictim())
+		if ((p & VICTIM) != 0)
 			s += "G ";
 		return s;
 	}
@@ -125,7 +135,7 @@ public class Cell
 	 * Setter. Information on this room will now be displayed on the Board GUI.
 	 */
 	public void setHints(){
-		hintShown = true;
+		board.setShown(index);
 	}
 
 	/**
@@ -134,11 +144,15 @@ public class Cell
 	 * @return whether information on this room is displayed on the Board GUI.
 	 */
 	public boolean isShown(){
-		return hintShown;
+		return board.isShown(index);
 	}
 
+	/**
+	 * Method: getLocation
+	 * @return the location of this room as a single int, namely (x * cols + y) where cols is the no. of columns of the board.
+	 */
 	public int getLocation(){
-		return (ROWS * x) + y;
+		return index;
 	}
 
 	/**
@@ -148,13 +162,6 @@ public class Cell
 		return x;
 	}
 
-	/**
-	 * @param x the x to set
-	 */
-	public void setX(int x) {
-		this.x = x;
-	}
-
 	/**
 	 * @return the y
 	 */
@@ -162,20 +169,13 @@ public class Cell
 		return y;
 	}
 
-	/**
-	 * @param y the y to set
-	 */
-	public void setY(int y) {
-		this.y = y;
-	}
-
 	/**
 	 * Method: toString
 	 */
 	@Override
 	public String toString(){
 		return String.format("Room at (%s, %s). Pit: %s; Monster: %s; Victim: %s; Perceptions: %s",
-				this.x, this.y, this.pit, this.wastes, this.victim, this.perceptions());
+				this.x, this.y, this.isPit(), this.hasWastes(), this.hasVictim(), this.perceptions());
 	}
 }
 
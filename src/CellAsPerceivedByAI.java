@@ -17,52 +17,34 @@
  *  Once a CellAsPerceivedByAI object is explored by the AI (or human) player, then the AI
  *  will have full knowledge of the room. Until then, the AI can only rely on logical deduction
  *  to draw conclusions (if any) about a CellAsPerceivedByAI object.
+ *
+ *  Like Cell objects, CellAsPerceivedByAI objects are thin views onto a Board (the one perceived by AI),
+ *  which keeps the explored rooms, guaranteed-safe rooms and probabilities in bitboards and arrays.
  */
 public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPerceivedByAI> {
 
-	private boolean explored;	//whether this room has been explored by a player (either human or AI) or not.
-	private int probabilityOfPit, probabilityOfWastes;	//probability that this room contains a pit and/or wastes.
-	private CellAsPerceivedByAI[] neighbors;	//neighboring objects (adjacent to this room).
-	private final int DUMMY_PROBABILITY = 101;	//a dummy value assigned upon this room's initialization where the actual probability of pit / wastes is unknown.
+	/* Whether this room has been explored, and the probability that it contains a pit and/or wastes,
+	 * are kept in the bitboards and arrays of the Board perceived by AI (see Board.java). */
+	public static final int DUMMY_PROBABILITY = 101;	//a dummy value assigned upon this room's initialization where the actual probability of pit / wastes is unknown.
 	private CellAsPerceivedByAI parentRoom;		//this attribute works in conjunction with Pathfind.java class for printing solution path.
 	private int distanceSoFar;		//the distance it took so far to travel from some starting room to this room. Default value is zero upon construction. Used for pathfinding.
 	private int hypotheticalPlayerDir;	//Attribute primarily accessed by the Pathfind.java class for calculating cost-optimal solution path.
 
 	/**
-	 * 2-arg constructor. Invoked by Board.java class.
+	 * 3-arg constructor. Invoked by Board.java class.
 	 *
 	 * NOTE: the .x and .y values have been reversed from how we generally understand them. In this game,
 	 * the .x refers to the ROW index of the room and .y refers to the COLUMN index.
 	 *
+	 * @param board the Board perceived by AI this room belongs to
 	 * @param x the x-position of the room (as displayed on the board -- see Board.java for more details)
 	 * @param y the y-position of the room
 	 */
-	public CellAsPerceivedByAI(int x, int y) {
-		super(x, y);	//invoke superclass's constructor. See Room.java for more details.
-		this.neighbors = new CellAsPerceivedByAI[4];	//This will save adjacent CellAsPerceivedByAI objects (up to 4)
-		this.explored = false;						//this cell has not been explored by AI (or human) player upon initialization.
-		this.probabilityOfPit = DUMMY_PROBABILITY;	//initialize the chance of a pit in this room to dummy value
-		this.probabilityOfWastes = DUMMY_PROBABILITY; //initialize the chance of a wastes in this room to dummy value
+	CellAsPerceivedByAI(Board board, int x, int y) {
+		super(board, x, y);	//invoke superclass's constructor. See Cell.java for more details.
 		this.distanceSoFar = 0;
 	}
 
-	/**
-	 * Method: initNeighbors. Invoked by Board.java class.
-	 * @param rooms the 2-dimensional array containing RoomAsPerceivedByAI objects. This is essentially the game board.
-	 */
-	public void initNeighbors(CellAsPerceivedByAI[][] rooms){
-		int len = rooms.length;//assume board is square
-
-		/* Not all rooms will have 4 neighbors. For instance, a room located at (0,0) will only have 2 neighbors:
-		 * (0,1) and (1,0). So some of these neighbors may be null objects. */
-		/* Again, the .x and .y values have been reversed from how we generally understand them. In this game,
-		 * the .x refers to the ROW index of the room and .y refers to the COLUMN index. */
-		neighbors[Board.NORTH] = x == 0 ? null: rooms[x-1][y];	//Board.NORTH = 0. See Board.java class.
-		neighbors[Board.EAST] = y == len - 1 ? null: rooms[x][y+1];	//Board.EAST = 1
-		neighbors[Board.SOUTH] = x == len - 1 ? null: rooms[x+1][y];	//Board.SOUTH = 2
-		neighbors[Board.WEST] = y == 0 ? null: rooms[x][y-1];	//Board.WEST = 3
-	}
-
 	/**
 	 * Method: getHypotheticalPlayerDir
 	 * @return the hypotheticalPlayerDir
@@ -100,15 +82,16 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 * @return the Array containing this room's neighbors. Remember some of these neighbors may be null objects
 	 * because not all rooms have 4 neighbors. For instance, a room located at (0,0) will only have 2 neighbors.
 	 */
+	@Override
 	public CellAsPerceivedByAI[] getNeighbors(){
-		return neighbors;
+		return (CellAsPerceivedByAI[])super.getNeighbors();	//the Board perceived by AI always creates a CellAsPerceivedByAI[] array
 	}
 
 	/**
 	 * @return whether this room is explored by AI (or human) player.
 	 */
 	public boolean isExplored() {
-		return explored;
+		return board.isExplored(index);
 	}
 
 	/**
@@ -118,19 +101,9 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 * @param r the Room object (see Room.java class) with all data fields already known.
 	 */
 	public void setExplored(boolean explored, Cell r) {
-		this.explored = explored;
-		if(this.explored == true) {
-			this.wastes = r.wastes;
-			this.victim = r.victim;
-			this.hintShown = r.hintShown;
-			//			this.neighbors = r.neighbors;	//commented out. First, it isn't possible to assign r.neighbors, a Room object,
-			//to this.neighbors, a RoomAsPerceivedByAI object. Second, the AI shouldn't have
-			//full information on all the neighbors anyway as some of them may not have been explored yet.
-			this.pit = r.pit;
-			this.s = r.perceptions();		//AI has fully correct perceptions (such as a Temperature, smoke) now. See custom method in Room.java class.
-			this.probabilityOfPit = (this.isPit() ? 100 : 0);	//now we update probability to either 100% or 0% because AI knows this for certain.
-			this.probabilityOfWastes = (this.hasWastes() ? 100: 0);	//same as above
-		}
+		/* If explored, the AI has fully correct perceptions (such as a Temperature, smoke) now, and the probability
+		 * of pit and wastes is updated to either 100% or 0% because AI knows this for certain. See Board.setExplored(). */
+		board.setExplored(index, explored, r.board);
 	}
 
 	/**
@@ -147,7 +120,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 */
 	public void assignProbabilityToNeighbors(Board board, Board boardAI) {
 		/* Look at each neighboring room (adjacent to this room) */
-		for(CellAsPerceivedByAI rAI : this.neighbors) {
+		for(CellAsPerceivedByAI rAI : this.getNeighbors()) {
 			/* If the neighbor doesn't exist, or if the neighbor has already been explored
 			 * (and thus the neighbor's probability of risk (pit and/or wastes) has been 100% confirmed
 			 * via the setExplored() method above, then there is no need to adjust the probability again.
@@ -158,7 +131,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 
 			/* If this room has a smoke ("S"), AND if this neighboring room's probability of wastes has not
 			 * previously been confirmed to be 0%, then.... */
-			if(this.s.contains("S") && rAI.getprobabilityOfWastes() != 0) {
+			if(this.hasStench() && rAI.getprobabilityOfWastes() != 0) {
 				//				System.out.printf("The explored room at (%s, %s) contains 'S'.\n", this.x, this.y);
 				/* UPDATE: commented this out. Just because a room is surrounded by "S", doesn't necessarily mean
 				 * that its chances of wastes are 100%.
@@ -174,7 +147,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 				 * Note that this custom method will NEVER return zero. Why? Because of the condition above
 				 * that this room has a smoke. so at least ONE of the neighbors to this room MUST be unsafe.
 				 * */
-				int unsafeNeighbors = this.countNotGuaranteedSafeNeighbors("S");
+				int unsafeNeighbors = this.countNotGuaranteedSafeNeighbors(STENCH);
 
 				/* We will update the probability of wastes in this neighbor room under two conditions:
 				 * 1) If the wastes probability has not yet been set for this neighbor, OR
@@ -209,7 +182,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 				 *  now be updated to 100% wastes chance. So the more AI explores and the more it learns and deduces,
 				 *  the more certain these probabilities become : either an increasing chance of wastes (up to 100%), or
 				 *  a definite 0% chance of wastes. */
-				if(rAI.getprobabilityOfWastes() == this.DUMMY_PROBABILITY || rAI.getprobabilityOfWastes() < 100 / unsafeNeighbors) {
+				if(rAI.getprobabilityOfWastes() == DUMMY_PROBABILITY || rAI.getprobabilityOfWastes() < 100 / unsafeNeighbors) {
 					rAI.setprobabilityOfWastes(100 / unsafeNeighbors);
 				}
 
@@ -243,22 +216,22 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 			else {	//if this room does not have a smoke("S"), then we can obviously set the neighboring room's probability of waste to zero.
 				rAI.setprobabilityOfWastes(0);
 			}
-			//end if(this.s.contains("S") && rAI.getprobabilityOfWastes() != 0) / else
+			//end if(this.hasStench() && rAI.getprobabilityOfWastes() != 0) / else
 
 			/* If this room has a Temperature ("B"), AND if this neighboring room's probability of pit has not
 			 * previously been confirmed to be 0%, then....
 			 * This code below follows the same logic as the waste logic above (see above comments), except that pits have
 			 * no "stipulation" the way wastes do. */
-			if(this.s.contains("B") && rAI.getProbabilityOfPit() != 0) {
-				int unsafeNeighbors = this.countNotGuaranteedSafeNeighbors("B");
-				if(rAI.getProbabilityOfPit() == this.DUMMY_PROBABILITY || rAI.getProbabilityOfPit() < 100 / unsafeNeighbors) {
+			if(this.hasBreeze() && rAI.getProbabilityOfPit() != 0) {
+				int unsafeNeighbors = this.countNotGuaranteedSafeNeighbors(BREEZE);
+				if(rAI.getProbabilityOfPit() == DUMMY_PROBABILITY || rAI.getProbabilityOfPit() < 100 / unsafeNeighbors) {
 					rAI.setProbabilityOfPit(100 / unsafeNeighbors);
 				}
 			}
 			else {
 				rAI.setProbabilityOfPit(0);
 			}
-			//end if(this.s.contains("B") && rAI.getProbabilityOfPit() != 0) / else
+			//end if(this.hasBreeze() && rAI.getProbabilityOfPit() != 0) / else
 		}
 		//end for
 	}
@@ -284,13 +257,13 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 */
 	public void modifyProbabilityIfSurroundedByDanger(Board board, Board boardAI) {
 		/* Use custom method to get the number of neighboring rooms that have smoke in them. */
-		int surroundingWastesRisk = this.getSurroundingDanger("S");
+		int surroundingWastesRisk = this.getSurroundingDanger(STENCH);
 
 		//	    if(surroundingWastesRisk > 0)	//testing
 		//		System.out.printf("surroundingWastesRisk for unexplored room %s: %s\n", this.getXY(), surroundingWastesRisk);
 
 		/* Use custom method to get the number of neighboring rooms that have Temperature in them. */
-		int surroundingPitRisk = this.getSurroundingDanger("B");
+		int surroundingPitRisk = this.getSurroundingDanger(BREEZE);
 
 		//	    if(surroundingPitRisk > 0)	//testing
 		//		System.out.printf("surroundingPitRisk for unexplored room %s: %s\n", this.getXY(), surroundingPitRisk);
@@ -306,7 +279,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 			if(surroundingWastesRisk == 2) {	//if this room is surrounded by 2 neighbors with smoke in them...
 				/* Set risk to 60% if the risk for this room has not yet been deduced by AI.
 				 * Frankly, this condition will probably never be triggered I don't think, but just in case... */
-				if(currentprobabilityOfWastes == this.DUMMY_PROBABILITY) {
+				if(currentprobabilityOfWastes == DUMMY_PROBABILITY) {
 					this.setprobabilityOfWastes(60);
 				}
 				/* Else, if this room's risk has been previously deduced by AI, then we can modify
@@ -327,13 +300,13 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 				else if(currentprobabilityOfWastes < 60) this.setprobabilityOfWastes(60);
 			}
 			else if(surroundingWastesRisk == 3) {	//the rest of these conditions follow the same logical framework as above...
-				if(currentprobabilityOfWastes == this.DUMMY_PROBABILITY) {
+				if(currentprobabilityOfWastes == DUMMY_PROBABILITY) {
 					this.setprobabilityOfWastes(75);	//arbitrary (but effective) risk set at 75%.
 				}
 				else if(currentprobabilityOfWastes < 75) this.setprobabilityOfWastes(75);
 			}
 			else if(surroundingWastesRisk == 4) {
-				if(currentprobabilityOfWastes == this.DUMMY_PROBABILITY) {
+				if(currentprobabilityOfWastes == DUMMY_PROBABILITY) {
 					this.setprobabilityOfWastes(80);	//arbitrary (but effective) risk set at 80%.
 				}
 				else if(currentprobabilityOfWastes < 80) this.setprobabilityOfWastes(80);
@@ -344,19 +317,19 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 		/* Repeat the above process, this time for the probability of pit. */
 		if(currentProbabilityOfPit != 0) {
 			if(surroundingPitRisk == 2) {
-				if(currentProbabilityOfPit == this.DUMMY_PROBABILITY) {
+				if(currentProbabilityOfPit == DUMMY_PROBABILITY) {
 					this.setProbabilityOfPit(60);
 				}
 				else if(currentProbabilityOfPit < 60) this.setProbabilityOfPit(60);
 			}
 			else if(surroundingPitRisk == 3) {
-				if(currentProbabilityOfPit == this.DUMMY_PROBABILITY) {
+				if(currentProbabilityOfPit == DUMMY_PROBABILITY) {
 					this.setProbabilityOfPit(75);
 				}
 				else if(currentProbabilityOfPit < 75) this.setProbabilityOfPit(75);
 			}
 			else if(surroundingPitRisk == 4) {
-				if(currentProbabilityOfPit == this.DUMMY_PROBABILITY) {
+				if(currentProbabilityOfPit == DUMMY_PROBABILITY) {
 					this.setProbabilityOfPit(80);
 				}
 				else if(currentProbabilityOfPit < 80) this.setProbabilityOfPit(80);
@@ -368,15 +341,15 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	/**
 	 * Method: getSurroundingDanger
 	 * Returns the number of neighboring rooms that contain either smoke or Temperature (depending on the given parameter)
-	 * @param smokeOrTemperature the parameter is assumed to be a String consisting of a single character:
-	 * either "S" (for smoke) or "B" (for Temperature).
+	 * @param smokeOrTemperature the parameter is assumed to be a perception flag:
+	 * either Cell.STENCH (for smoke) or Cell.BREEZE (for Temperature).
 	 *
 	 * @return The number of neighboring rooms that contain either smoke or Temperature (depending on the given parameter)
 	 */
-	public int getSurroundingDanger(String smokeOrTemperature) {
+	public int getSurroundingDanger(byte smokeOrTemperature) {
 		int surroundedCount = 0;
 		for(CellAsPerceivedByAI r: this.getNeighbors()) {
-			if(r != null && r.s.contains(smokeOrTemperature)) surroundedCount++;
+			if(r != null && (r.getPerceptions() & smokeOrTemperature) != 0) surroundedCount++;
 		}
 		return surroundedCount;
 	}
@@ -399,44 +372,25 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 			return true;
 		}
 
-		/* Initialize a count of wastes whose locations have been 100% verified. */
-		int count = 0;
-
-		/* Go thru the entire board and check whether each RoomAsPerceivedByAI object in the board
-		 * has a confirmed 100% probability of waste. */
-		for(int i = 0; i < Board.ROWS; i++) {
-			for(int j = 0; j < Board.COLS; j++) {
-				if(boardAI.getRoomAI(i, j).getprobabilityOfWastes() == 100) {
-					count++;
-					/* If the number of confirmed 100% locations of wastes matches the wastes that remain in the game,
-					 * then all wastes have indeed been "accounted for." Return true. */
-					if(count == wastesRemaining) {
-						//						System.out.printf("allWastesAccountedFor(): all wastes have been accounted for! "
-						//								+ "Count of 100% wastes: %s\n", count);
-						return true;
-					}
-				}
-			}
-			//end for j
-		}
-		//end for i
-		return false;
+		/* If the number of confirmed 100% locations of wastes (which the board perceived by AI keeps count of)
+		 * matches the wastes that remain in the game, then all wastes have indeed been "accounted for." */
+		return boardAI.getNumCertainWastes() >= wastesRemaining;
 	}
 
 	/**
 	 * Method: countNotGuaranteedSafeNeighbors. Invoked by assignProbabilityToNeighbors() method in this class.
 	 *
-	 * @param smokeOrTemperature assumed to be either "S" (smoke) or "B" (Temperature).
+	 * @param smokeOrTemperature assumed to be either Cell.STENCH (smoke) or Cell.BREEZE (Temperature).
 	 * @return the number of RoomAsPerceivedByAI objects adjacent to this room that have
 	 * NOT been determined to be 100% safe from a waste or a pit, as determined by the given parameter.
 	 */
-	public int countNotGuaranteedSafeNeighbors(String smokeOrTemperature) {
+	public int countNotGuaranteedSafeNeighbors(byte smokeOrTemperature) {
 		int ret = 0;
-		for(CellAsPerceivedByAI r : this.neighbors) {
-			if(smokeOrTemperature.equals("S")) {
+		for(CellAsPerceivedByAI r : this.getNeighbors()) {
+			if(smokeOrTemperature == STENCH) {
 				if(r != null && r.getprobabilityOfWastes() != 0) ret++;
 			}
-			else if(smokeOrTemperature.equals("B")) {
+			else if(smokeOrTemperature == BREEZE) {
 				if(r != null && r.getProbabilityOfPit() != 0) ret++;
 			}
 		}
@@ -448,7 +402,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 * @return true if this room has a confirmed 0% chance of waste and a 0% chance of pit, false otherwise.
 	 */
 	public boolean isGuaranteedSafe() {
-		return this.probabilityOfWastes == 0 && this.probabilityOfPit == 0;
+		return board.isGuaranteedSafe(index);
 	}
 
 	/**
@@ -456,8 +410,9 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 * @return true if this room has one or more neighbors that have been explored AND confirmed to be 100% safe. Return false otherwise.
 	 */
 	public boolean hasSafeNeighbors() {
-		for(int i = 0; i < this.neighbors.length; i++) {
-			CellAsPerceivedByAI tempR = this.neighbors[i];
+		CellAsPerceivedByAI[] neighbors = this.getNeighbors();
+		for(int i = 0; i < neighbors.length; i++) {
+			CellAsPerceivedByAI tempR = neighbors[i];
 			if(tempR == null) continue;
 			if(tempR.isExplored() && tempR.isGuaranteedSafe()) return true;
 		}
@@ -469,7 +424,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 * @return the probabilityOfPit
 	 */
 	public int getProbabilityOfPit() {
-		return probabilityOfPit;
+		return board.getProbabilityOfPit(index);
 	}
 
 	/**
@@ -477,7 +432,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 * @param probabilityOfPit the probabilityOfPit to set
 	 */
 	public void setProbabilityOfPit(int probabilityOfPit) {
-		this.probabilityOfPit = probabilityOfPit;
+		board.setProbabilityOfPit(index, probabilityOfPit);
 	}
 
 	/**
@@ -485,7 +440,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 * @return the probabilityOfWastes
 	 */
 	public int getprobabilityOfWastes() {
-		return probabilityOfWastes;
+		return board.getProbabilityOfWastes(index);
 	}
 
 	/**
@@ -493,7 +448,7 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 * @param probabilityOfWastes the probabilityOfWastes to set
 	 */
 	public void setprobabilityOfWastes(int probabilityOfWastes) {
-		this.probabilityOfWastes = probabilityOfWastes;
+		board.setProbabilityOfWastes(index, probabilityOfWastes);
 	}
 
 
@@ -541,10 +496,10 @@ public class CellAsPerceivedByAI extends Cell implements Comparable<CellAsPercei
 	 */
 	@Override
 	public String toString(){
-		String ret = String.format("Room(as perceived by AI) at (%s, %s). Explored: %s. ", this.x, this.y, this.explored);
-		if(this.explored){
+		String ret = String.format("Room(as perceived by AI) at (%s, %s). Explored: %s. ", this.x, this.y, this.isExplored());
+		if(this.isExplored()){
 			ret += String.format("Pit: %s; waste: %s; victim: %s; Perceptions: %s",
-					this.pit, this.wastes, this.victim, this.s);
+					this.isPit(), this.hasWastes(), this.hasVictim(), this.perceptions());
 		}
 		else {
 			ret += String.format("Probability that this is a pit: %s; Probability that there's a waste here: %s",
@@ -0,0 +1,266 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/** Class: DecisionMetrics.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the DecisionMetrics class.
+ *  Purpose - Instrumentation of the robot AI. Keeps latency histograms (see LatencyHistogram.java) of
+ *  Player.getAction(), of Pathfind.ucs() / Pathfind.searchFrom() and of the belief refresh after every command,
+ *  along with counters of nodes expanded, heap operations, plan cache hits and belief memo hits.
+ *
+ *  There is a single instance per JVM (see getInstance()), shared by every mission in progress: the GUI's, or the
+ *  hundreds played at once by MonteCarloRunner.java. Everything is recorded lock-free (atomic increments and LongAdders),
+ *  so missions running on different threads never wait on one another, and nothing is allocated while recording.
+ *
+ *  register() publishes the instance over JMX under OBJECT_NAME, so p50/p99 decision latency can be watched live
+ *  in JConsole or VisualVM while missions are being played. See DecisionMetricsMBean.java for the attributes.
+ */
+public class DecisionMetrics implements DecisionMetricsMBean {
+	public static final String OBJECT_NAME = "SearchAndRescue:type=DecisionMetrics";
+
+	private static final DecisionMetrics INSTANCE = new DecisionMetrics();
+	private static boolean registered;
+
+	private final LatencyHistogram decisionLatency = new LatencyHistogram();
+	private final LatencyHistogram pathfindingLatency = new LatencyHistogram();
+	private final LatencyHistogram beliefRefreshLatency = new LatencyHistogram();
+	private final LongAdder numSearches = new LongAdder();
+	private final LongAdder numNodesExpanded = new LongAdder();
+	private final LongAdder numHeapOperations = new LongAdder();
+	private final LongAdder numPlanCacheHits = new LongAdder();
+	private final LongAdder numBeliefComponents = new LongAdder();
+	private final LongAdder numBeliefMemoHits = new LongAdder();
+
+	/**
+	 * Method: getInstance
+	 * @return the DecisionMetrics of this JVM.
+	 */
+	public static DecisionMetrics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Method: register
+	 * Publishes the DecisionMetrics of this JVM on the platform MBean server, unless that was done already.
+	 * @return true if published (now or before), false if JMX refused it.
+	 */
+	public static synchronized boolean register() {
+		if(registered) return true;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if(!server.isRegistered(name)) server.registerMBean(INSTANCE, name);
+			registered = true;
+		} catch(JMException | SecurityException e) {
+			System.err.println("DecisionMetrics not published over JMX: " + e);
+		}
+		return registered;
+	}
+
+	/* Recorders. Invoked by MissionEngine.java, Pathfind.java and ExactBeliefEngine.java. */
+
+	/**
+	 * Method: recordDecision
+	 * @param nanos how long Player.getAction() took
+	 */
+	public void recordDecision(long nanos) {
+		decisionLatency.record(nanos);
+	}
+
+	/**
+	 * Method: recordBeliefRefresh
+	 * @param nanos how long the AI's beliefs took to refresh after a command
+	 */
+	public void recordBeliefRefresh(long nanos) {
+		beliefRefreshLatency.record(nanos);
+	}
+
+	/**
+	 * Method: recordSearch
+	 * @param nanos how long the search took
+	 * @param nodesExpanded the no. of states expanded by the search
+	 * @param heapOperations the no. of inserts, decrease-keys and polls on its priority queue
+	 */
+	public void recordSearch(long nanos, long nodesExpanded, long heapOperations) {
+		pathfindingLatency.record(nanos);
+		numSearches.increment();
+		numNodesExpanded.add(nodesExpanded);
+		numHeapOperations.add(heapOperations);
+	}
+
+	/**
+	 * Method: recordPlanCacheHit
+	 * @param nanos how long it took to find that a remembered plan still holds, which spared a search
+	 */
+	public void recordPlanCacheHit(long nanos) {
+		pathfindingLatency.record(nanos);
+		numPlanCacheHits.increment();
+	}
+
+	/**
+	 * Method: recordBeliefComponent
+	 * @param memoHit whether the counts of the frontier component were found in the memo
+	 */
+	public void recordBeliefComponent(boolean memoHit) {
+		numBeliefComponents.increment();
+		if(memoHit) numBeliefMemoHits.increment();
+	}
+
+	/* DecisionMetricsMBean. */
+
+	@Override
+	public long getDecisionCount() {
+		return decisionLatency.getCount();
+	}
+
+	@Override
+	public double getDecisionMeanMicros() {
+		return decisionLatency.getMean() / 1e3;
+	}
+
+	@Override
+	public double getDecisionP50Micros() {
+		return decisionLatency.getPercentile(50) / 1e3;
+	}
+
+	@Override
+	public double getDecisionP99Micros() {
+		return decisionLatency.getPercentile(99) / 1e3;
+	}
+
+	@Override
+	public double getDecisionMaxMicros() {
+		return decisionLatency.getMax() / 1e3;
+	}
+
+	@Override
+	public long getPathfindingCount() {
+		return pathfindingLatency.getCount();
+	}
+
+	@Override
+	public double getPathfindingMeanMicros() {
+		return pathfindingLatency.getMean() / 1e3;
+	}
+
+	@Override
+	public double getPathfindingP50Micros() {
+		return pathfindingLatency.getPercentile(50) / 1e3;
+	}
+
+	@Override
+	public double getPathfindingP99Micros() {
+		return pathfindingLatency.getPercentile(99) / 1e3;
+	}
+
+	@Override
+	public double getPathfindingMaxMicros() {
+		return pathfindingLatency.getMax() / 1e3;
+	}
+
+	@Override
+	public long getBeliefRefreshCount() {
+		return beliefRefreshLatency.getCount();
+	}
+
+	@Override
+	public double getBeliefRefreshMeanMicros() {
+		return beliefRefreshLatency.getMean() / 1e3;
+	}
+
+	@Override
+	public double getBeliefRefreshP50Micros() {
+		return beliefRefreshLatency.getPercentile(50) / 1e3;
+	}
+
+	@Override
+	public double getBeliefRefreshP99Micros() {
+		return beliefRefreshLatency.getPercentile(99) / 1e3;
+	}
+
+	@Override
+	public double getBeliefRefreshMaxMicros() {
+		return beliefRefreshLatency.getMax() / 1e3;
+	}
+
+	@Override
+	public long getSearches() {
+		return numSearches.sum();
+	}
+
+	@Override
+	public long getNodesExpanded() {
+		return numNodesExpanded.sum();
+	}
+
+	@Override
+	public long getHeapOperations() {
+		return numHeapOperations.sum();
+	}
+
+	@Override
+	public double getNodesExpandedPerSearch() {
+		long n = numSearches.sum();
+		return n == 0 ? 0 : (double)numNodesExpanded.sum() / n;
+	}
+
+	@Override
+	public long getPlanCacheHits() {
+		return numPlanCacheHits.sum();
+	}
+
+	@Override
+	public double getPlanCacheHitRate() {
+		long hits = numPlanCacheHits.sum(), n = hits + numSearches.sum();
+		return n == 0 ? 0 : (double)hits / n;
+	}
+
+	@Override
+	public long getBeliefComponents() {
+		return numBeliefComponents.sum();
+	}
+
+	@Override
+	public long getBeliefMemoHits() {
+		return numBeliefMemoHits.sum();
+	}
+
+	@Override
+	public double getBeliefMemoHitRate() {
+		long n = numBeliefComponents.sum();
+		return n == 0 ? 0 : (double)numBeliefMemoHits.sum() / n;
+	}
+
+	@Override
+	public void reset() {
+		decisionLatency.reset();
+		pathfindingLatency.reset();
+		beliefRefreshLatency.reset();
+		numSearches.reset();
+		numNodesExpanded.reset();
+		numHeapOperations.reset();
+		numPlanCacheHits.reset();
+		numBeliefComponents.reset();
+		numBeliefMemoHits.reset();
+	}
+
+	/**
+	 * Method: toString
+	 * @return a one-line summary, e.g. for the console.
+	 */
+	@Override
+	public String toString() {
+		return String.format("decision p50 %.1fus p99 %.1fus max %.1fus (%d) | pathfinding p50 %.1fus p99 %.1fus (%d, %.1f nodes/search, "
+				+ "%.1f%% plan hits) | beliefs p50 %.1fus p99 %.1fus (%.1f%% memo hits)",
+				getDecisionP50Micros(), getDecisionP99Micros(), getDecisionMaxMicros(), getDecisionCount(),
+				getPathfindingP50Micros(), getPathfindingP99Micros(), getPathfindingCount(), getNodesExpandedPerSearch(),
+				getPlanCacheHitRate() * 100, getBeliefRefreshP50Micros(), getBeliefRefreshP99Micros(), getBeliefMemoHitRate() * 100);
+	}
+}
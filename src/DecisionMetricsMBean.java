@@ -0,0 +1,51 @@
+/** Class: DecisionMetricsMBean.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This interface - the DecisionMetricsMBean interface.
+ *  Purpose - The management interface of DecisionMetrics.java, as published over JMX (e.g. to JConsole or VisualVM).
+ *  Every getter is a read-only attribute; reset() is an operation. Latencies are in microseconds.
+ */
+public interface DecisionMetricsMBean {
+
+	/* Player.getAction(): one per command the AI decides on. */
+	long getDecisionCount();
+	double getDecisionMeanMicros();
+	double getDecisionP50Micros();
+	double getDecisionP99Micros();
+	double getDecisionMaxMicros();
+
+	/* Pathfind.ucs() and Pathfind.searchFrom(). */
+	long getPathfindingCount();
+	double getPathfindingMeanMicros();
+	double getPathfindingP50Micros();
+	double getPathfindingP99Micros();
+	double getPathfindingMaxMicros();
+
+	/* MissionEngine.refreshBeliefs(): one per command applied, whichever BeliefEngine is in use. */
+	long getBeliefRefreshCount();
+	double getBeliefRefreshMeanMicros();
+	double getBeliefRefreshP50Micros();
+	double getBeliefRefreshP99Micros();
+	double getBeliefRefreshMaxMicros();
+
+	/* Search effort, and how often remembered plans spare a search. */
+	long getSearches();
+	long getNodesExpanded();
+	long getHeapOperations();
+	double getNodesExpandedPerSearch();
+	long getPlanCacheHits();
+	double getPlanCacheHitRate();
+
+	/* How often ExactBeliefEngine.java finds the counts of a frontier component in its memo instead of counting them. */
+	long getBeliefComponents();
+	long getBeliefMemoHits();
+	double getBeliefMemoHitRate();
+
+	/**
+	 * Method: reset
+	 * Starts every histogram and counter over from zero, e.g. before a load test.
+	 */
+	void reset();
+}
@@ -0,0 +1,505 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Class: ExactBeliefEngine.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the ExactBeliefEngine class.
+ *  Purpose - Keeps the AI's perceptions (the board perceived by AI) up to date after every move, like BeliefPropagator.java,
+ *  except that the probabilities of pits and wastes are the exact probabilities given everything the AI has perceived,
+ *  rather than educated guesses such as 100 / (no. of unsafe neighbors), or 60% when surrounded by smoke on two sides.
+ *
+ *  For each type of hazard, every explored room with Temperature (or smoke) is a constraint: at least one of its unexplored
+ *  neighbors holds a pit (or a waste). Every explored room without it tells the AI that none of its neighbors does.
+ *  The constrained frontier rooms are split into independent components (rooms that share no constraint, directly or
+ *  indirectly, with the rest), so the cost grows with the size of the largest component rather than with the whole
+ *  frontier, which keeps large boards (64x64 and up) tractable. FrontierModelCounter.java counts the hazard configurations
+ *  of each component that satisfy its constraints, by no. of hazards k. These counts only depend on the component's
+ *  constraint signature, so they are memoized by signature (see count()). The counts of the components are then combined,
+ *  and each combined count is weighted by the no. of ways the rest of the board can hold the remaining hazards:
+ *
+ *  - Wastes: there are exactly as many as the board was made with (Board.WASTES on a random one), minus those killed
+ *  (see Board.getwastesRemaining()). So a configuration with k wastes on the frontier is weighted by C(u, T - k), where u
+ *  is the no. of unknown rooms off the frontier and T the no. of wastes not yet accounted for by the explored rooms.
+ *  - Pits: likewise, there are exactly (no. of rooms) * (the pit % the AI is told) / 100 of them, Board.PITP unless the
+ *  mission says otherwise (see Board.getPitPercent() and MissionEngine.setPitPercent()). The actual no. is hidden from the AI.
+ *
+ *  A room is given 0% only if it is provably safe, and 100% only if it provably holds the hazard. Anything in between is
+ *  rounded into 1..99, so that the AI never mistakes a merely unlikely hazard for a guaranteed-safe room.
+ *
+ *  Simplifications: a room may hold a pit and a waste at the same time as far as this model is concerned, and the victim
+ *  is ignored (it affects every configuration alike). Rooms beyond the frontier are left alone, as the AI never looks at them.
+ *  If the observations contradict these totals (e.g. a hand-made layout with more pits than the stipulated % suggests),
+ *  every room is instead assumed to hold the hazard independently with the same probability, i.e. a configuration with k of
+ *  the m constrained rooms holding it is weighted by p^k (1 - p)^(m - k). If a component is too large to count
+ *  exactly, each of its rooms falls back to 100 / (no. of candidate rooms) of its most constrained neighbor.
+ *
+ *  How it plays: on random boards the AI does slightly better with these probabilities than with the educated guesses
+ *  (over 5000 random 6x6 boards, 63.9% / 89.1% / 64.3% / 89.1% of missions of types 1..4 won, against 62.3% / 88.2% /
+ *  62.7% / 88.2%). On the hand-made HARD_ENVIRONMENT of FinalMission.java it does worse (type 3 wins 22.7% against 31.8%,
+ *  type 4 0% against 100%): that layout holds 7 pits where the stipulated 10% suggests 3, so the independent fallback
+ *  above applies, and type 4 (no random actions, i.e. a single game) ends with rooms 16, 23 and 28 tied at 37% under
+ *  the sole constraint of room 22's breeze. The nearest of them, 16, holds a pit. The educated guesses count the breeze
+ *  of room 15 against room 16 a second time, although the known pit in room 9 already explains it, and so happen to
+ *  steer clear of it. This is why MissionEngine keeps BeliefModel.HEURISTIC as the default, and EXACT is opt-in.
+ *
+ *  The probabilities are only recomputed when something the AI perceives has actually changed.
+ */
+public class ExactBeliefEngine implements BeliefEngine {
+	private final Board board;		//the Board object containing Cell objects, i.e. complete information
+	private final Board boardAI;	//the Board object containing CellAsPerceivedByAI objects
+	private final int numRooms;
+	public static final int MAX_MEMO_ENTRIES = 4096;	//no. of component signatures whose counts are remembered (least recently used first out)
+	private final FrontierModelCounter counter = new FrontierModelCounter();
+	@SuppressWarnings("serial")
+	private final LinkedHashMap<String, FrontierModelCounter.Counts> memo = new LinkedHashMap<String, FrontierModelCounter.Counts>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, FrontierModelCounter.Counts> eldest) {
+			return size() > MAX_MEMO_ENTRIES;
+		}
+	};
+	private long numCounts, numMemoHits;	//no. of components counted, and looked up in the memo instead
+	private final BitBoard frontier;	//unexplored rooms adjacent to an explored room
+	private final BitBoard free;		//unexplored rooms known to be free of the hazard at hand
+	private final BitBoard constrained;	//unexplored rooms that are part of at least one constraint
+	private final BitBoard cleared;		//unexplored rooms known to be free of wastes because a disinfectant was shot into them
+	private final int[] localId;		//localId[i] = the no. of room i among the constrained rooms, in row-major order
+	private final int[] lastWastes;		//lastWastes[i] = the probability of wastes this engine last assigned to room i, or -1
+	private int lastWastesRemaining = -1;
+	private boolean isStale = true;		//whether the probabilities must be recomputed regardless of the journal
+
+	/**
+	 * Inner class Component. A set of constrained rooms that share no constraint with any room outside the set,
+	 * so that it can be counted on its own.
+	 */
+	private static class Component {
+		int numCells;			//no. of rooms in this component
+		int[] cells;			//cells[j] = the (local id of the) constrained room that is room j of this component, in row-major order
+		ArrayList<int[]> constraints = new ArrayList<>();	//the constraints of this component, over rooms 0..numCells-1
+		FrontierModelCounter.Counts counts;	//the counts of this component (see count())
+	}
+	//end class Component
+
+	/**
+	 * 2-arg constructor.
+	 * @param board the Board object containing Cell objects.
+	 * @param boardAI the Board object containing CellAsPerceivedByAI objects, of the same dimensions.
+	 */
+	public ExactBeliefEngine(Board board, Board boardAI) {
+		this.board = board;
+		this.boardAI = boardAI;
+		this.numRooms = boardAI.getRows() * boardAI.getCols();
+		BitBoard.Shape shape = boardAI.getExplored().getShape();
+		this.frontier = new BitBoard(shape);
+		this.free = new BitBoard(shape);
+		this.constrained = new BitBoard(shape);
+		this.cleared = new BitBoard(shape);
+		this.localId = new int[numRooms];
+		this.lastWastes = new int[numRooms];
+		Arrays.fill(lastWastes, -1);
+	}
+
+	/**
+	 * Method: propagate
+	 * Brings the AI's perceptions up to date with everything that changed on either board since the last invocation.
+	 */
+	@Override
+	public void propagate() {
+		/* First, changes to the board with complete information (a waste killed, the victim given aid, or a room shown on the GUI):
+		 * refresh the perceptions of the room and its neighbors, provided that they have been explored. Same as BeliefPropagator. */
+		for(int k = board.pollChangedRoom(); k >= 0; k = board.pollChangedRoom()) {
+			refreshIfExplored(k);
+			for(int dir = Board.NORTH; dir <= Board.WEST; dir++) {
+				int n = boardAI.neighbor(k, dir);
+				if(n >= 0) refreshIfExplored(n);
+			}
+		}
+
+		/* Then, find out whether anything the AI perceives has changed at all. */
+		boolean isChanged = isStale;
+		for(int c = boardAI.pollChangedRoom(); c >= 0; c = boardAI.pollChangedRoom()) isChanged = true;
+		if(board.getwastesRemaining() != lastWastesRemaining) isChanged = true;
+		if(!isChanged) return;
+		isStale = false;
+		lastWastesRemaining = board.getwastesRemaining();
+
+		/* A room whose probability of wastes was set to zero by someone other than this engine has had a disinfectant
+		 * shot into it (see Player.getAction()). Either the waste was killed or there never was one. Disinfectants are only
+		 * ever shot into rooms adjacent to the player, so it's enough to look at the frontier as of the last invocation. */
+		BitBoard explored = boardAI.getExplored();
+		for(int i = frontier.nextSetBit(0); i >= 0; i = frontier.nextSetBit(i + 1)) {
+			if(!explored.get(i) && lastWastes[i] != 0 && boardAI.getProbabilityOfWastes(i) == 0) cleared.set(i);
+		}
+
+		solve(false);
+		solve(true);
+
+		/* Drain the journal of this engine's own assignments, so that they aren't mistaken for new information next time. */
+		while(boardAI.pollChangedRoom() >= 0);
+	}
+
+	/**
+	 * Method: solve
+	 * Computes and assigns the exact probability of the given hazard to every room on the frontier.
+	 * @param isWastes true for wastes (smoke), false for pits (Temperature)
+	 */
+	private void solve(boolean isWastes) {
+		byte signal = isWastes ? Cell.STENCH : Cell.BREEZE;
+		byte hazard = isWastes ? Cell.WASTES : Cell.PIT;
+		BitBoard explored = boardAI.getExplored();
+
+		/* The frontier, and the rooms on it known to be free of the hazard. */
+		frontier.clear();
+		free.clear();
+		int numKnownHazards = 0;
+		for(int i = explored.nextSetBit(0); i >= 0; i = explored.nextSetBit(i + 1)) {
+			byte p = boardAI.getPerceptions(i);
+			if((p & hazard) != 0) numKnownHazards++;
+			for(int dir = Board.NORTH; dir <= Board.WEST; dir++) {
+				int n = boardAI.neighbor(i, dir);
+				if(n < 0 || explored.get(n)) continue;
+				frontier.set(n);
+				if((p & signal) == 0) free.set(n);
+			}
+		}
+		if(isWastes) free.or(cleared).andNot(explored);
+
+		/* The constraints. A room whose signal is already explained by an explored neighbor holding the hazard constrains nothing. */
+		constrained.clear();
+		ArrayList<int[]> constraintsAL = new ArrayList<>();
+		for(int i = explored.nextSetBit(0); i >= 0; i = explored.nextSetBit(i + 1)) {
+			if((boardAI.getPerceptions(i) & signal) == 0) continue;
+			boolean isExplained = false;
+			int numCells = 0;
+			int[] cells = new int[4];
+			for(int dir = Board.NORTH; dir <= Board.WEST; dir++) {
+				int n = boardAI.neighbor(i, dir);
+				if(n < 0) continue;
+				if(explored.get(n)) isExplained |= (boardAI.getPerceptions(n) & hazard) != 0;
+				else if(!free.get(n)) cells[numCells++] = n;
+			}
+			if(isExplained) continue;
+			constraintsAL.add(Arrays.copyOf(cells, numCells));
+			for(int k = 0; k < numCells; k++) constrained.set(cells[k]);
+		}
+		int m = 0;
+		for(int i = constrained.nextSetBit(0); i >= 0; i = constrained.nextSetBit(i + 1)) localId[i] = m++;
+		int[][] constraints = constraintsAL.toArray(new int[0][]);
+		for(int[] cells : constraints) {
+			for(int k = 0; k < cells.length; k++) cells[k] = localId[cells[k]];
+			Arrays.sort(cells);
+		}
+		int u = numRooms - explored.cardinality() - free.cardinality() - m;	//unknown rooms off the constraints
+
+		/* Compute and assign. */
+		int total = isWastes ? board.getwastesRemaining() : numRooms * boardAI.getPitPercent() / 100;
+		int t = Math.max(0, total - numKnownHazards);
+		double density = isWastes ? (m + u == 0 ? 0 : (double)t / (m + u)) : boardAI.getPitPercent() / 100.0;
+		double[] marginals = new double[m];
+		double freeProbability = this.computeMarginals(constraints, m, u, t, density, marginals);
+		if(freeProbability < 0) freeProbability = fallBack(constraints, m, density, marginals);
+
+		for(int i = frontier.nextSetBit(0); i >= 0; i = frontier.nextSetBit(i + 1)) {
+			int p;
+			if(free.get(i)) p = 0;
+			else if(constrained.get(i)) p = toPercent(marginals[localId[i]]);
+			else p = toPercent(freeProbability);
+			if(isWastes) {
+				boardAI.setProbabilityOfWastes(i, p);
+				lastWastes[i] = p;
+			}
+			else boardAI.setProbabilityOfPit(i, p);
+		}
+	}
+
+	/**
+	 * Method: computeMarginals
+	 * Splits the constrained rooms into independent components, counts each one and combines them: with the known total
+	 * if possible, with the density otherwise. Overridden by SamplingBeliefEngine.java, which estimates the same
+	 * probabilities instead.
+	 * @param constraints the constraints, over the constrained rooms 0..m-1 in row-major order. Each one's rooms are sorted.
+	 * @param m the no. of constrained rooms
+	 * @param u the no. of other unknown rooms
+	 * @param t the no. of hazards not yet accounted for by the explored rooms
+	 * @param density the probability of a hazard in any one unknown room, used when t contradicts the observations
+	 * @param marginals the probability of each constrained room is stored here.
+	 * @return the probability of each of the u other unknown rooms, or -1 if the probabilities could not be computed.
+	 */
+	protected double computeMarginals(int[][] constraints, int m, int u, int t, double density, double[] marginals) {
+		Component[] components = this.split(constraints, m, marginals);
+		if(components == null) return -1;
+		double freeProbability = combineWithTotal(components, u, t, marginals);
+		if(freeProbability < 0) freeProbability = combineWithDensity(components, density, marginals);
+		return freeProbability;
+	}
+
+	/**
+	 * Method: split
+	 * Partitions the constrained rooms into independent components -- rooms that are linked, directly or via other rooms,
+	 * by shared constraints -- and counts each component (see count()). A component that is too large to count is
+	 * assigned fallback probabilities right away and left out of the result.
+	 * @param constraints the constraints, over the constrained rooms 0..m-1 in row-major order
+	 * @param m the no. of constrained rooms
+	 * @param marginals the fallback probabilities, if any, are stored here.
+	 * @return the components that were counted, or null if some constraint can never be satisfied.
+	 */
+	private Component[] split(int[][] constraints, int m, double[] marginals) {
+		/* Union-find over the constrained rooms. */
+		int[] parent = new int[m];
+		for(int j = 0; j < m; j++) parent[j] = j;
+		for(int[] cells : constraints) {
+			if(cells.length == 0) return null;
+			for(int k = 1; k < cells.length; k++) {
+				int a = find(parent, cells[0]), b = find(parent, cells[k]);
+				if(a != b) parent[Math.max(a, b)] = Math.min(a, b);
+			}
+		}
+
+		/* Number the components in order of their first room, and the rooms in row-major order within each component. */
+		int[] componentOf = new int[m], posInComponent = new int[m];
+		ArrayList<Component> ret = new ArrayList<>();
+		for(int j = 0; j < m; j++) {
+			int root = find(parent, j);
+			if(root == j) {
+				componentOf[j] = ret.size();
+				ret.add(new Component());
+			}
+			else componentOf[j] = componentOf[root];
+			posInComponent[j] = ret.get(componentOf[j]).numCells++;
+		}
+		for(Component c : ret) c.cells = new int[c.numCells];
+		for(int j = 0; j < m; j++) ret.get(componentOf[j]).cells[posInComponent[j]] = j;
+		for(int[] cells : constraints) {
+			int[] local = new int[cells.length];
+			for(int k = 0; k < cells.length; k++) local[k] = posInComponent[cells[k]];
+			ret.get(componentOf[cells[0]]).constraints.add(local);
+		}
+
+		/* Count. */
+		ArrayList<Component> counted = new ArrayList<>();
+		for(Component c : ret) {
+			c.counts = this.count(c);
+			if(c.counts != null) counted.add(c);
+			else fallBack(c.constraints.toArray(new int[0][]), c.cells, marginals);
+		}
+		return counted.toArray(new Component[0]);
+	}
+
+	/* The root of j in the union-find forest, halving the path along the way. */
+	private static int find(int[] parent, int j) {
+		while(parent[j] != j) j = parent[j] = parent[parent[j]];
+		return j;
+	}
+
+	/**
+	 * Method: count
+	 * Counts the models of the given component, or looks them up if a component with the same constraint signature
+	 * (i.e. the same constraints over its rooms numbered in row-major order) was counted before. Most components are
+	 * the one or two constraints around a single room with Temperature or smoke, so the same few signatures come up
+	 * over and over, and a component far from the robot doesn't change from one move to the next.
+	 * @param c a component
+	 * @return the counts by no. of hazards (for up to c.numCells hazards), or null if the component is too large to count.
+	 */
+	private FrontierModelCounter.Counts count(Component c) {
+		c.constraints.sort(Arrays::compare);
+		StringBuilder sb = new StringBuilder().append(c.numCells);
+		for(int[] cells : c.constraints) {
+			sb.append('|');
+			for(int k = 0; k < cells.length; k++) sb.append(k == 0 ? "" : ",").append(cells[k]);
+		}
+		String signature = sb.toString();
+		if(memo.containsKey(signature)) {
+			numMemoHits++;
+			DecisionMetrics.getInstance().recordBeliefComponent(true);
+			return memo.get(signature);
+		}
+		numCounts++;
+		DecisionMetrics.getInstance().recordBeliefComponent(false);
+		FrontierModelCounter.Counts ret = null;
+		if(counter.count(c.numCells, c.constraints.toArray(new int[0][]), c.numCells)) ret = counter.getCounts();
+		memo.put(signature, ret);
+		return ret;
+	}
+
+	/**
+	 * Method: combineWithTotal
+	 * Computes the exact probabilities given that exactly t hazards remain among the constrained rooms of the given
+	 * components and the u other unknown rooms.
+	 *
+	 * The components are independent but for the total: a configuration with k hazards across all components is weighted by
+	 * C(u, t - k). So the no. of configurations of all components by no. of hazards is the product (convolution) of their
+	 * polynomials in k, and the probability of a room in component c takes the product of all the OTHER components,
+	 * which is the product of those before c (prefix) times the product of those after c (suffix).
+	 * Every polynomial is only kept up to degree min(t, no. of constrained rooms), and rescaled as it goes so that nothing
+	 * overflows. (The scale cancels out of every probability.) Weights are likewise computed in log space.
+	 * @param marginals the probability of each constrained room is stored here.
+	 * @return the probability of each of the u other unknown rooms, or -1 if no configuration is consistent with the observations.
+	 */
+	private double combineWithTotal(Component[] components, int u, int t, double[] marginals) {
+		int numComponents = components.length, numCells = 0;
+		for(Component c : components) numCells += c.numCells;
+		int maxK = Math.min(t, numCells);
+		int minK = Math.max(0, t - u);	//at most u hazards fit into the other unknown rooms
+		if(minK > maxK) return -1;
+
+		/* w[k] = C(u, t - k), relative to the greatest one. */
+		double[] logW = new double[maxK + 1];
+		double maxLogW = 0;
+		for(int k = minK; k < maxK; k++) {
+			logW[k + 1] = logW[k] + Math.log((double)(t - k) / (u - t + k + 1));
+			maxLogW = Math.max(maxLogW, logW[k + 1]);
+		}
+		double[] w = new double[maxK + 1];
+		for(int k = minK; k <= maxK; k++) w[k] = Math.exp(logW[k] - maxLogW);
+
+		double[][] prefix = new double[numComponents + 1][], suffix = new double[numComponents + 1][];
+		prefix[0] = suffix[numComponents] = new double[]{1};
+		for(int c = 0; c < numComponents; c++) prefix[c + 1] = multiply(prefix[c], components[c].counts.numModels, maxK);
+		for(int c = numComponents - 1; c >= 0; c--) suffix[c] = multiply(components[c].counts.numModels, suffix[c + 1], maxK);
+
+		double z = 0, rest = 0;
+		double[] all = prefix[numComponents];
+		for(int k = 0; k < all.length; k++) {
+			z += w[k] * all[k];
+			if(u > 0) rest += w[k] * all[k] * (t - k) / u;
+		}
+		if(z == 0) return -1;
+
+		for(int c = 0; c < numComponents; c++) {
+			/* g[a] = the weight of a hazards in component c, summed over the configurations of every other component. */
+			double[] others = multiply(prefix[c], suffix[c + 1], maxK);
+			FrontierModelCounter.Counts counts = components[c].counts;
+			double[] g = new double[Math.min(counts.numModels.length, maxK + 1)];
+			for(int a = 0; a < g.length; a++) {
+				for(int b = 0; a + b <= maxK && b < others.length; b++) g[a] += others[b] * w[a + b];
+			}
+			setMarginals(components[c], g, marginals);
+		}
+		return rest / z;
+	}
+
+	/**
+	 * Method: combineWithDensity
+	 * Computes the exact probabilities given that every room independently holds the hazard with the given probability.
+	 * The components are then entirely independent of each other, and a configuration with a hazards in a component is
+	 * weighted by (density / (1 - density))^a.
+	 * @param marginals the probability of each constrained room is stored here.
+	 * @return the probability of any other unknown room (i.e. the density), or -1 if the counts cannot be computed.
+	 */
+	private double combineWithDensity(Component[] components, double density, double[] marginals) {
+		if(density <= 0 || density >= 1) return -1;
+		double ratio = density / (1 - density);
+		for(Component c : components) {
+			double[] g = new double[c.counts.numModels.length];
+			for(int a = 0; a < g.length; a++) g[a] = a == 0 ? 1 : g[a - 1] * ratio;
+			if(!setMarginals(c, g, marginals)) return -1;
+		}
+		return density;
+	}
+
+	/**
+	 * Method: setMarginals
+	 * @param c a component
+	 * @param g g[a] = the weight of the configurations of the component with a hazards
+	 * @param marginals the probability of each room of the component is stored here.
+	 * @return false if no configuration of the component has any weight, true otherwise.
+	 */
+	private static boolean setMarginals(Component c, double[] g, double[] marginals) {
+		FrontierModelCounter.Counts counts = c.counts;
+		double z = 0;
+		for(int a = 0; a < g.length; a++) z += counts.numModels[a] * g[a];
+		if(z == 0) return false;
+		for(int j = 0; j < c.numCells; j++) {
+			double s = 0;
+			for(int a = 1; a < g.length; a++) s += counts.numModelsWith[j][a] * g[a];
+			marginals[c.cells[j]] = s / z;
+		}
+		return true;
+	}
+
+	/**
+	 * Method: multiply
+	 * @return the product of the two polynomials up to degree maxK, rescaled so that its greatest coefficient is 1.
+	 */
+	private static double[] multiply(double[] p, double[] q, int maxK) {
+		double[] ret = new double[Math.min(p.length + q.length - 1, maxK + 1)];
+		for(int a = 0; a < p.length && a < ret.length; a++) {
+			if(p[a] == 0) continue;
+			for(int b = 0; b < q.length && a + b < ret.length; b++) ret[a + b] += p[a] * q[b];
+		}
+		double max = 0;
+		for(double x : ret) max = Math.max(max, x);
+		if(max > 0) {
+			for(int k = 0; k < ret.length; k++) ret[k] /= max;
+		}
+		return ret;
+	}
+
+	/**
+	 * Method: fallBack
+	 * Used when the exact probabilities cannot be computed: each constrained room gets 1 / (no. of candidate rooms)
+	 * of the most constraining room around it, much like the heuristic in CellAsPerceivedByAI.assignProbabilityToNeighbors().
+	 * @param marginals the probability of each constrained room is stored here.
+	 * @param freeProbability the probability of any other unknown room
+	 * @return freeProbability
+	 */
+	private static double fallBack(int[][] constraints, int m, double freeProbability, double[] marginals) {
+		int[] cells = new int[m];
+		for(int j = 0; j < m; j++) cells[j] = j;
+		fallBack(constraints, cells, marginals);
+		return freeProbability;
+	}
+
+	/**
+	 * Method: fallBack
+	 * Same as above, for the rooms of a single component.
+	 * @param constraints the constraints of the component, over its rooms 0..cells.length-1
+	 * @param cells cells[j] = the constrained room that is room j of the component
+	 * @param marginals the probability of each room of the component is stored here.
+	 */
+	private static void fallBack(int[][] constraints, int[] cells, double[] marginals) {
+		for(int j : cells) marginals[j] = 0;
+		for(int[] c : constraints) {
+			for(int j : c) marginals[cells[j]] = Math.max(marginals[cells[j]], 1.0 / c.length);
+		}
+	}
+
+	/**
+	 * Method: getNumCounts
+	 * @return the no. of components whose models were counted by FrontierModelCounter so far.
+	 */
+	public long getNumCounts() {
+		return numCounts;
+	}
+
+	/**
+	 * Method: getNumMemoHits
+	 * @return the no. of components whose counts were looked up by their signature instead of being counted again.
+	 */
+	public long getNumMemoHits() {
+		return numMemoHits;
+	}
+
+	/**
+	 * Method: toPercent
+	 * @param p a probability between 0 and 1
+	 * @return the probability as a % value: 0 or 100 only if p is exactly 0 or 1, otherwise rounded into 1..99.
+	 */
+	private static int toPercent(double p) {
+		if(p <= 0) return 0;
+		if(p >= 1) return 100;
+		return (int)Math.max(1, Math.min(99, Math.round(p * 100)));
+	}
+
+	/**
+	 * Method: refreshIfExplored
+	 * @param i the index of a room. If it has been explored, its perceptions are copied over again from the board with complete information.
+	 */
+	private void refreshIfExplored(int i) {
+		if(boardAI.isExplored(i)) boardAI.setExplored(i, true, board);
+	}
+}
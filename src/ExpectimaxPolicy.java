@@ -0,0 +1,343 @@
+import java.util.Arrays;
+
+/** Class: ExpectimaxPolicy.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the ExpectimaxPolicy class.
+ *  Purpose - A lookahead robot: instead of heading for the least risky room found by Player.getLeastRiskyRooms() and
+ *  weighing nothing else, it searches a few commands ahead over its own actions ('F', 'L', 'R', 'S') and the chance
+ *  outcomes of entering a room it hasn't explored yet (dying there, finding the victim there, or neither), with the
+ *  probabilities of pits and wastes the AI currently holds (see CellAsPerceivedByAI.java). Registered in
+ *  PolicyRegistry.java as "expectimax".
+ *
+ *  The value of a state is the discounted chance of saving the victim from there: giving aid is worth 1, dying 0,
+ *  and every command costs a factor of DISCOUNT, so taking a risk now beats taking the same risk later, and a safe
+ *  detour is worth taking only while it is short. The search sees a belief state as the player's room, direction and
+ *  disinfectants, plus the rooms entered and shot at along the line searched. Within the search, a room that has been
+ *  entered and survived is safe, and a room shot at holds no waste; the other probabilities stay as they are at the root.
+ *  An unexplored room holds the victim with the same probability as any other, and having explored it without finding
+ *  the victim is worth ALIVE_VALUE. Beyond the search depth, a state is worth what a simpler search, solved in advance,
+ *  says it is. See prepare().
+ *
+ *  The same belief state is often reached along several lines (e.g. turning left then right, or exploring two rooms
+ *  in either order). Its value is then looked up in a transposition table of a fixed no. of entries, which is emptied
+ *  (in O(1), by a generation stamp) at every decision, since the probabilities behind the values change between decisions.
+ *
+ *  Every decision is searched by iterative deepening, one command deeper at a time, until maxDepth or until the time
+ *  budget runs out. The result of the deepest search completed is played. So a decision never takes (much) longer
+ *  than the budget, however many rooms are left. Note that a decision cut short by the budget depends on the speed
+ *  of the machine: for reproducible missions (e.g. for MissionReplayer.java), bound it by the no. of belief states
+ *  searched instead (see setSearchBudget()), which MissionEngine.java does for every player it creates in batch runs.
+ *
+ *  Boards of more than 64 rooms, and positions in which every line searched is hopeless, are left to HeuristicPolicy.java.
+ *  Once warmed up, a decision allocates nothing.
+ */
+public class ExpectimaxPolicy implements RobotPolicy {
+	public static final String NAME = "expectimax";
+	public static final long DEFAULT_TIME_BUDGET = 2000000L;	//nanoseconds per decision
+	public static final long DEFAULT_NODE_BUDGET = 20000L;		//belief states per decision, for DEFAULT_WORK. See setSearchBudget().
+	public static final int DEFAULT_MAX_DEPTH = 12;				//commands searched ahead, at most
+	public static final int DEFAULT_TABLE_SIZE = 1 << 16;		//entries of the transposition table. A power of 2.
+	public static final double DISCOUNT = 0.995;		//the factor every command costs
+	public static final double ALIVE_VALUE = 0.5;	//what a room still worth exploring is worth, beyond the search depth
+
+	private static final int MAX_ROOMS = 64;			//the rooms entered and shot at are kept as bits of a long
+	private static final char[] ACTIONS = {'F', 'L', 'R', 'S'};	//'G' is given as soon as the victim's room is reached
+	private static final int NODES_PER_CLOCK_CHECK = 1024;	//System.nanoTime() is read once every this many states
+
+	private long timeBudget = DEFAULT_TIME_BUDGET;
+	private long nodeBudget;		//0 for no limit
+	private int maxDepth = DEFAULT_MAX_DEPTH;
+
+	/* The transposition table. Entry k holds the value of the belief state with hash keys[k], searched depths[k] commands
+	 * deep, and is valid only if generations[k] is the generation of the current decision. */
+	private final long[] keys;
+	private final double[] values;
+	private final byte[] depths;
+	private final int[] generations;
+	private int generation;
+
+	/* The root of the current decision. See prepare(). Indexed by room (or room * 4 + direction, for neighbors). */
+	private double[] pPit = new double[0], pWaste = new double[0];	//the probabilities of a pit / a waste in every room
+	private double[] stateValue = new double[0];	//what a room and direction are worth beyond the search depth
+	private int[] neighbors = new int[0];
+	private long exploredMask;		//the rooms explored before the search
+	private int victimRoom;			//the room of the victim, if the AI knows it, or -1
+	private double victimPrior;		//the chance that the victim is in any given unexplored room, if the AI doesn't know where it is
+
+	/* The state of the current search. */
+	private long deadline, maxNodes;
+	private boolean isOutOfTime;	//of either budget
+	private boolean isCutOff;		//whether any line was cut off by the depth of the current iteration
+	private long numNodes;
+	private int depthReached;
+
+	/**
+	 * No-arg constructor. Searches with the default time budget, depth and table size.
+	 */
+	public ExpectimaxPolicy() {
+		this(DEFAULT_TABLE_SIZE);
+	}
+
+	/**
+	 * 1-arg constructor.
+	 * @param tableSize the no. of entries of the transposition table. Rounded up to a power of 2.
+	 */
+	public ExpectimaxPolicy(int tableSize) {
+		int n = Integer.highestOneBit(Math.max(1, tableSize - 1)) << 1;
+		this.keys = new long[n];
+		this.values = new double[n];
+		this.depths = new byte[n];
+		this.generations = new int[n];
+	}
+
+	@Override
+	public char decide(Player player, Board board, Board boardPerceivedByAI) {
+		if(player.getCurrentRoom().hasVictim()) return 'G';
+		if(boardPerceivedByAI.getRows() * boardPerceivedByAI.getCols() > MAX_ROOMS) return player.decideHeuristically(board, boardPerceivedByAI);
+		this.prepare(board, boardPerceivedByAI);
+		int room = player.getCurrentRoom().getLocation(), dir = player.getDir(), shots = Math.min(player.getNumOfShotsLeft(), 15);
+
+		long startTime = System.nanoTime();
+		deadline = timeBudget > 0 ? startTime + timeBudget : Long.MAX_VALUE;
+		maxNodes = nodeBudget > 0 ? nodeBudget : Long.MAX_VALUE;
+		isOutOfTime = false;
+		numNodes = 0;
+		depthReached = 0;
+		if(++generation == 0) {	//the stamp wrapped around: forget every entry
+			Arrays.fill(generations, 0);
+			generation = 1;
+		}
+		char bestAction = ' ';
+		double bestValue = 0;
+		for(int depth = 1; depth <= maxDepth; depth++) {
+			isCutOff = false;
+			char action = ' ';
+			double value = 0;
+			for(int a = 0; a < ACTIONS.length && !isOutOfTime; a++) {
+				double q = this.q(room, dir, shots, 0L, 0L, ACTIONS[a], depth);
+				if(q > value) {	//ties go to the action listed first
+					value = q;
+					action = ACTIONS[a];
+				}
+			}
+			if(isOutOfTime) break;	//the iteration is incomplete. Keep the last one.
+			bestAction = action;
+			bestValue = value;
+			depthReached = depth;
+			if(!isCutOff) break;	//every line has been searched to its end. Going deeper won't change anything.
+		}
+		if(bestAction == ' ' || bestValue <= 0) return player.decideHeuristically(board, boardPerceivedByAI);
+		if(bestAction == 'S') {
+			/* Whether the shot hits or not, there is no waste in that room afterwards. Same as in Player.decideHeuristically(). */
+			boardPerceivedByAI.getRoomAI(neighbors[room * 4 + dir]).setprobabilityOfWastes(0);
+		}
+		return bestAction;
+	}
+
+	/**
+	 * Method: prepare
+	 * Reads what the search needs off the board perceived by AI: the probabilities of a pit and a waste in every room
+	 * (CellAsPerceivedByAI.DUMMY_PROBABILITY, i.e. no clue either way, is taken as the pit % the AI is told (see
+	 * Board.getPitPercent()) and the remaining wastes spread over the board), the rooms explored and the victim's room, if known.
+	 *
+	 * Then works out what each (room, direction) is worth beyond the search depth, by value iteration over a simpler
+	 * version of the search: the same commands and chances, except that entering an unexplored room ends it, with the
+	 * chance of finding the victim there, or else ALIVE_VALUE. (Going on from there would count that room's chance of
+	 * holding the victim again on every pass.) Unlike a distance between rooms, this charges for turning, so the search
+	 * never puts a turn off until past its depth just because it looks free there.
+	 */
+	private void prepare(Board board, Board boardAI) {
+		int n = boardAI.getRows() * boardAI.getCols();
+		double pitDensity = boardAI.getPitPercent() / 100.0, wasteDensity = Math.min(1.0, (double)board.getwastesRemaining() / n);
+		if(pPit.length < n) {
+			pPit = new double[n];
+			pWaste = new double[n];
+			stateValue = new double[n * 4];
+			neighbors = new int[n * 4];
+		}
+		exploredMask = 0L;
+		victimRoom = -1;
+		int numUnexplored = 0;
+		for(int i = 0; i < n; i++) {
+			if(boardAI.isExplored(i)) {
+				exploredMask |= 1L << i;
+				if(boardAI.hasVictim(i)) victimRoom = i;
+			}
+			else numUnexplored++;
+			int pit = boardAI.getProbabilityOfPit(i), waste = boardAI.getProbabilityOfWastes(i);
+			pPit[i] = pit == CellAsPerceivedByAI.DUMMY_PROBABILITY ? pitDensity : pit / 100.0;
+			pWaste[i] = waste == CellAsPerceivedByAI.DUMMY_PROBABILITY ? wasteDensity : waste / 100.0;
+			for(int d = 0; d < 4; d++) neighbors[i * 4 + d] = boardAI.neighbor(i, d);
+		}
+		victimPrior = victimRoom >= 0 || numUnexplored == 0 ? 0 : 1.0 / numUnexplored;
+		double offer = victimPrior * DISCOUNT + (1 - victimPrior) * ALIVE_VALUE;	//of entering an unexplored room
+
+		double[] v = stateValue;
+		Arrays.fill(v, 0, n * 4, 0.0);
+		boolean isChanged = true;
+		for(int sweep = 0; sweep < n * 4 && isChanged; sweep++) {	//Gauss-Seidel sweeps, until nothing changes
+			isChanged = false;
+			for(int s = 0; s < n * 4; s++) {
+				int room = s >>> 2, dir = s & 3;
+				double best = DISCOUNT * Math.max(v[room * 4 + ((dir + 3) & 3)], v[room * 4 + ((dir + 1) & 3)]);	//'L', 'R'
+				int next = neighbors[s];
+				if(next >= 0) {	//'F'
+					double survival = 1 - this.deathProbability(next, 0L);
+					double f;
+					if(next == victimRoom) f = DISCOUNT;	//then 'G'
+					else if((exploredMask & (1L << next)) != 0) f = v[next * 4 + dir];
+					else f = offer;
+					best = Math.max(best, DISCOUNT * survival * f);
+				}
+				if(best > v[s] + 1e-12) {
+					v[s] = best;
+					isChanged = true;
+				}
+			}
+		}
+	}
+
+	/* The chance of dying upon entering room i, given the rooms shot at. */
+	private double deathProbability(int i, long shotMask) {
+		double waste = (shotMask & (1L << i)) != 0 ? 0 : pWaste[i];
+		return 1 - (1 - pPit[i]) * (1 - waste);
+	}
+
+	/**
+	 * Method: q
+	 * @return the value of taking the given action in the given belief state, searched depth commands deep,
+	 * or -1 if the action is pointless there (moving into a wall, or shooting at a room that can't hold a live waste).
+	 */
+	private double q(int room, int dir, int shots, long visitedMask, long shotMask, char action, int depth) {
+		switch(action) {
+		case 'L':
+			return DISCOUNT * this.value(room, (dir + 3) & 3, shots, visitedMask, shotMask, depth - 1);
+		case 'R':
+			return DISCOUNT * this.value(room, (dir + 1) & 3, shots, visitedMask, shotMask, depth - 1);
+		case 'F': {
+			int next = neighbors[room * 4 + dir];
+			if(next < 0) return -1;
+			long bit = 1L << next;
+			double survival = (visitedMask & bit) != 0 ? 1 : 1 - this.deathProbability(next, shotMask);	//survived it once already
+			if(survival <= 0) return 0;
+			if(next == victimRoom) return DISCOUNT * survival * DISCOUNT;	//then 'G'
+			if(((exploredMask | visitedMask) & bit) != 0) {
+				return DISCOUNT * survival * this.value(next, dir, shots, visitedMask, shotMask, depth - 1);
+			}
+			double rest = this.value(next, dir, shots, visitedMask | bit, shotMask, depth - 1);
+			return DISCOUNT * survival * (victimPrior * DISCOUNT + (1 - victimPrior) * rest);
+		}
+		case 'S': {
+			int next = neighbors[room * 4 + dir];
+			if(shots == 0 || next < 0) return -1;
+			long bit = 1L << next;
+			if(((visitedMask | shotMask) & bit) != 0 || pWaste[next] == 0) return -1;
+			return DISCOUNT * this.value(room, dir, shots - 1, visitedMask, shotMask | bit, depth - 1);
+		}
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Method: value
+	 * @return the value of the given belief state, searched depth commands deep: the best of the actions available.
+	 */
+	private double value(int room, int dir, int shots, long visitedMask, long shotMask, int depth) {
+		if(depth == 0) {
+			isCutOff = true;
+			double v = stateValue[room * 4 + dir];
+			return (visitedMask & (1L << room)) != 0 ? Math.max(ALIVE_VALUE, v) : v;
+		}
+		if(++numNodes > maxNodes || numNodes % NODES_PER_CLOCK_CHECK == 0 && System.nanoTime() > deadline) isOutOfTime = true;
+		if(isOutOfTime) return 0;
+
+		long key = hashOf(room, dir, shots, visitedMask, shotMask);
+		int k = (int)key & (keys.length - 1);
+		if(generations[k] == generation && keys[k] == key && depths[k] >= depth) return values[k];
+
+		/* Having just explored a room is worth ALIVE_VALUE, without any further command (as beyond the search depth, and
+		 * in prepare()). Otherwise the lines that explore within the search would lose to those that put it off. */
+		double ret = (visitedMask & (1L << room)) != 0 ? ALIVE_VALUE : 0;
+		for(int a = 0; a < ACTIONS.length; a++) {
+			double q = this.q(room, dir, shots, visitedMask, shotMask, ACTIONS[a], depth);
+			if(q > ret) ret = q;
+		}
+		if(!isOutOfTime && (generations[k] != generation || depths[k] <= depth)) {	//keep the deeper of two entries
+			generations[k] = generation;
+			keys[k] = key;
+			depths[k] = (byte)depth;
+			values[k] = ret;
+		}
+		return ret;
+	}
+
+	/* A 64-bit hash of a belief state of the search. */
+	private static long hashOf(int room, int dir, int shots, long visitedMask, long shotMask) {
+		long h = BitBoard.mix64(visitedMask);
+		h = BitBoard.mix64(h * 31 + shotMask);
+		return BitBoard.mix64(h * 31 + (((long)room << 16) | (dir << 8) | shots));
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	/**
+	 * Method: setTimeBudget
+	 * @param nanos the most time a decision may take, in nanoseconds, or 0 for no limit. Defaults to DEFAULT_TIME_BUDGET.
+	 */
+	public void setTimeBudget(long nanos) {
+		this.timeBudget = nanos;
+	}
+
+	/**
+	 * Method: setSearchBudget
+	 * Bounds each decision by the no. of belief states searched rather than by the clock (with no time limit), so that
+	 * it depends on the position alone. As with the time budget, an iteration cut short is discarded.
+	 * Overrides setTimeBudget().
+	 * @param budget the no. of belief states per decision, DEFAULT_WORK for DEFAULT_NODE_BUDGET, or WALL_CLOCK to go back to
+	 * DEFAULT_TIME_BUDGET
+	 */
+	@Override
+	public void setSearchBudget(long budget) {
+		if(budget == WALL_CLOCK) {
+			this.timeBudget = DEFAULT_TIME_BUDGET;
+			this.nodeBudget = 0;
+			return;
+		}
+		long n = budget == DEFAULT_WORK ? DEFAULT_NODE_BUDGET : budget;
+		if(n < 1) throw new IllegalArgumentException("Invalid search budget: " + budget);
+		this.timeBudget = 0;
+		this.nodeBudget = n;
+	}
+
+	/**
+	 * Method: setMaxDepth
+	 * @param maxDepth the most commands a decision searches ahead, from 1 to 127. Defaults to DEFAULT_MAX_DEPTH.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		if(maxDepth < 1 || maxDepth > Byte.MAX_VALUE) throw new IllegalArgumentException("maxDepth must be from 1 to 127: " + maxDepth);
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Method: getDepthReached
+	 * @return the depth of the deepest search completed by the last decision.
+	 */
+	public int getDepthReached() {
+		return depthReached;
+	}
+
+	/**
+	 * Method: getNumNodes
+	 * @return the no. of belief states the last decision searched (transposition table hits included).
+	 */
+	public long getNumNodes() {
+		return numNodes;
+	}
+}
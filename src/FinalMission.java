@@ -7,6 +7,30 @@
  *  This Class - The actual mission. Used as part of the experiment.
  */
 public class FinalMission {
+	/* The easy environment. Used for experiment types 1 and 2. */
+	public static final String[][] EASY_ENVIRONMENT =
+			{{"", "", "P", "", "", ""},
+			 {"", "", "P", "", "", ""},
+			 {"", "", "P", "", "", ""},
+			 {"", "", "", "G", "", "W"},
+			 {"", "", "", "", "", "W"},
+			 {"", "", "", "", "", ""},
+			};
+
+	/* The hard environment. Used for experiment types 3 and 4. */
+	public static final String[][] HARD_ENVIRONMENT =
+			{{"", "", "", "", "", "P"},
+			{"", "", "", "P", "", ""},
+			{"", "P", "", "W", "P", ""},
+			{"", "", "", "", "", ""},
+			{"", "", "", "W", "P", ""},
+			{"P", "", "", "P", "", "G"},
+			};
+
+	/* The % of time the robot acts randomly, by experiment type. "Poor" AI (types 1 and 3) acts randomly 25% of the time,
+	 * "good" AI (types 2 and 4) never does. See the commented-out options in Intro.java. Index 0 is unused. */
+	public static final int[] PERCENT_RANDOM = {0, 25, 0, 25, 0};
+
 	private SAR sar;
 	private String[] drillInstructionArr;
 	private int totalPagesOfInstr, currentPage;
@@ -43,32 +67,7 @@ public class FinalMission {
 		this.drillInstrIndex = -1;
 		sar.instrSetFont(sar.instructions.getFont().deriveFont(18f));
 
-		if (sar.getExperimentType() == 1 || sar.getExperimentType() == 2) { //easy environment
-			sar.board = new Board(new String[][]
-					{{"", "", "P", "", "", ""},
-					 {"", "", "P", "", "", ""},
-					 {"", "", "P", "", "", ""},
-					 {"", "", "", "G", "", "W"},
-					 {"", "", "", "", "", "W"},
-					 {"", "", "", "", "", ""},
-					});
-		} else if (sar.getExperimentType() == 3 || sar.getExperimentType() == 4) {  //hard environment
-			sar.board = new Board(new String[][]
-					{{"", "", "", "", "", "P"},
-					{"", "", "", "P", "", ""},
-					{"", "P", "", "W", "P", ""},
-					{"", "", "", "", "", ""},
-					{"", "", "", "W", "P", ""},
-					{"P", "", "", "P", "", "G"},
-					});
-		} else {
-			throw new RuntimeException("Something is wrong!");
-		}
-
-
-		//Easy environment
-
-
+		sar.engine.setBoard(new Board(FinalMission.getLayout(sar.getExperimentType())));
 
 		Cell startRoom;
 		CellAsPerceivedByAI startRoomAI;
@@ -84,6 +83,22 @@ public class FinalMission {
 	}
 
 
+	/**
+	 * Method: getLayout
+	 * @param experimentType 1 - easy/bad AI, 2 - easy/good AI, 3 - hard/bad AI, 4 - hard/good AI
+	 * @return the board layout used for the final mission of the given experiment type.
+	 */
+	public static String[][] getLayout(int experimentType) {
+		if (experimentType == 1 || experimentType == 2) { //easy environment
+			return EASY_ENVIRONMENT;
+		} else if (experimentType == 3 || experimentType == 4) {  //hard environment
+			return HARD_ENVIRONMENT;
+		} else {
+			throw new RuntimeException("Something is wrong!");
+		}
+	}
+
+
 	/**
 	 * Method: showNextInstruction
 	 * Used in tutorial mode only. Shows the next set of instructions.
@@ -133,7 +148,7 @@ public class FinalMission {
 
 	public void checkStatus(String command) {
 		//If mission is over (success or fail, doesn't matter), then show next instruction. Otherwise do nothing
-		if (sar.currentState == SAR.GameState.DRAW || sar.currentState == SAR.GameState.H1_WON) {
+		if (sar.engine.getState() == MissionEngine.GameState.DRAW || sar.engine.getState() == MissionEngine.GameState.H1_WON) {
 			showNextInstruction();
 		}
 	}
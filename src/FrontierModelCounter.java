@@ -0,0 +1,210 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Class: FrontierModelCounter.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the FrontierModelCounter class.
+ *  Purpose - Counts the hazard configurations of a set of frontier cells that satisfy a set of "at least one of these
+ *  cells holds a hazard" constraints (one constraint per explored room with Temperature, or with smoke), broken down
+ *  by the no. of hazards k, along with the same counts restricted to configurations in which a given cell holds a hazard.
+ *  Used by ExactBeliefEngine.java to turn these counts into exact probabilities. The results of count() can be kept
+ *  as an immutable Counts snapshot, which ExactBeliefEngine.java memoizes.
+ *
+ *  Enumerating all 2^n configurations of n frontier cells is out of the question, but every constraint only involves
+ *  the (at most four) cells around one room. So the cells are visited in row-major order, and the only thing that
+ *  matters about the cells visited so far is which of the constraints that are still "open" (i.e. that involve a cell
+ *  not yet visited) they have already satisfied. That is a bitmask, and configurations with the same bitmask are merged
+ *  (memoized) into a single DP state holding a polynomial in k. Since the constraints open at any one time are those
+ *  around roughly one row of the board, the no. of states stays small.
+ *
+ *  One forward pass (prefixes) and one backward pass (suffixes) over the states give every cell's counts at once:
+ *  the configurations with a hazard in cell i are the prefixes before cell i, times the hazard in cell i, times the
+ *  suffixes that complete them.
+ */
+public class FrontierModelCounter {
+	public static final int MAX_CONSTRAINTS = 64;	//constraints are kept in a long bitmask
+	public static final int MAX_STATES = 1 << 12;	//give up (see count()) if more DP states than this are needed at any cell
+
+	/**
+	 * Inner class Counts. The results of one count(): numModels[k] and numModelsWith[cell][k], as returned by
+	 * getNumModels() and getNumModelsWith().
+	 */
+	public static class Counts {
+		public final double[] numModels;
+		public final double[][] numModelsWith;
+
+		Counts(double[] numModels, double[][] numModelsWith) {
+			this.numModels = numModels;
+			this.numModelsWith = numModelsWith;
+		}
+	}
+	//end class Counts
+
+	private int numCells;		//no. of frontier cells
+	private int maxHazards;		//counts are kept for 0..maxHazards hazards only
+	private long[] cellMask;	//cellMask[i] = the constraints that cell i is part of
+	private long[] closeMask;	//closeMask[i] = the constraints whose last cell is cell i
+	private long[] liveMask;	//liveMask[i] = the constraints whose last cell is cell i or later
+	private ArrayList<HashMap<Long, double[]>> prefixes = new ArrayList<>();	//prefixes.get(i): state before cell i -> counts of cells 0..i-1
+	private ArrayList<HashMap<Long, double[]>> suffixes = new ArrayList<>();	//suffixes.get(i): state before cell i -> counts of cells i..n-1
+	private double[] numModels;			//numModels[k] = no. of configurations with k hazards
+	private double[][] numModelsWith;	//numModelsWith[i][k] = no. of configurations with k hazards, one of them in cell i
+
+	/**
+	 * Method: count
+	 * @param numCells the no. of frontier cells, numbered 0..numCells-1 in row-major order.
+	 * @param constraints each element holds the cells of which at least one must hold a hazard.
+	 * @param maxHazards the maximum no. of hazards of interest. Configurations with more hazards are not counted.
+	 * @return true if counted, false if the problem is too large (more than MAX_CONSTRAINTS constraints or MAX_STATES states).
+	 */
+	public boolean count(int numCells, int[][] constraints, int maxHazards) {
+		if(constraints.length > MAX_CONSTRAINTS) return false;
+		this.numCells = numCells;
+		this.maxHazards = Math.min(maxHazards, numCells);
+		this.cellMask = new long[numCells];
+		this.closeMask = new long[numCells];
+		this.liveMask = new long[numCells + 1];
+		this.prefixes.clear();
+		this.suffixes.clear();
+
+		/* A constraint without any cell can never be satisfied. */
+		for(int c = 0; c < constraints.length; c++) {
+			if(constraints[c].length == 0) {
+				setNoModels();
+				return true;
+			}
+			int last = 0;
+			for(int i : constraints[c]) {
+				cellMask[i] |= 1L << c;
+				last = Math.max(last, i);
+			}
+			closeMask[last] |= 1L << c;
+		}
+		for(int i = numCells - 1; i >= 0; i--) liveMask[i] = liveMask[i + 1] | closeMask[i];
+
+		/* Forward pass. */
+		HashMap<Long, double[]> layer = new HashMap<>();
+		double[] one = new double[this.maxHazards + 1];
+		one[0] = 1;
+		layer.put(0L, one);
+		prefixes.add(layer);
+		for(int i = 0; i < numCells; i++) {
+			HashMap<Long, double[]> next = new HashMap<>();
+			for(Map.Entry<Long, double[]> e : layer.entrySet()) {
+				for(int h = 0; h <= 1; h++) {
+					long s = nextState(i, e.getKey(), h);
+					if(s < 0) continue;
+					double[] acc = next.get(s);
+					if(acc == null) next.put(s, acc = new double[this.maxHazards + 1]);
+					addShifted(acc, e.getValue(), h);
+				}
+			}
+			if(next.size() > MAX_STATES) return false;
+			prefixes.add(layer = next);
+		}
+
+		/* Backward pass, over the states reached by the forward pass only. */
+		for(int i = 0; i <= numCells; i++) suffixes.add(null);
+		HashMap<Long, double[]> end = new HashMap<>();
+		end.put(0L, one);
+		suffixes.set(numCells, end);
+		for(int i = numCells - 1; i >= 0; i--) {
+			HashMap<Long, double[]> cur = new HashMap<>();
+			HashMap<Long, double[]> after = suffixes.get(i + 1);
+			for(Long key : prefixes.get(i).keySet()) {
+				double[] acc = new double[this.maxHazards + 1];
+				for(int h = 0; h <= 1; h++) {
+					long s = nextState(i, key, h);
+					if(s >= 0 && after.containsKey(s)) addShifted(acc, after.get(s), h);
+				}
+				cur.put(key, acc);
+			}
+			suffixes.set(i, cur);
+		}
+
+		/* Combine. */
+		numModels = suffixes.get(0).getOrDefault(0L, new double[this.maxHazards + 1]);
+		numModelsWith = new double[numCells][this.maxHazards + 1];
+		for(int i = 0; i < numCells; i++) {
+			HashMap<Long, double[]> after = suffixes.get(i + 1);
+			for(Map.Entry<Long, double[]> e : prefixes.get(i).entrySet()) {
+				long s = nextState(i, e.getKey(), 1);
+				if(s < 0 || !after.containsKey(s)) continue;
+				double[] pre = e.getValue(), suf = after.get(s);
+				for(int a = 0; a < pre.length; a++) {
+					if(pre[a] == 0) continue;
+					for(int b = 0; a + b + 1 <= this.maxHazards; b++) numModelsWith[i][a + b + 1] += pre[a] * suf[b];
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Method: nextState
+	 * @param i the cell about to be visited
+	 * @param state the state before cell i: which of the constraints in liveMask[i] are satisfied
+	 * @param hazard 1 if cell i holds a hazard, 0 otherwise
+	 * @return the state before cell i+1, or -1 if some constraint closing at cell i would be left unsatisfied.
+	 */
+	private long nextState(int i, long state, int hazard) {
+		long s = hazard == 1 ? state | cellMask[i] : state;
+		if((s & closeMask[i]) != closeMask[i]) return -1;
+		return s & liveMask[i + 1];
+	}
+
+	/* acc[k + shift] += src[k] for every k, dropping anything beyond maxHazards. */
+	private void addShifted(double[] acc, double[] src, int shift) {
+		for(int k = 0; k + shift <= maxHazards; k++) acc[k + shift] += src[k];
+	}
+
+	private void setNoModels() {
+		numModels = new double[maxHazards + 1];
+		numModelsWith = new double[numCells][maxHazards + 1];
+	}
+
+	public int getNumCells() {
+		return numCells;
+	}
+
+	public int getMaxHazards() {
+		return maxHazards;
+	}
+
+	/**
+	 * Method: getNumModels
+	 * @param k a no. of hazards, at most getMaxHazards()
+	 * @return the no. of configurations with exactly k hazards that satisfy every constraint.
+	 */
+	public double getNumModels(int k) {
+		return numModels[k];
+	}
+
+	/**
+	 * Method: getNumModelsWith
+	 * @param cell a frontier cell
+	 * @param k a no. of hazards, at most getMaxHazards()
+	 * @return the no. of configurations with exactly k hazards, one of them in the given cell, that satisfy every constraint.
+	 */
+	public double getNumModelsWith(int cell, int k) {
+		return numModelsWith[cell][k];
+	}
+
+	/**
+	 * Method: getCounts
+	 * @return the results of the last count(), which are no longer modified by this FrontierModelCounter.
+	 */
+	public Counts getCounts() {
+		return new Counts(numModels, numModelsWith);
+	}
+
+	@Override
+	public String toString() {
+		return "FrontierModelCounter" + Arrays.toString(numModels);
+	}
+}
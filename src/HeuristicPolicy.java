@@ -0,0 +1,24 @@
+/** Class: HeuristicPolicy.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the HeuristicPolicy class.
+ *  Purpose - The original robot AI: give aid if the victim is here, head for the victim if its room is known,
+ *  explore the nearest room that is 100% safe, shoot at a likely waste, and otherwise explore the least risky room.
+ *  The algorithm itself stays in Player.java (see Player.decideHeuristically()), since it runs on the player's own
+ *  Pathfind and buffers. Registered in PolicyRegistry.java as "heuristic", the default.
+ */
+public class HeuristicPolicy implements RobotPolicy {
+	public static final String NAME = "heuristic";
+
+	@Override
+	public char decide(Player player, Board board, Board boardPerceivedByAI) {
+		return player.decideHeuristically(board, boardPerceivedByAI);
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+
+/** Class: IndexedMinHeap.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the IndexedMinHeap class.
+ *  Purpose - A binary min-heap of int ids in the range [0, capacity), each with an int key. Used by Pathfind.java
+ *  as the priority queue of its Uniform-Cost Search.
+ *
+ *  Unlike java.util.PriorityQueue, the heap knows where each id is stored (see pos[]), so it can tell in O(1)
+ *  whether an id is queued and can lower the key of a queued id in O(log n) (decrease-key), instead of the
+ *  O(n) contains() + remove() + add() it takes to do the same with a PriorityQueue.
+ *  Ties between equal keys are broken by the smaller id, so the order in which ids come out is fully deterministic.
+ */
+public class IndexedMinHeap {
+	private int[] heap;		//heap[k] = the id stored at position k of the heap
+	private int[] pos;		//pos[id] = the position of the id in heap[], or -1 if the id is not queued
+	private int[] keys;		//keys[id] = the key of the id, valid only while the id is queued
+	private int size;		//no. of ids currently queued
+
+	/**
+	 * 1-arg constructor.
+	 * @param capacity ids must be in the range [0, capacity)
+	 */
+	public IndexedMinHeap(int capacity) {
+		this.heap = new int[capacity];
+		this.pos = new int[capacity];
+		this.keys = new int[capacity];
+		Arrays.fill(pos, -1);
+	}
+
+	public int capacity() {
+		return pos.length;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Method: contains
+	 * @param id an id
+	 * @return whether the id is currently queued
+	 */
+	public boolean contains(int id) {
+		return pos[id] >= 0;
+	}
+
+	/**
+	 * Method: key
+	 * @param id an id that is currently queued
+	 * @return its key
+	 */
+	public int key(int id) {
+		return keys[id];
+	}
+
+	/**
+	 * Method: clear
+	 * Empties the heap. Takes time proportional to the no. of ids still queued, not to the capacity.
+	 */
+	public void clear() {
+		for(int k = 0; k < size; k++) pos[heap[k]] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Method: insert
+	 * @param id an id that is not currently queued
+	 * @param key its key
+	 */
+	public void insert(int id, int key) {
+		keys[id] = key;
+		pos[id] = size;
+		heap[size] = id;
+		siftUp(size++);
+	}
+
+	/**
+	 * Method: decreaseKey
+	 * @param id an id that is currently queued
+	 * @param key its new key, which must not be greater than its current key
+	 */
+	public void decreaseKey(int id, int key) {
+		keys[id] = key;
+		siftUp(pos[id]);
+	}
+
+	/**
+	 * Method: insertOrDecrease
+	 * Queues the id with the given key, or lowers its key if it is already queued with a greater key.
+	 * @return true if the id was queued or its key lowered, false if it was already queued with a key at most as great.
+	 */
+	public boolean insertOrDecrease(int id, int key) {
+		if(pos[id] < 0) {
+			insert(id, key);
+			return true;
+		}
+		if(key >= keys[id]) return false;
+		decreaseKey(id, key);
+		return true;
+	}
+
+	/**
+	 * Method: poll
+	 * Removes the id with the least key (and, among those, the least id).
+	 * @return the removed id. The heap must not be empty.
+	 */
+	public int poll() {
+		int ret = heap[0];
+		pos[ret] = -1;
+		if(--size > 0) {
+			heap[0] = heap[size];
+			pos[heap[0]] = 0;
+			siftDown(0);
+		}
+		return ret;
+	}
+
+	/* Whether the id a comes out before the id b. */
+	private boolean less(int a, int b) {
+		return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+	}
+
+	private void siftUp(int k) {
+		int id = heap[k];
+		while(k > 0) {
+			int parent = (k - 1) >>> 1;
+			if(!less(id, heap[parent])) break;
+			heap[k] = heap[parent];
+			pos[heap[k]] = k;
+			k = parent;
+		}
+		heap[k] = id;
+		pos[id] = k;
+	}
+
+	private void siftDown(int k) {
+		int id = heap[k];
+		while(true) {
+			int child = 2 * k + 1;
+			if(child >= size) break;
+			if(child + 1 < size && less(heap[child + 1], heap[child])) child++;
+			if(!less(heap[child], id)) break;
+			heap[k] = heap[child];
+			pos[heap[k]] = k;
+			k = child;
+		}
+		heap[k] = id;
+		pos[id] = k;
+	}
+}
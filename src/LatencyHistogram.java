@@ -0,0 +1,118 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Class: LatencyHistogram.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the LatencyHistogram class.
+ *  Purpose - Records durations (in nanoseconds) from any number of threads at once, without locks, and reports their
+ *  percentiles. Used by DecisionMetrics.java to keep track of how long the AI takes to decide, to find paths and to
+ *  refresh its beliefs.
+ *
+ *  Durations are counted in buckets of exponentially increasing width, like HdrHistogram does: every power of two
+ *  is split into SUB_BUCKETS equal buckets, so a percentile is reported to within 1/SUB_BUCKETS (about 6%) of the
+ *  actual duration, whether it is 100 nanoseconds or 100 seconds. Recording a duration is one atomic increment of its
+ *  bucket plus a few more for the totals, and never allocates.
+ *
+ *  The buckets are read one at a time, so percentiles read while other threads are recording may be off by the
+ *  durations recorded in the meantime. That is good enough for watching them live.
+ */
+public class LatencyHistogram {
+	public static final int SUB_BUCKET_BITS = 4;
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;	//enough for any non-negative long
+
+	private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);	//counts[b] = no. of durations recorded in bucket b
+	private final LongAdder count = new LongAdder();	//no. of durations recorded
+	private final LongAdder sum = new LongAdder();		//their sum
+	private final AtomicLong max = new AtomicLong();	//the longest of them
+
+	/**
+	 * Method: record
+	 * @param nanos a duration in nanoseconds. Negative durations (e.g. from a clock going backwards) count as 0.
+	 */
+	public void record(long nanos) {
+		if(nanos < 0) nanos = 0;
+		counts.incrementAndGet(bucketOf(nanos));
+		count.increment();
+		sum.add(nanos);
+		long m = max.get();
+		while(nanos > m && !max.compareAndSet(m, nanos)) m = max.get();
+	}
+
+	/**
+	 * Method: getCount
+	 * @return the no. of durations recorded so far.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Method: getMean
+	 * @return the mean duration in nanoseconds, or 0 if none were recorded.
+	 */
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double)sum.sum() / n;
+	}
+
+	/**
+	 * Method: getMax
+	 * @return the longest duration in nanoseconds, or 0 if none were recorded.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Method: getPercentile
+	 * @param percentile between 0 and 100, e.g. 99 for the 99th percentile
+	 * @return the shortest duration (in nanoseconds, up to the bucket width) that at least the given percentage
+	 * of the durations recorded don't exceed, or 0 if none were recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long[] snapshot = new long[NUM_BUCKETS];
+		long total = 0;
+		for(int b = 0; b < NUM_BUCKETS; b++) total += snapshot[b] = counts.get(b);
+		if(total == 0) return 0;
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for(int b = 0; b < NUM_BUCKETS; b++) {
+			seen += snapshot[b];
+			if(seen >= rank) return Math.min(highestValueIn(b), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Method: reset
+	 * Forgets every duration recorded so far. Durations recorded by other threads at the same time may or may not be kept.
+	 */
+	public void reset() {
+		for(int b = 0; b < NUM_BUCKETS; b++) counts.set(b, 0);
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+	/* The bucket of a non-negative value: the value itself below SUB_BUCKETS, otherwise the power of two it falls in,
+	 * followed by its next SUB_BUCKET_BITS bits. */
+	static int bucketOf(long value) {
+		if(value < SUB_BUCKETS) return (int)value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);	//at least SUB_BUCKET_BITS
+		int sub = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/* The highest value that falls in the given bucket. */
+	static long highestValueIn(int bucket) {
+		if(bucket < SUB_BUCKETS) return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,478 @@
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+/** Class: MCTSPolicy.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the MCTSPolicy class.
+ *  Purpose - A robot that plays its options out before choosing one: Monte Carlo tree search over the commands it may give
+ *  and what it may perceive in return, in the manner of POMCP (partially observable Monte Carlo planning). Registered in
+ *  PolicyRegistry.java as "mcts".
+ *
+ *  The AI doesn't know where the pits, the wastes and the victim are, so every simulation starts by drawing a layout that
+ *  agrees with everything it has perceived (see sampleLayout()), and then plays the mission out on it, on a MissionEngine
+ *  of its own (see MissionEngine.setUpSimulation()). The commands of a simulation are chosen by UCB1 down a search tree,
+ *  whose nodes are the histories of commands and perceptions met so far (after each command, the room the robot is in,
+ *  what it perceives there and whether its shot hit). The first time a history is met, the mission is played out from
+ *  there by the original heuristic (see Player.getAction()), which is the rollout policy. A simulation is worth
+ *  DISCOUNT^(no. of moves) if the victim is given aid, and 0 if the robot dies or runs out of moves.
+ *
+ *  The rollouts make the heuristic the baseline to improve on: every layout drawn is played out once per first command
+ *  (so that the commands are compared on the same layouts, which are by far the largest source of noise), and a command
+ *  other than the heuristic's is played only if it beats the heuristic's by more than CONFIDENCE standard errors.
+ *  With too few simulations to tell, the robot thus plays as the heuristic would, rather than at random.
+ *
+ *  The search is root-parallel: each of numTrees trees (by default one per core) runs its own simulations on its own
+ *  layouts and engine, as a fork-join task. At the deadline, the differences measured by all trees are added up before
+ *  the command is chosen. The trees share nothing while they search, so they never wait on one another.
+ *
+ *  Each tree runs until the time budget of the decision is used up (finishing the layout at hand, so a decision may
+ *  overrun by a few simulations), or until it has run maxSimulations simulations. A decision cut short by the budget
+ *  depends on the speed of the machine: for reproducible missions (e.g. for MissionReplayer.java), bound it by the no. of
+ *  simulations instead (see setSearchBudget()), and seed it (see setSeed()). MissionEngine.java does both for every
+ *  player it creates, from its own seed and search budget.
+ *
+ *  Simplifications: a layout is drawn room by room, with the probabilities the AI holds, until one agrees with the
+ *  Temperature and smoke readings of every explored room (up to MAX_LAYOUT_ATTEMPTS draws, after which the last one is
+ *  played anyway). So the no. of hazards of a layout varies around what the AI expects. The simulations refresh the AI's
+ *  beliefs by the HEURISTIC belief model (see MissionEngine.BeliefModel), whatever the model of the real mission.
+ */
+public class MCTSPolicy implements RobotPolicy {
+	public static final String NAME = "mcts";
+	public static final long DEFAULT_TIME_BUDGET = 20000000L;	//nanoseconds per decision
+	public static final int DEFAULT_MAX_SIMULATIONS = 10000;	//simulations per tree and decision, at most
+	public static final int DEFAULT_NUM_TREES = Runtime.getRuntime().availableProcessors();
+	public static final long DEFAULT_SEARCH_BUDGET = 128;	//simulations per decision, over all trees, for DEFAULT_WORK. About what DEFAULT_TIME_BUDGET buys on one core.
+	public static final int BUDGETED_NUM_TREES = 4;		//trees per decision when bounded by simulations. See setSearchBudget().
+	public static final double DISCOUNT = 0.995;		//the factor every move costs
+	public static final double EXPLORATION = 0.5;		//the exploration constant of UCB1
+	public static final double CONFIDENCE = 2.0;		//standard errors by which a command must beat the heuristic's. See decide().
+	public static final int MAX_LAYOUT_ATTEMPTS = 100;	//layouts drawn per simulation, at most. See sampleLayout().
+
+	private static final char[] ACTIONS = {'F', 'L', 'R', 'S'};	//'G' is given as soon as the victim's room is reached
+
+	private long timeBudget = DEFAULT_TIME_BUDGET;
+	private int maxSimulations = DEFAULT_MAX_SIMULATIONS;
+	private int numTrees = DEFAULT_NUM_TREES;
+	private SplittableRandom random = new SplittableRandom();
+
+	/* Statistics of the last decision. */
+	private long numSimulations;
+	private int treeSize;
+
+	@Override
+	public char decide(Player player, Board board, Board boardPerceivedByAI) {
+		if(player.getCurrentRoom().hasVictim()) return 'G';
+		/* The command the heuristic would give, decided on copies, since deciding may change the board perceived by AI. */
+		Board boardCopy = new Board(board), boardAICopy = new Board(boardPerceivedByAI);
+		Player playerCopy = new Player(player, boardCopy, boardAICopy, null, new HeuristicPolicy());
+		playerCopy.setRecordingMetrics(false);	//only the pathfinding of the real player is recorded
+		char heuristicAction = playerCopy.decideHeuristically(boardCopy, boardAICopy);
+		int h = new String(ACTIONS).indexOf(heuristicAction);
+		if(h < 0) return player.decideHeuristically(board, boardPerceivedByAI);
+		Root root = new Root(player, board, boardPerceivedByAI, h);
+		long deadline = timeBudget > 0 ? System.nanoTime() + timeBudget : Long.MAX_VALUE;
+
+		ArrayList<Tree> trees = new ArrayList<>();
+		for(int k = 0; k < numTrees; k++) trees.add(new Tree(root, deadline, maxSimulations, random.split()));
+		for(int k = 1; k < numTrees; k++) trees.get(k).fork();	//into the current pool, or the common pool if none
+		double[] sums = new double[ACTIONS.length], sumsOfSquares = new double[ACTIONS.length];
+		long n = 0;
+		numSimulations = 0;
+		treeSize = 0;
+		for(Tree tree : trees) {
+			if(tree == trees.get(0)) tree.invoke();
+			else tree.join();
+			for(int a = 0; a < ACTIONS.length; a++) {
+				sums[a] += tree.sums[a];
+				sumsOfSquares[a] += tree.sumsOfSquares[a];
+			}
+			n += tree.numLayouts;
+			numSimulations += tree.numSimulations;
+			treeSize += tree.nodes.size() + 1;
+		}
+
+		/* The command that beats the heuristic's by the most on the same layouts, provided it beats it by more than
+		 * CONFIDENCE standard errors. Otherwise the heuristic's. */
+		int best = h;
+		double bestGain = 0;
+		for(int a = 0; a < ACTIONS.length && n > 1; a++) {
+			double mean = sums[a] / n;
+			double variance = Math.max(0, (sumsOfSquares[a] - n * mean * mean) / (n - 1));
+			if(a != h && mean > bestGain && mean > CONFIDENCE * Math.sqrt(variance / n)) {
+				best = a;
+				bestGain = mean;
+			}
+		}
+		if(best == h) return player.decideHeuristically(board, boardPerceivedByAI);
+		if(ACTIONS[best] == 'S') {
+			/* Whether the shot hits or not, there is no waste in that room afterwards. Same as in Player.decideHeuristically(). */
+			int target = boardPerceivedByAI.neighbor(player.getCurrentRoom().getLocation(), player.getDir());
+			boardPerceivedByAI.getRoomAI(target).setprobabilityOfWastes(0);
+		}
+		return ACTIONS[best];
+	}
+
+	/**
+	 * Inner class Root. Everything the trees of a decision start from, read off the boards once and then shared (read-only)
+	 * by every tree: the player and the board perceived by AI, the probabilities of a pit and a waste in every unexplored room
+	 * (CellAsPerceivedByAI.DUMMY_PROBABILITY, i.e. no clue either way, is taken as the pit % the AI is told (see Board.getPitPercent())
+	 * and the remaining wastes spread over the board), and the readings of the explored rooms that a layout must agree with.
+	 */
+	private static class Root {
+		private final Player player;
+		private final Board boardAI;
+		private final int rows, cols, numRooms, numWords;
+		private final double[] pPit, pWaste;	//indexed by room. Unused for explored rooms.
+		private final long[] known;		//the pits, wastes and victim of the explored rooms, packed as in BoardGenerator.next()
+		private final int[] unexplored;	//the unexplored rooms
+		private final int[] readings;	//the explored rooms with a neighbor to read, each as room * 4 + (Temperature ? 1 : 0) + (smoke ? 2 : 0)
+		private final boolean isVictimKnown;
+		private final int heuristicAction;	//the index into ACTIONS of the command the heuristic would give
+
+		private Root(Player player, Board board, Board boardAI, int heuristicAction) {
+			this.player = player;
+			this.heuristicAction = heuristicAction;
+			this.boardAI = boardAI;
+			this.rows = boardAI.getRows();
+			this.cols = boardAI.getCols();
+			this.numRooms = rows * cols;
+			this.numWords = (numRooms + 63) >>> 6;
+			this.pPit = new double[numRooms];
+			this.pWaste = new double[numRooms];
+			this.known = new long[3 * numWords];
+			int numUnexplored = 0, numReadings = 0;
+			for(int i = 0; i < numRooms; i++) {
+				if(!boardAI.isExplored(i)) numUnexplored++;
+				else if(this.hasUnexploredNeighbor(i)) numReadings++;
+			}
+			this.unexplored = new int[numUnexplored];
+			this.readings = new int[numReadings];
+			boolean isVictimKnown = false;
+			double pitDensity = boardAI.getPitPercent() / 100.0, wasteDensity = Math.min(1.0, (double)board.getwastesRemaining() / numRooms);
+			numUnexplored = numReadings = 0;
+			for(int i = 0; i < numRooms; i++) {
+				if(!boardAI.isExplored(i)) {
+					unexplored[numUnexplored++] = i;
+					int pit = boardAI.getProbabilityOfPit(i), waste = boardAI.getProbabilityOfWastes(i);
+					pPit[i] = pit == CellAsPerceivedByAI.DUMMY_PROBABILITY ? pitDensity : pit / 100.0;
+					pWaste[i] = waste == CellAsPerceivedByAI.DUMMY_PROBABILITY ? wasteDensity : waste / 100.0;
+					continue;
+				}
+				if(boardAI.isPit(i)) known[i >>> 6] |= 1L << i;
+				if(boardAI.hasWastes(i)) known[numWords + (i >>> 6)] |= 1L << i;
+				if(boardAI.hasVictim(i)) {
+					known[2 * numWords + (i >>> 6)] |= 1L << i;
+					isVictimKnown = true;
+				}
+				if(this.hasUnexploredNeighbor(i)) {
+					byte p = boardAI.getPerceptions(i);
+					readings[numReadings++] = i * 4 + ((p & Cell.BREEZE) != 0 ? 1 : 0) + ((p & Cell.STENCH) != 0 ? 2 : 0);
+				}
+			}
+			this.isVictimKnown = isVictimKnown;
+		}
+
+		private boolean hasUnexploredNeighbor(int i) {
+			for(int d = 0; d < 4; d++) {
+				int n = boardAI.neighbor(i, d);
+				if(n >= 0 && !boardAI.isExplored(n)) return true;
+			}
+			return false;
+		}
+	}
+	//end class Root
+
+	/**
+	 * Inner class Node. A history of the search tree, i.e. the commands given and what was perceived in return since the
+	 * root, with the no. of times each command was tried from there and the sum of what the simulations that did were worth.
+	 */
+	private static class Node {
+		private final int[] actions;	//indexes into ACTIONS of the commands that may be given from here
+		private final int numActions;
+		private final int[] visits;
+		private final double[] values;
+		private int totalVisits;
+
+		/* The commands that make sense for the given player: 'F' and 'S' only if there is a room ahead, 'S' only with a disinfectant left. */
+		private Node(Player player, Board boardAI) {
+			int n = boardAI.neighbor(player.getCurrentRoom().getLocation(), player.getDir());
+			this.actions = new int[ACTIONS.length];
+			int k = 0;
+			for(int a = 0; a < ACTIONS.length; a++) {
+				if((ACTIONS[a] == 'F' || ACTIONS[a] == 'S') && n < 0) continue;
+				if(ACTIONS[a] == 'S' && !player.hasDisinfectant()) continue;
+				actions[k++] = a;
+			}
+			this.numActions = k;
+			this.visits = new int[k];
+			this.values = new double[k];
+		}
+
+		/* UCB1: the command whose mean value plus exploration bonus is the highest. A command never tried comes first. */
+		private int select() {
+			int best = 0;
+			double bestScore = Double.NEGATIVE_INFINITY;
+			double logVisits = Math.log(Math.max(1, totalVisits));
+			for(int k = 0; k < numActions; k++) {
+				if(visits[k] == 0) return k;
+				double score = values[k] / visits[k] + EXPLORATION * Math.sqrt(logVisits / visits[k]);
+				if(score > bestScore) {
+					bestScore = score;
+					best = k;
+				}
+			}
+			return best;
+		}
+	}
+	//end class Node
+
+	/**
+	 * Inner class Tree. A fork-join task that grows one search tree from the root until the deadline or for the given
+	 * no. of simulations, whichever comes first. Returns the root node.
+	 */
+	@SuppressWarnings("serial")
+	private static class Tree extends RecursiveTask<Node> {
+		private final Root root;
+		private final long deadline;
+		private final int maxSimulations;
+		private final SplittableRandom random;
+		private final HashMap<Long, Node> nodes = new HashMap<>();	//the nodes below the root, by hash of their history
+		private final MissionEngine engine;
+		private final long[] packed;	//the layout of the current simulation. See sampleLayout().
+		private final ArrayList<Node> pathNodes = new ArrayList<>();	//the nodes and commands of the current simulation
+		private int[] pathActions = new int[16];
+		private long numSimulations;
+
+		/* By first command: the sums of (the value of a simulation starting with it) - (the value of the one starting with
+		 * the heuristic's command), and of their squares, over numLayouts layouts. */
+		private final double[] sums = new double[ACTIONS.length], sumsOfSquares = new double[ACTIONS.length];
+		private long numLayouts;
+
+		private Tree(Root root, long deadline, int maxSimulations, SplittableRandom random) {
+			this.root = root;
+			this.deadline = deadline;
+			this.maxSimulations = maxSimulations;
+			this.random = random;
+			this.engine = new MissionEngine(random.nextLong());
+			engine.setBeliefModel(MissionEngine.BeliefModel.HEURISTIC);	//the cheapest, as a simulation refreshes its beliefs on every move
+			this.packed = new long[root.known.length];
+		}
+
+		@Override
+		protected Node compute() {
+			Node top = new Node(root.player, root.boardAI);
+			double[] values = new double[ACTIONS.length];
+			do {
+				this.sampleLayout();
+				Arrays.fill(values, 0.0);
+				for(int k = 0; k < top.numActions; k++) {	//every first command on the same layout
+					values[top.actions[k]] = this.simulate(top, k);
+					numSimulations++;
+				}
+				for(int k = 0; k < top.numActions; k++) {
+					double d = values[top.actions[k]] - values[root.heuristicAction];
+					sums[top.actions[k]] += d;
+					sumsOfSquares[top.actions[k]] += d * d;
+				}
+				numLayouts++;
+			} while(numSimulations < maxSimulations && System.nanoTime() < deadline);
+			return top;
+		}
+
+		/**
+		 * Method: simulate
+		 * Plays one mission out on the layout in packed: the given first command, down the tree by UCB1, one new node,
+		 * then the heuristic to the end. Adds what it was worth to every node and command on the way.
+		 * @return what the simulation was worth
+		 */
+		private double simulate(Node top, int first) {
+			engine.setUpSimulation(new Board(root.rows, root.cols, LongBuffer.wrap(packed), 0), new Board(root.boardAI), root.player);
+			Player player = engine.getH1();
+			int maxMoves = 4 * root.numRooms;	//a mission still going after this many moves is deemed lost
+			pathNodes.clear();
+			Node node = top;
+			long history = 0L;
+			int moves = 0;
+			boolean isNew = false;
+			while(!isNew && !engine.isOver() && moves < maxMoves) {
+				int k = node == top ? first : node.select();
+				if(pathNodes.size() == pathActions.length) pathActions = Arrays.copyOf(pathActions, pathActions.length * 2);
+				pathActions[pathNodes.size()] = k;
+				pathNodes.add(node);
+				int a = node.actions[k];
+				MissionEngine.Transition t = engine.apply(player, ACTIONS[a]);
+				moves++;
+				if(player.isAlive() && player.getCurrentRoom().hasVictim()) {
+					engine.apply(player, 'G');
+					moves++;
+				}
+				if(engine.isOver()) break;
+				int room = player.getCurrentRoom().getLocation();
+				long observation = ((long)room << 16) | ((engine.getBoardPerceivedByAI().getPerceptions(room) & 0xFF) << 8)
+						| (t.resultOfShooting > 0 ? 1 : 0);
+				history = BitBoard.mix64(history * 31 + BitBoard.mix64(observation * 31 + a));
+				Node child = nodes.get(history);
+				if(child == null) {
+					child = new Node(player, engine.getBoardPerceivedByAI());
+					nodes.put(history, child);
+					isNew = true;
+				}
+				node = child;
+			}
+			while(!engine.isOver() && moves < maxMoves) {	//the rollout
+				if(engine.apply(player, ' ').aiCommand == RobotPolicy.NO_MOVE) break;	//stuck, i.e. lost
+				moves++;
+			}
+			double value = player.hasVictim() ? Math.pow(DISCOUNT, moves) : 0;
+			for(int j = 0; j < pathNodes.size(); j++) {
+				Node n = pathNodes.get(j);
+				n.totalVisits++;
+				n.visits[pathActions[j]]++;
+				n.values[pathActions[j]] += value;
+			}
+			return value;
+		}
+
+		/**
+		 * Method: sampleLayout
+		 * Draws a layout into packed that agrees with what the AI has perceived: the explored rooms as perceived, a pit or
+		 * (if not) a waste in every unexplored room with the probability the AI holds, until every reading of an explored room
+		 * is accounted for (Temperature if and only if a neighbor holds a pit, smoke if and only if a neighbor holds a waste).
+		 * Then the victim, where the AI knows it is, or else in an unexplored room without a hazard, each as likely as any other.
+		 */
+		private void sampleLayout() {
+			int n = root.numWords;
+			for(int attempt = 0; attempt < MAX_LAYOUT_ATTEMPTS; attempt++) {
+				System.arraycopy(root.known, 0, packed, 0, packed.length);
+				for(int i : root.unexplored) {
+					double x = random.nextDouble();
+					if(x < root.pPit[i]) packed[i >>> 6] |= 1L << i;
+					else if(random.nextDouble() < root.pWaste[i]) packed[n + (i >>> 6)] |= 1L << i;
+				}
+				if(this.isConsistent()) break;
+			}
+			if(root.isVictimKnown) return;
+			int numCandidates = 0;
+			for(int i : root.unexplored) {
+				if(!this.hasHazard(i)) numCandidates++;
+			}
+			if(numCandidates == 0) return;	//no victim anywhere. The mission is lost, which is what the AI should expect.
+			int pick = random.nextInt(numCandidates);
+			for(int i : root.unexplored) {
+				if(!this.hasHazard(i) && pick-- == 0) {
+					packed[2 * n + (i >>> 6)] |= 1L << i;
+					return;
+				}
+			}
+		}
+
+		/* Whether the layout in packed accounts for every reading of an explored room. */
+		private boolean isConsistent() {
+			int n = root.numWords;
+			for(int r : root.readings) {
+				int i = r >>> 2;
+				boolean hasPit = false, hasWaste = false;
+				for(int d = 0; d < 4; d++) {
+					int m = root.boardAI.neighbor(i, d);
+					if(m < 0) continue;
+					hasPit |= (packed[m >>> 6] & (1L << m)) != 0;
+					hasWaste |= (packed[n + (m >>> 6)] & (1L << m)) != 0;
+				}
+				if(hasPit != ((r & 1) != 0) || hasWaste != ((r & 2) != 0)) return false;
+			}
+			return true;
+		}
+
+		private boolean hasHazard(int i) {
+			return ((packed[i >>> 6] | packed[root.numWords + (i >>> 6)]) & (1L << i)) != 0;
+		}
+	}
+	//end class Tree
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	/**
+	 * Method: setTimeBudget
+	 * @param nanos the most time a decision may take, in nanoseconds, or 0 for no limit. Defaults to DEFAULT_TIME_BUDGET.
+	 */
+	public void setTimeBudget(long nanos) {
+		this.timeBudget = nanos;
+	}
+
+	/**
+	 * Method: setMaxSimulations
+	 * @param maxSimulations the most simulations each tree runs per decision. At least 1. Defaults to DEFAULT_MAX_SIMULATIONS.
+	 */
+	public void setMaxSimulations(int maxSimulations) {
+		if(maxSimulations < 1) throw new IllegalArgumentException("maxSimulations must be positive: " + maxSimulations);
+		this.maxSimulations = maxSimulations;
+	}
+
+	/**
+	 * Method: setNumTrees
+	 * @param numTrees the no. of independent trees searched in parallel per decision. At least 1. Defaults to the no. of cores.
+	 */
+	public void setNumTrees(int numTrees) {
+		if(numTrees < 1) throw new IllegalArgumentException("numTrees must be positive: " + numTrees);
+		this.numTrees = numTrees;
+	}
+
+	/**
+	 * Method: setSearchBudget
+	 * Bounds each decision by the no. of simulations rather than by the clock: BUDGETED_NUM_TREES trees, whatever the
+	 * no. of cores, share the budget and run without a time limit. So the decisions depend on the seed alone.
+	 * Overrides setTimeBudget(), setMaxSimulations() and setNumTrees().
+	 * @param budget the no. of simulations per decision, DEFAULT_WORK for DEFAULT_SEARCH_BUDGET, or WALL_CLOCK to go back to
+	 * DEFAULT_TIME_BUDGET, DEFAULT_MAX_SIMULATIONS and DEFAULT_NUM_TREES
+	 */
+	@Override
+	public void setSearchBudget(long budget) {
+		if(budget == WALL_CLOCK) {
+			this.timeBudget = DEFAULT_TIME_BUDGET;
+			this.maxSimulations = DEFAULT_MAX_SIMULATIONS;
+			this.numTrees = DEFAULT_NUM_TREES;
+			return;
+		}
+		long n = budget == DEFAULT_WORK ? DEFAULT_SEARCH_BUDGET : budget;
+		if(n < 1) throw new IllegalArgumentException("Invalid search budget: " + budget);
+		this.timeBudget = 0;
+		this.numTrees = (int)Math.min(BUDGETED_NUM_TREES, n);
+		this.maxSimulations = (int)Math.min(Integer.MAX_VALUE, (n + numTrees - 1) / numTrees);
+	}
+
+	/**
+	 * Method: setSeed
+	 * Re-seeds the random stream the layouts of the simulations are drawn from. Each tree draws from a stream split off it.
+	 * @param seed the seed
+	 */
+	@Override
+	public void setSeed(long seed) {
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Method: getNumSimulations
+	 * @return the no. of simulations the last decision ran, over all trees.
+	 */
+	public long getNumSimulations() {
+		return numSimulations;
+	}
+
+	/**
+	 * Method: getTreeSize
+	 * @return the no. of nodes of the trees of the last decision, roots included.
+	 */
+	public int getTreeSize() {
+		return treeSize;
+	}
+}
@@ -0,0 +1,714 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/** Class: MissionEngine.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the MissionEngine class.
+ *  Purpose - The headless core of a mission. Owns the mission boards (board and boardPerceivedByAI), the two robot
+ *  players and the AI's belief refresh loop, and applies the F/L/R/G/S/Q commands (plus ' ' to let the AI decide).
+ *  This class never touches a GUI component, so missions can be simulated without a JFrame. SAR.java merely
+ *  subscribes to this engine as a MissionListener and renders each Transition.
+ *
+ *  Each AI player decides by the RobotPolicy named in setPolicies() (see PolicyRegistry.java), by default the original
+ *  heuristic. Every policy is seeded from the AI's random stream and given this engine's search budget (see
+ *  setSearchBudget()), so a mission is reproducible from its seed whatever the policy. Decisions and belief refreshes
+ *  are timed in DecisionMetrics.java, which publishes them over JMX.
+ *
+ *  Every mission (seed, layout, configuration and every command with its outcome) can be recorded to a binary
+ *  MissionLog (see setMissionLog()). A mission in progress can be copied (see snapshot()), put back (see restore())
+ *  and fingerprinted, either as a whole (see getStateHash()) or, in O(1), by what the AI knows (see getBeliefStateHash()
+ *  and Zobrist.java). MissionReplayer.java relies on these to re-execute logged missions and to seek within them.
+ *  An engine can also play out missions the AI merely imagines (see setUpSimulation() and MCTSPolicy.java).
+ */
+public class MissionEngine {
+
+	// Use an enumeration to represent the various states of the mission
+	public enum GameState {
+		PLAYING, DRAW, H1_WON, H2_WON
+	}
+
+	/* The model behind the AI's probabilities of pits and wastes: the original educated guesses (see BeliefPropagator.java),
+	 * exact model counting over the frontier (see ExactBeliefEngine.java), or estimates by sampling (see SamplingBeliefEngine.java).
+	 * HEURISTIC is the default: EXACT wins more missions on random boards, but fewer on the hand-made hard layouts of
+	 * FinalMission.java (see ExactBeliefEngine.java for the numbers). */
+	public enum BeliefModel {
+		HEURISTIC, EXACT, SAMPLING
+	}
+
+	protected GameState currentState;  // the current mission state. See above enum for the possible states.
+
+	protected Player currentPlayer;  // the current player. Could be either h1 or h2. See below.
+	protected Player h1;    // hunter 1
+	protected Player h2;    // hunter 2
+
+	protected Board board, boardPerceivedByAI; // Mission maps. Note: boardPerceivedByAI is used by robot AI for navigation.
+	private BeliefEngine beliefs;	//keeps boardPerceivedByAI up to date after every move
+	private BeliefModel beliefModel = BeliefModel.HEURISTIC;	//see setBeliefModel()
+	private int numSamples = SamplingBeliefEngine.DEFAULT_NUM_SAMPLES;	//see setSamplingBudget()
+	private int numChains = SamplingBeliefEngine.DEFAULT_NUM_CHAINS;
+
+	private int percentRandom;		//the % of time the AI robot will act randomly when it is triggered via ' '
+	private String policy1 = PolicyRegistry.DEFAULT_POLICY, policy2 = PolicyRegistry.DEFAULT_POLICY;	//see setPolicies()
+	private long searchBudget = RobotPolicy.WALL_CLOCK;	//see setSearchBudget()
+	private int pitPercent = Board.PITP;	//the % of rooms the AI is told hold pits. See setPitPercent().
+
+	/* Every mission draws its randomness from a single seed, split into independent streams for board generation,
+	 * start room selection, the AI's random actions and the AI's belief sampling (if any). So any mission can be reproduced
+	 * from its seed, and missions running in parallel never contend on a shared generator (such as the one behind Math.random()). */
+	private long seed;
+	private SplittableRandom boardRandom, startRandom, aiRandom, beliefRandom;
+	private int numOfMoves;			//Total number of valid commands applied so far in this mission
+	private boolean isSimulation;	//whether this engine plays out missions imagined by the AI. See setUpSimulation().
+	private ArrayList<MissionListener> listeners = new ArrayList<>();	//subscribers (e.g. the GUI) notified after every command
+	private MissionLog.Recorder recorder;	//records every mission to a MissionLog, if any. See setMissionLog().
+
+	/**
+	 * Inner class Transition. Describes the outcome of a single command applied by the engine.
+	 * This is all a renderer needs to know in order to update its graphics.
+	 */
+	public static class Transition {
+		public final Player player;		//the player who issued the command
+		public final char command;		//the command that was applied ('F', 'L', 'R', 'G', 'S', 'Q' or ' ')
+		public final char aiCommand;	//if command was ' ', the command chosen by the AI. Otherwise ' '.
+		public final boolean nested;	//true if this command was chosen by the AI on behalf of an outer ' ' command
+		public final int fromLocation;	//player location (see Cell.getLocation()) before the command
+		public final int toLocation;	//player location after the command
+		public final boolean valid;		//whether the command was valid. For example, 'X' is not a valid command char.
+		public final boolean aidGiven;	//true if the command was 'G' and the victim received aid
+		public final int resultOfShooting;	//if command was 'S': 1 if on target, -1 if missed, 0 if out of ammo.
+		public final GameState state;	//the mission state after the command
+
+		public Transition(Player player, char command, char aiCommand, boolean nested, int fromLocation, int toLocation,
+				boolean valid, boolean aidGiven, int resultOfShooting, GameState state) {
+			this.player = player;
+			this.command = command;
+			this.aiCommand = aiCommand;
+			this.nested = nested;
+			this.fromLocation = fromLocation;
+			this.toLocation = toLocation;
+			this.valid = valid;
+			this.aidGiven = aidGiven;
+			this.resultOfShooting = resultOfShooting;
+			this.state = state;
+		}
+
+		/**
+		 * Method: wasteKilled
+		 * @return true if this command was a shot that disinfected a waste.
+		 */
+		public boolean wasteKilled() {
+			return command == 'S' && resultOfShooting == 1;
+		}
+	}
+	//end class Transition
+
+	/**
+	 * No-arg constructor. The engine is seeded with a random seed.
+	 */
+	public MissionEngine() {
+		this(new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * 1-arg constructor.
+	 * @param seed the seed of the first mission played on this engine. See setSeed().
+	 */
+	public MissionEngine(long seed) {
+		this.setSeed(seed);
+	}
+
+	/**
+	 * Method: setSeed
+	 * Re-seeds the random streams of this engine. Invoke before setting up a mission in order to make it reproducible:
+	 * the same seed (and the same commands) always results in the same board, start room and AI actions.
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		SplittableRandom master = new SplittableRandom(seed);
+		this.boardRandom = master.split();
+		this.startRandom = master.split();
+		this.aiRandom = master.split();
+		this.beliefRandom = master.split();
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Method: createRandomBoard
+	 * @param roomAt_0_0_is_always_empty whether the room at (0,0) will always be empty.
+	 * @return a random Board (consisting of Cell objects) drawn from this engine's board stream.
+	 */
+	public Board createRandomBoard(boolean roomAt_0_0_is_always_empty) {
+		return new Board(roomAt_0_0_is_always_empty, false, boardRandom);
+	}
+
+	/**
+	 * Method: createRandomBoard
+	 * @param rows the no. of rows
+	 * @param cols the no. of columns
+	 * @param pitPercent the % of rooms that have pits
+	 * @param wastesPercent the % of rooms that have wastes
+	 * @param roomAt_0_0_is_always_empty whether the room at (0,0) will always be empty.
+	 * @return a random rows x cols Board (consisting of Cell objects) drawn from this engine's board stream.
+	 * The AI of the next mission is told the given % of pits (see setPitPercent()).
+	 */
+	public Board createRandomBoard(int rows, int cols, int pitPercent, int wastesPercent, boolean roomAt_0_0_is_always_empty) {
+		this.pitPercent = pitPercent;
+		return new Board(rows, cols, pitPercent, wastesPercent, roomAt_0_0_is_always_empty, boardRandom);
+	}
+
+	/**
+	 * Method: addListener
+	 * @param l the listener to notify after every command applied by this engine.
+	 */
+	public void addListener(MissionListener l) {
+		listeners.add(l);
+	}
+
+	/**
+	 * Method: removeListener
+	 * @param l the listener to remove.
+	 */
+	public void removeListener(MissionListener l) {
+		listeners.remove(l);
+	}
+
+	/**
+	 * Method: parsePercentRandom
+	 * Extracts the % of time the AI robot will act randomly from a mission option String such as "S A1 10% R".
+	 * @param options the option String (see SAR.java constructor)
+	 * @return the % value, or zero if the option String doesn't specify one.
+	 */
+	public static int parsePercentRandom(String options) {
+		if (options.indexOf("%") == -1) return 0;
+		return Integer.parseInt(options.substring(options.indexOf(" ") + 1, options.indexOf("%")));
+	}
+
+	/**
+	 * Method: setBoard
+	 * Sets the board (containing complete information) to be used for the next mission. Invoke
+	 * setStartRoomAndBoardAI() and createPlayers() afterwards to finish setting up the mission.
+	 * @param board the Board object consisting of Cell objects
+	 */
+	public void setBoard(Board board) {
+		this.board = board;
+	}
+
+	/**
+	 * Method: setStartRoomAndBoardAI
+	 * Picks the start room, creates the board perceived by the AI and lets the AI perceive the start room.
+	 * @param startRoomIs00 whether players always start in room (0,0). Otherwise a random safe room is chosen.
+	 * @return a Cell[] array consisting of two elements: 1) the start room and 2) the same room as perceived by the AI.
+	 */
+	public Cell[] setStartRoomAndBoardAI(boolean startRoomIs00) {
+		Cell startRoom;
+		if (startRoomIs00) {
+			startRoom = board.getRoom(0, 0);
+		} else {
+			startRoom = board.getRoom(startRandom.nextInt(board.getRows()), startRandom.nextInt(board.getCols()));
+
+			/*If players start on a random cell, that cell might already have
+			 * a pit or victim or wastes in it. Meaning the mission is over before it even begins...which we don't want.
+			 * So this while-loop is designed to ensure that the random starting cell is safe AND
+			 * that it doesn't have the victim in it. */
+			while(startRoom.hasWastes() || startRoom.isPit() || startRoom.hasVictim()) {
+				startRoom = board.getRoom(startRandom.nextInt(board.getRows()), startRandom.nextInt(board.getCols()));
+			}
+		}
+		/* Now create a board with incomplete information that will be perceived / accessed by the AI
+		 * who will use deductive logic to navigate the board and avoid dangers.
+		 * It has the same dimensions as the board with complete information.
+		 * 3rd parameter: will this board be accessed / perceived by the AI? */
+		boardPerceivedByAI = new Board(board.getRows(), board.getCols(), true);
+		boardPerceivedByAI.setPitPercent(pitPercent);	//what the AI is told, not what it could count on the board
+
+		startRoom.setHints();	//custom method to display information about this room on the GUI.
+
+		CellAsPerceivedByAI startRoomAI = boardPerceivedByAI.getRoomAI(startRoom.getX(), startRoom.getY());	//startRoomAI is the same location as startRoom
+		startRoomAI.setExplored(true, startRoom);	//Custom method to set this cell as having been explored by the robot.
+
+		/* Every time a room / cell is explored, the AI will use the custom method below to logically deduce and assign
+		 * the probability of monsters and pits in every neighboring room. See the CellAsPerceivedByAI.java class for more details. */
+		startRoomAI.assignProbabilityToNeighbors(this.board, this.boardPerceivedByAI);
+		this.createBeliefEngine();
+		return new Cell[]{startRoom, startRoomAI};
+	}
+
+	/* Creates the BeliefEngine of the current belief model over the current boards. */
+	private void createBeliefEngine() {
+		if(beliefModel == BeliefModel.HEURISTIC) beliefs = new BeliefPropagator(this.board, this.boardPerceivedByAI);
+		else {
+			if(beliefModel == BeliefModel.EXACT) beliefs = new ExactBeliefEngine(this.board, this.boardPerceivedByAI);
+			else beliefs = new SamplingBeliefEngine(this.board, this.boardPerceivedByAI, numSamples, numChains, beliefRandom.split());
+			beliefs.propagate();	//replace the educated guesses with the model's probabilities before the AI's next move
+		}
+	}
+
+	/**
+	 * Method: createPlayers
+	 * @param startRoom the room where the players will start the mission.
+	 * @param startRoomAI the room where the players will start the mission. This is a CellAsPerceivedByAI object and will be accessed by AI player
+	 * @param p1Name player 1 name
+	 * @param p2Name player 2 name
+	 * @param aggressivep1 whether p1 is set to aggressive mode
+	 * @param aggressivep2 whether p2 is set to aggressive mode
+	 * @param singlePlayer whether this is a single player mission
+	 */
+	public void createPlayers(Cell startRoom, CellAsPerceivedByAI startRoomAI,
+							  String p1Name, String p2Name,
+							  boolean aggressivep1, boolean aggressivep2, boolean singlePlayer) {
+
+		/* Create two players. Each player can be either a human or AI. */
+		h1 = new Player(startRoom, startRoomAI, p1Name);
+		h1.setAI(true);	//either or both players can be an AI.
+		h1.setAggressiveModeOn(aggressivep1);//this can be toggled on or off. See comments in the Player class beginning with "DESIGN DECISION".
+		h2 = new Player(startRoom, startRoomAI, p2Name);
+		h2.setAI(true);	//either or both players can be an AI.
+		h2.setAggressiveModeOn(aggressivep2);//this can be toggled on or off. See comments in the Player class beginning with "DESIGN DECISION".
+		h1.setRandom(aiRandom.split());	//each player acts randomly (if at all) on its own stream
+		h2.setRandom(aiRandom.split());
+		h1.setPolicy(PolicyRegistry.create(policy1, aiRandom.nextLong(), searchBudget));	//each player decides by its own instance of its policy
+		h2.setPolicy(PolicyRegistry.create(policy2, aiRandom.nextLong(), searchBudget));
+
+		/* OPTIONAL: if you want a 1-player mission, have the other player quit right away.
+		 * This gets rid of player's graphics from being shown on the GUI. */
+		if(singlePlayer) {
+			h2.setOutOfGame(true);
+		}
+		currentPlayer = h1;       //h1 plays first by default. Can be changed to h2 if you want
+		currentState = GameState.PLAYING; // mission state: ready to start
+		numOfMoves = 0;
+		if(recorder != null) {	//the mission is all set up. Record its header.
+			try {
+				recorder.begin(this);
+			} catch(IOException e) {
+				this.missionLogFailed(e);
+			}
+		}
+	}
+
+	/**
+	 * Method: apply
+	 * Applies the given command on behalf of the current player, then switches to the next player (in the event
+	 * that we have a 2-player mission). This is what a keyboard press in SAR.java, or a batch simulation, boils down to.
+	 * @param command A char. Valid commands are: 'F', 'L', 'R', 'G', 'S', 'Q', or ' ' (space bar).
+	 * @return the resulting Transition.
+	 */
+	public Transition apply(char command) {
+		Transition t = this.apply(currentPlayer, command);
+		if(t.valid) this.nextPlayer();
+		return t;
+	}
+
+	/**
+	 * Method: nextPlayer
+	 * Switches the current player (in the event that we have a 2-player mission), provided the other player is still alive.
+	 */
+	public void nextPlayer() {
+		Player nextPlayer = (currentPlayer == h1 ? h2 : h1);
+		if (nextPlayer.isAlive())
+			currentPlayer = nextPlayer;
+	}
+
+	/**
+	 * Method: apply
+	 * Applies the given command on behalf of the given player, refreshes the AI's beliefs and updates the mission state.
+	 * Does NOT switch the current player.
+	 * @param player h1 or h2.
+	 * @param command A char. Valid commands are: 'F', 'L', 'R', 'G', 'S', 'Q', or ' ' (space bar).
+	 * @return the resulting Transition.
+	 */
+	public Transition apply(Player player, char command) {
+		Transition t = this.step(player, command, false);
+		if(t.valid) numOfMoves++;
+		return t;
+	}
+
+	/**
+	 * Method: step
+	 * The heart of this class. Applies one command, which may in turn (in the case of ' ') apply the command
+	 * chosen by the AI as a nested step.
+	 * @param player h1 or h2
+	 * @param command the command char
+	 * @param nested whether this command was chosen by the AI on behalf of an outer ' ' command
+	 * @return the resulting Transition.
+	 */
+	private Transition step(Player player, char command, boolean nested) {
+		int fromLocation = player.getCurrentRoom().getLocation(); //get current player location
+		boolean validKeyTyped = false;	//initialize sentinel value.
+		boolean aidGiven = false;
+		int resultOfShooting = 0;
+		char aiCommand = ' ';
+
+		switch(Character.toUpperCase(command)){
+		case 'F':
+			player.forward(this.boardPerceivedByAI); 	//custom method
+			validKeyTyped = true;
+			break;
+		case 'L':
+			player.turnLeft();
+			validKeyTyped = true;
+			break;
+		case 'R':
+			player.turnRight();
+			validKeyTyped = true;
+			break;
+		case 'G':
+			aidGiven = player.giveAid();
+			validKeyTyped = true;
+			break;
+		case 'S':
+			resultOfShooting = player.shoot();
+			player.resetWasteKiller();
+			validKeyTyped = true;
+			break;
+		case 'Q':
+			player.quit();
+			validKeyTyped = true;
+			break;
+		case ' ':
+			//pressing spacebar activates AI as long as the current player has been initialized as an AI player.
+			if(player.isAI()) {
+				validKeyTyped = true;
+				/* See the Player.java class for the custom method getAction(). It returns a command char.
+				 * This is the heart of AI's algorithm. */
+				long startTime = System.nanoTime();
+				aiCommand = player.getAction(this.board, this.boardPerceivedByAI, this.percentRandom);
+				if(!isSimulation) DecisionMetrics.getInstance().recordDecision(System.nanoTime() - startTime);
+				if(aiCommand == RobotPolicy.NO_MOVE) validKeyTyped = false;	//the AI has no move left. Nothing happens.
+				else this.step(player, aiCommand, true);
+			}
+			break;
+		}
+		//end switch(Character.toUpperCase(command)){
+
+		this.refreshBeliefs();
+
+		if (player.hasVictim()) {  // check for mission success
+			currentState = (player == h1) ? GameState.H1_WON : GameState.H2_WON;
+		} else if (isDraw()) {  // if "draw", it means neither player 1 nor 2 (if in 2-player mode) has found the victim and are both dead. Mission fail
+			currentState = GameState.DRAW;
+		}
+		// Otherwise, no change to current state (still GameState.PLAYING).
+
+		Transition t = new Transition(player, command, aiCommand, nested, fromLocation, player.getCurrentRoom().getLocation(),
+				validKeyTyped, aidGiven, resultOfShooting, currentState);
+		if(recorder != null) {
+			try {
+				recorder.record(t, this);
+			} catch(IOException e) {
+				this.missionLogFailed(e);
+			}
+		}
+		for(int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).missionUpdated(t);
+		}
+		return t;
+	}
+
+	/**
+	 * Method: refreshBeliefs
+	 * Now that a player has made a move, update the AI's overall perceptions of which rooms have which types of risks.
+	 * See BeliefPropagator.java and ExactBeliefEngine.java for more details. Timed in DecisionMetrics.java.
+	 */
+	public void refreshBeliefs() {
+		long startTime = System.nanoTime();
+		beliefs.propagate();
+		if(!isSimulation) DecisionMetrics.getInstance().recordBeliefRefresh(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Method: getStateHash
+	 * A 64-bit fingerprint of the state of the mission as it would be seen from outside: the pits, wastes and victim
+	 * left on the board, the rooms explored, the mission state, and where each player stands, faces and what it holds.
+	 * It leaves out the AI's probabilities, which depend on the belief model, and the no. of moves so far.
+	 * Two engines that played the same mission the same way have the same hash. Recorded at checkpoints of the mission
+	 * log, so that MissionReplayer.java can tell whether a replay still follows the mission it replays.
+	 * @return the hash
+	 */
+	public long getStateHash() {
+		long h = BitBoard.mix64(currentState.ordinal());
+		h = BitBoard.mix64(h * 31 + board.getPits().longHashCode());
+		h = BitBoard.mix64(h * 31 + board.getWastes().longHashCode());
+		h = BitBoard.mix64(h * 31 + board.getVictim().longHashCode());
+		h = BitBoard.mix64(h * 31 + boardPerceivedByAI.getExplored().longHashCode());
+		h = BitBoard.mix64(h * 31 + stateOf(h1));
+		return BitBoard.mix64(h * 31 + stateOf(h2));
+	}
+
+	/**
+	 * Method: getBeliefStateHash
+	 * A 64-bit fingerprint of the mission as the AI knows it: the rooms explored and what was perceived there, the AI's
+	 * probabilities (quantized), and where each player stands, faces and how many disinfectants it has left. Unlike
+	 * getStateHash(), it takes O(1) time, since it merely combines the Zobrist hashes kept up to date by the board perceived
+	 * by AI and the players (see Zobrist.java). For keying caches and the like by the belief state; as it depends on the
+	 * belief model, it isn't recorded in mission logs.
+	 * @return the hash
+	 */
+	public long getBeliefStateHash() {
+		return boardPerceivedByAI.getZobristHash() ^ BitBoard.mix64(h1.getZobristHash() * 31 + h2.getZobristHash());
+	}
+
+	/* The state of a player packed into a long: its room, direction, disinfectants left and flags. */
+	private static long stateOf(Player p) {
+		return ((long)p.getCurrentRoom().getLocation() << 16) | (p.getDir() << 12) | (p.getNumOfShotsLeft() << 4)
+				| (p.isAlive() ? 1 : 0) | (p.isOutOfGame() ? 2 : 0) | (p.hasVictim() ? 4 : 0) | (p.isWasteKiller() ? 8 : 0);
+	}
+
+	/**
+	 * Inner class Snapshot. A copy of everything a mission in progress consists of (the boards, the players,
+	 * whose turn it is and the mission state), taken by snapshot() and put back by restore(). Never modified afterwards,
+	 * so it can be restored any number of times, on any engine.
+	 */
+	public static class Snapshot {
+		private final Board board, boardPerceivedByAI;
+		private final Player h1, h2;
+		private final boolean isH1Current;
+		private final GameState state;
+		private final int numOfMoves;
+
+		private Snapshot(MissionEngine engine) {
+			this.board = new Board(engine.board);
+			this.boardPerceivedByAI = new Board(engine.boardPerceivedByAI);
+			this.h1 = new Player(engine.h1, board, boardPerceivedByAI, null);
+			this.h2 = new Player(engine.h2, board, boardPerceivedByAI, null);
+			this.isH1Current = engine.currentPlayer == engine.h1;
+			this.state = engine.currentState;
+			this.numOfMoves = engine.numOfMoves;
+		}
+
+		public int getNumOfMoves() {
+			return numOfMoves;
+		}
+	}
+	//end class Snapshot
+
+	/**
+	 * Method: snapshot
+	 * @return a copy of the mission in progress. Copying a board is copying a few bitboards, so this is cheap.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(this);
+	}
+
+	/**
+	 * Method: restore
+	 * Puts this engine back into the state the given snapshot was taken in, with a fresh BeliefEngine (of this engine's
+	 * belief model) over copies of the snapshot's boards. The mission log (if any) isn't told, so a restored mission isn't
+	 * recorded twice.
+	 *
+	 * The players of the restored mission draw their random actions from new streams of this engine, and decide by new,
+	 * newly seeded instances of their policies. So with a percentRandom above zero (or a policy that draws random numbers),
+	 * letting the AI decide (' ') from here on won't necessarily repeat what it did after the snapshot was taken; applying the commands it chose back then (see Transition.aiCommand) always does.
+	 * @param snapshot a snapshot taken by snapshot(), on this or any other engine
+	 */
+	public void restore(Snapshot snapshot) {
+		board = new Board(snapshot.board);
+		boardPerceivedByAI = new Board(snapshot.boardPerceivedByAI);
+		h1 = new Player(snapshot.h1, board, boardPerceivedByAI, aiRandom.split(),
+				PolicyRegistry.create(snapshot.h1.getPolicy().getName(), aiRandom.nextLong(), searchBudget));
+		h2 = new Player(snapshot.h2, board, boardPerceivedByAI, aiRandom.split(),
+				PolicyRegistry.create(snapshot.h2.getPolicy().getName(), aiRandom.nextLong(), searchBudget));
+		currentPlayer = snapshot.isH1Current ? h1 : h2;
+		currentState = snapshot.state;
+		numOfMoves = snapshot.numOfMoves;
+		this.createBeliefEngine();
+	}
+
+	/**
+	 * Method: setUpSimulation
+	 * Sets this engine up to play out a mission the AI imagines, e.g. on a layout it deems possible (see MCTSPolicy.java):
+	 * a copy of the given player, as h1 and alone, on the given boards, deciding by HeuristicPolicy.java. The mission is
+	 * under way as soon as this returns. Neither its decisions, its belief refreshes nor its pathfinding are timed in
+	 * DecisionMetrics.java, which times the real mission only, so an engine set up this way should play nothing but simulations.
+	 * @param board the Board object consisting of Cell objects. Taken over, not copied.
+	 * @param boardPerceivedByAI the board perceived by AI. Taken over, not copied.
+	 * @param player the player to copy, from any board of the same dimensions
+	 */
+	void setUpSimulation(Board board, Board boardPerceivedByAI, Player player) {
+		this.isSimulation = true;
+		this.board = board;
+		this.boardPerceivedByAI = boardPerceivedByAI;
+		h1 = new Player(player, board, boardPerceivedByAI, aiRandom.split(), new HeuristicPolicy());
+		h2 = new Player(player, board, boardPerceivedByAI, aiRandom.split(), new HeuristicPolicy());
+		h1.setRecordingMetrics(false);
+		h2.setRecordingMetrics(false);
+		h2.setOutOfGame(true);
+		currentPlayer = h1;
+		currentState = GameState.PLAYING;
+		numOfMoves = 0;
+		this.createBeliefEngine();
+	}
+
+	/** Return true if it is a draw (i.e., both players died) */
+	public boolean isDraw() {
+		if (!h1.isAlive() && !h2.isAlive())
+			return true;
+		return false;
+	}
+
+	/**
+	 * Method: isOver
+	 * @return true if the mission is no longer in progress (success or failure).
+	 */
+	public boolean isOver() {
+		return currentState != GameState.PLAYING;
+	}
+
+	public GameState getState() {
+		return currentState;
+	}
+
+	public Board getBoard() {
+		return board;
+	}
+
+	public Board getBoardPerceivedByAI() {
+		return boardPerceivedByAI;
+	}
+
+	public Player getH1() {
+		return h1;
+	}
+
+	public Player getH2() {
+		return h2;
+	}
+
+	public Player getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	public int getNumOfMoves() {
+		return numOfMoves;
+	}
+
+	/**
+	 * Method: setPolicies
+	 * @param policy1 the name of the policy player 1 decides by, if AI. See PolicyRegistry.java.
+	 * @param policy2 the name of the policy player 2 decides by, if AI.
+	 * Takes effect from the next createPlayers() on. Both default to PolicyRegistry.DEFAULT_POLICY.
+	 * @throws IllegalArgumentException if either name isn't registered
+	 */
+	public void setPolicies(String policy1, String policy2) {
+		PolicyRegistry.create(policy1);	//fail here rather than halfway through setting up a mission
+		PolicyRegistry.create(policy2);
+		this.policy1 = policy1;
+		this.policy2 = policy2;
+	}
+
+	public int getPitPercent() {
+		return pitPercent;
+	}
+
+	/**
+	 * Method: setPitPercent
+	 * @param pitPercent the % of rooms the AI is told hold pits: a known prior, as Board.WASTES is for the wastes. The belief
+	 * models and policies go by it (see Board.getPitPercent()) whatever the actual no. of pits, which is hidden from the AI.
+	 * Takes effect from the next setStartRoomAndBoardAI() on. Defaults to Board.PITP.
+	 */
+	public void setPitPercent(int pitPercent) {
+		if(pitPercent < 0 || pitPercent > 100) throw new IllegalArgumentException("pitPercent must be from 0 to 100: " + pitPercent);
+		this.pitPercent = pitPercent;
+	}
+
+	public long getSearchBudget() {
+		return searchBudget;
+	}
+
+	/**
+	 * Method: setSearchBudget
+	 * @param searchBudget how much the policies may search per decision: RobotPolicy.WALL_CLOCK (each policy's time budget),
+	 * RobotPolicy.DEFAULT_WORK (each policy's default amount of work) or a positive amount of work. See RobotPolicy.setSearchBudget().
+	 * Takes effect from the next createPlayers() on. Defaults to WALL_CLOCK, as befits the GUI; a mission searched against
+	 * the clock depends on the speed of the machine, so batch runs and replays should bound the work instead.
+	 */
+	public void setSearchBudget(long searchBudget) {
+		this.searchBudget = searchBudget;
+	}
+
+	public BeliefModel getBeliefModel() {
+		return beliefModel;
+	}
+
+	/**
+	 * Method: setBeliefModel
+	 * @param beliefModel the model behind the AI's probabilities of pits and wastes. Takes effect from the next
+	 * setStartRoomAndBoardAI() on. Defaults to BeliefModel.HEURISTIC, the model of the original study; the others are opt-in.
+	 */
+	public void setBeliefModel(BeliefModel beliefModel) {
+		this.beliefModel = beliefModel;
+	}
+
+	/**
+	 * Method: setSamplingBudget
+	 * Trades the accuracy of BeliefModel.SAMPLING against its latency. Takes effect from the next setStartRoomAndBoardAI() on.
+	 * @param numSamples the no. of sweeps per computation of the probabilities, over all chains. The error of the estimates
+	 * shrinks with the square root of this no., while the cost grows with it. Defaults to SamplingBeliefEngine.DEFAULT_NUM_SAMPLES.
+	 * @param numChains the no. of independent chains, run in parallel on the fork-join pool. Defaults to the no. of cores.
+	 */
+	public void setSamplingBudget(int numSamples, int numChains) {
+		this.numSamples = numSamples;
+		this.numChains = numChains;
+	}
+
+	public int getNumSamples() {
+		return numSamples;
+	}
+
+	public int getNumChains() {
+		return numChains;
+	}
+
+	/**
+	 * Method: setMissionLog
+	 * Records every mission set up from now on to the given log: a header (seed, layout and configuration) when
+	 * createPlayers() is invoked, and one record per command. Configure the engine (setPercentRandom() etc.) before
+	 * createPlayers(), so that the header is accurate. A mission is appended to the log in one piece once it is over
+	 * (see flushMissionLog()). If the log fails, recording stops and the mission goes on.
+	 * @param log the log, or null to stop recording
+	 */
+	public void setMissionLog(MissionLog log) {
+		this.flushMissionLog();
+		this.recorder = log == null ? null : new MissionLog.Recorder(log);
+	}
+
+	/**
+	 * Method: flushMissionLog
+	 * Appends whatever has been recorded of the mission in progress to the log right away, e.g. in the GUI, where
+	 * a mission may be abandoned at any time. The rest of the mission is appended later.
+	 */
+	public void flushMissionLog() {
+		if(recorder == null) return;
+		try {
+			recorder.flush();
+		} catch(IOException e) {
+			this.missionLogFailed(e);
+		}
+	}
+
+	/* Stops recording to the MissionLog after it failed. Logging is a side matter, so the mission goes on. */
+	private void missionLogFailed(IOException e) {
+		System.err.println("Mission log disabled: " + e);
+		recorder = null;
+	}
+
+	public int getPercentRandom() {
+		return percentRandom;
+	}
+
+	/**
+	 * Method: setPercentRandom
+	 * @param percentRandom the % of time the AI robot will act randomly for one time-step when triggered via ' '
+	 */
+	public void setPercentRandom(int percentRandom) {
+		this.percentRandom = percentRandom;
+	}
+}
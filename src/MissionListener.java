@@ -0,0 +1,18 @@
+/** Class: MissionListener.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This interface - the MissionListener interface.
+ *  Purpose - Implemented by anything that wants to be notified whenever the MissionEngine applies a command,
+ *  e.g. the SAR.java GUI, which renders every transition onto the mission map.
+ */
+public interface MissionListener {
+
+	/**
+	 * Method: missionUpdated
+	 * Invoked by MissionEngine.java after a command has been applied and the AI's beliefs have been refreshed.
+	 * @param t the transition that just took place. See MissionEngine.Transition for more details.
+	 */
+	public void missionUpdated(MissionEngine.Transition t);
+}
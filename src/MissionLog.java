@@ -0,0 +1,403 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/** Class: MissionLog.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the MissionLog class.
+ *  Purpose - An append-only, binary log of missions. Replaces the Java-source text that Board.printBoard() used to
+ *  append to board.txt at the start of every mission, which was slow at batch scale and couldn't be read back.
+ *
+ *  Every mission is logged as a header (HEADER_SIZE bytes, then the layout, the names of the players' robot policies
+ *  and their search budget) followed by one record of RECORD_SIZE bytes per command applied, and a checkpoint record
+ *  of CHECKPOINT_SIZE bytes after every CHECKPOINT_INTERVAL commands and after the last one. A checkpoint holds the state
+ *  hash of the mission at that point (see MissionEngine.getStateHash()), which MissionReplayer.java checks its replays
+ *  against. The policies and their search budget are logged because a mission decided by a search can't be replayed
+ *  without them. See Recorder for the exact format. The file starts with MAGIC. Numbers are big-endian.
+ *
+ *  The file is written through memory-mapped segments of SEGMENT_SIZE bytes, so appending a mission is a memory copy
+ *  rather than a system call, and the operating system writes the pages out in the background. A record never spans
+ *  two segments: if it doesn't fit in what is left of the current segment, the rest of that segment is left as zeros
+ *  and the record goes into the next one. Every record starts with a nonzero tag, so readers simply skip zeros.
+ *
+ *  Each MissionEngine buffers the mission it is playing in its own Recorder and appends the whole mission at once
+ *  (see Recorder.flush()), so missions played in parallel (e.g. by MonteCarloRunner.java) are never interleaved
+ *  in the file, and append() is the only thing they synchronize on.
+ */
+public class MissionLog implements Closeable {
+	public static final byte[] MAGIC = {'S', 'A', 'R', 'L', 'O', 'G', 0, 1};	//the format version is the last byte
+	public static final int SEGMENT_SIZE = 1 << 24;	//16 MiB mapped at a time
+	public static final byte MISSION_TAG = 'M';
+	public static final byte COMMAND_TAG = 'C';
+	public static final byte CHECKPOINT_TAG = 'K';
+	public static final int HEADER_SIZE = 28;	//excluding the layout
+	public static final int RECORD_SIZE = 12;
+	public static final int CHECKPOINT_SIZE = 16;
+	public static final int CHECKPOINT_INTERVAL = 32;	//commands between checkpoints
+
+	private final FileChannel channel;
+	private MappedByteBuffer segment;	//the segment being written, or null before the first append
+	private long position;				//the file position the next record goes to
+	private long numMissions;			//no. of missions appended since opening
+
+	/**
+	 * 1-arg constructor. Opens the given log for appending, creating it if it doesn't exist.
+	 * @param file the log file
+	 * @throws IOException if the file can't be opened, or isn't a mission log of this format version
+	 */
+	public MissionLog(Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long size = channel.size();
+		if(size == 0) {
+			channel.write(ByteBuffer.wrap(MAGIC), 0);
+			size = MAGIC.length;
+		}
+		else {
+			ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+			channel.read(magic, 0);
+			if(!Arrays.equals(magic.array(), MAGIC)) {
+				channel.close();
+				throw new IOException(file + " is not a mission log of format version " + MAGIC[MAGIC.length - 1]);
+			}
+		}
+		this.position = size;
+	}
+
+	/**
+	 * Method: append
+	 * Appends the given bytes, which must be one or more whole records, to the log.
+	 */
+	public synchronized void append(byte[] bytes, int offset, int length) throws IOException {
+		if(segment == null || segment.remaining() < length) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(SEGMENT_SIZE, length));
+		}
+		segment.put(bytes, offset, length);
+		position += length;
+	}
+
+	/**
+	 * Method: getNumMissions
+	 * @return the no. of missions appended since this log was opened.
+	 */
+	public synchronized long getNumMissions() {
+		return numMissions;
+	}
+
+	private synchronized void missionAppended() {
+		numMissions++;
+	}
+
+	/**
+	 * Method: close
+	 * Writes the mapped segment out and cuts the file off after the last record, so that the next MissionLog appends
+	 * right there.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if(!channel.isOpen()) return;
+		if(segment != null) segment.force();
+		segment = null;
+		try {
+			channel.truncate(position);
+		} catch(IOException e) {
+			//Some platforms can't truncate a file that is still mapped. Readers skip the trailing zeros anyway.
+		}
+		channel.close();
+	}
+
+	/**
+	 * Inner class Recorder. Buffers the mission played by one MissionEngine and appends it to a MissionLog.
+	 *
+	 * Header (HEADER_SIZE bytes, then the layout):
+	 *  0 MISSION_TAG, 1 format version, 2 flags (1 = single player, 2 = player 1 aggressive, 4 = player 2 aggressive),
+	 *  3 percentRandom, 4 belief model (MissionEngine.BeliefModel ordinal), 5 pit % told to the AI (see MissionEngine.setPitPercent()),
+	 *  6 rows (short), 8 cols (short), 10 no. of sampling chains (short), 12 no. of samples (int), 16 seed (long), 24 start room (int),
+	 *  then rows * cols bytes: the Cell.WASTES, Cell.PIT and Cell.VICTIM flags of every room, in row-major order,
+	 *  then the policy names of player 1 and 2, each as its length (byte) followed by its characters (ASCII),
+	 *  then the search budget of the policies (long).
+	 *
+	 * Command record (RECORD_SIZE bytes):
+	 *  0 COMMAND_TAG, 1 command, 2 command chosen by the AI (if the command was ' '), 3 flags (1 = issued by player 2,
+	 *  2 = valid, 4 = aid given, 8 = the player is alive afterwards), 4 result of shooting, 5 mission state afterwards
+	 *  (MissionEngine.GameState ordinal), 6 the direction the player faces afterwards, 7 unused,
+	 *  8 the player's room afterwards (int).
+	 *
+	 * Checkpoint record (CHECKPOINT_SIZE bytes):
+	 *  0 CHECKPOINT_TAG, 1-3 unused, 4 the no. of commands recorded so far (int), 8 MissionEngine.getStateHash() (long).
+	 */
+	public static class Recorder {
+		private final MissionLog log;
+		private ByteBuffer buffer = ByteBuffer.allocate(1024);
+		private boolean isStarted;	//whether a mission is being recorded, i.e. begin() has been invoked
+		private int numCommands;	//no. of commands recorded in the mission
+
+		public Recorder(MissionLog log) {
+			this.log = log;
+		}
+
+		/**
+		 * Method: begin
+		 * Records the header of the mission that the given engine has just set up (see MissionEngine.createPlayers()).
+		 * A mission recorded before and not yet appended (e.g. abandoned halfway in the GUI) is appended first.
+		 */
+		public void begin(MissionEngine engine) throws IOException {
+			if(isStarted) this.flush();
+			Board board = engine.getBoard();
+			int numRooms = board.getRows() * board.getCols();
+			String policy1 = engine.getH1().getPolicy().getName(), policy2 = engine.getH2().getPolicy().getName();
+			ensureCapacity(HEADER_SIZE + numRooms + 2 + policy1.length() + policy2.length() + 8);
+			int flags = (engine.getH2().isOutOfGame() ? 1 : 0) | (engine.getH1().isAggressiveModeOn() ? 2 : 0)
+					| (engine.getH2().isAggressiveModeOn() ? 4 : 0);
+			buffer.put(MISSION_TAG).put(MAGIC[MAGIC.length - 1]).put((byte)flags).put((byte)engine.getPercentRandom())
+					.put((byte)engine.getBeliefModel().ordinal()).put((byte)engine.getPitPercent())
+					.putShort((short)board.getRows()).putShort((short)board.getCols())
+					.putShort((short)engine.getNumChains()).putInt(engine.getNumSamples())
+					.putLong(engine.getSeed()).putInt(engine.getH1().getCurrentRoom().getLocation());
+			for(int i = 0; i < numRooms; i++) {
+				buffer.put((byte)((board.hasWastes(i) ? Cell.WASTES : 0) | (board.isPit(i) ? Cell.PIT : 0) | (board.hasVictim(i) ? Cell.VICTIM : 0)));
+			}
+			putName(policy1);
+			putName(policy2);
+			buffer.putLong(engine.getSearchBudget());
+			isStarted = true;
+			numCommands = 0;
+		}
+
+		/**
+		 * Method: record
+		 * Records a command applied by the engine, followed by a checkpoint every CHECKPOINT_INTERVAL commands and
+		 * at the end of the mission. Appends the whole mission to the log once it is over.
+		 * @param t the transition. Commands chosen by the AI on behalf of ' ' (t.nested) are part of the ' ' record.
+		 * @param engine the engine that applied the command
+		 */
+		public void record(MissionEngine.Transition t, MissionEngine engine) throws IOException {
+			if(!isStarted || t.nested) return;
+			ensureCapacity(RECORD_SIZE + CHECKPOINT_SIZE);
+			int flags = (t.player == engine.getH2() ? 1 : 0) | (t.valid ? 2 : 0) | (t.aidGiven ? 4 : 0) | (t.player.isAlive() ? 8 : 0);
+			buffer.put(COMMAND_TAG).put((byte)t.command).put((byte)t.aiCommand).put((byte)flags).put((byte)t.resultOfShooting)
+					.put((byte)t.state.ordinal()).put((byte)t.player.getDir()).put((byte)0).putInt(t.toLocation);
+			numCommands++;
+			if(numCommands % CHECKPOINT_INTERVAL == 0 || t.state != MissionEngine.GameState.PLAYING) {
+				buffer.put(CHECKPOINT_TAG).put((byte)0).put((byte)0).put((byte)0).putInt(numCommands).putLong(engine.getStateHash());
+			}
+			if(t.state != MissionEngine.GameState.PLAYING) this.flush();
+		}
+
+		/**
+		 * Method: flush
+		 * Appends what has been recorded so far to the log. A mission is normally appended in one piece when it is over;
+		 * flushing earlier (e.g. after every command in the GUI) splits it into several appends, which is only safe
+		 * while no other Recorder appends to the same log.
+		 */
+		public void flush() throws IOException {
+			if(buffer.position() == 0) return;
+			boolean isNewMission = buffer.get(0) == MISSION_TAG;
+			log.append(buffer.array(), 0, buffer.position());
+			buffer.clear();
+			if(isNewMission) log.missionAppended();
+		}
+
+		/**
+		 * Method: end
+		 * Appends the mission recorded so far, if any, and stops recording it.
+		 */
+		public void end() throws IOException {
+			this.flush();
+			isStarted = false;
+		}
+
+		private void putName(String name) {
+			if(name.length() > 255) throw new IllegalArgumentException("Policy name too long to log: " + name);
+			buffer.put((byte)name.length());
+			for(int i = 0; i < name.length(); i++) buffer.put((byte)name.charAt(i));
+		}
+
+		private void ensureCapacity(int bytes) {
+			if(buffer.remaining() >= bytes) return;
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+			buffer.flip();
+			bigger.put(buffer);
+			buffer = bigger;
+		}
+	}
+	//end class Recorder
+
+	/**
+	 * Inner class Mission. A mission read back from a log: its header, and its command records as parallel arrays.
+	 */
+	public static class Mission {
+		public int version, flags, percentRandom, pitPercent, rows, cols, numChains, numSamples, startRoom;
+		public MissionEngine.BeliefModel beliefModel;
+		public long seed;
+		public byte[] rooms;	//the Cell.WASTES, Cell.PIT and Cell.VICTIM flags of every room
+		public String policy1, policy2;	//see PolicyRegistry.java
+		public long searchBudget;		//see MissionEngine.setSearchBudget()
+		public int numCommands;
+		public char[] commands = new char[16], aiCommands = new char[16];
+		public byte[] commandFlags = new byte[16], resultsOfShooting = new byte[16], states = new byte[16], dirs = new byte[16];
+		public int[] toLocations = new int[16];
+		public int numCheckpoints;
+		public int[] checkpointCommands = new int[4];	//the no. of commands applied before each checkpoint
+		public long[] checkpointHashes = new long[4];	//the state hash at each checkpoint
+
+		public boolean isSinglePlayer() {
+			return (flags & 1) != 0;
+		}
+
+		public boolean isAggressive(int player) {
+			return (flags & (player == 1 ? 2 : 4)) != 0;
+		}
+
+		public String getPolicy(int player) {
+			return player == 1 ? policy1 : policy2;
+		}
+
+		/**
+		 * Method: getLayout
+		 * @return the board layout, in the format of the Board(String[][]) constructor.
+		 */
+		public String[][] getLayout() {
+			String[][] ret = new String[rows][cols];
+			for(int i = 0; i < rows * cols; i++) {
+				ret[i / cols][i % cols] = ((rooms[i] & Cell.WASTES) != 0 ? "W" : "") + ((rooms[i] & Cell.VICTIM) != 0 ? "G" : "")
+						+ ((rooms[i] & Cell.PIT) != 0 ? "P" : "");
+			}
+			return ret;
+		}
+
+		/**
+		 * Method: getFinalState
+		 * @return the mission state after the last command recorded, or PLAYING if none was.
+		 */
+		public MissionEngine.GameState getFinalState() {
+			return numCommands == 0 ? MissionEngine.GameState.PLAYING : MissionEngine.GameState.values()[states[numCommands - 1]];
+		}
+
+		private void addCommand(DataInputStream in) throws IOException {
+			if(numCommands == commands.length) {
+				int n = numCommands * 2;
+				commands = Arrays.copyOf(commands, n);
+				aiCommands = Arrays.copyOf(aiCommands, n);
+				commandFlags = Arrays.copyOf(commandFlags, n);
+				resultsOfShooting = Arrays.copyOf(resultsOfShooting, n);
+				states = Arrays.copyOf(states, n);
+				dirs = Arrays.copyOf(dirs, n);
+				toLocations = Arrays.copyOf(toLocations, n);
+			}
+			int k = numCommands++;
+			commands[k] = (char)(in.readByte() & 0xFF);
+			aiCommands[k] = (char)(in.readByte() & 0xFF);
+			commandFlags[k] = in.readByte();
+			resultsOfShooting[k] = in.readByte();
+			states[k] = in.readByte();
+			dirs[k] = in.readByte();
+			in.readByte();
+			toLocations[k] = in.readInt();
+		}
+
+		private void addCheckpoint(DataInputStream in) throws IOException {
+			if(numCheckpoints == checkpointCommands.length) {
+				checkpointCommands = Arrays.copyOf(checkpointCommands, numCheckpoints * 2);
+				checkpointHashes = Arrays.copyOf(checkpointHashes, numCheckpoints * 2);
+			}
+			in.readByte();
+			in.readByte();
+			in.readByte();
+			checkpointCommands[numCheckpoints] = in.readInt();
+			checkpointHashes[numCheckpoints++] = in.readLong();
+		}
+	}
+	//end class Mission
+
+	/**
+	 * Inner class Reader. Reads the missions of a log back, one at a time.
+	 */
+	public static class Reader implements Closeable {
+		private final DataInputStream in;
+		private int pendingTag = -1;	//a tag already read, or -1
+
+		public Reader(Path file) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if(!Arrays.equals(magic, MAGIC)) {
+				in.close();
+				throw new IOException(file + " is not a mission log of format version " + MAGIC[MAGIC.length - 1]);
+			}
+		}
+
+		/**
+		 * Method: next
+		 * @return the next mission in the log, or null if there are no more.
+		 * @throws IOException if the log is cut off in the middle of a record, or is corrupt
+		 */
+		public Mission next() throws IOException {
+			int tag = nextTag();
+			if(tag < 0) return null;
+			if(tag != MISSION_TAG) throw new IOException("Expected a mission header, found tag " + tag);
+			Mission m = new Mission();
+			m.version = in.readUnsignedByte();
+			m.flags = in.readUnsignedByte();
+			m.percentRandom = in.readUnsignedByte();
+			m.beliefModel = MissionEngine.BeliefModel.values()[in.readUnsignedByte()];
+			m.pitPercent = in.readUnsignedByte();
+			m.rows = in.readUnsignedShort();
+			m.cols = in.readUnsignedShort();
+			m.numChains = in.readUnsignedShort();
+			m.numSamples = in.readInt();
+			m.seed = in.readLong();
+			m.startRoom = in.readInt();
+			m.rooms = new byte[m.rows * m.cols];
+			in.readFully(m.rooms);
+			m.policy1 = readName();
+			m.policy2 = readName();
+			m.searchBudget = in.readLong();
+			while(true) {
+				tag = nextTag();
+				if(tag == COMMAND_TAG) m.addCommand(in);
+				else if(tag == CHECKPOINT_TAG) m.addCheckpoint(in);
+				else break;
+			}
+			pendingTag = tag;
+			return m;
+		}
+
+		private String readName() throws IOException {
+			byte[] name = new byte[in.readUnsignedByte()];
+			in.readFully(name);
+			return new String(name, StandardCharsets.US_ASCII);
+		}
+
+		/* Skips the zeros left at the end of a segment. Returns the next tag, or -1 at the end of the log. */
+		private int nextTag() throws IOException {
+			if(pendingTag != -1) {
+				int tag = pendingTag;
+				pendingTag = -1;
+				return tag;
+			}
+			int tag;
+			do {
+				tag = in.read();
+			} while(tag == 0);
+			return tag;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+	//end class Reader
+}
@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/** Class: MissionReplayer.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the MissionReplayer class.
+ *  Purpose - Re-executes a mission read back from a MissionLog, headless and as fast as the engine goes, in order to
+ *  audit the sessions of the experiment's participants and to regression-test changes to the AI against the missions
+ *  it played before.
+ *
+ *  verify() sets the mission up again from its seed, layout and configuration, lets the AI decide every ' ' command
+ *  again, and checks every outcome against the one recorded, along with the state hash at every checkpoint of the log
+ *  (see MissionEngine.getStateHash()). It returns the first Divergence, if any: a changed AI shows up as the first
+ *  command it decides differently.
+ *
+ *  seek() returns an engine positioned right after any given command. Rather than replaying the mission from the start
+ *  every time, it restores the nearest MissionEngine.Snapshot taken every snapshotInterval commands (by verify() or by
+ *  an earlier seek()) and applies the commands after it, as recorded. The AI's recorded decisions are applied instead of
+ *  asking it again, so seeking doesn't depend on the AI's random streams.
+ *
+ *  Usage: java MissionReplayer logFile [threads] [snapshotInterval]
+ *  (verifies every mission of the log on a ForkJoinPool, and reports throughput and divergences.)
+ */
+public class MissionReplayer {
+	public static final int DEFAULT_SNAPSHOT_INTERVAL = 64;	//commands between snapshots
+	private static final int BATCH_SIZE = 64;		//Missions per leaf task. Smaller batches are split no further.
+	private static final int CHUNK_SIZE = 1 << 14;	//Missions read from the log at a time
+	private static final int MAX_REPORTED = 20;		//Divergences printed by main()
+
+	private final MissionLog.Mission mission;
+	private final int snapshotInterval;
+	private final ArrayList<MissionEngine.Snapshot> snapshots = new ArrayList<>();	//snapshots.get(k) = after k * snapshotInterval commands
+
+	/**
+	 * Inner class Divergence. Where and how a replay departed from the mission it replays.
+	 */
+	public static class Divergence {
+		public final int command;	//the index of the first command whose outcome differs, or -1 if the mission set up differently
+		public final String reason;
+
+		public Divergence(int command, String reason) {
+			this.command = command;
+			this.reason = reason;
+		}
+
+		@Override
+		public String toString() {
+			return (command < 0 ? "set-up" : "command " + command) + ": " + reason;
+		}
+	}
+	//end class Divergence
+
+	/**
+	 * 1-arg constructor.
+	 * @param mission the mission to replay
+	 */
+	public MissionReplayer(MissionLog.Mission mission) {
+		this(mission, DEFAULT_SNAPSHOT_INTERVAL);
+	}
+
+	/**
+	 * 2-arg constructor.
+	 * @param mission the mission to replay
+	 * @param snapshotInterval the no. of commands between snapshots. Smaller intervals make seek() faster and take more memory.
+	 */
+	public MissionReplayer(MissionLog.Mission mission, int snapshotInterval) {
+		if(snapshotInterval < 1) throw new IllegalArgumentException("snapshotInterval must be positive: " + snapshotInterval);
+		this.mission = mission;
+		this.snapshotInterval = snapshotInterval;
+	}
+
+	/**
+	 * Method: setUp
+	 * @return a new engine on which the mission is set up as recorded, before its first command.
+	 */
+	public MissionEngine setUp() {
+		MissionEngine engine = this.newEngine();
+		engine.setBoard(new Board(mission.getLayout()));
+		Cell[] startRooms = engine.setStartRoomAndBoardAI(mission.startRoom == 0);
+		engine.createPlayers(startRooms[0], (CellAsPerceivedByAI)startRooms[1], "Player 1", "Player 2",
+				mission.isAggressive(1), mission.isAggressive(2), mission.isSinglePlayer());
+		return engine;
+	}
+
+	/* A new engine configured like the one that played the mission. */
+	private MissionEngine newEngine() {
+		MissionEngine engine = new MissionEngine(mission.seed);
+		engine.setBeliefModel(mission.beliefModel);
+		engine.setSamplingBudget(mission.numSamples, mission.numChains);
+		engine.setPercentRandom(mission.percentRandom);
+		engine.setPitPercent(mission.pitPercent);
+		engine.setPolicies(mission.getPolicy(1), mission.getPolicy(2));
+		engine.setSearchBudget(mission.searchBudget);
+		return engine;
+	}
+
+	/**
+	 * Method: verify
+	 * Replays the whole mission, with the AI deciding every ' ' command anew, and checks it against the log.
+	 * Takes the snapshots for seek() along the way, up to the first divergence.
+	 * @return the first Divergence, or null if the replay matches the log throughout.
+	 */
+	public Divergence verify() {
+		MissionEngine engine = this.setUp();
+		int startRoom = engine.getH1().getCurrentRoom().getLocation();
+		if(startRoom != mission.startRoom) {
+			return new Divergence(-1, "started in room " + startRoom + " instead of " + mission.startRoom);
+		}
+		snapshots.clear();
+		snapshots.add(engine.snapshot());
+		return this.advance(engine, 0, mission.numCommands, true);
+	}
+
+	/**
+	 * Method: seek
+	 * @param n the no. of commands to apply, between 0 and the no. of commands recorded
+	 * @return a new engine on which the mission is set up and the first n commands (as recorded) have been applied.
+	 * @throws IllegalStateException if the mission doesn't replay as recorded up to there
+	 */
+	public MissionEngine seek(int n) {
+		if(n < 0 || n > mission.numCommands) {
+			throw new IllegalArgumentException("Cannot seek to command " + n + " of " + mission.numCommands);
+		}
+		MissionEngine engine = null;
+		if(snapshots.isEmpty()) {
+			engine = this.setUp();
+			snapshots.add(engine.snapshot());
+		}
+		int k = Math.min(n / snapshotInterval, snapshots.size() - 1);	//the nearest snapshot taken so far
+		if(k > 0 || engine == null) {
+			engine = this.newEngine();
+			engine.restore(snapshots.get(k));
+		}
+		Divergence d = this.advance(engine, k * snapshotInterval, n, false);
+		if(d != null) throw new IllegalStateException("The mission doesn't replay as recorded. " + d);
+		return engine;
+	}
+
+	/**
+	 * Method: advance
+	 * Applies commands [from, to) of the mission to the given engine and checks their outcomes, and the checkpoints
+	 * in between, against the log. Takes a snapshot after every snapshotInterval commands not yet snapshotted.
+	 * @param engine an engine on which exactly the first 'from' commands have been applied
+	 * @param aiDecides whether the AI decides the ' ' commands anew, or the commands it decided back then are applied
+	 * @return the first Divergence, or null if there is none.
+	 */
+	private Divergence advance(MissionEngine engine, int from, int to, boolean aiDecides) {
+		int cp = 0;	//the next checkpoint
+		while(cp < mission.numCheckpoints && mission.checkpointCommands[cp] <= from) cp++;
+		for(int c = from; c < to; c++) {
+			Player player = (mission.commandFlags[c] & 1) != 0 ? engine.getH2() : engine.getH1();
+			char command = mission.commands[c];
+			boolean asDecided = !aiDecides && command == ' ' && mission.aiCommands[c] != ' ';	//apply what the AI decided back then
+			if(asDecided) command = mission.aiCommands[c];
+			MissionEngine.Transition t;
+			try {
+				t = engine.apply(player, command);
+			} catch(RuntimeException e) {
+				return new Divergence(c, "the engine failed: " + e);
+			}
+			if(t.valid) engine.nextPlayer();
+
+			if(aiDecides && t.aiCommand != mission.aiCommands[c]) {
+				return new Divergence(c, "the AI chose '" + t.aiCommand + "' instead of '" + mission.aiCommands[c] + "'");
+			}
+			/* The record of a ' ' command holds the outcome of the ' ' itself, whose aid given and result of shooting are
+			 * those of the outer step (i.e. none). So the same goes for the command decided back then. */
+			boolean aidGiven = t.aidGiven && !asDecided;
+			int resultOfShooting = asDecided ? 0 : t.resultOfShooting;
+			int flags = (mission.commandFlags[c] & 1) | (t.valid ? 2 : 0) | (aidGiven ? 4 : 0) | (t.player.isAlive() ? 8 : 0);
+			if(flags != mission.commandFlags[c] || resultOfShooting != mission.resultsOfShooting[c]
+					|| t.state.ordinal() != mission.states[c] || t.player.getDir() != mission.dirs[c] || t.toLocation != mission.toLocations[c]) {
+				return new Divergence(c, String.format("'%c' ended in room %d facing %d (flags %d, shot %d, %s) instead of room %d facing %d "
+						+ "(flags %d, shot %d, %s)", command, t.toLocation, t.player.getDir(), flags, resultOfShooting, t.state,
+						mission.toLocations[c], mission.dirs[c], mission.commandFlags[c], mission.resultsOfShooting[c],
+						MissionEngine.GameState.values()[mission.states[c]]));
+			}
+
+			int done = c + 1;
+			if(cp < mission.numCheckpoints && mission.checkpointCommands[cp] == done) {
+				if(engine.getStateHash() != mission.checkpointHashes[cp]) {
+					return new Divergence(c, "the state hash differs at the checkpoint after it");
+				}
+				cp++;
+			}
+			if(done % snapshotInterval == 0 && done / snapshotInterval == snapshots.size()) snapshots.add(engine.snapshot());
+		}
+		return null;
+	}
+
+	public MissionLog.Mission getMission() {
+		return mission;
+	}
+
+	/**
+	 * Inner class Audit. Aggregated outcome of verifying a batch of missions. Two Audit objects can be merged,
+	 * which is how the fork-join tasks below combine their results.
+	 */
+	public static class Audit {
+		public int missions;	//no. of missions verified
+		public long commands;	//no. of commands replayed
+		public int diverged;	//no. of missions that didn't replay as recorded
+		public ArrayList<String> reported = new ArrayList<>();	//the first MAX_REPORTED divergences, described
+
+		public Audit merge(Audit other) {
+			missions += other.missions;
+			commands += other.commands;
+			diverged += other.diverged;
+			for(int i = 0; i < other.reported.size() && reported.size() < MAX_REPORTED; i++) reported.add(other.reported.get(i));
+			return this;
+		}
+	}
+	//end class Audit
+
+	/**
+	 * Inner class AuditBatch. A fork-join task that verifies missions [lo, hi) of an array,
+	 * splitting itself in half until a batch is no larger than BATCH_SIZE.
+	 */
+	@SuppressWarnings("serial")
+	static class AuditBatch extends RecursiveTask<Audit> {
+		private final MissionLog.Mission[] missions;
+		private final long firstIndex;	//the index of missions[0] in the log
+		private final int snapshotInterval, lo, hi;
+
+		AuditBatch(MissionLog.Mission[] missions, long firstIndex, int snapshotInterval, int lo, int hi) {
+			this.missions = missions;
+			this.firstIndex = firstIndex;
+			this.snapshotInterval = snapshotInterval;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Audit compute() {
+			if(hi - lo > BATCH_SIZE) {
+				int mid = (lo + hi) >>> 1;
+				AuditBatch left = new AuditBatch(missions, firstIndex, snapshotInterval, lo, mid);
+				left.fork();
+				Audit right = new AuditBatch(missions, firstIndex, snapshotInterval, mid, hi).compute();
+				return left.join().merge(right);
+			}
+			Audit audit = new Audit();
+			for(int i = lo; i < hi; i++) {
+				MissionLog.Mission m = missions[i];
+				Divergence d = new MissionReplayer(m, snapshotInterval).verify();
+				audit.missions++;
+				audit.commands += m.numCommands;
+				if(d != null) {
+					audit.diverged++;
+					if(audit.reported.size() < MAX_REPORTED) audit.reported.add("mission " + (firstIndex + i) + " (seed " + m.seed + "), " + d);
+				}
+			}
+			return audit;
+		}
+	}
+	//end class AuditBatch
+
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			System.out.println("Usage: java MissionReplayer logFile [threads] [snapshotInterval]");
+			return;
+		}
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int snapshotInterval = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SNAPSHOT_INTERVAL;
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		Audit total = new Audit();
+		long start = System.nanoTime();
+		try(MissionLog.Reader reader = new MissionLog.Reader(Paths.get(args[0]))) {
+			MissionLog.Mission[] chunk = new MissionLog.Mission[CHUNK_SIZE];
+			while(true) {
+				int n = 0;
+				for(MissionLog.Mission m; n < CHUNK_SIZE && (m = reader.next()) != null; ) chunk[n++] = m;
+				if(n == 0) break;
+				total.merge(pool.invoke(new AuditBatch(chunk, total.missions, snapshotInterval, 0, n)));
+			}
+		}
+		pool.shutdown();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d missions (%d commands) replayed on %d threads in %.2fs: %.0f missions/s, %.0f commands/s%n",
+				total.missions, total.commands, threads, seconds, total.missions / seconds, total.commands / seconds);
+		System.out.printf("%d diverged%n", total.diverged);
+		for(String s : total.reported) System.out.println("  " + s);
+		if(total.diverged > 0) System.exit(1);
+	}
+}
@@ -0,0 +1,321 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/** Class: MonteCarloRunner.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the MonteCarloRunner class.
+ *  Purpose - Plays N headless missions per experiment type (1 - easy/bad AI, 2 - easy/good AI, 3 - hard/bad AI,
+ *  4 - hard/good AI) with the robot AI in control, on a ForkJoinPool that uses all available cores.
+ *  Reports throughput (missions/s), success rate, and the mean and percentiles of numOfMoves per type.
+ *  This replaces clicking through SAR_11.jar ... SAR_41.jar by hand.
+ *
+ *  Every mission is seeded from the base seed, its experiment type and its index (see missionSeed()),
+ *  so any mission of a batch can be reproduced bit-for-bit by re-playing it with the same seed.
+ *
+ *  Usage: java MonteCarloRunner [missionsPerType] [threads] [baseSeed] [HEURISTIC|EXACT|SAMPLING] [numSamples] [numChains] [logFile]
+ *  [corpusFile] [policy,policy,...] [searchBudget]
+ *  (the AI's belief model, HEURISTIC by default as in the original study, and for SAMPLING its budget. See MissionEngine.BeliefModel and MissionEngine.setSamplingBudget().
+ *  If a log file is given (or "-" for none), every mission is appended to it. See MissionLog.java.
+ *  If a corpus file is given, mission i of every experiment type is played on board i of the corpus (wrapping around)
+ *  instead of on the type's layout, with the type's % of random actions. See BoardCorpus.java. Use "-" for no corpus.
+ *  If policies are given, the robot is played by each of them in turn. See PolicyRegistry.java.
+ *  The policies search for their default amount of work per decision (RobotPolicy.DEFAULT_WORK) unless a search budget
+ *  is given, never against the clock, so that every mission can be replayed. See MissionEngine.setSearchBudget().)
+ *
+ *  Every policy plays the same missions (same seeds, same boards), and the batches of all policies run on the pool side
+ *  by side, so a slow policy doesn't hold the others up. The report has one row per type and policy. As the policies
+ *  share the pool, the throughput of a policy is its missions over its share of the run: the elapsed time times the
+ *  fraction of mission time spent on that policy. Every board is also solved by a SolvabilityOracle, which sees the
+ *  whole board, so each row includes the share of missions that could be won at all and the AI's optimality gap: the
+ *  mean no. of moves a successful mission took beyond the fewest possible. The AI's decision latency is published over
+ *  JMX while the batch runs (see DecisionMetrics.java), and summed up under each row.
+ */
+public class MonteCarloRunner {
+	public static final int MAX_MOVES = 1000;	//A mission still in progress after this many moves is counted as a failure ("stuck").
+	private static final int BATCH_SIZE = 64;	//Missions per leaf task. Smaller batches are split no further.
+
+	/**
+	 * Inner class Stats. Aggregated outcome of a batch of missions. Two Stats objects can be merged,
+	 * which is how the fork-join tasks below combine their results.
+	 */
+	public static class Stats {
+		public int missions;	//total no. of missions played
+		public int successes;	//missions in which the robot gave aid to the victim
+		public int stuck;		//missions that neither succeeded nor failed within MAX_MOVES (or in which the AI had no move left)
+		public long totalMoves;	//sum of numOfMoves over all missions
+		public int solvable;	//missions that could be won, according to SolvabilityOracle
+		public long totalGap;	//sum over successful missions of numOfMoves minus the fewest moves possible
+		public long totalNanos;	//sum of the time taken to play each mission, setup included
+		public long[] movesHistogram = new long[MAX_MOVES + 1];	//movesHistogram[m] = no. of missions that took m moves
+
+		/**
+		 * Method: add
+		 * Records the outcome of a single mission.
+		 * @param engine the mission engine, after the mission is over (or abandoned)
+		 * @param isStuck whether the mission was abandoned
+		 * @param optimalMoves the fewest moves in which the mission could be won (see SolvabilityOracle.solve()),
+		 * or SolvabilityOracle.UNSOLVABLE
+		 */
+		public void add(MissionEngine engine, boolean isStuck, int optimalMoves) {
+			int moves = Math.min(engine.getNumOfMoves(), MAX_MOVES);
+			missions++;
+			if(optimalMoves != SolvabilityOracle.UNSOLVABLE) solvable++;
+			if(engine.getState() == MissionEngine.GameState.H1_WON) {
+				successes++;
+				totalGap += engine.getNumOfMoves() - optimalMoves;
+			}
+			if(isStuck) stuck++;
+			totalMoves += moves;
+			movesHistogram[moves]++;
+		}
+
+		/**
+		 * Method: merge
+		 * @param other another Stats object whose numbers are added to this one.
+		 * @return this Stats object
+		 */
+		public Stats merge(Stats other) {
+			missions += other.missions;
+			successes += other.successes;
+			stuck += other.stuck;
+			totalMoves += other.totalMoves;
+			solvable += other.solvable;
+			totalGap += other.totalGap;
+			totalNanos += other.totalNanos;
+			for(int i = 0; i < movesHistogram.length; i++) movesHistogram[i] += other.movesHistogram[i];
+			return this;
+		}
+
+		public double getSuccessRate() {
+			return missions == 0 ? 0 : (double)successes / missions;
+		}
+
+		public double getSolvableRate() {
+			return missions == 0 ? 0 : (double)solvable / missions;
+		}
+
+		/**
+		 * Method: getMeanGap
+		 * @return the mean no. of moves beyond the fewest possible, over the successful missions.
+		 */
+		public double getMeanGap() {
+			return successes == 0 ? 0 : (double)totalGap / successes;
+		}
+
+		public double getMeanMoves() {
+			return missions == 0 ? 0 : (double)totalMoves / missions;
+		}
+
+		/**
+		 * Method: getPercentileMoves
+		 * @param p the percentile, between 0 and 100
+		 * @return the smallest numOfMoves m such that at least p% of the missions took m moves or fewer.
+		 */
+		public int getPercentileMoves(double p) {
+			long rank = (long)Math.ceil(p / 100.0 * missions);
+			long seen = 0;
+			for(int m = 0; m < movesHistogram.length; m++) {
+				seen += movesHistogram[m];
+				if(seen >= rank && seen > 0) return m;
+			}
+			return 0;
+		}
+	}
+	//end class Stats
+
+	/**
+	 * Inner class MissionBatch. A fork-join task that plays missions [lo, hi) of a given experiment type with a given
+	 * robot policy, splitting itself in half until a batch is no larger than BATCH_SIZE.
+	 */
+	@SuppressWarnings("serial")
+	static class MissionBatch extends RecursiveTask<Stats> {
+		private final int experimentType, lo, hi;
+		private final long baseSeed;
+		private final MissionEngine.BeliefModel beliefModel;
+		private final int numSamples, numChains;	//see MissionEngine.setSamplingBudget()
+		private final MissionLog log;	//null if missions aren't logged
+		private final BoardCorpus corpus;	//null if missions are played on the layout of their experiment type
+		private final String policy;	//the name of the robot's policy. See PolicyRegistry.java.
+		private final long searchBudget;	//see MissionEngine.setSearchBudget()
+
+		MissionBatch(long baseSeed, MissionEngine.BeliefModel beliefModel, int numSamples, int numChains, MissionLog log,
+				BoardCorpus corpus, String policy, long searchBudget, int experimentType, int lo, int hi) {
+			this.baseSeed = baseSeed;
+			this.log = log;
+			this.corpus = corpus;
+			this.policy = policy;
+			this.searchBudget = searchBudget;
+			this.beliefModel = beliefModel;
+			this.numSamples = numSamples;
+			this.numChains = numChains;
+			this.experimentType = experimentType;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Stats compute() {
+			if(hi - lo > BATCH_SIZE) {
+				int mid = (lo + hi) >>> 1;
+				MissionBatch left = new MissionBatch(baseSeed, beliefModel, numSamples, numChains, log, corpus, policy, searchBudget, experimentType, lo, mid);
+				left.fork();
+				Stats right = new MissionBatch(baseSeed, beliefModel, numSamples, numChains, log, corpus, policy, searchBudget, experimentType, mid, hi).compute();
+				return right.merge(left.join());
+			}
+			Stats stats = new Stats();
+			SolvabilityOracle oracle = new SolvabilityOracle();
+			for(int i = lo; i < hi; i++) {
+				Board board = corpus == null ? new Board(FinalMission.getLayout(experimentType)) : corpus.get(i % corpus.size());
+				int optimalMoves = oracle.solve(board, 0);	//before the mission changes the board. Missions start in room (0,0).
+				long startTime = System.nanoTime();
+				MissionEngine engine = new MissionEngine(missionSeed(baseSeed, experimentType, i));
+				engine.setBeliefModel(beliefModel);
+				engine.setSamplingBudget(numSamples, numChains);
+				engine.setPolicies(policy, policy);
+				engine.setSearchBudget(searchBudget);
+				if(corpus != null) engine.setPitPercent(corpus.getPitPercent());
+				engine.setMissionLog(log);
+				boolean isStuck = playMission(engine, experimentType, board);
+				stats.totalNanos += System.nanoTime() - startTime;
+				stats.add(engine, isStuck, optimalMoves);
+			}
+			return stats;
+		}
+	}
+	//end class MissionBatch
+
+	/**
+	 * Method: playMission
+	 * Sets up the final mission of the given experiment type on the given engine (start room (0,0), single player,
+	 * non-aggressive AI, as in FinalMission.java), then lets the AI play until the mission is over.
+	 * @param engine a fresh MissionEngine
+	 * @param experimentType 1, 2, 3 or 4
+	 * @return true if the mission had to be abandoned (see Stats.stuck), false otherwise.
+	 */
+	public static boolean playMission(MissionEngine engine, int experimentType) {
+		return playMission(engine, experimentType, new Board(FinalMission.getLayout(experimentType)));
+	}
+
+	/**
+	 * Method: playMission
+	 * Same as above, except that the mission is played on the given board, e.g. one from a BoardCorpus.
+	 * @param engine a fresh MissionEngine
+	 * @param experimentType 1, 2, 3 or 4. Determines the % of time the AI acts randomly.
+	 * @param board the board, whose room (0,0) must be empty
+	 * @return true if the mission had to be abandoned (see Stats.stuck), false otherwise.
+	 */
+	public static boolean playMission(MissionEngine engine, int experimentType, Board board) {
+		engine.setBoard(board);
+		engine.setPercentRandom(FinalMission.PERCENT_RANDOM[experimentType]);
+		Cell[] startRooms = engine.setStartRoomAndBoardAI(true);
+		engine.createPlayers(startRooms[0], (CellAsPerceivedByAI)startRooms[1], "Robot", "N/A", false, false, true);
+		while(!engine.isOver() && engine.getNumOfMoves() < MAX_MOVES) {
+			MissionEngine.Transition t = engine.apply(' ');	//spacebar: let the AI decide
+			if(t.aiCommand == RobotPolicy.NO_MOVE) break;	//the AI has no move left (e.g. no reachable unexplored room is left)
+		}
+		engine.flushMissionLog();	//a mission still in progress after MAX_MOVES isn't appended by the engine
+		return !engine.isOver();
+	}
+
+	/**
+	 * Method: missionSeed
+	 * Derives the seed of a single mission (SplitMix64 finalizer over the base seed, type and index), so that
+	 * neighbouring missions get unrelated random streams.
+	 * @param baseSeed the seed of the whole run
+	 * @param experimentType 1, 2, 3 or 4
+	 * @param index the index of the mission within its experiment type
+	 * @return the seed to pass to MissionEngine
+	 */
+	public static long missionSeed(long baseSeed, int experimentType, int index) {
+		long z = baseSeed + 0x9E3779B97F4A7C15L * (((long)experimentType << 32) + index + 1);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Method: run
+	 * Plays the given no. of missions of the given experiment type on the given pool.
+	 * @param log the log to append every mission to, or null
+	 * @param corpus the boards to play the missions on, or null for the layout of the experiment type
+	 * @return the aggregated Stats
+	 */
+	public static Stats run(ForkJoinPool pool, long baseSeed, MissionEngine.BeliefModel beliefModel, int numSamples, int numChains,
+			MissionLog log, BoardCorpus corpus, int experimentType, int missions) {
+		return run(pool, baseSeed, beliefModel, numSamples, numChains, log, corpus, new String[]{PolicyRegistry.DEFAULT_POLICY},
+				RobotPolicy.DEFAULT_WORK, experimentType, missions)[0];
+	}
+
+	/**
+	 * Method: run
+	 * Same as above, except that the same missions are played once per given policy. The batches of all policies are
+	 * submitted to the pool at once, and run side by side.
+	 * @param policies the names of the policies. See PolicyRegistry.java.
+	 * @param searchBudget how much the policies may search per decision. See MissionEngine.setSearchBudget().
+	 * @return the aggregated Stats of each policy, in the order given
+	 */
+	public static Stats[] run(ForkJoinPool pool, long baseSeed, MissionEngine.BeliefModel beliefModel, int numSamples, int numChains,
+			MissionLog log, BoardCorpus corpus, String[] policies, long searchBudget, int experimentType, int missions) {
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[policies.length];
+		for(int p = 0; p < policies.length; p++) {
+			tasks[p] = pool.submit(new MissionBatch(baseSeed, beliefModel, numSamples, numChains, log, corpus, policies[p],
+					searchBudget, experimentType, 0, missions));
+		}
+		Stats[] ret = new Stats[policies.length];
+		for(int p = 0; p < policies.length; p++) ret[p] = (Stats)tasks[p].join();
+		return ret;
+	}
+
+	/** Main method. Runs all four experiment types and prints a report to the console. */
+	public static void main(String[] args) throws IOException {
+		int missionsPerType = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long baseSeed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+		MissionEngine.BeliefModel beliefModel = args.length > 3 ? MissionEngine.BeliefModel.valueOf(args[3].toUpperCase())
+				: MissionEngine.BeliefModel.HEURISTIC;
+		int numSamples = args.length > 4 ? Integer.parseInt(args[4]) : SamplingBeliefEngine.DEFAULT_NUM_SAMPLES;
+		int numChains = args.length > 5 ? Integer.parseInt(args[5]) : SamplingBeliefEngine.DEFAULT_NUM_CHAINS;
+		MissionLog log = args.length > 6 && !args[6].equals("-") ? new MissionLog(Paths.get(args[6])) : null;
+		BoardCorpus corpus = args.length > 7 && !args[7].equals("-") ? new BoardCorpus(Paths.get(args[7])) : null;
+		String[] policies = args.length > 8 ? args[8].split(",") : new String[]{PolicyRegistry.DEFAULT_POLICY};
+		long searchBudget = args.length > 9 ? Long.parseLong(args[9]) : RobotPolicy.DEFAULT_WORK;
+		for(String policy : policies) PolicyRegistry.create(policy);	//fail on an unknown policy before anything is played
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		DecisionMetrics metrics = DecisionMetrics.getInstance();
+		DecisionMetrics.register();
+
+		System.out.printf("%d missions per experiment type on %d threads, base seed %d, %s beliefs, search budget %d%n", missionsPerType,
+				threads, baseSeed, beliefModel, searchBudget);
+		if(corpus != null) System.out.printf("Boards from %s (%d %dx%d boards)%n", args[7], corpus.size(), corpus.getRows(), corpus.getCols());
+		System.out.printf("%-5s %-12s %12s %9s %9s %7s %8s %5s %5s %5s %5s %6s%n", "type", "policy", "missions/s", "solvable", "success",
+				"stuck", "mean", "p50", "p90", "p99", "max", "gap");
+		for(int type = 1; type <= 4; type++) {
+			metrics.reset();
+			long start = System.nanoTime();
+			Stats[] stats = run(pool, baseSeed, beliefModel, numSamples, numChains, log, corpus, policies, searchBudget, type, missionsPerType);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			long allNanos = 0;
+			for(Stats s : stats) allNanos += s.totalNanos;
+			for(int p = 0; p < policies.length; p++) {
+				Stats s = stats[p];
+				double share = allNanos == 0 ? 1 : (double)s.totalNanos / allNanos;	//of the time, spent on this policy
+				System.out.printf("%-5d %-12s %12.0f %8.2f%% %8.2f%% %7d %8.2f %5d %5d %5d %5d %6.2f%n", type, policies[p],
+						s.missions / (seconds * share), s.getSolvableRate() * 100, s.getSuccessRate() * 100, s.stuck, s.getMeanMoves(),
+						s.getPercentileMoves(50), s.getPercentileMoves(90), s.getPercentileMoves(99), s.getPercentileMoves(100), s.getMeanGap());
+			}
+			System.out.println("      " + metrics);
+		}
+		pool.shutdown();
+		if(log != null) {
+			System.out.printf("%d missions logged to %s%n", log.getNumMissions(), args[6]);
+			log.close();
+		}
+		if(corpus != null) corpus.close();
+	}
+}
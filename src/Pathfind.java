@@ -1,9 +1,9 @@
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 //import java.util.LinkedList;
-import java.util.PriorityQueue;
 //import java.util.Queue;
-import java.util.Stack;
 
 /** Class: Pathfind.java
  *  @author Yury Park
@@ -21,221 +21,421 @@ import java.util.Stack;
  *  in non-optimal solution path).
  *
  *  So now, the solution path calculated by the UCS method in this class is ALWAYS guaranteed to be cost-optimal.
+ *
+ *  UPDATE: UCS now searches over (room, direction faced) states, with an IndexedMinHeap for its priority queue
+ *  and plain int arrays for the distances and parents, instead of ArrayList / PriorityQueue lookups per expansion.
+ *
+ *  UPDATE: Solution paths are now remembered as plans (see the Plan class below). As long as the AI's beliefs
+ *  haven't changed (see Board.getVersion()) and the Player is still on course, the rest of the plan is still
+ *  cost-optimal, so it is simply followed instead of searching all over again after every turn and every step.
+ *
+ *  UPDATE: Every search and every plan followed is timed and counted in DecisionMetrics.java (latency, states expanded,
+ *  heap operations, plan cache hits), except those of the imagined missions that MissionEngine.setUpSimulation() sets
+ *  up (see setRecordingMetrics()).
  */
 public class Pathfind {
-	/* Declare an ArrayList of RoomAsPerceivedByAI objects that have been visited by the AI. */
-	ArrayList<CellAsPerceivedByAI> visitedArr;
+	/* Declare an ArrayList of RoomAsPerceivedByAI objects that form the solution path. Refilled by every ucs(). */
+	final ArrayList<CellAsPerceivedByAI> solutionAL = new ArrayList<>();
+
+	/* The UCS below searches over STATES rather than rooms: a state is a room together with the direction the Player
+	 * is facing in it, numbered (room index * 4 + direction). Two visits to the same room facing different directions
+	 * have different costs for whatever comes next, so treating them as one (as the previous room-based UCS did)
+	 * can miss the cheapest path. The arrays below are indexed by state and are reused from one search to the next;
+	 * an entry is only valid if its stamp equals the stamp of the current search, which saves clearing them every time. */
+	private int[] distanceSoFar;	//cost of the cheapest known path from the starting state to each state
+	private int[] parentState;		//the state preceding each state on that path, or -1 for the starting state
+	private int[] stamp;			//the search in which the two entries above were last written
+	private int currentStamp;
+	private IndexedMinHeap q;		//states yet to be expanded, keyed by distanceSoFar
+	private int[] firstStepOfState;	//the room entered first on the path to each state, or -1 for the starting state
+
+	/* Results of the last searchFrom(), indexed by room. Valid only for rooms whose roomStamp equals currentStamp. */
+	private BitBoard targets;		//the rooms searchFrom() may move into even if they are not guaranteed safe
+	private int[] roomDistance;		//cost of the cheapest path to each room, whichever way the Player ends up facing
+	private int[] firstStep;		//the room adjacent to the starting room on that path
+	private int[] roomStamp;
+	private int[] roomState;		//the state in which the path to each room ends
+	private int searchStamp;		//the stamp of the last searchFrom(). A ucs() in between doesn't invalidate its results.
+	private Board searchBoard;		//the board of the last searchFrom()
+
+	private BitBoard newTargets;	//scratch space for the destination room(s) of a plan lookup
+	private final Plan pathPlan = new Plan();		//the plan from the last ucs() that found a path
+	private final Plan explorePlan = new Plan();	//the plan remembered via rememberPlan()
+	private long numCacheHits, numSearches;
+	private long nodesExpanded, heapOperations;	//no. of states expanded and of priority queue operations by the search in progress
+	private final DecisionMetrics metrics = DecisionMetrics.getInstance();
+	private boolean isRecordingMetrics = true;	//see setRecordingMetrics()
+
+	/**
+	 * Inner class Plan. A cost-optimal solution path, along with what it was computed from.
+	 *
+	 * The path stays cost-optimal for as long as the AI's beliefs don't change, i.e. as long as the board perceived by AI
+	 * keeps the same version: any stretch of a cost-optimal path is itself cost-optimal (so the plan still holds after
+	 * a step forward along it), and turning towards the next room on the path brings the Player one turn closer
+	 * to the destination, which is the most a single turn can do (so the plan still holds after a turn towards the next room).
+	 * Likewise the destination stays the cheapest among the target rooms, unless target rooms were added since.
+	 */
+	private static class Plan {
+		private Board board;		//the board perceived by AI the plan was computed on
+		private long version;		//the version of that board at the time
+		private BitBoard targets;	//the target rooms at the time. The plan leads to the cheapest one.
+		private int[] rooms = new int[16];		//rooms[k] = the index of the k-th room on the path
+		private int[] headings = new int[16];	//headings[k] = the direction faced on arriving in rooms[k] (or at the start, for k = 0)
+		private int[] costs = new int[16];		//costs[k] = the cost of the path up to rooms[k]
+		private int length;		//no. of rooms on the path, or 0 if there is no plan
+		private int pos;		//the position on the path where the Player was last seen
+
+		/**
+		 * Method: set
+		 * Remembers the path ending in the given state, as found by the search that just finished.
+		 */
+		private void set(Board board, BitBoard targets, int endState, int[] parentState, int[] distanceSoFar) {
+			int n = 0;
+			for(int curr = endState; curr >= 0; curr = parentState[curr]) n++;
+			if(rooms.length < n) {
+				rooms = new int[n];
+				headings = new int[n];
+				costs = new int[n];
+			}
+			int k = n;
+			for(int curr = endState; curr >= 0; curr = parentState[curr]) {
+				k--;
+				rooms[k] = curr >> 2;
+				headings[k] = curr & 3;
+				costs[k] = distanceSoFar[curr];
+			}
+			if(this.targets == null || this.targets.getShape() != targets.getShape()) this.targets = new BitBoard(targets);
+			else this.targets.copyFrom(targets);
+			this.board = board;
+			this.version = board.getVersion();
+			this.length = n;
+			this.pos = 0;
+		}
 
-	/* Declare an ArrayList of RoomAsPerceivedByAI objects that form the solution path. */
-	ArrayList<CellAsPerceivedByAI> solutionAL;
+		/**
+		 * Method: find
+		 * @param board the board perceived by AI
+		 * @param targets the current target rooms
+		 * @param room the room the Player is in
+		 * @param heading the direction the Player is facing
+		 * @return the position of the room on the path, provided that the rest of the path is still cost-optimal
+		 * from there; -1 otherwise.
+		 */
+		private int find(Board board, BitBoard targets, int room, int heading) {
+			if(length == 0 || this.board != board || this.version != board.getVersion()) return -1;
+			if(!targets.get(rooms[length - 1]) || !this.targets.containsAll(targets)) return -1;
+			/* The Player moves along the path one room at a time, so he is either where he was last seen, or one room further. */
+			int k = pos;
+			if(rooms[k] != room) {
+				if(k + 1 < length && rooms[k + 1] == room) k++;
+				else return -1;
+			}
+			if(k + 1 >= length) return -1;	//already at the destination
+			/* The Player must face the way he arrived, the way to the next room, or in between. */
+			int from = headings[k], to = headings[k + 1];
+			if(rotation(from, heading) + rotation(heading, to) != rotation(from, to)) return -1;
+			pos = k;
+			return k;
+		}
+
+		/**
+		 * Method: remainingCost
+		 * @return the cost of the rest of the path from the position returned by find(), facing the given direction.
+		 */
+		private int remainingCost(int k, int heading) {
+			return costs[length - 1] - costs[k] - rotation(headings[k], heading);
+		}
+	}
+	//end class Plan
 
 	/**
 	 * Method: ucs
 	 * Performs a Uniform-Cost Search from the given room to the destination room, given a board consisting of rooms and
 	 * given the Player object's direction he is currently facing.
 	 *
+	 * Moving to an adjacent room costs 1 turn if the Player already faces it, 2 if he must turn left or right first,
+	 * and 3 if he must turn around first -- the same cost model as computeCost(). Only rooms that are guaranteed safe
+	 * (and the destination room itself) are moved into along the way.
+	 *
 	 * @param rootRoomAI the given starting room.
 	 * @param destinationRoomAI the given destination room.
 	 * @param boardAI the given board
 	 * @param playerDirection the direction that the Player object is currently facing.
-	 * @return an ArrayList consisting of the cost-optimal solution path from the current room to the destination.
+	 * @return an ArrayList consisting of the cost-optimal solution path from the current room to the destination,
+	 * or null if there is no safe path. The total cost is saved in the destination room's distanceSoFar attribute.
+	 * The same ArrayList is refilled by the next ucs(), so copy it if it must be kept.
 	 */
 	public ArrayList<CellAsPerceivedByAI> ucs(CellAsPerceivedByAI rootRoomAI, CellAsPerceivedByAI destinationRoomAI, Board boardAI, int playerDirection) {
+		long startTime = System.nanoTime();
+		int destination = destinationRoomAI.getLocation();
+		int root = rootRoomAI.getLocation();
+
+		/* If we're still on course according to the plan from the last search to this destination, just follow it. */
+		this.fit(boardAI);
+		newTargets.clear();
+		newTargets.set(destination);
+		int k = pathPlan.find(boardAI, newTargets, root, playerDirection);
+		if(k >= 0) {
+			numCacheHits++;
+			destinationRoomAI.setDistanceSoFar(pathPlan.remainingCost(k, playerDirection));
+			solutionAL.clear();
+			for(int i = k; i < pathPlan.length; i++) solutionAL.add(boardAI.getRoomAI(pathPlan.rooms[i]));
+			if(isRecordingMetrics) metrics.recordPlanCacheHit(System.nanoTime() - startTime);
+			return solutionAL;
+		}
+
+		this.prepare(boardAI);
+		numSearches++;
+		solutionAL.clear();
 
-		/* Prior to starting this method, reset the distances assigned to each RoomAsPerceivedByAI object to zero.
-		 * This reset is necessary because, depending on where the Player is and what direction he is facing, the
-		 * distanceSoFar attribute of the RoomAsPerceivedByAI class will be different.
-		 * So it's always safest to reset the attribute to zero for every room before we start this ucs algorithm. */
-		for(int i = 0; i < Board.ROWS; i++) {
-			for(int j = 0; j < Board.COLS; j++) {
-				boardAI.getRoomAI(i, j).setDistanceSoFar(0);
+		/* Begin by adding the starting state to the queue. */
+		int start = root * 4 + playerDirection;
+		this.relax(start, 0, -1);
+
+		while(!q.isEmpty()) {
+			int s = q.poll();	//the cheapest state yet to be expanded. Its distanceSoFar is now final.
+			int room = s >> 2;
+			heapOperations++;
+
+			/* The first time the destination room comes out of the queue, we have the optimal-cost path to it. */
+			if(room == destination) {
+				destinationRoomAI.setDistanceSoFar(distanceSoFar[s]);
+				pathPlan.set(boardAI, newTargets, s, parentState, distanceSoFar);
+				printSolution(boardAI, s);
+				if(isRecordingMetrics) metrics.recordSearch(System.nanoTime() - startTime, nodesExpanded, heapOperations);
+				return solutionAL;
 			}
+
+			nodesExpanded++;
+			this.expand(boardAI, s, destination, null);
 		}
+		//end while
 
-		/* Reset the ArrayLists keeping track of the visited rooms as well as the solution path. */
-		visitedArr = new ArrayList<>();
-		solutionAL = new ArrayList<>();
+		if(isRecordingMetrics) metrics.recordSearch(System.nanoTime() - startTime, nodesExpanded, heapOperations);
+		return null;	//Goal room not reached.
+	}
 
-		/* UCS uses PriorityQueue data structure.
-		 * (First In First Out, auto-sorted from least to greatest cost. See the compareTo() method
-		 * in RoomAsPerceivedByAI class for more details.
-		 */
-		PriorityQueue<CellAsPerceivedByAI> q = new PriorityQueue<>();
-
-		/* Set the hypotheticalPlayerDir attribute for this room. This is important when
-		 * calculating the cost of changing player's directions as part of the overall optimal cost calculation. */
-		rootRoomAI.setHypotheticalPlayerDir(playerDirection);
-
-		/* Begin by adding the starting room to the queue and setting that room to visited.
-		 * Print the root room and destination room to the console. */
-		q.add(rootRoomAI);
-		visitedArr.add(rootRoomAI);
-//		System.out.printf("********************************\nStarting node: %s, Goal node: %s\nStarting Search...\n\n",
-//				rootRoomAI.getXY(), destinationRoomAI.getXY());
-
-		/* Declare a variable to keep track of the current room in the priority queue (FIFO, auto-sorted).
-		 * This variable will be continuously updated in the while loop below. */
-		CellAsPerceivedByAI r;
-
-		//Declare a child and begin by setting it to the starting room
-		CellAsPerceivedByAI child = rootRoomAI;
-
-		/* Continue the while loop as long as queue has stuff in it, AND as long as the goal room has not been reached. */
-		while(!child.getXY().equals(destinationRoomAI.getXY()) && !q.isEmpty())
-		{
-			/* The very first time this loop runs, r will equal the starting root room
-			 * since the root room is the only one in the priority queue at the start. In other iterations, r will equal
-			 * whatever room is at the very front of the queue */
-			r = q.peek();
-//			System.out.println("r = " + r.getXY() + ", and child = " + child.getXY());
-
-			/* use method call to get the LEAST-COST child neighboring the current room.
-			 * If there is no such room, null will be returned.
-			 * NOTE: In the event that a child that would otherwise be returned happens to be a duplicate (previously been visited),
-			 * then this method will check to see whether this child is "better" (as in, has lesser cost than the one previously visited).
-			 * */
-			child = this.getChildNodeUCS(r, destinationRoomAI);
-
-			/* If the returned child value is null, just remove the current node from the queue. */
-			if ( child == null ) {
-				q.remove();
-//				System.out.printf("Node %s removed from priority queue...", r.getXY());		//for user-friendliness
-			}
+	/**
+	 * Method: searchFrom
+	 * Performs a single Uniform-Cost Search from the given room that finds the cost-optimal path to EVERY room it can reach,
+	 * moving only into rooms that are guaranteed safe or that are among the given target rooms (the search does not go
+	 * on past an unsafe target room). This gives the same paths as calling ucs() once per target room,
+	 * at the cost of a single search. Read the results with getDistanceTo() and getFirstStepTo().
+	 *
+	 * @param rootRoomAI the given starting room.
+	 * @param targetRoomsAL the rooms to find paths to.
+	 * @param boardAI the given board
+	 * @param playerDirection the direction that the Player object is currently facing.
+	 */
+	public void searchFrom(CellAsPerceivedByAI rootRoomAI, ArrayList<CellAsPerceivedByAI> targetRoomsAL, Board boardAI, int playerDirection) {
+		long startTime = System.nanoTime();
+		this.prepare(boardAI);
+		numSearches++;
+		searchStamp = currentStamp;
+		searchBoard = boardAI;
+		targets.clear();
+		for(int i = 0; i < targetRoomsAL.size(); i++) targets.set(targetRoomsAL.get(i).getLocation());
+
+		int root = rootRoomAI.getLocation();
+		this.relax(root * 4 + playerDirection, 0, -1);
 
-			/* Otherwise, add the child to the visited array. Then add the child to the priority queue, replacing any duplicate.
-			 * Finally, set r as the parent of the returned child. This is useful later when we backtrack from
-			 * the goal room to the root room, in order to print a complete solution key. */
-			else {
-				this.visitedArr.add(child);
-//				System.out.printf("Checking path from %s to %s...", r.getXY(), child.getXY());	//for user-friendliness
-				if(q.contains(child)) q.remove(child);	//Remove any old duplicate before adding child. This is necessary to trigger Priority Queue's auto-sorting.
-				q.add(child);
-				child.setParentRoom(r);
+		while(!q.isEmpty()) {
+			int s = q.poll();
+			int room = s >> 2;
+			heapOperations++;
+
+			/* The first time a room comes out of the queue, we have the optimal-cost path to it. */
+			if(roomStamp[room] != currentStamp) {
+				roomStamp[room] = currentStamp;
+				roomDistance[room] = distanceSoFar[s];
+				firstStep[room] = firstStepOfState[s];
+				roomState[room] = s;
 			}
-			//End if/else
 
-			/* Use custom method to print the current queue (optional). Then re-assign child node to whatever is next in the queue.
-			 * Then get ready for the next iteration. */
-//			printQ(q);	//optional, just for testing
-			child = q.peek();
-		}
-		//End while
-
-		/* Let end-user know if an optimal cost path was found from root to goal room. Display the total cost required.
-		 * Then, print and return the solution key using custom method call. */
-		if(child.getXY().equals(destinationRoomAI.getXY())) {
-//			System.out.printf("\nOptimal-cost path to goal node found!\n"
-//					+ "Cost from Room %s to Room %s is: %s.\n", rootRoomAI.getXY(), destinationRoomAI.getXY(), destinationRoomAI.getDistanceSoFar());
-			return printSolution(rootRoomAI, destinationRoomAI);
-		}
-		else {
-//			System.out.println("Goal node not reached.");
-			return null;
+			/* Rooms that aren't guaranteed safe are destinations only. Don't look for paths that go through them. */
+			if(room == root || boardAI.isGuaranteedSafe(room)) {
+				nodesExpanded++;
+				this.expand(boardAI, s, -1, targets);
+			}
 		}
+		//end while
+		if(isRecordingMetrics) metrics.recordSearch(System.nanoTime() - startTime, nodesExpanded, heapOperations);
 	}
 
 	/**
-	 * Method: getChildNodeUCS
-	 *
-	 * Gets the LEAST-COST child that is adjacent to the current room. If there is no such child, null will be returned.
-	 *
-	 * NOTE: In the event that a child that would otherwise be returned happens to be a duplicate (previously been visited),
-	 * then this method will check to see whether this child is "better" (as in, has lesser cost than the one previously visited).
-	 * This method will only return this child if it is:
-	 * 1) the least-cost child, AND 2) either not a duplicate or a "better" duplicate.
+	 * Method: getDistanceTo
+	 * @param room the index of a room
+	 * @return the cost of the optimal path to the room found by the last searchFrom(), or -1 if it found no path.
+	 */
+	public int getDistanceTo(int room) {
+		return roomStamp[room] == searchStamp ? roomDistance[room] : -1;
+	}
+
+	/**
+	 * Method: getFirstStepTo
+	 * @param room the index of a room that the last searchFrom() found a path to, other than the starting room
+	 * @return the index of the room adjacent to the starting room on that path.
+	 */
+	public int getFirstStepTo(int room) {
+		return firstStep[room];
+	}
+
+	/**
+	 * Method: rememberPlan
+	 * Remembers the path to the given room found by the last searchFrom(), so that followPlan() can keep following it.
+	 * @param room the index of a room that the last searchFrom() found a path to, and that is the cheapest
+	 * of its target rooms to get to.
+	 */
+	public void rememberPlan(int room) {
+		explorePlan.set(searchBoard, targets, roomState[room], parentState, distanceSoFar);
+	}
+
+	/**
+	 * Method: followPlan
+	 * Checks whether the plan remembered via rememberPlan() still leads to the cheapest of the given target rooms, i.e. whether
+	 * the AI's beliefs haven't changed since, no target rooms were added, and the Player is still on course.
 	 *
-	 * @param r the given room.
-	 * @return the least-cost neighboring child subject to the conditions above.
+	 * @param rootRoomAI the room the Player is in.
+	 * @param targetRoomsAL the rooms to find paths to.
+	 * @param boardAI the given board
+	 * @param playerDirection the direction that the Player object is currently facing.
+	 * @return the room adjacent to the Player's room on the plan if so, or null if it is time for a new searchFrom().
 	 */
-	public CellAsPerceivedByAI getChildNodeUCS(CellAsPerceivedByAI r, CellAsPerceivedByAI destinationRoomAI) {
-
-		CellAsPerceivedByAI ret = null;		//initialize the node to return.
-
-		/* Initialize to dummy value. if we do end up returning a room, then we'll need to set / adjust
-		 * that room's distanceSoFar data field beforehand. */
-		int distanceToSet = -1;
-
-		/* Now we'll go thru each of the given room's neighbors. There are 4 neighbors, and some of them may be null.
-		 * (For instance, a room located at (0,0) has only two neighbors -- (1,0) and (0,1).
-		 * So we'll set index = 0 and get the index of the first neighbor that is NOT null. */
-		int index = 0;
-		for(int i = index; i < r.getNeighbors().length; i++) {
-			if(r.getNeighbors()[i] != null) {
-				index = i;
-				break;
-			}
+	public CellAsPerceivedByAI followPlan(CellAsPerceivedByAI rootRoomAI, ArrayList<CellAsPerceivedByAI> targetRoomsAL, Board boardAI, int playerDirection) {
+		long startTime = System.nanoTime();
+		this.fit(boardAI);
+		newTargets.clear();
+		for(int i = 0; i < targetRoomsAL.size(); i++) newTargets.set(targetRoomsAL.get(i).getLocation());
+		int k = explorePlan.find(boardAI, newTargets, rootRoomAI.getLocation(), playerDirection);
+		if(k < 0) return null;
+		numCacheHits++;
+		if(isRecordingMetrics) metrics.recordPlanCacheHit(System.nanoTime() - startTime);
+		return boardAI.getRoomAI(explorePlan.rooms[k + 1]);
+	}
+
+	/**
+	 * Method: getNumCacheHits
+	 * @return the no. of calls to ucs() and followPlan() so far that were answered by following a plan.
+	 */
+	public long getNumCacheHits() {
+		return numCacheHits;
+	}
+
+	/**
+	 * Method: getNumSearches
+	 * @return the no. of searches performed so far by ucs() and searchFrom().
+	 */
+	public long getNumSearches() {
+		return numSearches;
+	}
+
+	/**
+	 * Method: setRecordingMetrics
+	 * @param isRecordingMetrics whether the searches and plans followed are recorded in DecisionMetrics.java. Defaults to true.
+	 * Turned off for the players of imagined missions, which would otherwise swamp the real mission's figures and contend
+	 * on its counters (see MissionEngine.setUpSimulation()).
+	 */
+	public void setRecordingMetrics(boolean isRecordingMetrics) {
+		this.isRecordingMetrics = isRecordingMetrics;
+	}
+
+	/**
+	 * Method: expand
+	 * Relaxes every move from the given state into an adjacent room that is either guaranteed safe or a destination.
+	 * @param boardAI the given board
+	 * @param s the state to expand
+	 * @param destination the index of the destination room, or -1 if there is none
+	 * @param targets more destination rooms, or null if there are none
+	 */
+	private void expand(Board boardAI, int s, int destination, BitBoard targets) {
+		int room = s >> 2, heading = s & 3;
+		for(int dir = 0; dir < 4; dir++) {
+			int neighbor = boardAI.neighbor(room, dir);
+			if(neighbor < 0) continue;	//no room in that direction (edge of the board)
+			if(neighbor != destination && !boardAI.isGuaranteedSafe(neighbor) && (targets == null || !targets.get(neighbor))) continue;
+			this.relax(neighbor * 4 + dir, distanceSoFar[s] + stepCost(heading, dir), s);
 		}
+	}
 
-		/* Now that we have found the first NON-NULL neighbor, let's make some temporary variables to save important info...
-		 * Begin by getting 1) this RoomAsPerceivedByAI neighbor object, 2) distance from r, and
-		 * 3) combined distance from starting room up to and including this neighbor. */
-		CellAsPerceivedByAI prevNeighbor = r.getNeighbors()[index];
-		int[] distAndNeighborsDirection = computeCost(r, prevNeighbor);	//computeCost() is a custom method in this class.
-		int prevDist = distAndNeighborsDirection[0];
-		int prevDistSoFar = prevDist + r.getDistanceSoFar();
-
-		/* We will also need to keep track of the Player's direction depending on which room he is in.
-		 * So we'll set this direction for this neighboring room. */
-		prevNeighbor.setHypotheticalPlayerDir(distAndNeighborsDirection[1]);
-
-		/* This above neighbor potentially qualifies as a candidate to be returned if it meets the following conditions:
-		 * 1) the room has not been previously visited, or the room has been previously visited (as in, a duplicate)
-		 *    but is "better", i.e. less overall distance cost;
-		 * AND
-		 * 2) The room is either the destination room, OR the room is guaranteed to be safe. */
-		if(
-				( !this.visitedArr.contains(prevNeighbor) || prevDistSoFar < prevNeighbor.getDistanceSoFar() ) &&
-				( prevNeighbor.getXY().equals(destinationRoomAI.getXY()) || prevNeighbor.isGuaranteedSafe() )
-				) {
-			ret = prevNeighbor;
-			distanceToSet = prevDistSoFar;
+	/**
+	 * Method: relax
+	 * Records the given path to the given state if it is cheaper than any found so far, queuing the state or
+	 * lowering its key in the queue accordingly.
+	 */
+	private void relax(int s, int dist, int parent) {
+		if(stamp[s] == currentStamp) {
+			if(dist >= distanceSoFar[s]) return;	//not better than the path we already have
+			/* States that have already been expanded are never improved on, since all costs are positive. */
+			q.decreaseKey(s, dist);
+		}
+		else {
+			stamp[s] = currentStamp;
+			q.insert(s, dist);
 		}
+		heapOperations++;
+		distanceSoFar[s] = dist;
+		parentState[s] = parent;
+		if(parent < 0) firstStepOfState[s] = -1;
+		else firstStepOfState[s] = firstStepOfState[parent] < 0 ? s >> 2 : firstStepOfState[parent];
+	}
 
-		/* Now go thru the rest of the neighbors, starting from index + 1, and compare it to the previous neighbor,
-		 * and pick out the best one to return. */
-		for (int i = index + 1; i < r.getNeighbors().length; i++) {
-			/* Begin by getting 1) the current neighbor room, 2) its distance from r, and
-			 * 3) combined distance from starting room up to and including this neighbor. */
-			CellAsPerceivedByAI currNeighbor = r.getNeighbors()[i];
-			if(currNeighbor == null) continue;	//if this neighbor is null, then just go on to the next iteration
-			distAndNeighborsDirection = computeCost(r, currNeighbor); 	//custom method call
-			int currDist = distAndNeighborsDirection[0];
-			int currDistSoFar = currDist + r.getDistanceSoFar();
-
-			/* This current neighbor potentially qualifies as a candidate to be returned if it meets the following conditions:
-			 * 1) Either there is no current candidate to be returned or the current combined distance cost is lower than
-			 *    the previously selected return candidate,
-			 * AND
-			 * 2) the current neighbor is not a duplicate or is a "better" duplicate,
-			 * AND
-			 * 3) the current neighbor is either the destination room or is guaranteed safe. */
-			if(     (ret == null || currDistSoFar < distanceToSet) &&
-					(!this.visitedArr.contains(currNeighbor) || currDistSoFar < currNeighbor.getDistanceSoFar()) &&
-					( currNeighbor.getXY().equals(destinationRoomAI.getXY()) || currNeighbor.isGuaranteedSafe() )
-					) {
-				ret = currNeighbor;
-				distanceToSet = currDistSoFar;
-
-				/* We will also need to keep track of the Player's direction depending on which room he is in.
-				 * So we'll set this direction for this neighboring room. */
-				currNeighbor.setHypotheticalPlayerDir(distAndNeighborsDirection[1]);
-			}
-			//end if
+	/**
+	 * Method: fit
+	 * Makes sure the per-state arrays fit the given board.
+	 */
+	private void fit(Board boardAI) {
+		int numStates = boardAI.getRows() * boardAI.getCols() * 4;
+		if(q == null || q.capacity() != numStates || targets.getShape().cols != boardAI.getCols()) {
+			distanceSoFar = new int[numStates];
+			parentState = new int[numStates];
+			stamp = new int[numStates];
+			firstStepOfState = new int[numStates];
+			q = new IndexedMinHeap(numStates);
+			targets = new BitBoard(boardAI.getSafe().getShape());
+			newTargets = new BitBoard(targets.getShape());
+			roomDistance = new int[numStates / 4];
+			firstStep = new int[numStates / 4];
+			roomStamp = new int[numStates / 4];
+			roomState = new int[numStates / 4];
+			currentStamp = 0;
+			searchStamp = -1;
 		}
-		//End for i
+	}
 
-		/* Once the above loop is over, in the event the selected return candidate is a duplicate, we will
-		 * remove the previous duplicate from the visited array. The return candidate will then later be re-added
-		 * to the visited array outside of this method. */
-		if(visitedArr.contains(ret)) visitedArr.remove(ret);
+	/**
+	 * Method: prepare
+	 * Makes sure the per-state arrays fit the given board and starts a new search.
+	 */
+	private void prepare(Board boardAI) {
+		this.fit(boardAI);
+		q.clear();
+		nodesExpanded = 0;
+		heapOperations = 0;
+		if(++currentStamp == 0) {	//the stamp wrapped around (after 2^32 searches). Start over.
+			Arrays.fill(stamp, 0);
+			Arrays.fill(roomStamp, 0);
+			currentStamp = 1;
+			searchStamp = -1;
+		}
+	}
 
-		/* If we do have a return candidate, now is the time to set its distance traveled so far. This information is crucial
-		 * for the UCS algorithm to work properly in computing costs along the way. */
-		if(ret != null) ret.setDistanceSoFar(distanceToSet);
+	/**
+	 * Method: stepCost
+	 * @param heading the direction the Player is facing
+	 * @param dir the direction of the adjacent room to move to
+	 * @return the cost of moving there: 1 if facing it already, 3 if facing the opposite way, 2 otherwise.
+	 * Same as computeCost(), minus the room objects.
+	 */
+	public static int stepCost(int heading, int dir) {
+		if(heading == dir) return 1;
+		if(((heading - dir) & 3) == 2) return 3;
+		return 2;
+	}
 
-		return(ret);	//return the room
+	/* The no. of turns (left or right) it takes to go from facing one direction to facing another. */
+	private static int rotation(int from, int to) {
+		return stepCost(from, to) - 1;
 	}
-	//End public RoomAsPerceivedByAI getChildNodeUCS
 
 	/**
 	 * Method: computeCost. Given a current room and the next (adjacent) room, computes the cost of the Player to move there,
@@ -300,35 +500,6 @@ public class Pathfind {
 		return new int[]{ret, neighborDirection};	//return {cost, neighbor's direction}
 	}
 
-	/**
-	 * Method: printQ
-	 * Prints the queue to the console, to help the end-user keep track.
-	 * @param q the queue to print
-	 */
-	public void printQ(PriorityQueue<CellAsPerceivedByAI> q) {
-
-		/* Create a stack to temporarily save the contents of the queue as it is being emptied out */
-		Stack<CellAsPerceivedByAI> s = new Stack<>();
-
-//		System.out.print("Current Queue is: [ ");
-
-		/* Empty out the queue into the Stack, and include the following info:
-		 * 1) the room's location, AND
-		 * 2) the distance traveled thus far (for UCS) */
-		while(!q.isEmpty()) {
-//			CellAsPerceivedByAI tmp = q.peek();
-//			System.out.print(tmp.getXY() + "(" + tmp.getDistanceSoFar() + ") ");
-			s.push(q.remove());
-		}
-//		System.out.println("]");
-
-		/* We need to restore the queue. Add the nodes back in from the Stack. */
-		while(!s.isEmpty()) {
-			q.add(s.pop());
-		}
-	}
-	//End public void printQ
-
 	/**
 	 * Method: bfs
 	 * UPDATE: NO LONGER USED. ucs() is used instead.
@@ -417,36 +588,17 @@ public class Pathfind {
 
 	/**
 	 * Method: printSolution
-	 * Prints the solution path and returns an ArrayList containing same.
-	 * @param rootRoomAI the starting room.
-	 * @param destinationRoomAI the destination room.
-	 * @return ArrayList containing the solution path.
+	 * Backtracks from the given state to the starting state and returns the rooms along the way.
+	 * @param boardAI the given board
+	 * @param s the state in which the destination room was reached.
+	 * @return ArrayList containing the solution path, from the starting room to the destination room.
 	 */
-	public ArrayList<CellAsPerceivedByAI> printSolution(CellAsPerceivedByAI rootRoomAI, CellAsPerceivedByAI destinationRoomAI) {
-
-		CellAsPerceivedByAI currRoom = destinationRoomAI;		//We'll backtrack from the destination room.
-		Stack<CellAsPerceivedByAI> solution = new Stack<>();	//create a stack. We'll add the backtracked solution into this stack, then pop them back out in reverse.
-		solution.push(currRoom);					//push the destination room into the stack
-
-		/* Continue this loop until we have backtracked all the way to the starting room */
-		while(currRoom != rootRoomAI) {
-			currRoom = currRoom.getParentRoom();	//Each room can only have one parent. So it makes backtracking easy.
-			solution.push(currRoom);
-		}
-
-		/* We're ready to print the solution. */
-//		System.out.print("SOLUTION: ");
-		currRoom = solution.pop();
-//		System.out.printf("%s", currRoom.getXY());	//Remember a stack is LIFO (last in first out). So we begin by printing the starting room.
-		solutionAL.add(currRoom);	//add this room to the ArrayList that will be returned.
-
-		/* Continue this loop until the stack is all emptied out */
-		while(!solution.isEmpty()) {
-			currRoom = solution.pop();
-			solutionAL.add(currRoom);	//add this room to the ArrayList that will be returned.
-//			System.out.printf(" -> %s", currRoom.getXY());	//Keep popping out the rooms
+	private ArrayList<CellAsPerceivedByAI> printSolution(Board boardAI, int s) {
+		/* Each state has only one parent, so backtracking is easy. Add the rooms in reverse, then flip the list around. */
+		for(int curr = s; curr >= 0; curr = parentState[curr]) {
+			solutionAL.add(boardAI.getRoomAI(curr >> 2));
 		}
-//		System.out.println();	//Add a new line for good measure
+		Collections.reverse(solutionAL);
 		return solutionAL;
 	}
 }
@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 /** Class: Player.java
  *  @author Yury Park
  *  @version 1.0 <p>
@@ -6,6 +7,12 @@ import java.util.ArrayList;
  *  This class - the Player class.
  *  Purpose - Player for the SAR.java game class. Contains a logical deduction algorithm
  *  to traverse the cells in the event that this player is an AI.
+ *
+ *  UPDATE: The AI's decisions are made by a RobotPolicy (see getAction() and setPolicy()), by default HeuristicPolicy.java,
+ *  which runs the deduction algorithm of this class (see decideHeuristically()). Other policies are picked by name
+ *  from PolicyRegistry.java.
+ *
+ *  UPDATE: A player keeps a Zobrist hash of its room, direction and disinfectants (see getZobristHash() and Zobrist.java).
  */
 public class Player
 {
@@ -24,8 +31,14 @@ public class Player
 	private boolean isAI;		//whether this player is an AI player or not.
 	private boolean aggressiveModeOn;	//whether this player (assumed to be AI) is eager to use disinfectants or whether he prefers to conserve them.
 	private String lastActionTaken;
+	private long zobristHash;	//of this player's room, direction and disinfectants, kept up to date by every move. See getZobristHash().
 
 	private Pathfind pf = new Pathfind();	//Pathfind.java class. Used for AI pathfinding.
+	private SplittableRandom random = new SplittableRandom();	//random stream for the AI's random actions (see getAction()). Not shared with other players.
+	private RobotPolicy policy = new HeuristicPolicy();	//makes the AI's decisions, other than the random ones. See getAction().
+	private final ArrayList<CellAsPerceivedByAI> leastRiskyRoomsAL = new ArrayList<>();	//returned by getLeastRiskyRooms(), and refilled by every call to it
+
+	private static final char[] RANDOM_ACTIONS = {'R', 'L', 'F', 'S'};	//actions the AI may take when acting randomly
 
 	/**
 	 * 3-arg constructor.
@@ -50,6 +63,7 @@ public class Player
 		wastesKiller = false;	//Initially, the player hasn't disinfected any chemical wastes.
 		aggressiveModeOn = false;	//By default, the player will conserve disinfectants instead of being aggressive.
 		lastActionTaken = "";
+		zobristHash = Zobrist.ofPlayer(currentRoom.getLocation(), dir, disinfectant);
 	}
 
 	/**
@@ -64,6 +78,42 @@ public class Player
 		this.aggressiveModeOn = aggressiveModeOn;
 	}
 
+	/**
+	 * Copy constructor. Used by MissionEngine.restore() to put a player back where it stood when a snapshot was taken.
+	 * The copy is placed in the same room of the given boards (which are copies of the ones the other player is on),
+	 * and starts with an empty plan (see Pathfind.java) and the given random stream.
+	 * @param other the player to copy
+	 * @param board the board with complete information the copy is on
+	 * @param boardPerceivedByAI the board perceived by AI the copy is on
+	 * @param random the random stream the copy draws its random actions from
+	 */
+	Player(Player other, Board board, Board boardPerceivedByAI, SplittableRandom random) {
+		this(other, board, boardPerceivedByAI, random, PolicyRegistry.create(other.policy.getName()));	//a policy of the same kind, without the other's state
+	}
+
+	/**
+	 * Copy constructor. Same as the 4-arg one, except that the copy decides by the given policy.
+	 * Used by MissionEngine.setUpSimulation(), whose players never decide by a copy of a (possibly expensive) policy.
+	 * @param policy the policy the copy decides by
+	 */
+	Player(Player other, Board board, Board boardPerceivedByAI, SplittableRandom random, RobotPolicy policy) {
+		this.name = other.name;
+		this.currentRoom = board.getRoom(other.currentRoom.getLocation());
+		this.currentRoomAI = boardPerceivedByAI.getRoomAI(other.currentRoomAI.getLocation());
+		this.dir = other.dir;
+		this.alive = other.alive;
+		this.outOfGame = other.outOfGame;
+		this.disinfectant = other.disinfectant;
+		this.victim = other.victim;
+		this.wastesKiller = other.wastesKiller;
+		this.isAI = other.isAI;
+		this.aggressiveModeOn = other.aggressiveModeOn;
+		this.lastActionTaken = other.lastActionTaken;
+		this.random = random;
+		this.policy = policy;
+		this.zobristHash = other.zobristHash;
+	}
+
 	/**
 	 * Method: forward
 	 * Moves the player forward one step into the next room. If there is no room in the direction the player is facing, does nothing.
@@ -88,6 +138,7 @@ public class Player
 			return false;
 		}
 		//Otherwise...move to the next room
+		zobristHash ^= Zobrist.key(currentRoom.getLocation(), Zobrist.PLAYER_ROOM) ^ Zobrist.key(next.getLocation(), Zobrist.PLAYER_ROOM);
 		currentRoom = next;
 		currentRoom.setHints();  	//display the perceptions (Stench, Breeze, etc.) to the GUI.
 
@@ -113,7 +164,9 @@ public class Player
 	 */
 	public void turnLeft(){
 		lastActionTaken = "L";
+		zobristHash ^= Zobrist.key(0, Zobrist.PLAYER_DIR + dir);
 		dir = (dir == 0 ? 3 : dir - 1);	//Remember: 0 indicates Board.NORTH, 1 = Board.EAST, 2 = Board.SOUTH, 3 = Board.WEST.
+		zobristHash ^= Zobrist.key(0, Zobrist.PLAYER_DIR + dir);
 	}
 
 	/**
@@ -122,7 +175,9 @@ public class Player
 	 */
 	public void turnRight(){
 		lastActionTaken = "R";
+		zobristHash ^= Zobrist.key(0, Zobrist.PLAYER_DIR + dir);
 		dir = (dir == 3 ? 0 : dir + 1);
+		zobristHash ^= Zobrist.key(0, Zobrist.PLAYER_DIR + dir);
 	}
 
 	/**
@@ -223,6 +278,7 @@ public class Player
 		if(disinfectant == 0) return 0; //BASE CASE: if player has no disinfectant, nothing happens. Immediately return and exit this method.
 
 		disinfectant --;	//If we get this far, player has disinfectants left. So decrement disinfectant count
+		zobristHash ^= Zobrist.key(disinfectant + 1, Zobrist.PLAYER_DISINFECTANTS) ^ Zobrist.key(disinfectant, Zobrist.PLAYER_DISINFECTANTS);
 //		Cell r = currentRoom;	//identify the current room the player is in
 		Cell neighbor = this.currentRoom.getNeighbors()[dir];	//get adjacent room in the direction the robot is facing
 
@@ -265,6 +321,23 @@ public class Player
 		return Board.DIRS[dir];
 	}
 
+	/**
+	 * Method: getZobristHash
+	 * @return the Zobrist hash (see Zobrist.java) of where this player stands, which way it faces and how many disinfectants
+	 * it has left. Kept up to date in O(1) by every move, so reading it is free. See also Board.getZobristHash().
+	 */
+	public long getZobristHash() {
+		return zobristHash;
+	}
+
+	/**
+	 * Method: getDir
+	 * @return the direction the player is currently facing, i.e. Board.NORTH, Board.EAST, Board.SOUTH or Board.WEST.
+	 */
+	public int getDir() {
+		return dir;
+	}
+
 	/**
 	 * Method: isAI
 	 * @return whether this player is an AI.
@@ -321,9 +394,41 @@ public class Player
 		return this.lastActionTaken;
 	}
 
+	/**
+	 * Method: setRandom
+	 * Sets the random stream this player (assumed to be AI) draws its random actions from.
+	 * Giving each player of each mission its own seeded stream makes missions reproducible.
+	 * @param random the random stream
+	 */
+	public void setRandom(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * Method: setRecordingMetrics
+	 * @param isRecordingMetrics whether this player's pathfinding is recorded in DecisionMetrics.java. See Pathfind.setRecordingMetrics().
+	 */
+	void setRecordingMetrics(boolean isRecordingMetrics) {
+		pf.setRecordingMetrics(isRecordingMetrics);
+	}
+
+	public RobotPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Method: setPolicy
+	 * @param policy the policy that makes this player's (assumed to be AI) decisions from now on. See RobotPolicy.java.
+	 * Defaults to HeuristicPolicy.java.
+	 */
+	public void setPolicy(RobotPolicy policy) {
+		this.policy = policy;
+	}
+
 	/**
 	 * Method: getAction
-	 * Given a Board object and assuming that this Player is an AI, considers and returns AI's next action.
+	 * Given a Board object and assuming that this Player is an AI, considers and returns AI's next action:
+	 * a random one percentRandom % of the time, and the one decided by this player's RobotPolicy otherwise.
 	 * @param board the given Board object consisting of Room objects. See Board.java and Room.java for more details.
 	 * @param boardPerceivedByAI Board object consisting of RoomAsPerceivedByAI objects. See RoomAsPerceivedByAI.java for more details.
 	 * @param percentRandom an int indicating the % of time the AI robot will act randomly
@@ -332,17 +437,35 @@ public class Player
 	public char getAction(Board board, Board boardPerceivedByAI, int percentRandom) {
 		/* BASE CASE where percentRandom > 0. In this case return a random action some of the time. */
 		if (percentRandom > 0) {
-			char[] actions = {'R', 'L', 'F', 'S'};
-			if ( (int)(Math.floor(Math.random() * 100)) <= percentRandom ) {
+			if ( random.nextInt(100) <= percentRandom ) {
 //				System.out.println("AI robot acts randomly....");
-				int index = new java.util.Random().nextInt(actions.length);	//choose a random index from the actions array
-				while ( (actions[index] == 'S' && !this.hasDisinfectant()) ) { //don't take action 'S' randomly if out of decontaminant
-					index = new java.util.Random().nextInt(actions.length);	//choose another random index
-				}
-//				System.out.printf("Random action chosen is %s\n", actions[index]);
-				return actions[index];
+				return this.getRandomAction();
 			}
 		}
+		return policy.decide(this, board, boardPerceivedByAI);	//otherwise, leave it to the policy
+	}
+
+	/**
+	 * Method: getRandomAction
+	 * @return an action drawn uniformly from this player's random stream: 'R', 'L', 'F', or 'S' (if a disinfectant is left).
+	 */
+	char getRandomAction() {
+		char[] actions = RANDOM_ACTIONS;
+		int index = random.nextInt(actions.length);	//choose a random index from the actions array
+		while ( (actions[index] == 'S' && !this.hasDisinfectant()) ) { //don't take action 'S' randomly if out of decontaminant
+			index = random.nextInt(actions.length);	//choose another random index
+		}
+//		System.out.printf("Random action chosen is %s\n", actions[index]);
+		return actions[index];
+	}
+
+	/**
+	 * Method: decideHeuristically
+	 * The original deduction algorithm of the AI, run by HeuristicPolicy.java. See getAction() for the parameters.
+	 * @return one of the following: 'R' (turn Right), 'L' (turn Left), 'F' (move Forward), 'G' (Give aid to victim once found), 'S' (Shoot disinfectant),
+	 * or RobotPolicy.NO_MOVE if no unexplored room can be reached.
+	 */
+	char decideHeuristically(Board board, Board boardPerceivedByAI) {
 		/* BASE CASE where AI's current room happens to have the victim in it. Just give first aid by returning 'G'. */
 		if(currentRoom.hasVictim()) return 'G';
 
@@ -353,8 +476,8 @@ public class Player
 		 * has both a wastes AND a victim inside it, thus uncovering the victim but dying instantly. In this case,
 		 * the AI wants to find a safe path to the victim ASAP. */
 		outerloop:	//define outerloop.
-			for(int i = 0; i < Board.ROWS; i++) {
-				for(int j = 0; j < Board.COLS; j++) {
+			for(int i = 0; i < boardPerceivedByAI.getRows(); i++) {
+				for(int j = 0; j < boardPerceivedByAI.getCols(); j++) {
 					/* If the AI knows that a given room has victim... */
 					if(boardPerceivedByAI.getRoomAI(i, j).hasVictim()) {
 //						System.out.println(this.name + " can see the location of the victim! Trying to find a safe path to the victim...");
@@ -394,6 +517,7 @@ public class Player
 		 * Use custom method getLeastRiskyRooms() to get an arraylist of RoomAsPerceivedByAI objects that are
 		 * least risky. If there exist two or more such rooms with identically low risks, then get all such rooms. */
 		ArrayList<CellAsPerceivedByAI> leastRiskyRoomsAL = this.getLeastRiskyRooms(board, boardPerceivedByAI);
+		if(leastRiskyRoomsAL.isEmpty()) return RobotPolicy.NO_MOVE;	//nothing left to explore
 		/* Custom method to see if the 0th element is 100% safe. Since all elements in this array have
 		 * identically low risks, if one element is 100% safe, then all elements are equally safe. */
 		if(leastRiskyRoomsAL.get(0).isGuaranteedSafe()) {
@@ -407,7 +531,8 @@ public class Player
 			 *  computeMove(): this method takes the room (adjacent to the current room) from above,
 			 *  and returns the key command the AI will issue in order to turn towards that room
 			 *  (if not already facing that direction) or move forward into the room. */
-			return this.computeMove(this.getNearestAdjRoom(leastRiskyRoomsAL, boardPerceivedByAI));
+			CellAsPerceivedByAI nextRoom = this.getNearestAdjRoom(leastRiskyRoomsAL, boardPerceivedByAI);
+			return nextRoom != null ? this.computeMove(nextRoom) : RobotPolicy.NO_MOVE;	//null if none of them can be reached
 		}
 
 		/* BASE CASE where AI player is standing right next to a room that possibly contains a wastes.
@@ -419,8 +544,10 @@ public class Player
 			int bestChanceOfWastes = -1;	//initialize the probability that a room has wastes in it
 			int mostEffectiveCost = Integer.MAX_VALUE;	//initialize the number of turns it will take to change direction to face the wastes
 
-			/* Go thru every room adjacent to the one the AI is in. */
-			for(CellAsPerceivedByAI neighbor : this.currentRoomAI.getNeighbors()) {
+			/* Go thru every room adjacent to the one the AI is in. The neighbors are indexed by their direction. */
+			CellAsPerceivedByAI[] neighbors = this.currentRoomAI.getNeighbors();
+			for(int d = 0; d < neighbors.length; d++) {
+				CellAsPerceivedByAI neighbor = neighbors[d];
 
 				/* If one or more valid neighboring room(s) have 50% or more chance of a wastes,
 				 * then find out which room has the best chance of having a wastes.
@@ -430,9 +557,7 @@ public class Player
 					if(neighbor.getprobabilityOfWastes() > bestChanceOfWastes) {
 						bestChanceOfWastes = neighbor.getprobabilityOfWastes();
 						neighborWithBestChanceOfWastes = neighbor;
-						ArrayList<CellAsPerceivedByAI> tempAL = new ArrayList<>();
-						tempAL.add(this.currentRoomAI); tempAL.add(neighbor);
-						mostEffectiveCost = this.getTotalCost(tempAL);
+						mostEffectiveCost = Pathfind.stepCost(this.dir, d);
 					}
 					/* If two or more rooms have an equal chance of having a Wastes,
 					 * then we want to shoot the disinfectant towards the most conveniently-placed Wastes,
@@ -446,11 +571,9 @@ public class Player
 					 * change directions at all in order to shoot the disinfectant. */
 					else if(neighbor.getprobabilityOfWastes() == bestChanceOfWastes) {
 						//compute total cost of moving to this neighbor...efficiency matters.
-						ArrayList<CellAsPerceivedByAI> tempAL = new ArrayList<>();	//create new arraylist for this purpose
-						tempAL.add(this.currentRoomAI); tempAL.add(neighbor);	//add the current room and the neighboring room
-						/* Use custom method getTotalCost() to get the total no. of turns needed to
-						 * change player's direction toward the neighboring room's direction */
-						int tempTotalCost = this.getTotalCost(tempAL);
+						/* Get the total no. of turns needed to change player's direction toward the neighboring room's direction
+						 * and move there. Same as getTotalCost() of the path {current room, neighboring room}, minus the ArrayList. */
+						int tempTotalCost = Pathfind.stepCost(this.dir, d);
 						if(tempTotalCost < mostEffectiveCost) {
 							mostEffectiveCost = tempTotalCost;
 							neighborWithBestChanceOfWastes = neighbor;
@@ -460,7 +583,7 @@ public class Player
 				}
 				//end if(neighbor != null && neighbor.getprobabilityOfWastes() >= 50)
 			}
-			//end for(RoomAsPerceivedByAI neighbor : this.currentRoomAI.getNeighbors())
+			//end for d
 
 			if(neighborWithBestChanceOfWastes != null) {
 //				System.out.printf("%s has %s%% chance of wastes! Aiming disinfectant...",
@@ -504,6 +627,7 @@ public class Player
 		 * and the below custom method, getNearestAdjRoom(), takes account of this fact.
 		 * Be sure to read the javadoc for the method getNearestAdjRoom() for more details. */
 		CellAsPerceivedByAI tempDestination = this.getNearestAdjRoom(leastRiskyRoomsAL, boardPerceivedByAI);
+		if(tempDestination == null) return RobotPolicy.NO_MOVE;	//none of them can be reached
 		char tempMove = computeMove(tempDestination);	//custom method to get the key command the AI will use to get to the next room
 
 		/* This is a final check to try to minimize risk of AI's death. If AI would have moved forward
@@ -540,38 +664,41 @@ public class Player
 	 * as perceived by the AI)
 	 *
 	 * @return the adjacent room that is part of the solution path to allow the AI to get to the least risky room
-	 * in the shortest number of turns.
+	 * in the shortest number of turns, or null if none of the least risky rooms can be reached.
 	 */
 	public CellAsPerceivedByAI getNearestAdjRoom(ArrayList<CellAsPerceivedByAI> leastRiskyRoomsAL, Board boardPerceivedByAI) {
 		int leastCost = Integer.MAX_VALUE;	//initialize the number of turns required for the AI to get to the least risky rooms
-		CellAsPerceivedByAI nextPath = null;	//initialize the value to be returned
 //		System.out.println("\nNow going through all the least risky unexplored room(s) and trying to find most efficient path...");
-		/* Go thru each element in the ArrayList */
-		for(CellAsPerceivedByAI r : leastRiskyRoomsAL){
-			/* Use Pathfind.java's custom method to get an arraylist containing the cost-optimal solution path from the
-			 * current room to each of the elements in the leastRiskyRoomsAL ArrayList. */
-			ArrayList<CellAsPerceivedByAI> tempSolutionPath = pf.ucs(currentRoomAI, r, boardPerceivedByAI, this.dir);
-			if(tempSolutionPath != null) {	//If a solution path exists...
-
-				/* Use custom method to get the total cost of moving there. UPDATE: no longer necessary. See below. */
-//				int tempCost = getTotalCost(tempSolutionPath);
-
-				/* Thanks to the UCS algorithm in the Pathfind class, the total cost of moving to room r
-				 * is saved in that room's distanceSoFar attribute. So just use the getter method. */
-				int tempCost = r.getDistanceSoFar();
 
+		/* If nothing the AI knows has changed since the last time, and the AI is still on course to the room it chose then,
+		 * that room is still the most cost-effective one to get to. So just keep going. See Pathfind.followPlan(). */
+		CellAsPerceivedByAI nextPath = pf.followPlan(currentRoomAI, leastRiskyRoomsAL, boardPerceivedByAI, this.dir);
+		if(nextPath != null) return nextPath;
+		CellAsPerceivedByAI destination = null;	//the least risky room chosen
+
+		/* Use Pathfind.java's custom method to find the cost-optimal solution path from the current room to ALL
+		 * of the elements in the leastRiskyRoomsAL ArrayList at once. This used to take one ucs() call per element. */
+		pf.searchFrom(currentRoomAI, leastRiskyRoomsAL, boardPerceivedByAI, this.dir);
+
+		/* Go thru each element in the ArrayList (by index, so as not to allocate an Iterator) */
+		for(int k = 0; k < leastRiskyRoomsAL.size(); k++){
+			CellAsPerceivedByAI r = leastRiskyRoomsAL.get(k);
+			/* The total cost of moving to room r, or -1 if no solution path exists. */
+			int tempCost = pf.getDistanceTo(r.getLocation());
+			if(tempCost >= 0) {	//If a solution path exists...
 //				System.out.printf("Total cost to move from %s to %s : %s\n", currentRoomAI.getXY(), r.getXY(), tempCost);	//testing
 				if(tempCost < leastCost) {
-//					System.out.printf("Woot! The above total cost is less than the previously saved leastCost! "
-//							+ "the destination is now set to %s.\n", r.getXY());
 					leastCost = tempCost;	//update least cost variable
-					nextPath = tempSolutionPath.get(1);	//get the 1st-index element of the solution path
+					/* get the room adjacent to the current room on the solution path */
+					nextPath = boardPerceivedByAI.getRoomAI(pf.getFirstStepTo(r.getLocation()));
+					destination = r;
 //					System.out.printf("The adjacent room %s will move to is now set to %s\n", this.name, nextPath.getXY());
 				}
 			}
-			//end if(tempSolutionPath != null)
+			//end if(tempCost >= 0)
 		}
 		//end for
+		if(destination != null) pf.rememberPlan(destination.getLocation());	//for next time
 		return nextPath;
 	}
 
@@ -628,10 +755,13 @@ public class Player
 	 * about which rooms are the least risky.
 	 *
 	 * @return ArrayList of RoomAsPerceivedByAI objects determined by the AI to be least risky.
+	 * The same ArrayList is refilled by the next call, so copy it if it must be kept.
 	 */
 	public ArrayList<CellAsPerceivedByAI> getLeastRiskyRooms(Board board, Board boardPerceivedByAI) {
-		/* Initialize an arraylist to hold unexplored rooms. This will be eventually returned by this method. */
-		ArrayList<CellAsPerceivedByAI> unexploredRoomsAL = new ArrayList<>();
+		/* Empty the arraylist that holds unexplored rooms. This will be eventually returned by this method.
+		 * It belongs to this Player and is reused from one call to the next, so that deciding on an action allocates nothing. */
+		ArrayList<CellAsPerceivedByAI> unexploredRoomsAL = this.leastRiskyRoomsAL;
+		unexploredRoomsAL.clear();
 		/* Initialize the risk levels for Wastes and pit. Notice that there exists
 		 * a WastesGreatestRisk variable here, but not a corresponding pitGreatestRisk variable.
 		 * This will be explained later in this method... */
@@ -643,8 +773,8 @@ public class Player
 		double leastCombinedRisk = 1.0;	//aka 100%
 
 		/* Go thru every RoomAsPerceivedByAI in the board. */
-		for(int i = 0; i < Board.ROWS; i++) {
-			for(int j = 0; j < Board.COLS; j++) {
+		for(int i = 0; i < boardPerceivedByAI.getRows(); i++) {
+			for(int j = 0; j < boardPerceivedByAI.getCols(); j++) {
 				CellAsPerceivedByAI tempR = boardPerceivedByAI.getRoomAI(i, j);	//temporarily save this room at location i, j
 
 				/* If this room has not been explored, AND if this room has one or more safe neighbors
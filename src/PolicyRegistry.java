@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Supplier;
+
+/** Class: PolicyRegistry.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the PolicyRegistry class.
+ *  Purpose - Looks robot policies (see RobotPolicy.java) up by name, so that a policy can be picked in a mission option
+ *  String, in a mission log or on the command line of MonteCarloRunner.java. A new policy is dropped in by registering
+ *  a name and a way of creating an instance of it (see register()).
+ *
+ *  In a mission option String (see SAR.java constructor), the policies are given in braces, e.g. "{1:random,2:heuristic}"
+ *  for one policy per player, or "{random}" for both. A player without one uses DEFAULT_POLICY.
+ *  The other options are single letters looked up anywhere in the String, so the braces must be stripped off before
+ *  those are (see strip()).
+ */
+public class PolicyRegistry {
+	public static final String DEFAULT_POLICY = HeuristicPolicy.NAME;
+
+	private static final LinkedHashMap<String, Supplier<RobotPolicy>> POLICIES = new LinkedHashMap<>();
+
+	static {
+		register(HeuristicPolicy.NAME, HeuristicPolicy::new);
+		register(RandomPolicy.NAME, RandomPolicy::new);
+		register(ExpectimaxPolicy.NAME, ExpectimaxPolicy::new);
+		register(MCTSPolicy.NAME, MCTSPolicy::new);
+	}
+
+	/**
+	 * Method: register
+	 * Makes a policy available by name, replacing any policy registered under that name before.
+	 * @param name the name: lower-case letters, digits, '-' and '_' only, up to 255 of them (see MissionLog.java)
+	 * @param factory creates a new instance of the policy. Invoked once per player.
+	 */
+	public static synchronized void register(String name, Supplier<RobotPolicy> factory) {
+		if(!name.matches("[a-z0-9_-]{1,255}"))
+			throw new IllegalArgumentException("Invalid policy name: \"" + name + "\"");
+		POLICIES.put(name, factory);
+	}
+
+	/**
+	 * Method: create
+	 * @param name the name of a registered policy
+	 * @return a new instance of that policy
+	 * @throws IllegalArgumentException if no policy is registered under that name
+	 */
+	public static synchronized RobotPolicy create(String name) {
+		Supplier<RobotPolicy> factory = POLICIES.get(name);
+		if(factory == null) throw new IllegalArgumentException("Unknown policy \"" + name + "\". Known policies: " + POLICIES.keySet());
+		return factory.get();
+	}
+
+	/**
+	 * Method: create
+	 * @param name the name of a registered policy
+	 * @param seed the seed of the new policy. See RobotPolicy.setSeed().
+	 * @param searchBudget the search budget of the new policy. See RobotPolicy.setSearchBudget().
+	 * @return a new instance of that policy, seeded and with the given search budget
+	 * @throws IllegalArgumentException if no policy is registered under that name
+	 */
+	public static RobotPolicy create(String name, long seed, long searchBudget) {
+		RobotPolicy policy = create(name);
+		policy.setSeed(seed);
+		policy.setSearchBudget(searchBudget);
+		return policy;
+	}
+
+	/**
+	 * Method: getNames
+	 * @return the names of the registered policies, in the order they were registered.
+	 */
+	public static synchronized List<String> getNames() {
+		return new ArrayList<>(POLICIES.keySet());
+	}
+
+	/**
+	 * Method: parse
+	 * Extracts the policy of the given player from a mission option String such as "S00 10%R{1:random}".
+	 * @param options the option String (see SAR.java constructor)
+	 * @param player 1 or 2
+	 * @return the name of the player's policy, or DEFAULT_POLICY if the option String doesn't specify one.
+	 */
+	public static String parse(String options, int player) {
+		int start = options.indexOf('{');
+		if(start == -1) return DEFAULT_POLICY;
+		int end = options.indexOf('}', start);
+		if(end == -1) throw new IllegalArgumentException("Missing '}' in options: " + options);
+		String ret = DEFAULT_POLICY;
+		for(String entry : options.substring(start + 1, end).split(",")) {
+			entry = entry.trim();
+			int colon = entry.indexOf(':');
+			if(colon == -1) {
+				if(!entry.isEmpty()) ret = entry;	//a policy for both players
+			}
+			else if(entry.substring(0, colon).trim().equals(String.valueOf(player))) {
+				return entry.substring(colon + 1).trim();
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Method: strip
+	 * @param options the option String (see SAR.java constructor)
+	 * @return the same option String without the policies in braces, if any.
+	 */
+	public static String strip(String options) {
+		int start = options.indexOf('{');
+		if(start == -1) return options;
+		int end = options.indexOf('}', start);
+		return options.substring(0, start) + (end == -1 ? "" : options.substring(end + 1));
+	}
+}
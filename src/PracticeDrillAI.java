@@ -7,6 +7,16 @@
  *  This Class - Practice Drill class (AI mode only). Used as part of the tutorial.
  */
 public class PracticeDrillAI {
+	/* The board used for the practice drill with the robot AI in control. */
+	public static final String[][] LAYOUT =
+			{{"", "", "", "", "", ""},
+			 {"", "", "", "", "", ""},
+			 {"", "P", "P", "", "", ""},
+			 {"", "", "", "", "", ""},
+			 {"W", "", "P", "", "", ""},
+			 {"G", "", "", "W", "", ""},
+			};
+
 	private SAR sar;
 	private String[] drillInstructionArr;
 	private int totalPagesOfInstr, currentPage;
@@ -47,14 +57,7 @@ public class PracticeDrillAI {
 		this.drillInstrIndex = -1;
 		sar.instrSetFont(sar.instructions.getFont().deriveFont(18f));
 
-		sar.board = new Board(new String[][]
-				{{"", "", "", "", "", ""},
-				 {"", "", "", "", "", ""},
-				 {"", "P", "P", "", "", ""},
-				 {"", "", "", "", "", ""},
-				 {"W", "", "P", "", "", ""},
-				 {"G", "", "", "W", "", ""},
-				});
+		sar.engine.setBoard(new Board(PracticeDrillAI.LAYOUT));
 
 		Cell startRoom;
 		CellAsPerceivedByAI startRoomAI;
@@ -114,7 +117,7 @@ public class PracticeDrillAI {
 
 	public void checkStatus(String command) {
 		//If mission is over (success or fail, doesn't matter), then show next instruction. Otherwise do nothing
-		if (sar.currentState == SAR.GameState.DRAW || sar.currentState == SAR.GameState.H1_WON) {
+		if (sar.engine.getState() == MissionEngine.GameState.DRAW || sar.engine.getState() == MissionEngine.GameState.H1_WON) {
 			showNextInstruction();
 		}
 	}
@@ -7,6 +7,16 @@
  *  This Class - Used for practice drill (human, manual-control only) round as part of the tutorial mode.
  */
 public class PracticeDrillHuman {
+	/* The board used for the practice drill with manual control. */
+	public static final String[][] LAYOUT =
+			{{"", "", "", "", "", ""},
+			 {"", "", "", "", "", ""},
+			 {"", "P", "P", "", "", ""},
+			 {"", "", "", "", "", ""},
+			 {"W", "", "P", "", "", ""},
+			 {"G", "", "", "W", "", ""},
+			};
+
 	private SAR sar;
 	private String[] drillInstructionArr;
 	private int totalPagesOfInstr, currentPage;
@@ -41,14 +51,7 @@ public class PracticeDrillHuman {
 		this.drillInstrIndex = -1;
 		sar.instrSetFont(sar.instructions.getFont().deriveFont(18f));
 
-		sar.board = new Board(new String[][]
-				{{"", "", "", "", "", ""},
-				 {"", "", "", "", "", ""},
-				 {"", "P", "P", "", "", ""},
-				 {"", "", "", "", "", ""},
-				 {"W", "", "P", "", "", ""},
-				 {"G", "", "", "W", "", ""},
-				});
+		sar.engine.setBoard(new Board(PracticeDrillHuman.LAYOUT));
 
 		Cell startRoom;
 		CellAsPerceivedByAI startRoomAI;
@@ -110,7 +113,7 @@ public class PracticeDrillHuman {
 
 	public void checkStatus(String command) {
 		//If mission is over (success or fail, doesn't matter), then show next instruction. Otherwise do nothing
-		if (sar.currentState == SAR.GameState.DRAW || sar.currentState == SAR.GameState.H1_WON) {
+		if (sar.engine.getState() == MissionEngine.GameState.DRAW || sar.engine.getState() == MissionEngine.GameState.H1_WON) {
 			showNextInstruction();
 		}
 	}
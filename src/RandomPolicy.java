@@ -0,0 +1,23 @@
+/** Class: RandomPolicy.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the RandomPolicy class.
+ *  Purpose - A robot that always acts at random, as the AI does percentRandom % of the time (see Player.getAction()).
+ *  The baseline any other policy should beat. Registered in PolicyRegistry.java as "random".
+ */
+public class RandomPolicy implements RobotPolicy {
+	public static final String NAME = "random";
+
+	@Override
+	public char decide(Player player, Board board, Board boardPerceivedByAI) {
+		if(player.getCurrentRoom().hasVictim()) return 'G';	//even a random robot knows the victim when it sees one
+		return player.getRandomAction();
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+}
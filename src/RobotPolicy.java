@@ -0,0 +1,55 @@
+/** Class: RobotPolicy.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This interface - the RobotPolicy interface.
+ *  Purpose - Anything that decides the next command of an AI player. Player.getAction() takes care of the random
+ *  actions (see MissionEngine.setPercentRandom()) and leaves every other decision to its policy:
+ *  HeuristicPolicy.java (the original deduction algorithm of Player.java) unless another one is set.
+ *  Policies are looked up by name in PolicyRegistry.java, so each player of a mission can run a different one.
+ *
+ *  A policy may keep state from one decision to the next (e.g. a search tree), so every player gets its own instance.
+ *  A policy that draws random numbers or searches for as long as time allows is made reproducible by its seed and
+ *  search budget (see setSeed() and setSearchBudget()), which MissionEngine.java sets on every player it creates.
+ *  Policies that do neither need not implement either.
+ */
+public interface RobotPolicy {
+	long WALL_CLOCK = 0L;		//a search budget: search until the policy's time budget is used up
+	long DEFAULT_WORK = -1L;	//a search budget: the policy's own default amount of work, whatever the time it takes
+	char NO_MOVE = '-';			//returned by decide() when the player has no move left, e.g. no unexplored room it can reach
+
+	/**
+	 * Method: decide
+	 * @param player the AI player whose turn it is. Its room, direction and disinfectants are its current state.
+	 * @param board the Board object consisting of Cell objects. Policies must not peek at what the AI hasn't explored.
+	 * @param boardPerceivedByAI the Board object consisting of CellAsPerceivedByAI objects, i.e. what the AI knows.
+	 * @return one of the following: 'R' (turn Right), 'L' (turn Left), 'F' (move Forward), 'G' (Give aid to victim once found),
+	 * 'S' (Shoot disinfectant), or NO_MOVE if there is nothing left to do.
+	 */
+	char decide(Player player, Board board, Board boardPerceivedByAI);
+
+	/**
+	 * Method: getName
+	 * @return the name this policy is registered under in PolicyRegistry.java.
+	 */
+	String getName();
+
+	/**
+	 * Method: setSeed
+	 * Re-seeds the random stream(s) the policy draws from, if any. Does nothing by default.
+	 * @param seed the seed
+	 */
+	default void setSeed(long seed) {
+	}
+
+	/**
+	 * Method: setSearchBudget
+	 * Bounds each decision by the amount of work done rather than by the clock, so that it doesn't depend on the speed
+	 * (or load) of the machine. Does nothing by default.
+	 * @param budget WALL_CLOCK, DEFAULT_WORK, or a positive amount of work in the policy's own units
+	 * (e.g. simulations for MCTSPolicy.java)
+	 */
+	default void setSearchBudget(long budget) {
+	}
+}
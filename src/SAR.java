@@ -9,6 +9,8 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
 //import java.util.Scanner;
 //import java.util.Timer;
 //import java.util.TimerTask;
@@ -17,7 +19,7 @@ import javax.swing.*;
 
 
 @SuppressWarnings("serial")
-public class SAR extends JFrame {
+public class SAR extends JFrame implements MissionListener {
 	public static final int ROWS = 6;
 	public static final int COLS = 6;
 
@@ -27,20 +29,12 @@ public class SAR extends JFrame {
 //	public static final int GRID_WIDTH = 2;                   // Grid-line's width
 //	public static final int GRID_WIDTH_HALF = GRID_WIDTH / 2; // Grid-line's half-width
 
-	// Use an enumeration to represent the various states of the mission
-	public enum GameState {
-		PLAYING, DRAW, H1_WON, H2_WON
-	}
-
-	protected GameState currentState;  // the current game state. See above enum for the possible game states.
-
-	protected Player currentPlayer;  // the current player. Could be either h1 or h2. See below.
-	protected Player h1;    // hunter 1
-	protected String p1Name;
-	protected Player h2;    // hunter 2
-	protected String p2Name;
+	/* The headless mission engine. Owns the mission maps, the players (hunter 1 and 2) and the mission state.
+	 * This GUI merely subscribes to it and renders every transition. See MissionEngine.java for more details. */
+	protected MissionEngine engine;
+	protected String p1Name;	// Robot Player 1's name
+	protected String p2Name;	// Robot Player 2's name
 
-	protected Board board, boardPerceivedByAI; // Mission maps. Note: boardPerceivedByAI is used by robot AI for navigation.
 	protected DrawCanvas canvas; // Drawing canvas (JPanel) for the mission board
 	protected JLabel statusBar;  // Status Bar
 	protected JLabel titleBar;  // Title Bar
@@ -76,6 +70,7 @@ public class SAR extends JFrame {
 	protected String controlMode;	//Human manual, AI, or both modes enabled
 	protected int resultOfShooting; 	//In the event the robot fires its decontaminant shot, this will track whether
 									//the shot was on target (1), or whether it missed (-1), or whether the shot couldn't be fired due to being out of ammo (0).
+									//Mirrors the last shooting Transition reported by the engine. Used for the status bar.
 
 	//Core stats to be saved for the experiment
 	protected int numOfMoves;				//Total number of moves the robot took in a mission
@@ -83,25 +78,35 @@ public class SAR extends JFrame {
 	protected boolean missionIsSuccess;
 	private static String code = "";		//This is the code that will contain core stats re: the experiment
 
+	public static final String MISSION_LOG_FILE = "missions.log";	//every mission played is appended here. See MissionLog.java.
+	private static MissionLog missionLog;	//opened by the first SAR, shared by every SAR after it, closed when the program exits
+
 	/**
 	 * 3-arg constructor. Sets up the mission and GUI components.
 	 * @param options A String containing the mission options as set in SARMain.java class
 	 * 				  (or, alternatively, as set by the main method in this class).
+	 * 				  May also name the robot policy of each player in braces, e.g. "{1:random}". See PolicyRegistry.java.
 	 * @param p1Name  Robot Player 1's name
 	 * @param p2Name  Robot Player 2's name
 	 */
 	public SAR(String options, String p1Name, String p2Name) {
-		this.options = options;
+		this.options = PolicyRegistry.strip(options);	//the other options are looked up letter by letter, so leave the policy names out
 //		System.out.println("options:" + this.options);
 		this.p1Name = p1Name;
 		this.p2Name = p2Name;
 
 		if (this.options.contains("#")) {
 			int index = this.options.indexOf("#");
-			this.experimentType = Integer.parseInt(options.substring(index + 1, index + 2));
+			this.experimentType = Integer.parseInt(this.options.substring(index + 1, index + 2));
 			System.out.println("Experiment type is? " + this.experimentType);
 		}
 
+		engine = new MissionEngine();
+		engine.setPercentRandom(MissionEngine.parsePercentRandom(this.options));	//the % of time the AI robot will act randomly, if any
+		engine.setPolicies(PolicyRegistry.parse(options, 1), PolicyRegistry.parse(options, 2));	//the robot policy of each player
+		engine.addListener(this);	//render every transition applied by the engine
+		engine.setMissionLog(SAR.getMissionLog());	//record every mission played
+
 		canvas = new DrawCanvas();  // Construct a drawing canvas (a JPanel)
 		canvas.setFocusable(true);
 		canvas.setPreferredSize(new Dimension(CANVAS_WIDTH, CANVAS_HEIGHT));
@@ -208,11 +213,11 @@ public class SAR extends JFrame {
 			//Just record the experiment type for the tutorial mode. No need to record success or fail here
 			SAR.code += this.experimentType;
 		} else if (o instanceof PracticeDrillHuman) {
-			SAR.code += "PDH" + String.valueOf(this.numOfMoves) + (currentState == GameState.H1_WON ? "S" : "F");
+			SAR.code += "PDH" + String.valueOf(this.numOfMoves) + (engine.getState() == MissionEngine.GameState.H1_WON ? "S" : "F");
 		} else if (o instanceof PracticeDrillAI) {
-			SAR.code += "A" + String.valueOf(this.numOfMoves) + (currentState == GameState.H1_WON ? "S" : "F");
+			SAR.code += "A" + String.valueOf(this.numOfMoves) + (engine.getState() == MissionEngine.GameState.H1_WON ? "S" : "F");
 		} else if (o instanceof FinalMission) {
-			SAR.code += "M" + String.valueOf(this.numOfMoves) + "T" + String.valueOf(this.numOfTimesAITriggered) + (currentState == GameState.H1_WON ? "S" : "F");
+			SAR.code += "M" + String.valueOf(this.numOfMoves) + "T" + String.valueOf(this.numOfTimesAITriggered) + (engine.getState() == MissionEngine.GameState.H1_WON ? "S" : "F");
 		}
 	}
 
@@ -388,7 +393,8 @@ public class SAR extends JFrame {
 		 * 2nd parameter: will this board be accessed by the AI?
 		 * See the constructor comments in Board.java for more details. */
 
-		board = new Board(this.options.toUpperCase().contains("00") ? true : false, false);
+		engine.setSeed(new SplittableRandom().nextLong());	//every mission gets a fresh seed. See MissionEngine.java for more details.
+		engine.setBoard(engine.createRandomBoard(this.options.toUpperCase().contains("00") ? true : false));
 
 		//TODO OPTIONAL: instead of spawning a random board, we can customize
 		//our own board! Just un-comment any of the below boards or paste your own!
@@ -482,9 +488,8 @@ public class SAR extends JFrame {
 //				{"", "", "", "", "", ""},
 //				});
 
-		/* Use custom method in Board class to print the board to the console and save it to a text file.
-		 * See the method comments in Board.java class for more details. */
-		board.printBoard();
+		/* The board used to be saved to board.txt here (see Board.printBoard()). Now the engine records it, along with
+		 * the seed, the options and every command, to the mission log once the players are created. See MissionLog.java. */
 
 		/* Initialize the cell in which the players will start the mission. */
 		Cell startRoom;
@@ -525,36 +530,18 @@ public class SAR extends JFrame {
 		}
 	}
 
+	/**
+	 * Method: setStartRoomAndBoardAI
+	 * Picks the start room and creates the board perceived by the AI. See the same method in MissionEngine.java.
+	 * @param startRoomIs00 whether players always start in room (0,0).
+	 * @return a Cell[] array consisting of 1) the start room and 2) the same room as perceived by the AI.
+	 */
 	protected Cell[] setStartRoomAndBoardAI(boolean startRoomIs00) {
-		Cell startRoom;
-		if (startRoomIs00) {
-			startRoom = board.getRoom(0, 0);
-		} else {
-			startRoom = board.getRoom((int)(Math.random() * ROWS), (int)(Math.random() * COLS));
-
-			/*If players start on a random cell, that cell might already have
-			 * a pit or victim or wastes in it. Meaning the mission is over before it even begins...which we don't want.
-			 * So this while-loop is designed to ensure that the random starting cell is safe AND
-			 * that it doesn't have the victim in it. */
-			while(startRoom.hasWastes() || startRoom.isPit() || startRoom.hasVictim()) {
-				startRoom = board.getRoom((int)(Math.random() * ROWS), (int)(Math.random() * COLS));
-			}
-		}
-		/* Now create a board with incomplete information that will be perceived / accessed by the AI
-		 * who will use deductive logic to navigate the board and avoid dangers.
-		 * 1st parameter: is cell at (0,0) always empty?
-		 * 2nd parameter: will this board be accessed / perceived by the AI? */
-		boardPerceivedByAI = new Board(startRoomIs00, true);
-
-		startRoom.setHints();	//custom method to display information about this room on the GUI.
-
-		CellAsPerceivedByAI startRoomAI = boardPerceivedByAI.getRoomAI(startRoom.getX(), startRoom.getY());	//startRoomAI is the same location as startRoom
-		startRoomAI.setExplored(true, startRoom);	//Custom method to set this cell as having been explored by the robot.
-
-		/* Every time a room / cell is explored, the AI will use the custom method below to logically deduce and assign
-		 * the probability of monsters and pits in every neighboring room. See the CellAsPerceivedByAI.java class for more details. */
-		startRoomAI.assignProbabilityToNeighbors(this.board, this.boardPerceivedByAI);
-		return new Cell[]{startRoom, startRoomAI};
+		/* The drills and the final mission set their own boards up without initMission(), so re-seed here as well. The seed
+		 * logged with the mission must be the one its start room and the AI's random streams are drawn from, or else
+		 * MissionReplayer.java couldn't replay it. */
+		engine.setSeed(new SplittableRandom().nextLong());
+		return engine.setStartRoomAndBoardAI(startRoomIs00);
 	}
 
 	/**
@@ -573,55 +560,94 @@ public class SAR extends JFrame {
 							  boolean aggressivep1, boolean aggressivep2, boolean singlePlayer,
 							  String controlMode) {
 
-		/* Create two players. Each player can be either a human or AI. */
-		h1 = new Player(startRoom, startRoomAI, p1Name);
-		h1.setAI(true);	//either or both players can be an AI.
-		h1.setAggressiveModeOn(aggressivep1);//this can be toggled on or off. See comments in the Player class beginning with "DESIGN DECISION".
-		h2 = new Player(startRoom, startRoomAI, p2Name);
-		h2.setAI(true);	//either or both players can be an AI.
-		h2.setAggressiveModeOn(aggressivep2);//this can be toggled on or off. See comments in the Player class beginning with "DESIGN DECISION".
-
-		/* OPTIONAL: if you want a 1-player mission, have the other player quit right away.
-		 * This gets rid of player's graphics from being shown on the GUI. */
-		if(singlePlayer) {
-			h2.setOutOfGame(true);
-		}
+		/* Create two players. See MissionEngine.java for more details. */
+		engine.createPlayers(startRoom, startRoomAI, p1Name, p2Name, aggressivep1, aggressivep2, singlePlayer);
 		this.controlMode = controlMode;
-		currentPlayer = h1;       //h1 plays first by default. Can be changed to h2 if you want
-		currentState = GameState.PLAYING; // mission state: ready to start
 		currentImageH1 = 0;
 		currentImageH2 = 0;
 	}
 
+	/**
+	 * Method: getMissionLog
+	 * @return the mission log shared by every SAR, opened on first use, or null if it can't be opened.
+	 */
+	private static synchronized MissionLog getMissionLog() {
+		if(missionLog == null) {
+			try {
+				missionLog = new MissionLog(Paths.get(MISSION_LOG_FILE));
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						missionLog.close();
+					} catch(IOException e) {
+						//nothing more can be done on the way out
+					}
+				}));
+			} catch(IOException e) {
+				System.err.println("Missions will not be logged: " + e);
+			}
+		}
+		return missionLog;
+	}
+
 	/**
 	 * Method: updateGame
-	 * Updates the mission board and GUI after a player makes a move.
+	 * Hands the given command over to the mission engine, which updates the mission board and notifies this GUI
+	 * (see missionUpdated() below). Afterwards, shows the mission-over popups if applicable.
 	 * @param currentPlayer h1 or h2. Player h1 is human. h2 might be an AI.
-	 * @param command A char. Valid commands are: 'F', 'L', 'R', 'G', 'S', 'Q', or ' ' (space bar).
-	 * @param level the current level of the recursion (only relevant when we're running AI mode, which recursively calls updateGame())
+	 * @param command A char. Valid commands are: 'F', 'L', 'R', 'G', 'S', 'Q', 'O', or ' ' (space bar).
+	 * @param level the current level of the recursion. Popups and tutorial status checks are only done at level 0.
 	 * @return whether the command was valid. For example, 'X' is not a valid command char.
 	 */
 	public boolean updateGame(Player currentPlayer, char command, int level) {
-		int cpl = currentPlayer.getCurrentRoom().getLocation(); //get current player location
-		boolean validKeyTyped = false;	//initialize sentinel value to be returned.
+		if (Character.toUpperCase(command) == 'O') {	//Options window. This is purely a GUI matter, so the engine is not involved.
+			this.openOptionsWindow();	//custom method
+			return false;
+		}
 
+		MissionEngine.Transition t = engine.apply(currentPlayer, command);
+		if (level > 0) return t.valid;	//If the recursion level is not at the root level, we skip the below steps
+		engine.flushMissionLog();	//the player may close the window at any time, so don't keep the mission in memory only
+
+		if (t.state == MissionEngine.GameState.H1_WON || t.state == MissionEngine.GameState.H2_WON) {  // mission success
+			(new PopupThread()).start();	//Popup message game over, needs to run in new thread for thread safety
+			if (isTutorialMode()) tutorial.checkTutorialStatus(String.valueOf(command));	//If this was a tutorial mode, update tutorial status
+			else if (this.isPracticeMissionHumanMode()) practiceDrillHuman.checkStatus(String.valueOf(command));
+			else if (this.isPracticeMissionAIMode()) practiceDrillAI.checkStatus(String.valueOf(command));
+			else if (this.isFinalMissionMode()) finalMission.checkStatus(String.valueOf(command));
+		} else if (t.state == MissionEngine.GameState.DRAW) {  // neither player 1 nor 2 (if in 2-player mode) has found the victim and are both dead. Mission fail
+			if (this.isTutorialMode()) tutorial.checkTutorialStatus(String.valueOf(command));	//If this was a tutorial mode, update tutorial status
+			else (new PopupThread()).start();	//Popup message game over, needs to run in new thread for thread safety
+			if (this.isPracticeMissionHumanMode()) practiceDrillHuman.checkStatus(String.valueOf(command));
+			else if (this.isPracticeMissionAIMode()) practiceDrillAI.checkStatus(String.valueOf(command));
+			else if (this.isFinalMissionMode()) finalMission.checkStatus(String.valueOf(command));
+		}
+		// Otherwise, no change to current state (still GameState.PLAYING).
+		return t.valid;
+	}
+	//end public boolean updateGame
 
-		//NOTE: Also see DrawCanvas class that allows players to use arrow keys to move the robot.
-		//		For example, the UP arrow key is mapped to 'F'.
-		switch(Character.toUpperCase(command)){
-		/* 'F' moves a player forward. So this makes the player in the current room GUI invisible
-		 * before moving him to the next room. */
+	/**
+	 * Method: missionUpdated
+	 * Invoked by the mission engine after every command it applies (including the command the AI chose
+	 * on behalf of a ' ' command). Renders the transition onto the mission map.
+	 * @param t the transition. See MissionEngine.Transition for more details.
+	 */
+	@Override
+	public void missionUpdated(MissionEngine.Transition t) {
+		int cpl = t.fromLocation; //player location before the command
+		Player currentPlayer = t.player;
+		Player h1 = engine.getH1();
+
+		switch(Character.toUpperCase(t.command)){
+		/* 'F' moves a player forward. So this makes the player in the previous room GUI invisible. */
 		case 'F':
 			if(currentPlayer == h1)
-				squares[cpl/ROWS][cpl%COLS].pics[2][0].setVisible(false);
+				squares[cpl/COLS][cpl%COLS].pics[2][0].setVisible(false);
 			else
-				squares[cpl/ROWS][cpl%COLS].pics[2][2].setVisible(false);
-			currentPlayer.forward(this.boardPerceivedByAI); 	//custom method
-			validKeyTyped = true;
+				squares[cpl/COLS][cpl%COLS].pics[2][2].setVisible(false);
 			break;
 			/* 'L' turns a character to the left. */
 		case 'L':
-			currentPlayer.turnLeft();
 			if(currentPlayer == h1){
 				if (currentImageH1 == 0) //rotate picture
 					currentImageH1 = 3;
@@ -634,10 +660,8 @@ public class SAR extends JFrame {
 				else
 					currentImageH2 --;
 			}
-			validKeyTyped = true;
 			break;
 		case 'R':
-			currentPlayer.turnRight();
 			if(currentPlayer == h1){
 				if (currentImageH1 == 3) //rotate picture
 					currentImageH1 = 0;
@@ -650,113 +674,40 @@ public class SAR extends JFrame {
 				else
 					currentImageH2 ++;
 			}
-			validKeyTyped = true;
 			break;
 		case 'G':
-			if(currentPlayer.giveAid()){
-				squares[cpl/ROWS][cpl%COLS].pics[1][2].setVisible(true); //show victim aid icon
+			if(t.aidGiven){
+				squares[cpl/COLS][cpl%COLS].pics[1][2].setVisible(true); //show victim aid icon
 			}
-			validKeyTyped = true;
 			break;
 		case 'S':
-			resultOfShooting = currentPlayer.shoot();
-			if(currentPlayer.isWasteKiller()){
+			resultOfShooting = t.resultOfShooting;
+			if(t.wasteKilled()){
 				(new DecontaminantHitPopupThread()).start();
-				squares[cpl/ROWS][cpl%COLS].pics[1][1].setVisible(true); //show disinfected icon
-				currentPlayer.resetWasteKiller();
+				squares[cpl/COLS][cpl%COLS].pics[1][1].setVisible(true); //show disinfected icon
 			} else if (resultOfShooting == -1) {
 				(new DecontaminantMissedPopupThread()).start();
 			} else if (resultOfShooting == 0) {
 				JOptionPane.showMessageDialog(null, "Cannot use decontaminant (Shots remaining : " + currentPlayer.getNumOfShotsLeft() + ")", "", JOptionPane.PLAIN_MESSAGE);
 			}
-			validKeyTyped = true;
-			break;
-		case 'Q':
-			currentPlayer.quit();
-			validKeyTyped = true;
 			break;
 		case ' ':
-			//pressing spacebar activates AI as long as the current player has been initialized as an AI player.
-			if(currentPlayer.isAI()) {
-//				System.out.printf("========================================\nSPACEBAR PRESSED. Activating AI for %s...\n"
-//						+ "========================================\n",
-//						currentPlayer.getName());
-				validKeyTyped = true;
-				/* See the Player.java class for the custom method getAction(). It returns a command char.
-				 * This is the heart of AI's algorithm. */
-				int percentRandom = 0;	//initialize the % of time the AI robot will act randomly
-				//If the options were set before the mission to allow random acts by robot a certain % of the time,
-				//extract that percent value now and execute updateGame() method with it as parameter
-				if (SAR.this.options.indexOf("%") != -1) {
-					percentRandom = Integer.parseInt(this.options.substring(this.options.indexOf(" ") + 1, this.options.indexOf("%")));
-//					System.out.printf("Random action chance: %s%%\n", percentRandom);
-				}
-				this.updateGame(currentPlayer, currentPlayer.getAction(this.board, this.boardPerceivedByAI, percentRandom), 1);
-				this.numOfTimesAITriggered++;
-			}
-			break;
-
-		case 'O':	//Options window
-			this.openOptionsWindow();	//custom method
+			if(t.valid) this.numOfTimesAITriggered++;
 			break;
 		}
-		//end switch(Character.toUpperCase(command)){
+		//end switch(Character.toUpperCase(t.command)){
 
-		/* Now that the player has made a move, we'll go thru each RoomAsPerceivedByAI object on the Board and,
-		 * for each explored room aka cell, update the perceptions and probabilities by invoking setExplored() method
-		 * and the assignProbabilityToNeighbors from the CellAsPerceivedByAI class. This updates AI's overall
-		 * perceptions of which rooms have which types of risks. */
+		/* Gray out every room that has been explored so far. */
 		for(int i = 0; i < ROWS; i++) {
 			for(int j = 0; j < COLS; j++) {
-				CellAsPerceivedByAI tempR = this.boardPerceivedByAI.getRoomAI(i, j);
-				/* For every room that has been explored, refresh the perceptions via the setExplored() method
-				 * and refresh the AI's probability calculation of neighboring rooms' risks. */
-				if(tempR.isExplored()) {
+				if(engine.getBoardPerceivedByAI().getRoomAI(i, j).isExplored()) {
 					this.greyOutCell(i, j);
-//					squares[i][j].setBackground(Color.LIGHT_GRAY);	//gray out explored room
-					tempR.setExplored(true, this.board.getRoom(i, j));
-					tempR.assignProbabilityToNeighbors(this.board, this.boardPerceivedByAI);
-				}
-			}
-		}
-		//end for i
-
-		/* Now the AI will make some manual adjustments to the probability of UNEXPLORED rooms.
-		 * Go thru the whole board again, locate unexplored rooms, then invoke
-		 * custom method modifyProbabilityIfSurroundedByDanger(). See the comments accompanying
-		 * this custom method for more details. */
-		for(int i = 0; i < ROWS; i++) {
-			for(int j = 0; j < COLS; j++) {
-				CellAsPerceivedByAI tempR = this.boardPerceivedByAI.getRoomAI(i, j);
-				if(!tempR.isExplored()) {
-					tempR.modifyProbabilityIfSurroundedByDanger(board, boardPerceivedByAI);
 				}
 			}
 		}
 		//end for i
-
-		if (hasWon(currentPlayer)) {  // check for mission success
-			currentState = (currentPlayer == h1) ? GameState.H1_WON : GameState.H2_WON;
-			if (level > 0) return validKeyTyped;	//If the recursion level is not at the root level, we skip the below steps for now
-
-			(new PopupThread()).start();	//Popup message game over, needs to run in new thread for thread safety
-			if (isTutorialMode()) tutorial.checkTutorialStatus(String.valueOf(command));	//If this was a tutorial mode, update tutorial status
-			else if (this.isPracticeMissionHumanMode()) practiceDrillHuman.checkStatus(String.valueOf(command));
-			else if (this.isPracticeMissionAIMode()) practiceDrillAI.checkStatus(String.valueOf(command));
-			else if (this.isFinalMissionMode()) finalMission.checkStatus(String.valueOf(command));
-		} else if (isDraw()) {  // if "draw", it means neither player 1 nor 2 (if in 2-player mode) has found the victim and are both dead. Mission fail
-			currentState = GameState.DRAW;
-			if (level > 0) return validKeyTyped;	//If the recursion level is not at the root level, we skip the below steps for now
-			if (this.isTutorialMode()) tutorial.checkTutorialStatus(String.valueOf(command));	//If this was a tutorial mode, update tutorial status
-			else (new PopupThread()).start();	//Popup message game over, needs to run in new thread for thread safety
-			if (this.isPracticeMissionHumanMode()) practiceDrillHuman.checkStatus(String.valueOf(command));
-			else if (this.isPracticeMissionAIMode()) practiceDrillAI.checkStatus(String.valueOf(command));
-			else if (this.isFinalMissionMode()) finalMission.checkStatus(String.valueOf(command));
-		}
-		// Otherwise, no change to current state (still GameState.PLAYING).
-		return validKeyTyped;
 	}
-	//end public boolean updateGame
+	//end public void missionUpdated
 
 	/**
 	 * Method: isTutorialMode
@@ -799,9 +750,7 @@ public class SAR extends JFrame {
 
 	/** Return true if it is a draw (i.e., both players died) */
 	public boolean isDraw() {
-		if (!h1.isAlive() && !h2.isAlive())
-			return true;
-		return false;
+		return engine.isDraw();
 	}
 
 	/** Return true if the player has located and aided victim */
@@ -850,27 +799,26 @@ public class SAR extends JFrame {
 			}
 		}
 
-		public void showPics(String s){ //show the pictures in the room
-			String[] symbols = s.split("[ ]");
-			for (int i = 0; i < symbols.length; i++){
-				//System.out.println(symbols[i]);
-				switch (symbols[i]){
-				case "B": pics[0][0].setVisible(true); break;
-				case "S": pics[0][1].setVisible(true); break;
-				case "G": pics[0][2].setVisible(true); break;
-				case "P": pics[1][0].setVisible(true); break;
-				case "R": pics[1][1].setVisible(true); break;
-				case "D": pics[1][2].setVisible(true); break;
-				case "H1":
-					pics[2][0].setIcon(imageH1[currentImageH1]);
-					if(!h1.isOutOfGame()) pics[2][0].setVisible(true);
-					break;
-				case "W": pics[2][1].setVisible(true); break;
-				case "H2":
-					pics[2][2].setIcon(imageH2[currentImageH2]);
-					if(!h2.isOutOfGame()) pics[2][2].setVisible(true);
-					break;
-				}
+		/**
+		 * Method: showPics
+		 * Shows the pictures in the room.
+		 * @param perceptions the perception flags of the room. See Cell.getPerceptions().
+		 * @param h1Here whether hunter 1 is in the room
+		 * @param h2Here whether hunter 2 is in the room
+		 */
+		public void showPics(byte perceptions, boolean h1Here, boolean h2Here){
+			if ((perceptions & Cell.BREEZE) != 0) pics[0][0].setVisible(true);
+			if ((perceptions & Cell.STENCH) != 0) pics[0][1].setVisible(true);
+			if ((perceptions & Cell.VICTIM) != 0) pics[0][2].setVisible(true);
+			if ((perceptions & Cell.PIT) != 0) pics[1][0].setVisible(true);
+			if (h1Here) {
+				pics[2][0].setIcon(imageH1[currentImageH1]);
+				if(!engine.getH1().isOutOfGame()) pics[2][0].setVisible(true);
+			}
+			if ((perceptions & Cell.WASTES) != 0) pics[2][1].setVisible(true);
+			if (h2Here) {
+				pics[2][2].setIcon(imageH2[currentImageH2]);
+				if(!engine.getH2().isOutOfGame()) pics[2][2].setVisible(true);
 			}
 		}
 
@@ -933,7 +881,7 @@ public class SAR extends JFrame {
 					}
 
 
-					if (currentState == GameState.PLAYING) {
+					if (engine.getState() == MissionEngine.GameState.PLAYING) {
 						//If this is tutorial mode, check status first to see if this action should be allowed at all.
 						//If not approved, end this method immediately
 						if (SAR.this.isTutorialMode()) {
@@ -955,13 +903,11 @@ public class SAR extends JFrame {
 						if ( ("H".contains(SAR.this.controlMode) && "FRLGSQO" .contains(String.valueOf(command))) ||
 							 ("R".contains(SAR.this.controlMode) &&       " " .contains(String.valueOf(command))) ||
 							 ("B".contains(SAR.this.controlMode) && "FRLGSQO ".contains(String.valueOf(command))) ) {
-							boolean validKeyTyped = updateGame(currentPlayer, command, 0); // invoke update method with the given command
+							boolean validKeyTyped = updateGame(engine.getCurrentPlayer(), command, 0); // invoke update method with the given command
 							// Switch player (in the event that we have a 2-player mission)
 							if(validKeyTyped) {
 								SAR.this.numOfMoves++;
-								Player nextPlayer = (currentPlayer == h1 ? h2 : h1);
-								if (nextPlayer.isAlive())
-									currentPlayer = nextPlayer;
+								engine.nextPlayer();
 //								System.out.printf("Total no. of moves so far: %s\n", numOfMoves);
 							}
 						}
@@ -997,25 +943,25 @@ public class SAR extends JFrame {
 			super.paintComponent(g);    // fill background
 			setBackground(Color.WHITE); // set its background color
 
+			Player h1 = engine.getH1(), h2 = engine.getH2();
+			Board board = engine.getBoard();
 			int pl1 = h1.getCurrentRoom().getLocation(); //player 1 location
 			int pl2 = h2.getCurrentRoom().getLocation(); //player 2 location
 
 			for(int i = 0; i < ROWS; i++)
 				for (int j = 0; j < COLS; j++){
-					if (board.rooms[i][j].isShown()){
-						String s = board.rooms[i][j].perceptions(); //status
-						if ((i == (pl1/ROWS)) && (j == (pl1%COLS)))
-							s += "H1 ";
-						if ((i == (pl2/ROWS)) && (j == (pl2%COLS)))
-							s += "H2 ";
-						squares[i][j].showPics(s);
+					Cell room = board.getRoom(i, j);
+					if (room.isShown()){
+						squares[i][j].showPics(room.getPerceptions(), //status
+								(i == (pl1/COLS)) && (j == (pl1%COLS)), (i == (pl2/COLS)) && (j == (pl2%COLS)));
 					}
 				}
 
 			// Print status-bar message
-			if (currentState == GameState.PLAYING) {
+			MissionEngine.GameState currentState = engine.getState();
+			if (currentState == MissionEngine.GameState.PLAYING) {
 				statusBar.setForeground(Color.BLUE);
-				if (currentPlayer == h1) {
+				if (engine.getCurrentPlayer() == h1) {
 					String lastActionTaken = h1.getLastActionTaken();
 					statusBar.setText(h1.getName() + "'s Turn. Control mode: " + (controlMode.equals("H") ? "Manual" : controlMode.equals("R") ? "AI" : "Manual/AI") + ". " +
 									  "Last action taken: " + lastActionTaken + (lastActionTaken.equals("S") ? (resultOfShooting == -1 ? " (Missed)" : resultOfShooting == 0 ? " (Out of ammo)" : " (On target!)") : "") +
@@ -1028,13 +974,13 @@ public class SAR extends JFrame {
 				}
 			} else {
 				//Set status bar message in addition to popup
-				if (currentState == GameState.DRAW) {
+				if (currentState == MissionEngine.GameState.DRAW) {
 					statusBar.setForeground(Color.RED);
 					statusBar.setText("Mission Failed.");
-				} else if (currentState == GameState.H1_WON) {
+				} else if (currentState == MissionEngine.GameState.H1_WON) {
 					statusBar.setForeground(Color.BLUE);
 					statusBar.setText(h1.getName() + " has successfully completed the mission!");
-				} else if (currentState == GameState.H2_WON) {
+				} else if (currentState == MissionEngine.GameState.H2_WON) {
 					statusBar.setForeground(Color.BLUE);
 					statusBar.setText(h2.getName() + " has successfully completed the mission!");
 				}
@@ -1049,12 +995,13 @@ public class SAR extends JFrame {
 	 */
 	class PopupThread extends Thread {
 		public void run() {
-			if (currentState == GameState.DRAW) {
+			MissionEngine.GameState currentState = engine.getState();
+			if (currentState == MissionEngine.GameState.DRAW) {
 				JOptionPane.showMessageDialog(null, "The robot has been destroyed.", "Mission Failed", JOptionPane.PLAIN_MESSAGE);
-			} else if (currentState == GameState.H1_WON) {
-				JOptionPane.showMessageDialog(null, h1.getName() + " has successfully completed the mission.", "Mission Complete", JOptionPane.PLAIN_MESSAGE);
-			} else if (currentState == GameState.H2_WON) {
-				JOptionPane.showMessageDialog(null, h2.getName() + " has successfully completed the mission.", "Mission Complete", JOptionPane.PLAIN_MESSAGE);
+			} else if (currentState == MissionEngine.GameState.H1_WON) {
+				JOptionPane.showMessageDialog(null, engine.getH1().getName() + " has successfully completed the mission.", "Mission Complete", JOptionPane.PLAIN_MESSAGE);
+			} else if (currentState == MissionEngine.GameState.H2_WON) {
+				JOptionPane.showMessageDialog(null, engine.getH2().getName() + " has successfully completed the mission.", "Mission Complete", JOptionPane.PLAIN_MESSAGE);
 			}
 		}
 	}
@@ -1070,19 +1017,20 @@ public class SAR extends JFrame {
 
 	class DecontaminantMissedPopupThread extends Thread {
 		public void run() {
-			JOptionPane.showMessageDialog(null, "Missed!\nShots remaining: " + currentPlayer.getNumOfShotsLeft(), "", JOptionPane.PLAIN_MESSAGE);
+			JOptionPane.showMessageDialog(null, "Missed!\nShots remaining: " + engine.getCurrentPlayer().getNumOfShotsLeft(), "", JOptionPane.PLAIN_MESSAGE);
 		}
 	}
 
 	class DecontaminantHitPopupThread extends Thread {
 		public void run() {
-			JOptionPane.showMessageDialog(null, "Shot on target!\nShots remaining: " + currentPlayer.getNumOfShotsLeft(), "", JOptionPane.PLAIN_MESSAGE);
+			JOptionPane.showMessageDialog(null, "Shot on target!\nShots remaining: " + engine.getCurrentPlayer().getNumOfShotsLeft(), "", JOptionPane.PLAIN_MESSAGE);
 		}
 	}
 
 	/** The entry main() method.
 	 *  UPDATE: Recommended that you use SARMain.java's options GUI to run the mission instead of running it here. */
 	public static void main(String[] args) {
+		DecisionMetrics.register();	//AI decision latency, live over JMX (see DecisionMetrics.java)
 		// Run GUI codes in the Event-Dispatching thread for thread safety
 		SwingUtilities.invokeLater(new Runnable() {
 			@Override
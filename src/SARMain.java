@@ -60,6 +60,7 @@ public class SARMain extends JFrame {
 	 * Launch the application.
 	 */
 	public static void main(String[] args) {
+		DecisionMetrics.register();	//AI decision latency, live over JMX (see DecisionMetrics.java)
 		EventQueue.invokeLater(new Runnable() {
 			public void run() {
 				try {
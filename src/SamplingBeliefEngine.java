@@ -0,0 +1,287 @@
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+/** Class: SamplingBeliefEngine.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - inherits from ExactBeliefEngine.java class.
+ *  Purpose - Keeps the AI's perceptions up to date after every move, like ExactBeliefEngine.java, under the same model
+ *  (the same constraints, totals and weights), except that the probabilities of pits and wastes are ESTIMATED by sampling
+ *  hazard layouts consistent with the observations, rather than counted exactly. Meant for boards so large that even
+ *  the decomposed exact count (e.g. a component of more than FrontierModelCounter.MAX_CONSTRAINTS constraints) is too slow.
+ *
+ *  The sampler is a Markov chain (MCMC) over the hazard layouts of the constrained rooms. Each sweep visits every
+ *  constrained room and redraws it given all the others (Gibbs sampling), then tries to move a few hazards from one
+ *  room to another (swaps), so that the chain can also get from one layout to another with the same no. of hazards
+ *  when the total allows no more. Every constraint keeps a count of its rooms holding a hazard, so whether a move
+ *  keeps every constraint satisfied is checked in time proportional to the no. of constraints of the rooms involved.
+ *
+ *  The probability of a room is the average over all sweeps of its conditional probability given the other rooms
+ *  (rather than of the 0/1 value drawn), which is a lot less noisy for the same no. of samples. So a room the
+ *  constraints force to hold a hazard still gets exactly 100%.
+ *
+ *  The sample budget (the no. of sweeps per computation) and the no. of chains, each of which runs as its own
+ *  fork-join task (so on as many worker threads as there are), are set upon construction. More sweeps mean smaller
+ *  errors (roughly 1 / sqrt(sweeps)) at a proportionally greater cost. See MissionEngine.setSamplingBudget().
+ *  Every chain draws from its own random stream split off the given one, so the estimates are reproducible
+ *  regardless of how the chains are scheduled.
+ */
+public class SamplingBeliefEngine extends ExactBeliefEngine {
+	public static final int DEFAULT_NUM_SAMPLES = 2000;	//default no. of sweeps per computation, over all chains
+	public static final int DEFAULT_NUM_CHAINS = Runtime.getRuntime().availableProcessors();
+	private static final double OUT_OF_RANGE_WEIGHT = 0.25;	//see sample()
+	private final int numSamples;		//no. of sweeps per computation, over all chains
+	private final int numChains;		//no. of independent chains
+	private final SplittableRandom random;	//the chains' random streams are split off this one
+
+	/**
+	 * 5-arg constructor.
+	 * @param board the Board object containing Cell objects.
+	 * @param boardAI the Board object containing CellAsPerceivedByAI objects, of the same dimensions.
+	 * @param numSamples the no. of sweeps per computation, over all chains (at least one per chain is made)
+	 * @param numChains the no. of independent chains, run in parallel
+	 * @param random the random stream the chains' streams are split off
+	 */
+	public SamplingBeliefEngine(Board board, Board boardAI, int numSamples, int numChains, SplittableRandom random) {
+		super(board, boardAI);
+		this.numSamples = numSamples;
+		this.numChains = Math.max(1, numChains);
+		this.random = random;
+	}
+
+	public int getNumSamples() {
+		return numSamples;
+	}
+
+	public int getNumChains() {
+		return numChains;
+	}
+
+	/**
+	 * Method: computeMarginals
+	 * Estimates the same probabilities as ExactBeliefEngine.computeMarginals(): with the known total if the chains reach
+	 * any layout that is consistent with it, with the density otherwise.
+	 */
+	@Override
+	protected double computeMarginals(int[][] constraints, int m, int u, int t, double density, double[] marginals) {
+		for(int[] cells : constraints) {
+			if(cells.length == 0) return -1;	//this constraint can never be satisfied
+		}
+
+		/* Which constraints each room is part of. */
+		int[] numConstraintsOf = new int[m];
+		for(int[] cells : constraints) {
+			for(int j : cells) numConstraintsOf[j]++;
+		}
+		int[][] constraintsOf = new int[m][];
+		for(int j = 0; j < m; j++) constraintsOf[j] = new int[numConstraintsOf[j]];
+		for(int c = 0; c < constraints.length; c++) {
+			for(int j : constraints[c]) constraintsOf[j][--numConstraintsOf[j]] = c;
+		}
+		int[] start = this.startingLayout(constraints, m);
+
+		/* w[k] = the weight of a layout with k hazards among the constrained rooms, relative to the greatest one:
+		 * C(u, t - k) for the total, (density / (1 - density))^k for the density. Same as ExactBeliefEngine. */
+		int minK = Math.max(0, t - u), maxK = Math.min(t, m);
+		if(minK <= maxK) {
+			double[] logW = new double[m + 1];
+			double maxLogW = 0;
+			for(int k = minK; k < maxK; k++) {
+				logW[k + 1] = logW[k] + Math.log((double)(t - k) / (u - t + k + 1));
+				maxLogW = Math.max(maxLogW, logW[k + 1]);
+			}
+			double[] w = new double[m + 1];
+			for(int k = minK; k <= maxK; k++) w[k] = Math.exp(logW[k] - maxLogW);
+			double[] estimates = this.sample(constraints.length, constraintsOf, w, start, t, u);
+			if(estimates != null) {
+				System.arraycopy(estimates, 0, marginals, 0, m);
+				return estimates[m];
+			}
+		}
+		if(density <= 0 || density >= 1) return -1;
+		double logRatio = Math.log(density / (1 - density)), maxLogW = Math.max(0, m * logRatio);
+		double[] w = new double[m + 1];
+		for(int k = 0; k <= m; k++) w[k] = Math.exp(k * logRatio - maxLogW);
+		double[] estimates = this.sample(constraints.length, constraintsOf, w, start, -1, u);
+		if(estimates == null) return -1;
+		System.arraycopy(estimates, 0, marginals, 0, m);
+		return density;
+	}
+
+	/**
+	 * Method: sample
+	 * Runs the chains (in parallel) and averages their estimates.
+	 * @param w w[k] = the weight of a layout with k hazards among the constrained rooms. Zero outside some range [minK, maxK].
+	 * @param t the no. of hazards not yet accounted for, or -1 if the weights aren't those of a known total
+	 * @return the estimated probability of each constrained room, followed by the probability of each of the u other
+	 * unknown rooms (if t >= 0), or null if no chain ever reached a layout of nonzero weight.
+	 */
+	private double[] sample(int numConstraints, int[][] constraintsOf, double[] w, int[] start, int t, int u) {
+		int m = constraintsOf.length;
+
+		/* The chains move under weights that are positive everywhere: outside [minK, maxK], every hazard too many or too few
+		 * costs a factor of OUT_OF_RANGE_WEIGHT. A layout outside the range counts for nothing in the estimates, but passing
+		 * through such layouts lets a chain start from any layout that satisfies the constraints, and get from any one of those
+		 * to any other. (Within the range alone, the layouts of a tight total may not be reachable from each other
+		 * by moving one hazard at a time.) */
+		int minK = 0, maxK = m;
+		while(minK < m && w[minK] == 0) minK++;
+		while(maxK > 0 && w[maxK] == 0) maxK--;
+		double[] chainW = w.clone();
+		for(int k = minK - 1; k >= 0; k--) chainW[k] = chainW[k + 1] * OUT_OF_RANGE_WEIGHT;
+		for(int k = maxK + 1; k <= m; k++) chainW[k] = chainW[k - 1] * OUT_OF_RANGE_WEIGHT;
+
+		int sweeps = Math.max(1, numSamples / numChains);
+		ArrayList<Chain> chains = new ArrayList<>();
+		for(int k = 0; k < numChains; k++) chains.add(new Chain(numConstraints, constraintsOf, w, chainW, start, t, u, sweeps, random.split()));
+		for(int k = 1; k < numChains; k++) chains.get(k).fork();	//into the current pool, or the common pool if none
+		double[] sums = new double[2 * m + 2];
+		for(Chain chain : chains) {
+			double[] s = chain == chains.get(0) ? chain.invoke() : chain.join();
+			for(int j = 0; j < sums.length; j++) sums[j] += s[j];
+		}
+		if(sums[2 * m + 1] == 0) return null;
+		double[] ret = new double[m + 1];
+		for(int j = 0; j < m; j++) ret[j] = sums[m + j] == 0 ? 0 : sums[j] / sums[m + j];
+		ret[m] = t >= 0 && u > 0 ? sums[2 * m] / sums[2 * m + 1] : 0;
+		return ret;
+	}
+
+	/**
+	 * Method: startingLayout
+	 * Greedily picks a layout that satisfies every constraint with few hazards: as long as some constraint is unsatisfied,
+	 * put a hazard into the room that is part of the most unsatisfied constraints.
+	 * @return start[j] = 1 if constrained room j holds a hazard in the layout, 0 otherwise.
+	 */
+	private int[] startingLayout(int[][] constraints, int m) {
+		int[] start = new int[m];
+		boolean[] isSatisfied = new boolean[constraints.length];
+		while(true) {
+			int[] numUnsatisfied = new int[m];
+			int best = -1;
+			for(int c = 0; c < constraints.length; c++) {
+				if(isSatisfied[c]) continue;
+				for(int j : constraints[c]) {
+					numUnsatisfied[j]++;
+					if(best < 0 || numUnsatisfied[j] > numUnsatisfied[best]) best = j;
+				}
+			}
+			if(best < 0) return start;
+			start[best] = 1;
+			for(int c = 0; c < constraints.length; c++) {
+				for(int j : constraints[c]) isSatisfied[c] |= j == best;
+			}
+		}
+	}
+
+	/**
+	 * Inner class Chain. A fork-join task that runs one Markov chain for the given no. of sweeps (after a burn-in of
+	 * a fifth as many). Whenever a room is about to be redrawn while the layout has nonzero weight, its conditional
+	 * probability of holding the hazard is added up. Returns these sums for every constrained room, followed by how many
+	 * were added up for each, followed by the sum of (t - k) / u at the end of every such sweep and how many were added up.
+	 */
+	@SuppressWarnings("serial")
+	static class Chain extends RecursiveTask<double[]> {
+		private final int[][] constraintsOf;	//constraintsOf[j] = the constraints room j is part of
+		private final double[] w;		//w[k] = the weight of a layout with k hazards among the constrained rooms
+		private final double[] chainW;	//the weights the chain moves under. Same as w, but positive everywhere.
+		private final int[] layout;		//layout[j] = 1 if room j currently holds a hazard, 0 otherwise
+		private final int[] numHazards;	//numHazards[c] = the no. of rooms of constraint c currently holding a hazard
+		private final int t, u, sweeps;	//t is -1 if the weights aren't those of a known total
+		private final SplittableRandom random;
+		private int k;					//the no. of rooms currently holding a hazard
+
+		Chain(int numConstraints, int[][] constraintsOf, double[] w, double[] chainW, int[] start, int t, int u, int sweeps,
+				SplittableRandom random) {
+			this.constraintsOf = constraintsOf;
+			this.w = w;
+			this.chainW = chainW;
+			this.layout = start.clone();
+			this.numHazards = new int[numConstraints];
+			this.t = t;
+			this.u = u;
+			this.sweeps = sweeps;
+			this.random = random;
+			for(int j = 0; j < layout.length; j++) {
+				if(layout[j] == 1) add(j);
+			}
+		}
+
+		@Override
+		protected double[] compute() {
+			int m = layout.length;
+			double[] sums = new double[2 * m + 2];
+			int burnIn = sweeps / 5;
+			for(int sweep = -burnIn; sweep < sweeps; sweep++) {
+				for(int j = 0; j < m; j++) {
+					if(sweep >= 0 && w[k] > 0) {
+						sums[j] += conditional(j, w);
+						sums[m + j]++;
+					}
+					int x = random.nextDouble() < conditional(j, chainW) ? 1 : 0;
+					if(x != layout[j]) {
+						if(x == 1) add(j);
+						else remove(j);
+					}
+				}
+				for(int s = 0; s < m / 2; s++) swap(random.nextInt(m), random.nextInt(m));
+				if(sweep >= 0 && w[k] > 0) {
+					if(t >= 0 && u > 0) sums[2 * m] += (double)(t - k) / u;
+					sums[2 * m + 1]++;
+				}
+			}
+			return sums;
+		}
+
+		/**
+		 * Method: conditional
+		 * @param j a constrained room
+		 * @param weights the weights of layouts by no. of hazards. The current layout must have nonzero weight.
+		 * @return the probability that room j holds the hazard, given the rest of the current layout.
+		 */
+		private double conditional(int j, double[] weights) {
+			int rest = k - layout[j];
+			double w1 = weights[rest + 1];
+			if(!canRemove(j)) return 1;
+			double w0 = weights[rest];
+			return w1 / (w0 + w1);
+		}
+
+		/**
+		 * Method: swap
+		 * Moves the hazard from one of the given rooms to the other, if exactly one of them holds one and every constraint
+		 * stays satisfied. The no. of hazards (and so the weight of the layout) stays the same.
+		 */
+		private void swap(int a, int b) {
+			if(layout[a] == layout[b]) return;
+			int from = layout[a] == 1 ? a : b, to = from == a ? b : a;
+			add(to);
+			if(canRemove(from)) remove(from);
+			else remove(to);
+		}
+
+		/* Whether every constraint of room j would still be satisfied without a hazard in room j. */
+		private boolean canRemove(int j) {
+			for(int c : constraintsOf[j]) {
+				if(numHazards[c] - layout[j] == 0) return false;
+			}
+			return true;
+		}
+
+		private void add(int j) {
+			layout[j] = 1;
+			k++;
+			for(int c : constraintsOf[j]) numHazards[c]++;
+		}
+
+		private void remove(int j) {
+			layout[j] = 0;
+			k--;
+			for(int c : constraintsOf[j]) numHazards[c]--;
+		}
+	}
+	//end class Chain
+}
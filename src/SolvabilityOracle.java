@@ -0,0 +1,162 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Class: SolvabilityOracle.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the SolvabilityOracle class.
+ *  Purpose - The best any robot could possibly do on a given board: whether the victim can be reached at all, and in how
+ *  few commands. Unlike the AI, the oracle sees the whole board. It is the yardstick for Player.getAction(): the no. of moves
+ *  the AI took minus the optimal no. is its optimality gap (see MonteCarloRunner.java).
+ *
+ *  The oracle runs a breadth-first search over the states (room, heading, wastes disinfected) with the same semantics as
+ *  Player.java: 'F' moves into the room ahead (and dies there if it holds a pit or a live waste), 'L' / 'R' turn, 'S' uses
+ *  up a disinfectant and disinfects a waste in the room ahead, and 'G' in the victim's room ends the mission. The
+ *  disinfectants left follow from the wastes disinfected, because shooting at nothing never pays. Every command counts as
+ *  one move, as in MissionEngine.getNumOfMoves().
+ *
+ *  A 6x6 board has under a thousand such states, so a search takes microseconds and allocates nothing once its buffers
+ *  have grown. Results are memoized by board hash (see hashOf()) in a memo shared by every oracle, so a layout played over
+ *  and over (e.g. FinalMission.java's) is searched once.
+ *
+ *  Not thread-safe, apart from the memo: use one SolvabilityOracle per thread.
+ */
+public class SolvabilityOracle {
+	public static final int UNSOLVABLE = -1;
+	public static final int DISINFECTANTS = 2;	//every player starts out with 2. See Player.java.
+	public static final int MAX_MEMO_SIZE = 1 << 20;	//the memo is emptied when it grows past this no. of boards
+	private static final int MAX_WASTES = 64;	//the wastes disinfected are kept as bits of a long
+
+	private static final ConcurrentHashMap<Long, Integer> MEMO = new ConcurrentHashMap<>();
+
+	/* Buffers of the search, reused from one search to the next. A state is numbered
+	 * (maskIndex * numRooms + room) * 4 + dir, where masks[maskIndex] are the wastes disinfected. */
+	private int[] queue = new int[256];
+	private int[] dist = new int[256];		//dist[s] = the no. of moves to state s, valid if stamp[s] == currentStamp
+	private int[] stamp = new int[256];
+	private int currentStamp;
+	private long[] masks = new long[8];		//the sets of wastes disinfected met so far, as bits of wastes[]
+	private int numMasks;
+	private int[] wasteIndexOf = new int[64];	//wasteIndexOf[room] = the index of the waste in that room, or -1
+
+	/**
+	 * Method: solve
+	 * @param board a normal Board (consisting of Cell objects)
+	 * @param startRoom the index of the room the player starts in, facing east with DISINFECTANTS disinfectants (like Player.java)
+	 * @return the fewest moves in which the victim can be given aid, or UNSOLVABLE if it can't be. Memoized.
+	 */
+	public int solve(Board board, int startRoom) {
+		return this.solve(board, startRoom, Board.EAST, DISINFECTANTS);
+	}
+
+	/**
+	 * Method: solve
+	 * @param board a normal Board (consisting of Cell objects), e.g. in the middle of a mission
+	 * @param room the index of the room the player is in
+	 * @param dir the direction the player faces
+	 * @param disinfectants the no. of disinfectants the player has left
+	 * @return the fewest moves in which the victim can be given aid from there, or UNSOLVABLE if it can't be. Memoized.
+	 */
+	public int solve(Board board, int room, int dir, int disinfectants) {
+		long key = hashOf(board, room, dir, disinfectants);
+		Integer memo = MEMO.get(key);
+		if(memo != null) return memo;
+		int ret = this.search(board, room, dir, disinfectants);
+		if(MEMO.size() >= MAX_MEMO_SIZE) MEMO.clear();
+		MEMO.put(key, ret);
+		return ret;
+	}
+
+	/**
+	 * Method: hashOf
+	 * @return a 64-bit hash of everything the optimal no. of moves depends on: the dimensions, pits, wastes and victim
+	 * of the board, and the player's room, direction and disinfectants.
+	 */
+	public static long hashOf(Board board, int room, int dir, int disinfectants) {
+		long h = BitBoard.mix64(((long)board.getRows() << 32) | board.getCols());
+		h = BitBoard.mix64(h * 31 + board.getPits().longHashCode());
+		h = BitBoard.mix64(h * 31 + board.getWastes().longHashCode());
+		h = BitBoard.mix64(h * 31 + board.getVictim().longHashCode());
+		return BitBoard.mix64(h * 31 + (((long)room << 16) | (dir << 8) | disinfectants));
+	}
+
+	/**
+	 * Method: search
+	 * Same as solve(), without the memo.
+	 */
+	public int search(Board board, int room, int dir, int disinfectants) {
+		int numRooms = board.getRows() * board.getCols();
+		if(wasteIndexOf.length < numRooms) wasteIndexOf = new int[numRooms];
+		Arrays.fill(wasteIndexOf, 0, numRooms, -1);
+		BitBoard wastes = board.getWastes();
+		int numWastes = 0;
+		for(int i = wastes.nextSetBit(0); i >= 0; i = wastes.nextSetBit(i + 1)) {
+			if(numWastes == MAX_WASTES) throw new IllegalArgumentException("The oracle handles up to " + MAX_WASTES + " wastes");
+			wasteIndexOf[i] = numWastes++;
+		}
+		if(++currentStamp == 0) {	//the stamp wrapped around: forget every state seen
+			Arrays.fill(stamp, 0);
+			currentStamp = 1;
+		}
+		numMasks = 0;
+		this.maskIndexOf(0L, numRooms);
+
+		int head = 0, tail = 0;
+		int start = room * 4 + dir;
+		stamp[start] = currentStamp;
+		dist[start] = 0;
+		queue[tail++] = start;
+		while(head < tail) {
+			int s = queue[head++];
+			int d = dist[s];
+			int m = s / (numRooms * 4);
+			int r = (s >>> 2) % numRooms;
+			int h = s & 3;
+			long killed = masks[m];
+			if(board.hasVictim(r)) return d + 1;	//'G'
+
+			tail = this.visit((m * numRooms + r) * 4 + ((h + 3) & 3), d + 1, tail);	//'L'
+			tail = this.visit((m * numRooms + r) * 4 + ((h + 1) & 3), d + 1, tail);	//'R'
+			int n = board.neighbor(r, h);
+			if(n < 0) continue;
+			int w = wasteIndexOf[n];
+			boolean liveWaste = w >= 0 && (killed & (1L << w)) == 0;
+			if(!board.isPit(n) && !liveWaste) {
+				tail = this.visit((m * numRooms + n) * 4 + h, d + 1, tail);	//'F'
+			}
+			if(liveWaste && Long.bitCount(killed) < disinfectants) {	//'S'
+				int m2 = this.maskIndexOf(killed | (1L << w), numRooms);
+				tail = this.visit((m2 * numRooms + r) * 4 + h, d + 1, tail);
+			}
+		}
+		return UNSOLVABLE;
+	}
+
+	/* Enqueues the given state at the given distance, unless it has been seen. Returns the new tail of the queue. */
+	private int visit(int s, int d, int tail) {
+		if(stamp[s] == currentStamp) return tail;
+		stamp[s] = currentStamp;
+		dist[s] = d;
+		if(tail == queue.length) queue = Arrays.copyOf(queue, tail * 2);
+		queue[tail] = s;
+		return tail + 1;
+	}
+
+	/* The index of the given set of wastes disinfected, which is added (and the state buffers grown) if it is new. */
+	private int maskIndexOf(long mask, int numRooms) {
+		for(int k = 0; k < numMasks; k++) {
+			if(masks[k] == mask) return k;
+		}
+		if(numMasks == masks.length) masks = Arrays.copyOf(masks, numMasks * 2);
+		masks[numMasks] = mask;
+		int numStates = (numMasks + 1) * numRooms * 4;
+		if(stamp.length < numStates) {
+			int n = Math.max(numStates, stamp.length * 2);
+			stamp = Arrays.copyOf(stamp, n);
+			dist = Arrays.copyOf(dist, n);
+		}
+		return numMasks++;
+	}
+}
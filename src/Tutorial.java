@@ -10,6 +10,16 @@ import javax.swing.SwingUtilities;
  *  Purpose -
  */
 public class Tutorial {
+	/* The board used for the tutorial. */
+	public static final String[][] LAYOUT =
+			{{"", "", "P", "", "", ""},
+			 {"", "W", "", "", "", ""},
+			 {"", "", "", "", "", ""},
+			 {"P", "", "P", "", "G", ""},
+			 {"P", "", "", "", "", ""},
+			 {"", "", "W", "", "", ""},
+			};
+
 	private SAR sar;
 	private String[] tutorialStrArr;
 	private int totalPagesOfTutorial, currentPage;
@@ -103,14 +113,7 @@ public class Tutorial {
 		sar.instrSetFont(sar.instructions.getFont().deriveFont(18f));
 
 		//Create custom board for tutorial.
-		sar.board = new Board(new String[][]
-				{{"", "", "P", "", "", ""},
-				{"", "W", "", "", "", ""},
-				{"", "", "", "", "", ""},
-				{"P", "", "P", "", "G", ""},
-				{"P", "", "", "", "", ""},
-				{"", "", "W", "", "", ""},
-				});
+		sar.engine.setBoard(new Board(Tutorial.LAYOUT));
 
 		Cell startRoom;
 		CellAsPerceivedByAI startRoomAI;
@@ -222,7 +225,7 @@ public class Tutorial {
 	public void checkTutorialStatus(String command) {
 		//Base case: if robot has been destroyed, then display game over message and
 		//allow user to restart tutorial
-		if (sar.currentState == SAR.GameState.DRAW) {	//this means robot has been killed
+		if (sar.engine.getState() == MissionEngine.GameState.DRAW) {	//this means robot has been killed
 			this.showMissionFailureInstruction();
 			return;
 		}
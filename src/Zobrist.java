@@ -0,0 +1,74 @@
+/** Class: Zobrist.java
+ *  @author Yury Park
+ *  @version 1.0 <p>
+ *  Course: HRI
+ *
+ *  This class - the Zobrist class.
+ *  Purpose - The keys of the 64-bit Zobrist hashes kept by a board perceived by AI (see Board.getZobristHash()) and by
+ *  a player (see Player.getZobristHash()), i.e. cheap fingerprints of what the AI knows, for caches, transposition tables
+ *  and the like.
+ *
+ *  A Zobrist hash is the XOR of one random key per feature of the state that is present, e.g. "room 7 is explored" or
+ *  "the player faces south". Since XOR is its own inverse, a change of one feature is hashed in O(1) by XORing out the key
+ *  of the old feature and XORing in the key of the new one, however large the board. The hashed features are:
+ *
+ *  - per room: whether it is explored, its perceptions (see Cell.getPerceptions()) and its probabilities of a pit and
+ *  a waste, quantized by level(), so that most small changes of a probability don't change the hash;
+ *  - per player: its room, direction and no. of disinfectants left.
+ *
+ *  Rather than kept in a table (whose size would depend on the largest board), the key of a feature is computed from its
+ *  number by the SplitMix64 finalizer (see BitBoard.mix64()), which is what such a table is usually filled with anyway.
+ *  So the keys are the same in every run, and a hash can be recorded and compared across runs.
+ */
+public class Zobrist {
+	public static final int QUANTUM = 10;	//the probabilities are hashed in steps of this many % (so in 13 levels). See level().
+
+	/* The features of a room (or player) with index i are numbered i * NUM_FEATURES + (one of the following). */
+	static final int EXPLORED = 0;
+	static final int PERCEPTIONS = 1;			//+ the perception flags, from 1 to 31
+	static final int PIT = 33;					//+ level(probability of a pit), from 0 to 12
+	static final int WASTES = PIT + 13;			//+ level(probability of a waste)
+	static final int PLAYER_ROOM = WASTES + 13;	//of the room the player is in
+	static final int PLAYER_DIR = PLAYER_ROOM + 1;	//of index 0; + the direction
+	static final int PLAYER_DISINFECTANTS = PLAYER_DIR + 4;	//of index (no. of disinfectants)
+	private static final int NUM_FEATURES = 128;	//must exceed every feature above, or the keys of neighboring indexes collide
+	private static final long SEED = 0x2545F4914F6CDD1DL;
+
+	static {
+		if(PLAYER_DISINFECTANTS >= NUM_FEATURES) throw new AssertionError("Zobrist features overflow NUM_FEATURES");
+	}
+
+	/**
+	 * Method: key
+	 * @param index the index of a room (or, for PLAYER_DIR and PLAYER_DISINFECTANTS, as documented above)
+	 * @param feature one of the features above
+	 * @return the key of the given feature of the given room.
+	 */
+	static long key(int index, int feature) {
+		return BitBoard.mix64(SEED + ((long)index * NUM_FEATURES + feature) * 0x9E3779B97F4A7C15L);
+	}
+
+	/**
+	 * Method: level
+	 * Quantizes a probability held by the AI: 0% (guaranteed safe) and 100% (certain) keep levels of their own, as does
+	 * CellAsPerceivedByAI.DUMMY_PROBABILITY (no clue either way), and 1..99% are hashed in steps of QUANTUM %.
+	 * @param probability a probability in %, or CellAsPerceivedByAI.DUMMY_PROBABILITY
+	 * @return the level, from 0 to 12
+	 */
+	static int level(int probability) {
+		if(probability <= 0) return 0;
+		if(probability >= 100) return probability == 100 ? 11 : 12;
+		return 1 + (probability - 1) / QUANTUM;
+	}
+
+	/**
+	 * Method: ofPlayer
+	 * @param room the index of the room a player is in
+	 * @param dir the direction it faces
+	 * @param disinfectants the no. of disinfectants it has left
+	 * @return the Zobrist hash of such a player.
+	 */
+	static long ofPlayer(int room, int dir, int disinfectants) {
+		return key(room, PLAYER_ROOM) ^ key(0, PLAYER_DIR + dir) ^ key(disinfectants, PLAYER_DISINFECTANTS);
+	}
+}